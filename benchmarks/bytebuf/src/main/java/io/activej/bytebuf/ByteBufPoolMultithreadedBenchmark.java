@@ -5,6 +5,7 @@ import io.activej.inject.annotation.Inject;
 import io.activej.inject.annotation.Provides;
 import io.activej.launcher.Launcher;
 
+import static io.activej.config.converter.ConfigConverters.ofBoolean;
 import static io.activej.config.converter.ConfigConverters.ofInteger;
 
 public class ByteBufPoolMultithreadedBenchmark extends Launcher {
@@ -13,11 +14,13 @@ public class ByteBufPoolMultithreadedBenchmark extends Launcher {
 		final int number;
 		final int allocationSize;
 		final int iterations;
+		final boolean verbose;
 
-		public ByteBufPoolAbuser(int allocationSize, int iterations, int number) {
+		public ByteBufPoolAbuser(int allocationSize, int iterations, int number, boolean verbose) {
 			this.allocationSize = allocationSize;
 			this.iterations = iterations;
 			this.number = number;
+			this.verbose = verbose;
 		}
 
 		@Override
@@ -28,7 +31,7 @@ public class ByteBufPoolMultithreadedBenchmark extends Launcher {
 				buf.recycle();
 			}
 			long res = System.currentTimeMillis() - start;
-			System.out.println("Thread #" + number + " ends its job. Time : " + res + " ms.");
+			if (verbose) System.out.println("Thread #" + number + " ends its job. Time : " + res + " ms.");
 		}
 	}
 
@@ -52,6 +55,7 @@ public class ByteBufPoolMultithreadedBenchmark extends Launcher {
 	private int iterations;
 	private int warmupRounds;
 	private int measureRounds;
+	private boolean scaling;
 
 	@Override
 	protected void onStart() throws Exception {
@@ -60,11 +64,16 @@ public class ByteBufPoolMultithreadedBenchmark extends Launcher {
 		this.iterations = config.get(ofInteger(), "benchmark.iterations", ITERATIONS);
 		this.warmupRounds = config.get(ofInteger(), "benchmark.warmupRounds", WARMUP_ROUNDS);
 		this.measureRounds = config.get(ofInteger(), "benchmark.measureRounds", BENCHMARK_ROUNDS);
+		this.scaling = config.get(ofBoolean(), "benchmark.scaling", false);
 		super.onStart();
 	}
 
 	@Override
 	protected void run() throws Exception {
+		if (scaling) {
+			runScaling();
+			return;
+		}
 		long timeAllRounds = 0;
 		long bestTime = -1;
 		long worstTime = -1;
@@ -105,11 +114,41 @@ public class ByteBufPoolMultithreadedBenchmark extends Launcher {
 				bestTime + "ms; Worst time: " + worstTime + "ms; Requests per second: " + avgRps);
 	}
 
+	/**
+	 * Measures throughput for 1, 2, 4, ... up to {@code benchmark.threads} threads.
+	 * <p>
+	 * Run with {@code -DByteBufPool.threadLocalCache=true} to compare scaling
+	 * of thread local magazines against shared slabs only.
+	 */
+	private void runScaling() throws InterruptedException {
+		System.out.println("Thread local cache: " + ByteBufPool.USE_THREAD_LOCAL_CACHE);
+		System.out.println("Warming up ...");
+		for (int i = 0; i < warmupRounds; i++) {
+			round(threads, false);
+		}
+
+		System.out.println("Threads,AverageTime(ms),RPS,RPS per thread");
+		for (int t = 1; ; t = Math.min(t * 2, threads)) {
+			long timeAllRounds = 0;
+			for (int i = 0; i < measureRounds; i++) {
+				timeAllRounds += round(t, false);
+			}
+			double avgTime = (double) timeAllRounds / measureRounds;
+			long avgRps = Math.round(iterations / Math.max(avgTime, 1) * 1000L * t);
+			System.out.println(t + "," + String.format("%.1f", avgTime) + "," + avgRps + "," + avgRps / t);
+			if (t == threads) break;
+		}
+	}
+
 	private long round() throws InterruptedException {
+		return round(threads, true);
+	}
+
+	private long round(int threads, boolean verbose) throws InterruptedException {
 		long start = System.currentTimeMillis();
 		Thread[] abusers = new Thread[threads];
 		for (int i = 0; i < threads; ++i) {
-			abusers[i] = new Thread(new ByteBufPoolAbuser(allocationSize, iterations, i));
+			abusers[i] = new Thread(new ByteBufPoolAbuser(allocationSize, iterations, i, verbose));
 			abusers[i].start();
 		}
 
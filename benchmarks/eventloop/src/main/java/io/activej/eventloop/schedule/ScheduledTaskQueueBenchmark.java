@@ -0,0 +1,83 @@
+package io.activej.eventloop.schedule;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link PriorityScheduledTaskQueue} and {@link TimingWheelScheduledTaskQueue}
+ * with a number of pending timers, which is typical for servers that keep a timeout per connection or request
+ */
+@State(Scope.Benchmark)
+public class ScheduledTaskQueueBenchmark {
+	private static final Runnable NOOP = () -> {};
+	private static final int MAX_DELAY = 30_000;
+
+	@Param({"heap", "wheel"})
+	public String queueType;
+
+	@Param({"1000", "100000"})
+	public int pendingTasks;
+
+	private final Random random = new Random(0);
+	private ScheduledTaskQueue queue;
+	private long currentTime;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		currentTime = 0;
+		queue = "heap".equals(queueType) ?
+				PriorityScheduledTaskQueue.create() :
+				TimingWheelScheduledTaskQueue.create(() -> currentTime);
+		for (int i = 0; i < pendingTasks; i++) {
+			queue.add(ScheduledRunnable.create(random.nextInt(MAX_DELAY), NOOP));
+		}
+	}
+
+	/**
+	 * A timeout which is scheduled and then cancelled before it expires
+	 */
+	@Benchmark
+	public void scheduleCancel() {
+		ScheduledRunnable task = ScheduledRunnable.create(currentTime + MAX_DELAY + random.nextInt(MAX_DELAY), NOOP);
+		queue.add(task);
+		task.cancel();
+		queue.poll(currentTime);
+	}
+
+	/**
+	 * A timer which is scheduled and then expires while time goes on
+	 */
+	@Benchmark
+	public void scheduleExpire(Blackhole blackhole) {
+		currentTime++;
+		queue.add(ScheduledRunnable.create(currentTime + random.nextInt(MAX_DELAY), NOOP));
+		for (ScheduledRunnable task; (task = queue.poll(currentTime)) != null; ) {
+			blackhole.consume(task);
+		}
+		blackhole.consume(queue.getNextTimestamp());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		Options opt = new OptionsBuilder()
+				.include(ScheduledTaskQueueBenchmark.class.getSimpleName())
+				.forks(2)
+				.warmupIterations(3)
+				.warmupTime(TimeValue.seconds(1L))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(2L))
+				.mode(Mode.AverageTime)
+				.timeUnit(TimeUnit.NANOSECONDS)
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,90 @@
+package io.activej.http;
+
+import io.activej.promise.Promise;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.activej.http.HttpMethod.GET;
+
+/**
+ * Compares routing of requests by {@link RoutingServlet} and by {@link CompiledRoutingServlet}
+ * with a number of static routes, each followed by a path parameter, e.g. {@code /route123/:id/details}.
+ * <p>
+ * A request is created on each invocation, so {@link #requestOnly} gives a baseline to subtract
+ */
+@State(Scope.Benchmark)
+public class RoutingServletBenchmark {
+	private static final Promise<HttpResponse> RESPONSE = Promise.of(HttpResponse.ok200());
+	private static final int URLS = 1024;
+
+	@Param({"10", "100", "1000"})
+	public int routes;
+
+	private AsyncServlet routingServlet;
+	private AsyncServlet compiledServlet;
+	private String[] urls;
+	private int index;
+
+	@Setup
+	public void setup() {
+		RoutingServlet servlet = RoutingServlet.create();
+		for (int i = 0; i < routes; i++) {
+			servlet.map(GET, "/route" + i + "/:id/details", request -> RESPONSE);
+			servlet.map(GET, "/route" + i + "/list", request -> RESPONSE);
+		}
+		routingServlet = servlet;
+		compiledServlet = servlet.compile();
+
+		Random random = new Random(0);
+		urls = new String[URLS];
+		for (int i = 0; i < URLS; i++) {
+			int route = random.nextInt(routes);
+			urls[i] = random.nextBoolean() ?
+					"http://example.com/route" + route + "/" + random.nextInt(1_000_000) + "/details" :
+					"http://example.com/route" + route + "/list";
+		}
+	}
+
+	@Benchmark
+	public void requestOnly(Blackhole blackhole) {
+		blackhole.consume(HttpRequest.get(nextUrl()));
+	}
+
+	@Benchmark
+	public void routing(Blackhole blackhole) throws Exception {
+		blackhole.consume(routingServlet.serve(HttpRequest.get(nextUrl())));
+	}
+
+	@Benchmark
+	public void compiled(Blackhole blackhole) throws Exception {
+		blackhole.consume(compiledServlet.serve(HttpRequest.get(nextUrl())));
+	}
+
+	private String nextUrl() {
+		return urls[index++ & (URLS - 1)];
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		Options opt = new OptionsBuilder()
+				.include(RoutingServletBenchmark.class.getSimpleName())
+				.forks(2)
+				.warmupIterations(3)
+				.warmupTime(TimeValue.seconds(1L))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(2L))
+				.mode(Mode.AverageTime)
+				.timeUnit(TimeUnit.NANOSECONDS)
+				.build();
+
+		new Runner(opt).run();
+	}
+}
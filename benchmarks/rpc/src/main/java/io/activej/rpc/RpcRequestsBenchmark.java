@@ -0,0 +1,127 @@
+package io.activej.rpc;
+
+import io.activej.async.callback.Callback;
+import io.activej.eventloop.Eventloop;
+import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
+import io.activej.rpc.client.RpcClient;
+import io.activej.rpc.server.RpcServer;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static io.activej.eventloop.error.FatalErrorHandlers.rethrowOnAnyError;
+import static io.activej.rpc.client.sender.RpcStrategies.server;
+import static java.lang.Math.min;
+
+/**
+ * Measures a round of {@link #REQUESTS} requests sent over a single connection,
+ * keeping up to {@link #activeRequests} of them in flight at once.
+ * <p>
+ * A {@link #timeout} of {@code 0} sends requests without a timeout,
+ * otherwise each request carries a deadline that has to be tracked by the connection
+ */
+@State(Scope.Benchmark)
+public class RpcRequestsBenchmark {
+	private static final int REQUESTS = 100_000;
+	private static final int PORT = 25565;
+
+	@Param({"1000", "10000"})
+	public int activeRequests;
+
+	@Param({"0", "1000"})
+	public int timeout;
+
+	private Eventloop eventloop;
+	private Thread eventloopThread;
+	private RpcServer server;
+	private RpcClient client;
+
+	private int sent;
+	private int completed;
+
+	@Setup
+	public void setup() throws Exception {
+		eventloop = Eventloop.create().withFatalErrorHandler(rethrowOnAnyError());
+		eventloop.keepAlive(true);
+		eventloopThread = new Thread(eventloop);
+		eventloopThread.start();
+
+		server = RpcServer.create(eventloop)
+				.withMessageTypes(Integer.class)
+				.withHandler(Integer.class, Promise::of)
+				.withListenPort(PORT);
+		client = RpcClient.create(eventloop)
+				.withMessageTypes(Integer.class)
+				.withStrategy(server(new InetSocketAddress(PORT)));
+
+		eventloop.submit(server::listen).get();
+		eventloop.submit(() -> client.start()).get();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		eventloop.submit(() -> client.stop()).get();
+		eventloop.submit(() -> server.close()).get();
+		eventloop.keepAlive(false);
+		eventloopThread.join();
+	}
+
+	@Benchmark
+	public void requests() throws Exception {
+		eventloop.submit(this::round).get();
+	}
+
+	private Promise<Void> round() {
+		SettablePromise<Void> promise = new SettablePromise<>();
+		sent = 0;
+		completed = 0;
+
+		Callback<Integer> callback = new Callback<Integer>() {
+			@Override
+			public void accept(Integer result, @Nullable Exception e) {
+				if (++completed == REQUESTS) {
+					promise.set(null);
+				} else if (sent < REQUESTS) {
+					send(this);
+				}
+			}
+		};
+
+		for (int i = 0; i < min(activeRequests, REQUESTS); i++) {
+			send(callback);
+		}
+		return promise;
+	}
+
+	private void send(Callback<Integer> callback) {
+		if (timeout == 0) {
+			client.sendRequest(sent++, callback);
+		} else {
+			client.sendRequest(sent++, timeout, callback);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+
+		Options opt = new OptionsBuilder()
+				.include(RpcRequestsBenchmark.class.getSimpleName())
+				.forks(2)
+				.warmupIterations(3)
+				.warmupTime(TimeValue.seconds(1L))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(2L))
+				.mode(Mode.AverageTime)
+				.timeUnit(TimeUnit.MILLISECONDS)
+				.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -30,6 +30,9 @@ public class SerializerBenchmark {
 			.withCompatibilityLevel(LEVEL_3_LE)
 			// .withGeneratedBytecodePath(Paths.get("tmp").toAbsolutePath())
 			.build(TestData.class);
+	private static final BinarySerializer<StringData> stringSerializer = SerializerBuilder.create(definingClassLoader)
+			.withCompatibilityLevel(LEVEL_3_LE)
+			.build(StringData.class);
 	private static final byte[] array = new byte[10000];
 
 	public static class TestData {
@@ -161,8 +164,30 @@ public class SerializerBenchmark {
 		public long y;
 	}
 
+	public static class StringData {
+		@Serialize
+		@SerializeStringFormat(UTF8)
+		public String url = "https://example.com/catalog/items?category=books&sort=price&page=12";
+		@Serialize
+		@SerializeStringFormat(UTF8)
+		public String userAgent = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/96.0 Safari/537.36";
+		@Serialize
+		@SerializeStringFormat(UTF8)
+		public String site = "example.com";
+		@Serialize
+		@SerializeStringFormat(UTF8)
+		public String city = "Zürich";
+		@Serialize
+		@SerializeStringFormat(ISO_8859_1)
+		public String referrer = "https://search.example.org/?q=activej+serializer";
+		@Serialize
+		@SerializeStringFormat(UTF8_MB3)
+		public String campaign = "winter-sale-2021-newsletter";
+	}
+
 	TestData testData1 = new TestData();
 	TestData testData2;
+	StringData stringData = new StringData();
 
 	@Setup
 	public void setup() {
@@ -183,6 +208,12 @@ public class SerializerBenchmark {
 		blackhole.consume(serializer.decode(array, 0));
 	}
 
+	@Benchmark
+	public void measureStringSerialization(Blackhole blackhole) {
+		blackhole.consume(stringSerializer.encode(array, 0, stringData));
+		blackhole.consume(stringSerializer.decode(array, 0));
+	}
+
 	public static void main(String[] args) throws RunnerException {
 		Options opt = new OptionsBuilder()
 				.include(SerializerBenchmark.class.getSimpleName())
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.client;
+
+import io.activej.async.callback.Callback;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Integer.highestOneBit;
+
+/**
+ * An open-addressing table of callbacks of active requests, keyed by request cookies.
+ * <p>
+ * Cookies are stored unboxed and are placed by linear probing, and removals shift entries back
+ * instead of leaving tombstones, so neither insertion nor removal allocates unless the table is resized.
+ * As cookies are assigned sequentially, their low bits are used as hashes directly.
+ * <p>
+ * The table grows when it is half full and shrinks when less than 1/8 of it is used,
+ * so that its capacity, and hence the cost of a sweep, follows the number of requests in flight after a burst.
+ * <p>
+ * Each entry may have a deadline, so that timed out requests are found by a periodic {@link #expire sweep}
+ * instead of scheduling a task per request.
+ */
+final class RpcCallbackTable {
+	static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final int minCapacity;
+
+	private int[] cookies;
+	private Callback<?>[] callbacks;
+	private long[] deadlines;
+	private int mask;
+	private int size;
+	// an upper bound of a distance between an entry and its home slot, which limits a backward shift on removal
+	private int maxDisplacement;
+	private int deadlinesCount;
+
+	RpcCallbackTable() {
+		this(INITIAL_CAPACITY);
+	}
+
+	RpcCallbackTable(int initialCapacity) {
+		int capacity = Math.max(INITIAL_CAPACITY, highestOneBit(initialCapacity - 1) << 1);
+		this.minCapacity = capacity;
+		this.cookies = new int[capacity];
+		this.callbacks = new Callback<?>[capacity];
+		this.deadlines = new long[capacity];
+		this.mask = capacity - 1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	boolean hasDeadlines() {
+		return deadlinesCount != 0;
+	}
+
+	int capacity() {
+		return callbacks.length;
+	}
+
+	/**
+	 * Puts a callback of a request with a new cookie, which must not be present in this table
+	 */
+	void put(int cookie, Callback<?> callback, long deadline) {
+		if (size >= callbacks.length >>> 1) {
+			resize(callbacks.length << 1);
+		}
+		int i = cookie & mask;
+		while (callbacks[i] != null) {
+			assert cookies[i] != cookie;
+			i = (i + 1) & mask;
+		}
+		maxDisplacement = Math.max(maxDisplacement, (i - cookie) & mask);
+		cookies[i] = cookie;
+		callbacks[i] = callback;
+		deadlines[i] = deadline;
+		size++;
+		if (deadline != NO_DEADLINE) deadlinesCount++;
+	}
+
+	@Nullable Callback<?> get(int cookie) {
+		int i = indexOf(cookie);
+		return i != -1 ? callbacks[i] : null;
+	}
+
+	@Nullable Callback<?> remove(int cookie) {
+		int i = indexOf(cookie);
+		if (i == -1) return null;
+		Callback<?> callback = callbacks[i];
+		removeAt(i);
+		shrinkIfSparse();
+		return callback;
+	}
+
+	/**
+	 * Removes all entries whose deadlines have passed and adds their callbacks to the given list.
+	 * Callbacks are not called here, so that they may send new requests
+	 */
+	void expire(long timestamp, List<Callback<?>> expired) {
+		if (deadlinesCount == 0) return;
+		for (int i = 0; i < callbacks.length; ) {
+			if (callbacks[i] != null && deadlines[i] <= timestamp) {
+				expired.add(callbacks[i]);
+				// an entry is shifted into the removed slot, so it is checked again
+				removeAt(i);
+			} else {
+				i++;
+			}
+		}
+		shrinkIfSparse();
+	}
+
+	List<Callback<?>> removeAll() {
+		List<Callback<?>> result = new ArrayList<>(size);
+		for (int i = 0; i < callbacks.length; i++) {
+			if (callbacks[i] != null) {
+				result.add(callbacks[i]);
+				callbacks[i] = null;
+			}
+		}
+		size = 0;
+		deadlinesCount = 0;
+		maxDisplacement = 0;
+		return result;
+	}
+
+	private int indexOf(int cookie) {
+		int i = cookie & mask;
+		while (true) {
+			if (callbacks[i] == null) return -1;
+			if (cookies[i] == cookie) return i;
+			i = (i + 1) & mask;
+		}
+	}
+
+	private void removeAt(int i) {
+		if (deadlines[i] != NO_DEADLINE) deadlinesCount--;
+		size--;
+		// shifts back subsequent entries of the probe sequence, so that lookups do not stop at the emptied slot
+		int hole = i;
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			// entries further than the maximum displacement from the hole cannot be shifted into it
+			if (callbacks[j] == null || ((j - hole) & mask) > maxDisplacement) break;
+			int home = cookies[j] & mask;
+			if (((j - home) & mask) >= ((j - hole) & mask)) {
+				cookies[hole] = cookies[j];
+				callbacks[hole] = callbacks[j];
+				deadlines[hole] = deadlines[j];
+				hole = j;
+			}
+		}
+		callbacks[hole] = null;
+	}
+
+	private void shrinkIfSparse() {
+		int capacity = callbacks.length;
+		while (capacity > minCapacity && size < capacity >>> 3) {
+			capacity >>>= 1;
+		}
+		if (capacity != callbacks.length) {
+			resize(capacity);
+		}
+	}
+
+	private void resize(int capacity) {
+		int[] oldCookies = cookies;
+		Callback<?>[] oldCallbacks = callbacks;
+		long[] oldDeadlines = deadlines;
+		cookies = new int[capacity];
+		callbacks = new Callback<?>[capacity];
+		deadlines = new long[capacity];
+		mask = capacity - 1;
+		maxDisplacement = 0;
+		for (int i = 0; i < oldCallbacks.length; i++) {
+			if (oldCallbacks[i] == null) continue;
+			int j = oldCookies[i] & mask;
+			while (callbacks[j] != null) {
+				j = (j + 1) & mask;
+			}
+			maxDisplacement = Math.max(maxDisplacement, (j - oldCookies[i]) & mask);
+			cookies[j] = oldCookies[i];
+			callbacks[j] = oldCallbacks[i];
+			deadlines[j] = oldDeadlines[i];
+		}
+	}
+}
@@ -25,6 +25,7 @@ import io.activej.common.Checks;
 import io.activej.common.MemSize;
 import io.activej.common.initializer.WithInitializer;
 import io.activej.csp.process.frames.FrameFormat;
+import io.activej.datastream.StreamSupplier;
 import io.activej.datastream.csp.ChannelSerializer;
 import io.activej.eventloop.Eventloop;
 import io.activej.eventloop.jmx.EventloopJmxBeanWithStats;
@@ -93,6 +94,7 @@ public final class RpcClient implements IRpcClient, EventloopService, WithInitia
 	public static final Duration DEFAULT_CONNECT_TIMEOUT = ApplicationSettings.getDuration(RpcClient.class, "connectTimeout", Duration.ZERO);
 	public static final Duration DEFAULT_RECONNECT_INTERVAL = ApplicationSettings.getDuration(RpcClient.class, "reconnectInterval", Duration.ZERO);
 	public static final MemSize DEFAULT_PACKET_SIZE = ApplicationSettings.getMemSize(RpcClient.class, "packetSize", ChannelSerializer.DEFAULT_INITIAL_BUFFER_SIZE);
+	public static final int DEFAULT_STREAM_WINDOW = ApplicationSettings.getInt(RpcClient.class, "streamWindow", 256);
 
 	private static final RpcException START_EXCEPTION = new RpcException("Could not establish initial connection");
 	private static final RpcException NO_SENDER_AVAILABLE_EXCEPTION = new RpcException("No senders available");
@@ -115,6 +117,7 @@ public final class RpcClient implements IRpcClient, EventloopService, WithInitia
 	private @Nullable FrameFormat frameFormat;
 	private Duration autoFlushInterval = Duration.ZERO;
 	private Duration keepAliveInterval = Duration.ZERO;
+	private int streamWindow = DEFAULT_STREAM_WINDOW;
 
 	private List<Class<?>> messageTypes;
 	private long connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT.toMillis();
@@ -236,6 +239,15 @@ public final class RpcClient implements IRpcClient, EventloopService, WithInitia
 		return this;
 	}
 
+	/**
+	 * Sets a number of streamed responses which a server may send ahead of their consumption
+	 */
+	public RpcClient withStreamWindow(int streamWindow) {
+		Checks.checkArgument(streamWindow > 0, "Stream window must be positive");
+		this.streamWindow = streamWindow;
+		return this;
+	}
+
 	/**
 	 * Waits for a specified time before connecting.
 	 *
@@ -351,7 +363,8 @@ public final class RpcClient implements IRpcClient, EventloopService, WithInitia
 							wrapClientSocket(asyncTcpSocketImpl, sslContext, sslExecutor);
 					RpcStream stream = new RpcStream(socket, serializer, defaultPacketSize,
 							autoFlushInterval, frameFormat, false); // , statsSerializer, statsDeserializer, statsCompressor, statsDecompressor);
-					RpcClientConnection connection = new RpcClientConnection(eventloop, this, address, stream, keepAliveInterval.toMillis());
+					RpcClientConnection connection = new RpcClientConnection(eventloop, this, address, stream,
+							keepAliveInterval.toMillis(), streamWindow);
 					stream.setListener(connection);
 
 					// jmx
@@ -429,6 +442,41 @@ public final class RpcClient implements IRpcClient, EventloopService, WithInitia
 		requestSender.sendRequest(request, cb);
 	}
 
+	/**
+	 * Sends the request to a server which answers it with a stream of responses.
+	 * <p>
+	 * Responses are multiplexed with other requests over the same connection,
+	 * and a server only sends as many of them ahead as a {@link #withStreamWindow stream window} allows.
+	 * A request is sent to a single connection, so strategies which need several
+	 * connections for a request do not support streaming.
+	 *
+	 * @param <I>     request class
+	 * @param <O>     response class
+	 * @param request request to a server
+	 * @return a supplier of responses, which ends when a server ends the stream
+	 */
+	public <I, O> StreamSupplier<O> sendStreamRequest(I request) {
+		if (CHECK) Checks.checkState(eventloop.inEventloopThread(), "Not in eventloop thread");
+		return requestSender.sendStreamRequest(request);
+	}
+
+	/**
+	 * Sends the request to a server followed by a stream of items.
+	 * <p>
+	 * Items are only sent as fast as a server consumes them.
+	 *
+	 * @param <I>     request class
+	 * @param <T>     item class
+	 * @param <O>     response class
+	 * @param request request to a server
+	 * @param items   items to be uploaded
+	 * @return a promise of a response, which a server may send before all items are uploaded
+	 */
+	public <I, T, O> Promise<O> sendUploadRequest(I request, StreamSupplier<T> items) {
+		if (CHECK) Checks.checkState(eventloop.inEventloopThread(), "Not in eventloop thread");
+		return requestSender.sendUploadRequest(request, items);
+	}
+
 	private void rediscover() {
 		if (stopPromise != null) return;
 
@@ -503,6 +551,17 @@ public final class RpcClient implements IRpcClient, EventloopService, WithInitia
 		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
 			cb.accept(null, NO_SENDER_AVAILABLE_EXCEPTION);
 		}
+
+		@Override
+		public <I, O> StreamSupplier<O> sendStreamRequest(I request) {
+			return StreamSupplier.closingWithError(NO_SENDER_AVAILABLE_EXCEPTION);
+		}
+
+		@Override
+		public <I, T, O> Promise<O> sendUploadRequest(I request, StreamSupplier<T> items) {
+			items.closeEx(NO_SENDER_AVAILABLE_EXCEPTION);
+			return Promise.ofException(NO_SENDER_AVAILABLE_EXCEPTION);
+		}
 	}
 
 	private static final class NoServersStrategy implements RpcStrategy {
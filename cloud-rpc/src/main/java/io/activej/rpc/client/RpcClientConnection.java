@@ -19,16 +19,19 @@ package io.activej.rpc.client;
 import io.activej.async.callback.Callback;
 import io.activej.async.exception.AsyncCloseException;
 import io.activej.async.exception.AsyncTimeoutException;
+import io.activej.common.ApplicationSettings;
 import io.activej.common.Checks;
-import io.activej.common.recycle.Recyclers;
 import io.activej.common.time.Stopwatch;
 import io.activej.datastream.StreamDataAcceptor;
+import io.activej.datastream.StreamSupplier;
 import io.activej.eventloop.Eventloop;
 import io.activej.eventloop.schedule.ScheduledRunnable;
 import io.activej.jmx.api.JmxRefreshable;
 import io.activej.jmx.api.attribute.JmxAttribute;
 import io.activej.jmx.api.attribute.JmxReducers.JmxReducerSum;
 import io.activej.jmx.stats.EventStats;
+import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
 import io.activej.rpc.client.jmx.RpcRequestStats;
 import io.activej.rpc.client.sender.RpcSender;
 import io.activej.rpc.protocol.*;
@@ -37,9 +40,10 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -53,6 +57,11 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 	private static final RpcException CONNECTION_UNRESPONSIVE = new RpcException("Unresponsive connection");
 	private static final RpcOverloadException RPC_OVERLOAD_EXCEPTION = new RpcOverloadException("RPC client is overloaded");
 
+	/**
+	 * Timed out requests are expired by a periodic sweep, so they may complete later by up to this interval
+	 */
+	public static final Duration TIMEOUT_SWEEP_INTERVAL = ApplicationSettings.getDuration(RpcClientConnection.class, "timeoutSweepInterval", Duration.ofMillis(10));
+
 	private StreamDataAcceptor<RpcMessage> downstreamDataAcceptor = null;
 	private boolean overloaded = false;
 	private boolean closed;
@@ -61,7 +70,11 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 	private final RpcClient rpcClient;
 	private final RpcStream stream;
 	private final InetSocketAddress address;
-	private final Map<Integer, Callback<?>> activeRequests = new HashMap<>();
+	private final RpcCallbackTable activeRequests = new RpcCallbackTable();
+	private @Nullable ScheduledRunnable expirationSweep;
+	private final Map<Integer, RpcStreamReceiver<?>> receivers = new HashMap<>();
+	private final Map<Integer, RpcStreamSender<?>> senders = new HashMap<>();
+	private final int streamWindow;
 
 	private ArrayList<RpcMessage> initialBuffer = new ArrayList<>();
 
@@ -79,12 +92,13 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 	private boolean pongReceived;
 
 	RpcClientConnection(Eventloop eventloop, RpcClient rpcClient, InetSocketAddress address, RpcStream stream,
-			long keepAliveMillis) {
+			long keepAliveMillis, int streamWindow) {
 		this.eventloop = eventloop;
 		this.rpcClient = rpcClient;
 		this.stream = stream;
 		this.address = address;
 		this.keepAliveMillis = keepAliveMillis;
+		this.streamWindow = streamWindow;
 
 		// JMX
 		this.monitoring = false;
@@ -110,11 +124,10 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 			}
 
 			if (timeout == Integer.MAX_VALUE) {
-				activeRequests.put(cookie, cb);
+				activeRequests.put(cookie, cb, RpcCallbackTable.NO_DEADLINE);
 			} else {
-				ScheduledCallback<O> scheduledCallback = new ScheduledCallback<>(cookie, cb);
-				scheduledCallback.scheduledRunnable = eventloop.delayBackground(timeout, scheduledCallback);
-				activeRequests.put(cookie, scheduledCallback);
+				activeRequests.put(cookie, cb, eventloop.currentTimeMillis() + timeout);
+				ensureExpirationSweep();
 			}
 
 			downstreamDataAcceptor.accept(RpcMessage.of(cookie, request));
@@ -123,42 +136,29 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		}
 	}
 
-	private class ScheduledCallback<O> implements Runnable, Callback<O> {
-		ScheduledRunnable scheduledRunnable;
-		final Callback<O> cb;
-		final int cookie;
-
-		ScheduledCallback(int cookie, @NotNull Callback<O> cb) {
-			this.cookie = cookie;
-			this.cb = cb;
-		}
-
-		@Override
-		public void accept(O result, @Nullable Exception e) {
-			if (scheduledRunnable != null) {
-				scheduledRunnable.cancel();
-				cb.accept(result, e);
-			} else {
-				Recyclers.recycle(result);
-			}
+	private void ensureExpirationSweep() {
+		if (expirationSweep == null) {
+			expirationSweep = eventloop.delayBackground(TIMEOUT_SWEEP_INTERVAL.toMillis(), this::expireRequests);
 		}
+	}
 
-		@Override
-		public void run() {
-			scheduledRunnable = null;
-			Callback<?> expiredCb = activeRequests.remove(cookie);
-			if (expiredCb != null) {
-				assert expiredCb == this;
-				// jmx
-				connectionStats.getExpiredRequests().recordEvent();
-				rpcClient.getGeneralRequestsStats().getExpiredRequests().recordEvent();
+	private void expireRequests() {
+		expirationSweep = null;
+		List<Callback<?>> expired = new ArrayList<>();
+		activeRequests.expire(eventloop.currentTimeMillis(), expired);
+		for (Callback<?> cb : expired) {
+			// jmx
+			connectionStats.getExpiredRequests().recordEvent();
+			rpcClient.getGeneralRequestsStats().getExpiredRequests().recordEvent();
 
-				cb.accept(null, new AsyncTimeoutException("RPC request has timed out"));
-			}
+			cb.accept(null, new AsyncTimeoutException("RPC request has timed out"));
+		}
+		if (activeRequests.hasDeadlines() && !isClosed()) {
+			ensureExpirationSweep();
+		}
 
-			if (serverClosing && activeRequests.size() == 0) {
-				RpcClientConnection.this.shutdown();
-			}
+		if (serverClosing && isIdle()) {
+			shutdown();
 		}
 	}
 
@@ -178,7 +178,7 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 				cb = doJmxMonitoring(request, Integer.MAX_VALUE, cb);
 			}
 
-			activeRequests.put(cookie, cb);
+			activeRequests.put(cookie, cb, RpcCallbackTable.NO_DEADLINE);
 
 			downstreamDataAcceptor.accept(RpcMessage.of(cookie, request));
 		} else {
@@ -186,6 +186,82 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		}
 	}
 
+	@Override
+	public <I, O> StreamSupplier<O> sendStreamRequest(I request) {
+		if (CHECK) checkState(eventloop.inEventloopThread(), "Not in eventloop thread");
+
+		// jmx
+		totalRequests.recordEvent();
+		connectionRequests.recordEvent();
+
+		if (overloaded && !(request instanceof RpcMandatoryData)) {
+			doProcessOverloaded(($, e) -> {});
+			return StreamSupplier.closingWithError(RPC_OVERLOAD_EXCEPTION);
+		}
+
+		int cookie = ++this.cookie;
+		RpcStreamReceiver<O> receiver = new RpcStreamReceiver<>(cookie, streamWindow, this::sendStreamMessage);
+		receivers.put(cookie, receiver);
+		receiver.getAcknowledgement()
+				.whenComplete(() -> {
+					receivers.remove(cookie);
+					if (serverClosing && isIdle()) {
+						shutdown();
+					}
+				});
+
+		downstreamDataAcceptor.accept(RpcMessage.of(cookie, request));
+		return receiver;
+	}
+
+	@Override
+	public <I, T, O> Promise<O> sendUploadRequest(I request, StreamSupplier<T> items) {
+		if (CHECK) checkState(eventloop.inEventloopThread(), "Not in eventloop thread");
+
+		// jmx
+		totalRequests.recordEvent();
+		connectionRequests.recordEvent();
+
+		SettablePromise<O> result = new SettablePromise<>();
+		if (overloaded && !(request instanceof RpcMandatoryData)) {
+			items.closeEx(RPC_OVERLOAD_EXCEPTION);
+			doProcessOverloaded(result);
+			return result;
+		}
+
+		int cookie = ++this.cookie;
+		activeRequests.put(cookie, monitoring ? doJmxMonitoring(request, Integer.MAX_VALUE, result) : result,
+				RpcCallbackTable.NO_DEADLINE);
+		RpcStreamSender<T> sender = new RpcStreamSender<>(cookie, this::sendStreamMessage);
+		senders.put(cookie, sender);
+		sender.getAcknowledgement()
+				.whenException(e -> {
+					Callback<?> cb = activeRequests.remove(cookie);
+					if (cb != null) {
+						cb.accept(null, e);
+					}
+				})
+				.whenComplete(() -> {
+					senders.remove(cookie);
+					if (serverClosing && isIdle()) {
+						shutdown();
+					}
+				});
+
+		downstreamDataAcceptor.accept(RpcMessage.of(cookie, request));
+		items.streamTo(sender);
+		return result;
+	}
+
+	private void sendStreamMessage(RpcMessage message) {
+		if (isClosed()) return;
+		downstreamDataAcceptor.accept(message);
+	}
+
+	private boolean isIdle() {
+		return activeRequests.isEmpty() && receivers.isEmpty() && senders.isEmpty();
+	}
+
 	private <I, O> Callback<O> doJmxMonitoring(I request, int timeout, @NotNull Callback<O> cb) {
 		RpcRequestStats requestStatsPerClass = rpcClient.ensureRequestStatsPerClass(request.getClass());
 		requestStatsPerClass.getTotalRequests().recordEvent();
@@ -203,17 +279,45 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 
 	@Override
 	public void accept(RpcMessage message) {
-		if (message.getData().getClass() == RpcRemoteException.class) {
+		Class<?> dataClass = message.getData().getClass();
+		if (dataClass == RpcRemoteException.class) {
 			processErrorMessage(message);
-		} else if (message.getData().getClass() == RpcControlMessage.class) {
-			processControlMessage((RpcControlMessage) message.getData());
+		} else if (dataClass == RpcControlMessage.class) {
+			if (message.getData() == RpcControlMessage.END_OF_STREAM) {
+				RpcStreamReceiver<?> receiver = receivers.get(message.getCookie());
+				if (receiver != null) {
+					receiver.onEnd();
+				}
+			} else {
+				processControlMessage((RpcControlMessage) message.getData());
+			}
+		} else if (dataClass == RpcStreamCredit.class) {
+			RpcStreamSender<?> sender = senders.get(message.getCookie());
+			if (sender != null) {
+				sender.onCredit(((RpcStreamCredit) message.getData()).getCredit());
+			}
 		} else {
+			if (!receivers.isEmpty()) {
+				RpcStreamReceiver<?> receiver = receivers.get(message.getCookie());
+				if (receiver != null) {
+					receiver.onItem(message.getData());
+					return;
+				}
+			}
+
 			@SuppressWarnings("unchecked")
 			Callback<Object> cb = (Callback<Object>) activeRequests.remove(message.getCookie());
 			if (cb == null) return;
 
+			if (!senders.isEmpty()) {
+				RpcStreamSender<?> sender = senders.get(message.getCookie());
+				if (sender != null) {
+					// a server may respond before the whole upload is consumed
+					sender.onPeerError(new AsyncCloseException("Upload request has been completed"));
+				}
+			}
 			cb.accept(message.getData(), null);
-			if (serverClosing && activeRequests.size() == 0) {
+			if (serverClosing && isIdle()) {
 				shutdown();
 			}
 		}
@@ -227,6 +331,14 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		connectionStats.getServerExceptions().recordException(remoteException, null);
 		rpcClient.getGeneralRequestsStats().getServerExceptions().recordException(remoteException, null);
 
+		RpcStreamReceiver<?> receiver = receivers.get(message.getCookie());
+		if (receiver != null) {
+			receiver.onPeerError(remoteException);
+		}
+		RpcStreamSender<?> sender = senders.get(message.getCookie());
+		if (sender != null) {
+			sender.onPeerError(remoteException);
+		}
 		Callback<?> cb = activeRequests.remove(message.getCookie());
 		if (cb != null) {
 			cb.accept(null, remoteException);
@@ -237,7 +349,7 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		if (controlMessage == RpcControlMessage.CLOSE) {
 			rpcClient.removeConnection(address);
 			serverClosing = true;
-			if (activeRequests.size() == 0) {
+			if (isIdle()) {
 				shutdown();
 			}
 		} else if (controlMessage == RpcControlMessage.PONG) {
@@ -321,12 +433,23 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		closed = true;
 		rpcClient.removeConnection(address);
 
+		if (!receivers.isEmpty() || !senders.isEmpty()) {
+			AsyncCloseException e = new AsyncCloseException("Connection closed");
+			for (RpcStreamReceiver<?> receiver : new ArrayList<>(receivers.values())) {
+				receiver.onPeerError(e);
+			}
+			for (RpcStreamSender<?> sender : new ArrayList<>(senders.values())) {
+				sender.onPeerError(e);
+			}
+		}
+
+		if (expirationSweep != null) {
+			expirationSweep.cancel();
+			expirationSweep = null;
+		}
 		while (!activeRequests.isEmpty()) {
-			for (Integer cookie : new HashSet<>(activeRequests.keySet())) {
-				Callback<?> cb = activeRequests.remove(cookie);
-				if (cb != null) {
-					cb.accept(null, new AsyncCloseException("Connection closed"));
-				}
+			for (Callback<?> cb : activeRequests.removeAll()) {
+				cb.accept(null, new AsyncCloseException("Connection closed"));
 			}
 		}
 	}
@@ -360,6 +483,11 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		return activeRequests.size();
 	}
 
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public int getActiveStreams() {
+		return receivers.size() + senders.size();
+	}
+
 	@Override
 	public void refresh(long timestamp) {
 		connectionStats.refresh(timestamp);
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.client.sender;
+
+import io.activej.async.callback.Callback;
+import io.activej.datastream.StreamSupplier;
+import io.activej.promise.Promise;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * A sender which chooses one of its sub-senders based on their {@link RpcSenderLoad}
+ * and keeps those loads up to date with requests sent through it
+ */
+abstract class RpcLoadAwareSender implements RpcSender {
+	final RpcSender[] subSenders;
+	final RpcSenderLoad[] loads;
+	final LongSupplier nanoTime;
+
+	RpcLoadAwareSender(List<RpcSender> senders, RpcSenderLoad[] loads, LongSupplier nanoTime) {
+		assert senders.size() > 1 && senders.size() == loads.length;
+		this.subSenders = senders.toArray(new RpcSender[0]);
+		this.loads = loads;
+		this.nanoTime = nanoTime;
+	}
+
+	abstract int choose(long now);
+
+	@Override
+	public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+		long now = nanoTime.getAsLong();
+		send(choose(now), now, request, timeout, cb);
+	}
+
+	@Override
+	public <I, O> StreamSupplier<O> sendStreamRequest(I request) {
+		return subSenders[choose(nanoTime.getAsLong())].sendStreamRequest(request);
+	}
+
+	@Override
+	public <I, T, O> Promise<O> sendUploadRequest(I request, StreamSupplier<T> items) {
+		return subSenders[choose(nanoTime.getAsLong())].sendUploadRequest(request, items);
+	}
+
+	<I, O> void send(int index, long now, I request, int timeout, @NotNull Callback<O> cb) {
+		RpcSenderLoad load = loads[index];
+		load.onSend();
+		subSenders[index].sendRequest(request, timeout, (O result, Exception e) -> {
+			long completed = nanoTime.getAsLong();
+			long responseTime = completed - now;
+			load.onComplete(completed, responseTime, e != null);
+			onComplete(responseTime, e);
+			cb.accept(result, e);
+		});
+	}
+
+	void onComplete(long responseTime, Exception e) {
+	}
+}
@@ -17,6 +17,9 @@
 package io.activej.rpc.client.sender;
 
 import io.activej.async.callback.Callback;
+import io.activej.datastream.StreamSupplier;
+import io.activej.promise.Promise;
+import io.activej.rpc.protocol.RpcException;
 import org.jetbrains.annotations.NotNull;
 
 public interface RpcSender {
@@ -25,4 +28,22 @@ public interface RpcSender {
 	default <I, O> void sendRequest(I request, @NotNull Callback<O> cb) {
 		sendRequest(request, Integer.MAX_VALUE, cb);
 	}
+
+	/**
+	 * Sends a request which is answered with a stream of responses.
+	 * Senders which can not choose a single connection for a request do not support streaming
+	 */
+	default <I, O> StreamSupplier<O> sendStreamRequest(I request) {
+		return StreamSupplier.closingWithError(new RpcException("Stream requests are not supported by " + this));
+	}
+
+	/**
+	 * Sends a request followed by a stream of items.
+	 * Senders which can not choose a single connection for a request do not support streaming
+	 */
+	default <I, T, O> Promise<O> sendUploadRequest(I request, StreamSupplier<T> items) {
+		RpcException e = new RpcException("Upload requests are not supported by " + this);
+		items.closeEx(e);
+		return Promise.ofException(e);
+	}
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.client.sender;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Math.exp;
+
+/**
+ * Load of a single sub-sender as seen by load-aware strategies.
+ * <p>
+ * Tracks a number of outstanding requests and a peak-sensitive EWMA of response times:
+ * a response slower than the current estimate replaces it at once,
+ * while faster responses are averaged in with a weight that grows with the time since the previous response.
+ * An idle sender looks cheaper over time, so it is eventually probed again.
+ * Failed requests never lower the estimate, so a sender which fails fast
+ * does not attract more traffic.
+ */
+final class RpcSenderLoad {
+	/**
+	 * A cost of a sender which has not responded yet, but already has outstanding requests
+	 */
+	private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+	private final double decayNanos;
+
+	private int outstanding;
+	private double latency;
+	private long timestamp;
+
+	RpcSenderLoad(Duration decayTime) {
+		this.decayNanos = decayTime.toNanos();
+	}
+
+	static RpcSenderLoad[] loadsOf(List<RpcSender> senders, Map<RpcSender, RpcSenderLoad> loads, Duration decayTime) {
+		RpcSenderLoad[] result = new RpcSenderLoad[senders.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = loads.computeIfAbsent(senders.get(i), $ -> new RpcSenderLoad(decayTime));
+		}
+		return result;
+	}
+
+	void onSend() {
+		outstanding++;
+	}
+
+	void onComplete(long now, long responseTime, boolean failed) {
+		outstanding--;
+		if (responseTime > latency) {
+			latency = responseTime;
+		} else if (!failed) {
+			double weight = exp(-(now - timestamp) / decayNanos);
+			latency = latency * weight + responseTime * (1.0 - weight);
+		}
+		timestamp = now;
+	}
+
+	/**
+	 * Estimated cost of sending one more request to this sender, in nanoseconds
+	 */
+	double getCost(long now) {
+		if (latency == 0.0 && outstanding != 0) {
+			return PENALTY + outstanding;
+		}
+		double decayed = now > timestamp ? latency * exp(-(now - timestamp) / decayNanos) : latency;
+		return (decayed + 1.0) * (outstanding + 1);
+	}
+
+	int getOutstanding() {
+		return outstanding;
+	}
+
+	double getLatency() {
+		return latency;
+	}
+}
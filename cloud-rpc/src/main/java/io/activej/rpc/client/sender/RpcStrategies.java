@@ -33,6 +33,7 @@ import static java.util.Arrays.asList;
  *     <li>Getting a single RPC-service</li>
  *     <li>Failover</li>
  *     <li>Load balancing</li>
+ *     <li>Latency-aware load balancing and hedging</li>
  *     <li>Rendezvous hashing</li>
  * </ul>
  */
@@ -91,6 +92,42 @@ public final class RpcStrategies {
 		return RpcStrategyRoundRobin.create(list);
 	}
 
+	public static RpcStrategyLeastOutstanding leastOutstanding(RpcStrategy... senders) {
+		return leastOutstanding(asList(senders));
+	}
+
+	public static RpcStrategyLeastOutstanding leastOutstanding(List<RpcStrategy> senders) {
+		return RpcStrategyLeastOutstanding.create(RpcStrategyList.ofStrategies(senders));
+	}
+
+	public static RpcStrategyLeastOutstanding leastOutstanding(RpcStrategyList list) {
+		return RpcStrategyLeastOutstanding.create(list);
+	}
+
+	public static RpcStrategyPowerOfTwoChoices powerOfTwoChoices(RpcStrategy... senders) {
+		return powerOfTwoChoices(asList(senders));
+	}
+
+	public static RpcStrategyPowerOfTwoChoices powerOfTwoChoices(List<RpcStrategy> senders) {
+		return RpcStrategyPowerOfTwoChoices.create(RpcStrategyList.ofStrategies(senders));
+	}
+
+	public static RpcStrategyPowerOfTwoChoices powerOfTwoChoices(RpcStrategyList list) {
+		return RpcStrategyPowerOfTwoChoices.create(list);
+	}
+
+	public static RpcStrategyHedged hedged(RpcStrategy... senders) {
+		return hedged(asList(senders));
+	}
+
+	public static RpcStrategyHedged hedged(List<RpcStrategy> senders) {
+		return RpcStrategyHedged.create(RpcStrategyList.ofStrategies(senders));
+	}
+
+	public static RpcStrategyHedged hedged(RpcStrategyList list) {
+		return RpcStrategyHedged.create(list);
+	}
+
 	public static RpcStrategySharding sharding(ShardingFunction<?> hashFunction,
 			RpcStrategy... senders) {
 		return sharding(hashFunction, asList(senders));
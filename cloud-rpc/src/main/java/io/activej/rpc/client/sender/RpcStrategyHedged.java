@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.client.sender;
+
+import io.activej.async.callback.Callback;
+import io.activej.common.ApplicationSettings;
+import io.activej.common.recycle.Recyclers;
+import io.activej.eventloop.Eventloop;
+import io.activej.eventloop.schedule.ScheduledRunnable;
+import io.activej.rpc.client.RpcClientConnectionPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.LongSupplier;
+
+import static io.activej.common.Checks.checkArgument;
+import static io.activej.rpc.client.sender.RpcStrategyPowerOfTwoChoices.chooseOfTwo;
+
+/**
+ * Sends a request to a sub-sender chosen as in {@link RpcStrategyPowerOfTwoChoices}
+ * and, if there is still no response after a delay, sends the same request to the least loaded
+ * of the other sub-senders. The first successful response wins.
+ * <p>
+ * The delay is a percentile of recently observed response times, so only the slowest
+ * requests are hedged and a single slow server does not drag the tail latency.
+ * No requests are hedged until enough response times have been observed.
+ * <p>
+ * Only use this strategy for idempotent requests, as a request may be processed twice
+ */
+public final class RpcStrategyHedged implements RpcStrategy {
+	public static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+	public static final double DEFAULT_PERCENTILE = 95.0;
+	public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(1);
+
+	public static final int RESPONSE_TIMES_WINDOW = ApplicationSettings.getInt(RpcStrategyHedged.class, "responseTimesWindow", 1024);
+	public static final int RESPONSE_TIMES_MIN = ApplicationSettings.getInt(RpcStrategyHedged.class, "responseTimesMin", 64);
+
+	private final Map<RpcSender, RpcSenderLoad> loads = new WeakHashMap<>();
+	private final ResponseTimes responseTimes = new ResponseTimes();
+	private final RpcStrategyList list;
+
+	private Duration decayTime = DEFAULT_DECAY_TIME;
+	private double percentile = DEFAULT_PERCENTILE;
+	private long minDelay = DEFAULT_MIN_DELAY.toMillis();
+
+	LongSupplier nanoTime = System::nanoTime;
+
+	private RpcStrategyHedged(RpcStrategyList list) {
+		this.list = list;
+	}
+
+	public static RpcStrategyHedged create(RpcStrategyList list) {
+		return new RpcStrategyHedged(list);
+	}
+
+	/**
+	 * Sets a time over which observed latency of a sub-sender is averaged
+	 */
+	public RpcStrategyHedged withDecayTime(@NotNull Duration decayTime) {
+		this.decayTime = decayTime;
+		return this;
+	}
+
+	/**
+	 * Sets a percentile of observed response times after which a request is hedged
+	 */
+	public RpcStrategyHedged withPercentile(double percentile) {
+		checkArgument(percentile > 0.0 && percentile < 100.0, "Percentile should be in range (0, 100)");
+		this.percentile = percentile;
+		return this;
+	}
+
+	/**
+	 * Sets a lower bound of a delay after which a request is hedged
+	 */
+	public RpcStrategyHedged withMinDelay(@NotNull Duration minDelay) {
+		checkArgument(!minDelay.isNegative(), "Minimal delay cannot be negative");
+		this.minDelay = minDelay.toMillis();
+		return this;
+	}
+
+	@Override
+	public DiscoveryService getDiscoveryService() {
+		return list.getDiscoveryService();
+	}
+
+	@Override
+	public @Nullable RpcSender createSender(RpcClientConnectionPool pool) {
+		List<RpcSender> subSenders = list.listOfSenders(pool);
+		if (subSenders.size() == 0)
+			return null;
+		if (subSenders.size() == 1)
+			return subSenders.get(0);
+		return new Sender(subSenders, RpcSenderLoad.loadsOf(subSenders, loads, decayTime), nanoTime);
+	}
+
+	/**
+	 * A current delay after which requests are hedged, or {@code -1} if requests are not hedged yet
+	 */
+	public long getHedgeDelay() {
+		return responseTimes.getDelay();
+	}
+
+	private final class ResponseTimes {
+		private final long[] window = new long[RESPONSE_TIMES_WINDOW];
+		private final long[] sorted = new long[RESPONSE_TIMES_WINDOW];
+		private int count;
+		private long delay = -1;
+
+		void record(long responseTime) {
+			window[count++ % window.length] = responseTime;
+			if (count == 2 * window.length) count = window.length;
+			if (count >= RESPONSE_TIMES_MIN && count % RESPONSE_TIMES_MIN == 0) {
+				updateDelay();
+			}
+		}
+
+		long getDelay() {
+			return delay;
+		}
+
+		private void updateDelay() {
+			int size = Math.min(count, window.length);
+			System.arraycopy(window, 0, sorted, 0, size);
+			Arrays.sort(sorted, 0, size);
+			long responseTime = sorted[Math.min(size - 1, (int) (size * percentile / 100.0))];
+			delay = Math.max(minDelay, (responseTime + 999_999) / 1_000_000);
+		}
+	}
+
+	private final class Sender extends RpcLoadAwareSender {
+		private final Eventloop eventloop = Eventloop.getCurrentEventloop();
+
+		Sender(List<RpcSender> senders, RpcSenderLoad[] loads, LongSupplier nanoTime) {
+			super(senders, loads, nanoTime);
+		}
+
+		@Override
+		int choose(long now) {
+			return chooseOfTwo(loads, now);
+		}
+
+		int chooseOther(int index, long now) {
+			int best = -1;
+			double bestCost = Double.MAX_VALUE;
+			for (int i = 0; i < loads.length; i++) {
+				if (i == index) continue;
+				double cost = loads[i].getCost(now);
+				if (cost < bestCost) {
+					best = i;
+					bestCost = cost;
+				}
+			}
+			return best;
+		}
+
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+			long delay = responseTimes.getDelay();
+			long now = nanoTime.getAsLong();
+			int index = choose(now);
+			if (delay == -1 || timeout <= delay) {
+				send(index, now, request, timeout, cb);
+				return;
+			}
+			HedgedRequest<I, O> hedgedRequest = new HedgedRequest<>(this, index, request, timeout - (int) delay, cb);
+			send(index, now, request, timeout, hedgedRequest);
+			if (!hedgedRequest.completed) {
+				hedgedRequest.scheduledHedge = eventloop.delayBackground(delay, hedgedRequest);
+			}
+		}
+
+		@Override
+		void onComplete(long responseTime, Exception e) {
+			if (e == null) {
+				responseTimes.record(responseTime);
+			}
+		}
+	}
+
+	private static final class HedgedRequest<I, O> implements Callback<O>, Runnable {
+		private final Sender sender;
+		private final int index;
+		private final I request;
+		private final int hedgeTimeout;
+		private final Callback<O> cb;
+
+		private @Nullable ScheduledRunnable scheduledHedge;
+		private int pending = 1;
+		private boolean completed;
+
+		HedgedRequest(Sender sender, int index, I request, int hedgeTimeout, Callback<O> cb) {
+			this.sender = sender;
+			this.index = index;
+			this.request = request;
+			this.hedgeTimeout = hedgeTimeout;
+			this.cb = cb;
+		}
+
+		@Override
+		public void run() {
+			scheduledHedge = null;
+			if (completed) return;
+			pending++;
+			long now = sender.nanoTime.getAsLong();
+			sender.send(sender.chooseOther(index, now), now, request, hedgeTimeout, this);
+		}
+
+		@Override
+		public void accept(O result, @Nullable Exception e) {
+			pending--;
+			if (completed) {
+				Recyclers.recycle(result);
+				return;
+			}
+			if (e == null || pending == 0) {
+				completed = true;
+				if (scheduledHedge != null) {
+					scheduledHedge.cancel();
+					scheduledHedge = null;
+				}
+				cb.accept(result, e);
+			}
+		}
+	}
+}
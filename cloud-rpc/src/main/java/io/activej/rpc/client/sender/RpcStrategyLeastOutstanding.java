@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.client.sender;
+
+import io.activej.rpc.client.RpcClientConnectionPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends each request to a sub-sender with the least number of outstanding requests.
+ * Ties are resolved in favour of a sub-sender with lower observed latency.
+ * <p>
+ * Loads are kept per sub-sender, so they survive re-creation of a sender
+ * when connections are added or lost
+ */
+public final class RpcStrategyLeastOutstanding implements RpcStrategy {
+	public static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+
+	private final Map<RpcSender, RpcSenderLoad> loads = new WeakHashMap<>();
+	private final RpcStrategyList list;
+
+	private Duration decayTime = DEFAULT_DECAY_TIME;
+
+	LongSupplier nanoTime = System::nanoTime;
+
+	private RpcStrategyLeastOutstanding(RpcStrategyList list) {
+		this.list = list;
+	}
+
+	public static RpcStrategyLeastOutstanding create(RpcStrategyList list) {
+		return new RpcStrategyLeastOutstanding(list);
+	}
+
+	/**
+	 * Sets a time over which observed latency of a sub-sender is averaged
+	 */
+	public RpcStrategyLeastOutstanding withDecayTime(@NotNull Duration decayTime) {
+		this.decayTime = decayTime;
+		return this;
+	}
+
+	@Override
+	public DiscoveryService getDiscoveryService() {
+		return list.getDiscoveryService();
+	}
+
+	@Override
+	public @Nullable RpcSender createSender(RpcClientConnectionPool pool) {
+		List<RpcSender> subSenders = list.listOfSenders(pool);
+		if (subSenders.size() == 0)
+			return null;
+		if (subSenders.size() == 1)
+			return subSenders.get(0);
+		return new Sender(subSenders, RpcSenderLoad.loadsOf(subSenders, loads, decayTime), nanoTime);
+	}
+
+	private static final class Sender extends RpcLoadAwareSender {
+		private int nextSender;
+
+		Sender(List<RpcSender> senders, RpcSenderLoad[] loads, LongSupplier nanoTime) {
+			super(senders, loads, nanoTime);
+		}
+
+		@Override
+		int choose(long now) {
+			int start = nextSender;
+			nextSender = (nextSender + 1) % loads.length;
+
+			int best = start;
+			int bestOutstanding = loads[start].getOutstanding();
+			double bestCost = loads[start].getCost(now);
+			for (int i = 1; i < loads.length; i++) {
+				int index = (start + i) % loads.length;
+				RpcSenderLoad load = loads[index];
+				int outstanding = load.getOutstanding();
+				if (outstanding > bestOutstanding) continue;
+				double cost = load.getCost(now);
+				if (outstanding < bestOutstanding || cost < bestCost) {
+					best = index;
+					bestOutstanding = outstanding;
+					bestCost = cost;
+				}
+			}
+			return best;
+		}
+	}
+}
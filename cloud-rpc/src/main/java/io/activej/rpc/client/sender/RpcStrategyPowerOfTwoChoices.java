@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.client.sender;
+
+import io.activej.rpc.client.RpcClientConnectionPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Picks two distinct sub-senders at random and sends a request to the one with a lower cost,
+ * which is an observed latency (EWMA) weighted by a number of outstanding requests.
+ * <p>
+ * Unlike always picking the least loaded sub-sender, random choices do not make all clients
+ * herd towards the same server, while a slow server still quickly stops receiving requests
+ */
+public final class RpcStrategyPowerOfTwoChoices implements RpcStrategy {
+	public static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+
+	private final Map<RpcSender, RpcSenderLoad> loads = new WeakHashMap<>();
+	private final RpcStrategyList list;
+
+	private Duration decayTime = DEFAULT_DECAY_TIME;
+
+	LongSupplier nanoTime = System::nanoTime;
+
+	private RpcStrategyPowerOfTwoChoices(RpcStrategyList list) {
+		this.list = list;
+	}
+
+	public static RpcStrategyPowerOfTwoChoices create(RpcStrategyList list) {
+		return new RpcStrategyPowerOfTwoChoices(list);
+	}
+
+	/**
+	 * Sets a time over which observed latency of a sub-sender is averaged
+	 */
+	public RpcStrategyPowerOfTwoChoices withDecayTime(@NotNull Duration decayTime) {
+		this.decayTime = decayTime;
+		return this;
+	}
+
+	@Override
+	public DiscoveryService getDiscoveryService() {
+		return list.getDiscoveryService();
+	}
+
+	@Override
+	public @Nullable RpcSender createSender(RpcClientConnectionPool pool) {
+		List<RpcSender> subSenders = list.listOfSenders(pool);
+		if (subSenders.size() == 0)
+			return null;
+		if (subSenders.size() == 1)
+			return subSenders.get(0);
+		return new Sender(subSenders, RpcSenderLoad.loadsOf(subSenders, loads, decayTime), nanoTime);
+	}
+
+	static int chooseOfTwo(RpcSenderLoad[] loads, long now) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(loads.length);
+		int second = random.nextInt(loads.length - 1);
+		if (second >= first) second++;
+		return loads[second].getCost(now) < loads[first].getCost(now) ? second : first;
+	}
+
+	private static final class Sender extends RpcLoadAwareSender {
+		Sender(List<RpcSender> senders, RpcSenderLoad[] loads, LongSupplier nanoTime) {
+			super(senders, loads, nanoTime);
+		}
+
+		@Override
+		int choose(long now) {
+			return chooseOfTwo(loads, now);
+		}
+	}
+}
@@ -17,6 +17,8 @@
 package io.activej.rpc.client.sender;
 
 import io.activej.async.callback.Callback;
+import io.activej.datastream.StreamSupplier;
+import io.activej.promise.Promise;
 import io.activej.rpc.client.RpcClientConnectionPool;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -69,10 +71,23 @@ public final class RpcStrategyRoundRobin implements RpcStrategy {
 
 		@Override
 		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+			nextSender().sendRequest(request, timeout, cb);
+		}
+
+		@Override
+		public <I, O> StreamSupplier<O> sendStreamRequest(I request) {
+			return nextSender().sendStreamRequest(request);
+		}
+
+		@Override
+		public <I, T, O> Promise<O> sendUploadRequest(I request, StreamSupplier<T> items) {
+			return nextSender().sendUploadRequest(request, items);
+		}
+
+		private RpcSender nextSender() {
 			RpcSender sender = subSenders[nextSender];
 			nextSender = (nextSender + 1) % subSenders.length;
-			sender.sendRequest(request, timeout, cb);
+			return sender;
 		}
-
 	}
 }
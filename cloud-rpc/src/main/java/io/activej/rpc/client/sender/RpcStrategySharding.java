@@ -17,6 +17,8 @@
 package io.activej.rpc.client.sender;
 
 import io.activej.async.callback.Callback;
+import io.activej.datastream.StreamSupplier;
+import io.activej.promise.Promise;
 import io.activej.rpc.client.RpcClientConnectionPool;
 import io.activej.rpc.hash.ShardingFunction;
 import org.jetbrains.annotations.NotNull;
@@ -90,5 +92,29 @@ public final class RpcStrategySharding implements RpcStrategy {
 			}
 		}
 
+		@SuppressWarnings("unchecked")
+		@Override
+		public <I, O> StreamSupplier<O> sendStreamRequest(I request) {
+			int shardIndex = ((ShardingFunction<Object>) shardingFunction).getShard(request);
+			RpcSender sender = subSenders[shardIndex];
+			if (sender != null) {
+				return sender.sendStreamRequest(request);
+			} else {
+				return StreamSupplier.closingWithError(NO_SENDER_AVAILABLE_EXCEPTION);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <I, T, O> Promise<O> sendUploadRequest(I request, StreamSupplier<T> items) {
+			int shardIndex = ((ShardingFunction<Object>) shardingFunction).getShard(request);
+			RpcSender sender = subSenders[shardIndex];
+			if (sender != null) {
+				return sender.sendUploadRequest(request, items);
+			} else {
+				items.closeEx(NO_SENDER_AVAILABLE_EXCEPTION);
+				return Promise.ofException(NO_SENDER_AVAILABLE_EXCEPTION);
+			}
+		}
 	}
 }
@@ -17,6 +17,8 @@
 package io.activej.rpc.client.sender;
 
 import io.activej.async.callback.Callback;
+import io.activej.datastream.StreamSupplier;
+import io.activej.promise.Promise;
 import io.activej.rpc.client.RpcClientConnectionPool;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -91,15 +93,38 @@ public final class RpcStrategyTypeDispatching implements RpcStrategy {
 
 		@Override
 		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
-			RpcSender sender = typeToSender.get(request.getClass());
-			if (sender == null) {
-				sender = defaultSender;
-			}
+			RpcSender sender = getSender(request);
 			if (sender != null) {
 				sender.sendRequest(request, timeout, cb);
 			} else {
 				cb.accept(null, NO_SENDER_AVAILABLE_EXCEPTION);
 			}
 		}
+
+		@Override
+		public <I, O> StreamSupplier<O> sendStreamRequest(I request) {
+			RpcSender sender = getSender(request);
+			if (sender != null) {
+				return sender.sendStreamRequest(request);
+			} else {
+				return StreamSupplier.closingWithError(NO_SENDER_AVAILABLE_EXCEPTION);
+			}
+		}
+
+		@Override
+		public <I, T, O> Promise<O> sendUploadRequest(I request, StreamSupplier<T> items) {
+			RpcSender sender = getSender(request);
+			if (sender != null) {
+				return sender.sendUploadRequest(request, items);
+			} else {
+				items.closeEx(NO_SENDER_AVAILABLE_EXCEPTION);
+				return Promise.ofException(NO_SENDER_AVAILABLE_EXCEPTION);
+			}
+		}
+
+		private @Nullable RpcSender getSender(Object request) {
+			RpcSender sender = typeToSender.get(request.getClass());
+			return sender != null ? sender : defaultSender;
+		}
 	}
 }
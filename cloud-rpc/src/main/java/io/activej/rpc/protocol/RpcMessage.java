@@ -43,7 +43,7 @@ public final class RpcMessage {
 
 	@Serialize(order = 2)
 	@SerializeClass(subclassesIdx = -1,
-			subclasses = {RpcControlMessage.class, RpcRemoteException.class},
+			subclasses = {RpcControlMessage.class, RpcRemoteException.class, RpcStreamCredit.class},
 			subclassesId = MESSAGE_TYPES)
 	@SerializeNullable
 	public Object getData() {
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.protocol;
+
+import io.activej.serializer.annotations.Deserialize;
+import io.activej.serializer.annotations.Serialize;
+
+/**
+ * Allows a peer to send the given number of additional items
+ * of a stream identified by a cookie of the message
+ */
+public final class RpcStreamCredit implements RpcMandatoryData {
+	private final int credit;
+
+	public RpcStreamCredit(@Deserialize("credit") int credit) {
+		this.credit = credit;
+	}
+
+	@Serialize(order = 1)
+	public int getCredit() {
+		return credit;
+	}
+
+	@Override
+	public String toString() {
+		return "RpcStreamCredit{credit=" + credit + '}';
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.protocol;
+
+import io.activej.datastream.AbstractStreamSupplier;
+import io.activej.datastream.StreamDataAcceptor;
+import org.jetbrains.annotations.NotNull;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A receiving side of a stream multiplexed over an {@link RpcStream}.
+ * <p>
+ * A peer is allowed to send up to {@code window} items which are not consumed yet.
+ * Once half of the window is consumed, it is replenished with a {@link RpcStreamCredit} message,
+ * so a suspended consumer stops the peer after at most {@code window} buffered items.
+ */
+public final class RpcStreamReceiver<T> extends AbstractStreamSupplier<T> {
+	private final int cookie;
+	private final int window;
+	private final StreamDataAcceptor<RpcMessage> output;
+
+	private int credit;
+	private boolean closedByPeer;
+
+	public RpcStreamReceiver(int cookie, int window, StreamDataAcceptor<RpcMessage> output) {
+		checkArgument(window > 0, "Window must be positive");
+		this.cookie = cookie;
+		this.window = window;
+		this.output = output;
+	}
+
+	public int getCookie() {
+		return cookie;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void onItem(Object item) {
+		if (isEndOfStream()) return;
+		if (--credit < 0) {
+			closeEx(new RpcException("Stream credit is exceeded"));
+			return;
+		}
+		send((T) item);
+		if (isReady()) {
+			replenish();
+		}
+	}
+
+	public void onEnd() {
+		closedByPeer = true;
+		sendEndOfStream();
+	}
+
+	/**
+	 * Closes this receiver without notifying a peer, as it has either failed or closed a stream itself
+	 */
+	public void onPeerError(@NotNull Exception e) {
+		closedByPeer = true;
+		closeEx(e);
+	}
+
+	@Override
+	protected void onResumed() {
+		replenish();
+	}
+
+	private void replenish() {
+		if (closedByPeer || credit > window / 2) return;
+		output.accept(RpcMessage.of(cookie, new RpcStreamCredit(window - credit)));
+		credit = window;
+	}
+
+	@Override
+	protected void onError(Exception e) {
+		if (!closedByPeer) {
+			output.accept(RpcMessage.of(cookie, new RpcRemoteException(e)));
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.protocol;
+
+import io.activej.datastream.AbstractStreamConsumer;
+import io.activej.datastream.StreamDataAcceptor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A sending side of a stream multiplexed over an {@link RpcStream}.
+ * <p>
+ * Items are sent as messages with a cookie of the stream, as long as a peer grants
+ * {@link RpcStreamCredit credits} for them. When credits are exhausted, the supplier of items is suspended.
+ * End of stream is sent as {@link RpcControlMessage#END_OF_STREAM} and an error as {@link RpcRemoteException}.
+ */
+public final class RpcStreamSender<T> extends AbstractStreamConsumer<T> {
+	private final int cookie;
+	private final StreamDataAcceptor<RpcMessage> output;
+	private final StreamDataAcceptor<T> acceptor;
+
+	private int credit;
+	private boolean closedByPeer;
+
+	public RpcStreamSender(int cookie, StreamDataAcceptor<RpcMessage> output) {
+		this.cookie = cookie;
+		this.output = output;
+		this.acceptor = item -> {
+			output.accept(RpcMessage.of(cookie, item));
+			if (--credit == 0) {
+				suspend();
+			}
+		};
+	}
+
+	public int getCookie() {
+		return cookie;
+	}
+
+	public int getCredit() {
+		return credit;
+	}
+
+	public void onCredit(int credit) {
+		this.credit += credit;
+		if (this.credit > 0) {
+			resume(acceptor);
+		}
+	}
+
+	/**
+	 * Closes this sender without notifying a peer, as it has either failed or closed a stream itself
+	 */
+	public void onPeerError(@NotNull Exception e) {
+		closedByPeer = true;
+		closeEx(e);
+	}
+
+	@Override
+	protected void onEndOfStream() {
+		output.accept(RpcMessage.of(cookie, RpcControlMessage.END_OF_STREAM));
+		acknowledge();
+	}
+
+	@Override
+	protected void onError(Exception e) {
+		if (!closedByPeer) {
+			output.accept(RpcMessage.of(cookie, new RpcRemoteException(e)));
+		}
+	}
+}
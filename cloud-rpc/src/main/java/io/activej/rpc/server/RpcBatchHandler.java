@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.server;
+
+import io.activej.promise.Promise;
+
+import java.util.List;
+
+/**
+ * A handler which receives requests of the same class in batches,
+ * so that it may amortize expensive operations, like database or cache lookups,
+ * over several requests.
+ * <p>
+ * A batch consists of all requests of a class which a connection has received
+ * during a single eventloop tick.
+ *
+ * @param <I> class of request
+ * @param <O> class of response
+ */
+@FunctionalInterface
+public interface RpcBatchHandler<I, O> {
+	/**
+	 * Handles a batch of requests
+	 *
+	 * @param requests a non-empty list of requests
+	 * @return a promise of responses, where each response corresponds to a request at the same position
+	 */
+	Promise<List<O>> run(List<I> requests);
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.server;
+
+import io.activej.common.ApplicationSettings;
+import io.activej.jmx.api.attribute.JmxAttribute;
+import io.activej.jmx.api.attribute.JmxOperation;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+import static io.activej.common.Checks.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Limits a number of requests of a single class which are handled by {@link RpcServer} concurrently.
+ * Requests above the limit are rejected right away with {@link io.activej.rpc.protocol.RpcOverloadException},
+ * instead of queueing up behind requests which are already slow.
+ * <p>
+ * The limit is tuned with AIMD: it grows by one whenever a request completes in time while at least
+ * half of the limit is in use, and is multiplied by a backoff ratio whenever a request takes longer
+ * than a latency threshold or fails with {@link io.activej.rpc.protocol.RpcOverloadException}.
+ * <p>
+ * A limiter is shared by all connections of a server
+ */
+public final class RpcConcurrencyLimiter {
+	public static final int DEFAULT_INITIAL_LIMIT = ApplicationSettings.getInt(RpcConcurrencyLimiter.class, "initialLimit", 20);
+	public static final int DEFAULT_MIN_LIMIT = ApplicationSettings.getInt(RpcConcurrencyLimiter.class, "minLimit", 1);
+	public static final int DEFAULT_MAX_LIMIT = ApplicationSettings.getInt(RpcConcurrencyLimiter.class, "maxLimit", 1000);
+	public static final double DEFAULT_BACKOFF_RATIO = ApplicationSettings.getDouble(RpcConcurrencyLimiter.class, "backoffRatio", 0.9);
+	public static final Duration DEFAULT_LATENCY_THRESHOLD = ApplicationSettings.getDuration(RpcConcurrencyLimiter.class, "latencyThreshold", Duration.ofSeconds(1));
+
+	private int minLimit = DEFAULT_MIN_LIMIT;
+	private int maxLimit = DEFAULT_MAX_LIMIT;
+	private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+	private long latencyThresholdNanos = DEFAULT_LATENCY_THRESHOLD.toNanos();
+
+	private double limit = DEFAULT_INITIAL_LIMIT;
+	private int inFlight;
+
+	// jmx
+	private long accepted;
+	private long rejected;
+	private long dropped;
+
+	private RpcConcurrencyLimiter() {
+	}
+
+	public static RpcConcurrencyLimiter create() {
+		return new RpcConcurrencyLimiter();
+	}
+
+	/**
+	 * Creates a limiter with a fixed limit, which is not tuned by observed latencies
+	 */
+	public static RpcConcurrencyLimiter fixed(int limit) {
+		return create().withLimits(limit, limit);
+	}
+
+	public RpcConcurrencyLimiter withInitialLimit(int initialLimit) {
+		checkArgument(initialLimit > 0, "Initial limit must be positive");
+		this.limit = initialLimit;
+		return this;
+	}
+
+	public RpcConcurrencyLimiter withLimits(int minLimit, int maxLimit) {
+		checkArgument(minLimit > 0 && minLimit <= maxLimit, "Invalid limits");
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = min(max(limit, minLimit), maxLimit);
+		return this;
+	}
+
+	public RpcConcurrencyLimiter withBackoffRatio(double backoffRatio) {
+		checkArgument(backoffRatio > 0.0 && backoffRatio < 1.0, "Backoff ratio must be in range (0, 1)");
+		this.backoffRatio = backoffRatio;
+		return this;
+	}
+
+	/**
+	 * Sets a response time after which a request is considered a sign of overload
+	 */
+	public RpcConcurrencyLimiter withLatencyThreshold(@NotNull Duration latencyThreshold) {
+		checkArgument(!latencyThreshold.isNegative() && !latencyThreshold.isZero(), "Latency threshold must be positive");
+		this.latencyThresholdNanos = latencyThreshold.toNanos();
+		return this;
+	}
+
+	boolean tryAcquire() {
+		if (inFlight >= (int) limit) {
+			rejected++;
+			return false;
+		}
+		inFlight++;
+		accepted++;
+		return true;
+	}
+
+	void release(long responseTimeNanos, boolean overloaded) {
+		if (overloaded || responseTimeNanos > latencyThresholdNanos) {
+			dropped++;
+			limit = max(minLimit, limit * backoffRatio);
+		} else if (inFlight * 2 >= limit) {
+			limit = min(maxLimit, limit + 1);
+		}
+		inFlight--;
+	}
+
+	// region JMX
+	@JmxAttribute(description = "current number of requests that may be handled concurrently")
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	@JmxAttribute(description = "current number of requests being handled")
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	@JmxAttribute
+	public long getAccepted() {
+		return accepted;
+	}
+
+	@JmxAttribute(description = "number of requests rejected because the limit was reached")
+	public long getRejected() {
+		return rejected;
+	}
+
+	@JmxAttribute(description = "number of requests which made the limit decrease")
+	public long getDropped() {
+		return dropped;
+	}
+
+	@JmxOperation
+	public void resetStats() {
+		accepted = 0;
+		rejected = 0;
+		dropped = 0;
+	}
+	// endregion
+
+	@Override
+	public String toString() {
+		return "RpcConcurrencyLimiter{" +
+				"limit=" + (int) limit +
+				", inFlight=" + inFlight +
+				'}';
+	}
+}
@@ -17,6 +17,7 @@
 package io.activej.rpc.server;
 
 import io.activej.codegen.DefiningClassLoader;
+import io.activej.common.ApplicationSettings;
 import io.activej.common.MemSize;
 import io.activej.common.exception.MalformedDataException;
 import io.activej.csp.process.frames.FrameFormat;
@@ -81,12 +82,18 @@ import static java.util.Arrays.asList;
 public final class RpcServer extends AbstractServer<RpcServer> {
 	public static final ServerSocketSettings DEFAULT_SERVER_SOCKET_SETTINGS = ServerSocketSettings.create(16384);
 	public static final MemSize DEFAULT_INITIAL_BUFFER_SIZE = ChannelSerializer.DEFAULT_INITIAL_BUFFER_SIZE;
+	public static final int DEFAULT_STREAM_WINDOW = ApplicationSettings.getInt(RpcServer.class, "streamWindow", 256);
 
 	private MemSize initialBufferSize = DEFAULT_INITIAL_BUFFER_SIZE;
 	private @Nullable FrameFormat frameFormat;
 	private Duration autoFlushInterval = Duration.ZERO;
 
 	private final Map<Class<?>, RpcRequestHandler<?, ?>> handlers = new LinkedHashMap<>();
+	private final Map<Class<?>, RpcStreamHandler<?, ?>> streamHandlers = new LinkedHashMap<>();
+	private final Map<Class<?>, RpcUploadHandler<?, ?, ?>> uploadHandlers = new LinkedHashMap<>();
+	private final Map<Class<?>, RpcBatchHandler<?, ?>> batchHandlers = new LinkedHashMap<>();
+	private final Map<Class<?>, RpcConcurrencyLimiter> concurrencyLimiters = new HashMap<>();
+	private int streamWindow = DEFAULT_STREAM_WINDOW;
 	private ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
 	private SerializerBuilder serializerBuilder = SerializerBuilder.create(DefiningClassLoader.create(classLoader));
 	private List<Class<?>> messageTypes;
@@ -103,6 +110,7 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 	private final Map<InetAddress, EventStats> connectsPerAddress = new HashMap<>();
 	private final EventStats successfulRequests = EventStats.create(SMOOTHING_WINDOW);
 	private final EventStats failedRequests = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats rejectedRequests = EventStats.create(SMOOTHING_WINDOW);
 	private final ValueStats requestHandlingTime = ValueStats.create(SMOOTHING_WINDOW).withUnit("milliseconds");
 	private final ExceptionStats lastRequestHandlingException = ExceptionStats.create();
 	private final ExceptionStats lastProtocolError = ExceptionStats.create();
@@ -187,18 +195,98 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 	 * @return server instance capable for handling requests of concrete types
 	 */
 	public <I, O> RpcServer withHandler(Class<I> requestClass, RpcRequestHandler<I, O> handler) {
-		checkArgument(!handlers.containsKey(requestClass), "Handler for {} has already been added", requestClass);
+		checkHandlerIsNotAdded(requestClass);
 		handlers.put(requestClass, handler);
 		return this;
 	}
 
+	/**
+	 * Adds a handler for a request which is answered with a stream of responses.
+	 *
+	 * @param requestClass a class representing a request structure
+	 * @param handler      a handler which creates a stream of responses to a request
+	 * @param <I>          class of request
+	 * @param <O>          class of streamed responses
+	 * @return server instance capable for handling stream requests of concrete types
+	 */
+	public <I, O> RpcServer withStreamHandler(Class<I> requestClass, RpcStreamHandler<I, O> handler) {
+		checkHandlerIsNotAdded(requestClass);
+		streamHandlers.put(requestClass, handler);
+		return this;
+	}
+
+	/**
+	 * Adds a handler for a request which is followed by a stream of uploaded items.
+	 *
+	 * @param requestClass a class representing a request structure
+	 * @param handler      a handler which consumes uploaded items and creates a response
+	 * @param <I>          class of request
+	 * @param <T>          class of uploaded items
+	 * @param <O>          class of response
+	 * @return server instance capable for handling upload requests of concrete types
+	 */
+	public <I, T, O> RpcServer withUploadHandler(Class<I> requestClass, RpcUploadHandler<I, T, O> handler) {
+		checkHandlerIsNotAdded(requestClass);
+		uploadHandlers.put(requestClass, handler);
+		return this;
+	}
+
+	/**
+	 * Adds a handler which receives requests of a specified class in batches.
+	 *
+	 * @param requestClass a class representing a request structure
+	 * @param handler      a handler which creates responses to a batch of requests
+	 * @param <I>          class of request
+	 * @param <O>          class of response
+	 * @return server instance capable for handling requests of concrete types in batches
+	 * @see RpcBatchHandler
+	 */
+	public <I, O> RpcServer withBatchHandler(Class<I> requestClass, RpcBatchHandler<I, O> handler) {
+		checkHandlerIsNotAdded(requestClass);
+		batchHandlers.put(requestClass, handler);
+		return this;
+	}
+
+	/**
+	 * Limits a number of requests of a specified class which are handled concurrently.
+	 * Requests above the limit are answered with {@link io.activej.rpc.protocol.RpcOverloadException}.
+	 *
+	 * @param requestClass a class of requests handled by a regular or a batch handler
+	 * @param limiter      a limiter which is not shared with other request classes
+	 * @return server instance with a concurrency limit for requests of a specified class
+	 * @see RpcConcurrencyLimiter
+	 */
+	public RpcServer withConcurrencyLimiter(Class<?> requestClass, RpcConcurrencyLimiter limiter) {
+		checkArgument(!concurrencyLimiters.containsValue(limiter), "Limiter is already used for other request class");
+		concurrencyLimiters.put(requestClass, limiter);
+		return this;
+	}
+
+	/**
+	 * Sets a number of uploaded items which a client may send ahead of their consumption by an upload handler
+	 */
+	public RpcServer withStreamWindow(int streamWindow) {
+		checkArgument(streamWindow > 0, "Stream window must be positive");
+		this.streamWindow = streamWindow;
+		return this;
+	}
+
+	private void checkHandlerIsNotAdded(Class<?> requestClass) {
+		checkArgument(!handlers.containsKey(requestClass) &&
+						!streamHandlers.containsKey(requestClass) &&
+						!uploadHandlers.containsKey(requestClass) &&
+						!batchHandlers.containsKey(requestClass),
+				"Handler for %s has already been added", requestClass);
+	}
+
 	// endregion
 
 	@Override
 	protected void serve(AsyncTcpSocket socket, InetAddress remoteAddress) {
 		RpcStream stream = new RpcStream(socket, serializer, initialBufferSize,
 				autoFlushInterval, frameFormat, true); // , statsSerializer, statsDeserializer, statsCompressor, statsDecompressor);
-		RpcServerConnection connection = new RpcServerConnection(this, remoteAddress, handlers, stream);
+		RpcServerConnection connection = new RpcServerConnection(this, remoteAddress,
+				handlers, streamHandlers, uploadHandlers, batchHandlers, concurrencyLimiters, streamWindow, stream);
 		stream.setListener(connection);
 		add(connection);
 
@@ -210,6 +298,10 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 	@Override
 	protected void onListen() {
 		checkState(messageTypes != null, "Message types must be specified");
+		for (Class<?> requestClass : concurrencyLimiters.keySet()) {
+			checkState(handlers.containsKey(requestClass) || batchHandlers.containsKey(requestClass),
+					"Concurrency limiter for %s has no request handler", requestClass);
+		}
 		serializer = serializerBuilder.withSubclasses(RpcMessage.MESSAGE_TYPES, messageTypes).build(RpcMessage.class);
 	}
 
@@ -318,6 +410,16 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 		return failedRequests;
 	}
 
+	@JmxAttribute(extraSubAttributes = "totalCount", description = "requests rejected by concurrency limiters")
+	public EventStats getRejectedRequests() {
+		return rejectedRequests;
+	}
+
+	@JmxAttribute
+	public Map<Class<?>, RpcConcurrencyLimiter> getConcurrencyLimiters() {
+		return concurrencyLimiters;
+	}
+
 	@JmxAttribute(description = "time for handling one request in milliseconds (both successful and failed)")
 	public ValueStats getRequestHandlingTime() {
 		return requestHandlingTime;
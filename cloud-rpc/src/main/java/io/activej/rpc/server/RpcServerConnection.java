@@ -16,34 +16,49 @@
 
 package io.activej.rpc.server;
 
+import io.activej.async.callback.Callback;
+import io.activej.async.exception.AsyncCloseException;
 import io.activej.common.exception.MalformedDataException;
 import io.activej.datastream.StreamDataAcceptor;
+import io.activej.datastream.StreamSupplier;
 import io.activej.jmx.api.JmxRefreshable;
 import io.activej.jmx.api.attribute.JmxAttribute;
 import io.activej.jmx.stats.EventStats;
 import io.activej.jmx.stats.ExceptionStats;
 import io.activej.jmx.stats.ValueStats;
 import io.activej.promise.Promise;
-import io.activej.rpc.protocol.RpcControlMessage;
-import io.activej.rpc.protocol.RpcMessage;
-import io.activej.rpc.protocol.RpcRemoteException;
-import io.activej.rpc.protocol.RpcStream;
+import io.activej.rpc.protocol.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public final class RpcServerConnection implements RpcStream.Listener, JmxRefreshable {
 	private static final Logger logger = LoggerFactory.getLogger(RpcServerConnection.class);
 
+	private static final RpcRemoteException OVERLOAD_EXCEPTION = new RpcRemoteException(new RpcOverloadException("RPC server is overloaded"));
+
 	private StreamDataAcceptor<RpcMessage> downstreamDataAcceptor;
 
 	private final RpcServer rpcServer;
 	private final RpcStream stream;
 	private final Map<Class<?>, RpcRequestHandler<?, ?>> handlers;
+	private final Map<Class<?>, RpcStreamHandler<?, ?>> streamHandlers;
+	private final Map<Class<?>, RpcUploadHandler<?, ?, ?>> uploadHandlers;
+	private final Map<Class<?>, RpcBatchHandler<?, ?>> batchHandlers;
+	private final Map<Class<?>, RpcConcurrencyLimiter> concurrencyLimiters;
+	private final int streamWindow;
+
+	private final Map<Class<?>, List<Request>> batches = new HashMap<>();
+
+	private final Map<Integer, RpcStreamSender<?>> senders = new HashMap<>();
+	private final Map<Integer, RpcStreamReceiver<?>> receivers = new HashMap<>();
 
 	private int activeRequests = 1;
 
@@ -53,13 +68,24 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 	private final ValueStats requestHandlingTime = ValueStats.create(RpcServer.SMOOTHING_WINDOW).withUnit("milliseconds");
 	private final EventStats successfulRequests = EventStats.create(RpcServer.SMOOTHING_WINDOW);
 	private final EventStats failedRequests = EventStats.create(RpcServer.SMOOTHING_WINDOW);
+	private final EventStats rejectedRequests = EventStats.create(RpcServer.SMOOTHING_WINDOW);
 	private boolean monitoring = false;
 
 	RpcServerConnection(RpcServer rpcServer, InetAddress remoteAddress,
-			Map<Class<?>, RpcRequestHandler<?, ?>> handlers, RpcStream stream) {
+			Map<Class<?>, RpcRequestHandler<?, ?>> handlers,
+			Map<Class<?>, RpcStreamHandler<?, ?>> streamHandlers,
+			Map<Class<?>, RpcUploadHandler<?, ?, ?>> uploadHandlers,
+			Map<Class<?>, RpcBatchHandler<?, ?>> batchHandlers,
+			Map<Class<?>, RpcConcurrencyLimiter> concurrencyLimiters,
+			int streamWindow, RpcStream stream) {
 		this.rpcServer = rpcServer;
 		this.stream = stream;
 		this.handlers = handlers;
+		this.streamHandlers = streamHandlers;
+		this.uploadHandlers = uploadHandlers;
+		this.batchHandlers = batchHandlers;
+		this.concurrencyLimiters = concurrencyLimiters;
+		this.streamWindow = streamWindow;
 
 		// jmx
 		this.remoteAddress = remoteAddress;
@@ -76,45 +102,218 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 
 	@Override
 	public void accept(RpcMessage message) {
+		if (acceptStreamMessage(message)) return;
+		Object messageData = message.getData();
+		if (!streamHandlers.isEmpty() || !uploadHandlers.isEmpty()) {
+			Class<?> requestClass = messageData.getClass();
+			if (streamHandlers.containsKey(requestClass)) {
+				serveStream(message.getCookie(), messageData);
+				return;
+			}
+			if (uploadHandlers.containsKey(requestClass)) {
+				serveUpload(message.getCookie(), messageData);
+				return;
+			}
+		}
+
+		int cookie = message.getCookie();
+		RpcConcurrencyLimiter limiter = concurrencyLimiters.isEmpty() ? null : concurrencyLimiters.get(messageData.getClass());
+		if (limiter != null && !limiter.tryAcquire()) {
+			downstreamDataAcceptor.accept(RpcMessage.of(cookie, OVERLOAD_EXCEPTION));
+			rejectedRequests.recordEvent();
+			rpcServer.getRejectedRequests().recordEvent();
+			return;
+		}
+
 		activeRequests++;
 
+		Request request = new Request(cookie, messageData, limiter);
+		if (!batchHandlers.isEmpty() && batchHandlers.containsKey(messageData.getClass())) {
+			addToBatch(request);
+			return;
+		}
+		serve(messageData).run(request);
+	}
+
+	private void addToBatch(Request request) {
+		if (batches.isEmpty()) {
+			rpcServer.getEventloop().postLast(this::serveBatches);
+		}
+		batches.computeIfAbsent(request.data.getClass(), $ -> new ArrayList<>()).add(request);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void serveBatches() {
+		for (Map.Entry<Class<?>, List<Request>> entry : batches.entrySet()) {
+			RpcBatchHandler<Object, Object> handler = (RpcBatchHandler<Object, Object>) batchHandlers.get(entry.getKey());
+			List<Request> batch = entry.getValue();
+			List<Object> requests = new ArrayList<>(batch.size());
+			for (Request request : batch) {
+				requests.add(request.data);
+			}
+			Promise<List<Object>> promise;
+			try {
+				promise = handler.run(requests);
+			} catch (Exception e) {
+				promise = Promise.ofException(e);
+			}
+			promise
+					.run((results, e) -> {
+						if (e == null && results.size() != batch.size()) {
+							e = new RpcException("Batch handler returned " + results.size() + " responses to " + batch.size() + " requests");
+						}
+						for (int i = 0; i < batch.size(); i++) {
+							batch.get(i).accept(e == null ? results.get(i) : null, e);
+						}
+					});
+		}
+		batches.clear();
+	}
+
+	private boolean acceptStreamMessage(RpcMessage message) {
 		int cookie = message.getCookie();
-		long startTime = monitoring ? System.currentTimeMillis() : 0;
+		Object data = message.getData();
+		if (data instanceof RpcStreamCredit) {
+			RpcStreamSender<?> sender = senders.get(cookie);
+			if (sender != null) {
+				sender.onCredit(((RpcStreamCredit) data).getCredit());
+			}
+			return true;
+		}
+		if (data == RpcControlMessage.END_OF_STREAM) {
+			RpcStreamReceiver<?> receiver = receivers.get(cookie);
+			if (receiver != null) {
+				receiver.onEnd();
+			}
+			return true;
+		}
+		if (data instanceof RpcRemoteException) {
+			RpcStreamSender<?> sender = senders.get(cookie);
+			if (sender != null) {
+				sender.onPeerError((RpcRemoteException) data);
+			}
+			RpcStreamReceiver<?> receiver = receivers.get(cookie);
+			if (receiver != null) {
+				receiver.onPeerError((RpcRemoteException) data);
+			}
+			return true;
+		}
+		if (receivers.isEmpty()) return false;
+		RpcStreamReceiver<?> receiver = receivers.get(cookie);
+		if (receiver != null) {
+			receiver.onItem(data);
+			return true;
+		}
+		return false;
+	}
 
-		Object messageData = message.getData();
-		serve(messageData)
-				.run((result, e) -> {
-					if (startTime != 0) {
-						int value = (int) (System.currentTimeMillis() - startTime);
-						requestHandlingTime.recordValue(value);
-						rpcServer.getRequestHandlingTime().recordValue(value);
+	@SuppressWarnings("unchecked")
+	private void serveStream(int cookie, Object request) {
+		activeRequests++;
+		RpcStreamHandler<Object, Object> handler = (RpcStreamHandler<Object, Object>) streamHandlers.get(request.getClass());
+		RpcStreamSender<Object> sender = new RpcStreamSender<>(cookie, message -> downstreamDataAcceptor.accept(message));
+		senders.put(cookie, sender);
+		StreamSupplier<Object> supplier;
+		try {
+			supplier = handler.stream(request);
+		} catch (Exception e) {
+			supplier = StreamSupplier.closingWithError(e);
+		}
+		supplier.streamTo(sender)
+				.whenComplete((result, e) -> {
+					senders.remove(cookie);
+					if (e == null) {
+						successfulRequests.recordEvent();
+						rpcServer.getSuccessfulRequests().recordEvent();
+					} else {
+						logger.warn("Exception while streaming responses to request ID {}", cookie, e);
+						recordError(request, e);
 					}
+					onRequestComplete();
+				});
+	}
+
+	@SuppressWarnings("unchecked")
+	private void serveUpload(int cookie, Object request) {
+		activeRequests++;
+		RpcUploadHandler<Object, Object, Object> handler = (RpcUploadHandler<Object, Object, Object>) uploadHandlers.get(request.getClass());
+		RpcStreamReceiver<Object> receiver = new RpcStreamReceiver<>(cookie, streamWindow, message -> downstreamDataAcceptor.accept(message));
+		receivers.put(cookie, receiver);
+		receiver.getAcknowledgement()
+				.whenComplete(() -> receivers.remove(cookie));
+		Promise<Object> promise;
+		try {
+			promise = handler.upload(request, receiver);
+		} catch (Exception e) {
+			promise = Promise.ofException(e);
+		}
+		promise
+				.whenComplete((result, e) -> {
 					if (e == null) {
 						downstreamDataAcceptor.accept(RpcMessage.of(cookie, result));
-
 						successfulRequests.recordEvent();
 						rpcServer.getSuccessfulRequests().recordEvent();
 					} else {
-						logger.warn("Exception while processing request ID {}", cookie, e);
-						RpcMessage errorMessage = RpcMessage.of(cookie, new RpcRemoteException(e));
-						sendError(errorMessage, messageData, e);
-					}
-					if (--activeRequests == 0) {
-						doClose();
-						stream.sendEndOfStream();
+						logger.warn("Exception while processing upload request ID {}", cookie, e);
+						sendError(RpcMessage.of(cookie, new RpcRemoteException(e)), request, e);
 					}
+					// a client stops uploading when it receives a response
+					receiver.onPeerError(new AsyncCloseException("Upload request has been completed"));
+					onRequestComplete();
 				});
 	}
 
-	@Override
-	public void onReceiverEndOfStream() {
-		activeRequests--;
-		if (activeRequests == 0) {
+	private final class Request implements Callback<Object> {
+		final int cookie;
+		final Object data;
+		final @Nullable RpcConcurrencyLimiter limiter;
+		final long startTime;
+		final long startNanos;
+
+		Request(int cookie, Object data, @Nullable RpcConcurrencyLimiter limiter) {
+			this.cookie = cookie;
+			this.data = data;
+			this.limiter = limiter;
+			this.startTime = monitoring ? System.currentTimeMillis() : 0;
+			this.startNanos = limiter != null ? System.nanoTime() : 0;
+		}
+
+		@Override
+		public void accept(Object result, @Nullable Exception e) {
+			if (startTime != 0) {
+				int value = (int) (System.currentTimeMillis() - startTime);
+				requestHandlingTime.recordValue(value);
+				rpcServer.getRequestHandlingTime().recordValue(value);
+			}
+			if (e == null) {
+				downstreamDataAcceptor.accept(RpcMessage.of(cookie, result));
+
+				successfulRequests.recordEvent();
+				rpcServer.getSuccessfulRequests().recordEvent();
+			} else {
+				logger.warn("Exception while processing request ID {}", cookie, e);
+				RpcMessage errorMessage = RpcMessage.of(cookie, new RpcRemoteException(e));
+				sendError(errorMessage, data, e);
+			}
+			if (limiter != null) {
+				limiter.release(System.nanoTime() - startNanos, e instanceof RpcOverloadException);
+			}
+			onRequestComplete();
+		}
+	}
+
+	private void onRequestComplete() {
+		if (--activeRequests == 0) {
 			doClose();
 			stream.sendEndOfStream();
 		}
 	}
 
+	@Override
+	public void onReceiverEndOfStream() {
+		onRequestComplete();
+	}
+
 	@Override
 	public void onReceiverError(@NotNull Exception e) {
 		logger.error("Receiver error {}", remoteAddress, e);
@@ -151,6 +350,10 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 
 	private void sendError(RpcMessage errorMessage, Object messageData, @Nullable Exception e) {
 		downstreamDataAcceptor.accept(errorMessage);
+		recordError(messageData, e);
+	}
+
+	private void recordError(Object messageData, @Nullable Exception e) {
 		lastRequestHandlingException.recordException(e, messageData);
 		rpcServer.getLastRequestHandlingException().recordException(e, messageData);
 		failedRequests.recordEvent();
@@ -160,6 +363,15 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 	private void doClose() {
 		rpcServer.remove(this);
 		downstreamDataAcceptor = $ -> {};
+		if (!senders.isEmpty() || !receivers.isEmpty()) {
+			AsyncCloseException e = new AsyncCloseException("Connection closed");
+			for (RpcStreamSender<?> sender : new ArrayList<>(senders.values())) {
+				sender.onPeerError(e);
+			}
+			for (RpcStreamReceiver<?> receiver : new ArrayList<>(receivers.values())) {
+				receiver.onPeerError(e);
+			}
+		}
 	}
 
 	public void shutdown() {
@@ -187,6 +399,11 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 		return failedRequests;
 	}
 
+	@JmxAttribute
+	public EventStats getRejectedRequests() {
+		return rejectedRequests;
+	}
+
 	@JmxAttribute
 	public ValueStats getRequestHandlingTime() {
 		return requestHandlingTime;
@@ -197,6 +414,11 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 		return lastRequestHandlingException;
 	}
 
+	@JmxAttribute
+	public int getActiveStreams() {
+		return senders.size() + receivers.size();
+	}
+
 	@JmxAttribute
 	public String getRemoteAddress() {
 		return remoteAddress.toString();
@@ -206,6 +428,7 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 	public void refresh(long timestamp) {
 		successfulRequests.refresh(timestamp);
 		failedRequests.refresh(timestamp);
+		rejectedRequests.refresh(timestamp);
 		requestHandlingTime.refresh(timestamp);
 	}
 
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.server;
+
+import io.activej.datastream.StreamSupplier;
+
+/**
+ * A handler of a request which is answered with a stream of responses.
+ * <p>
+ * Responses are sent over the same connection as other requests,
+ * and are only sent as fast as a client consumes them.
+ *
+ * @param <I> class of request
+ * @param <O> class of streamed responses
+ */
+@FunctionalInterface
+public interface RpcStreamHandler<I, O> {
+	StreamSupplier<O> stream(I request);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.rpc.server;
+
+import io.activej.datastream.StreamSupplier;
+import io.activej.promise.Promise;
+
+/**
+ * A handler of a request which is followed by a stream of items uploaded by a client.
+ * <p>
+ * A client only sends items as fast as the handler consumes them.
+ *
+ * @param <I> class of request
+ * @param <T> class of uploaded items
+ * @param <O> class of response
+ */
+@FunctionalInterface
+public interface RpcUploadHandler<I, T, O> {
+	Promise<O> upload(I request, StreamSupplier<T> items);
+}
@@ -0,0 +1,141 @@
+package io.activej.rpc;
+
+import io.activej.common.collection.Try;
+import io.activej.common.exception.MalformedDataException;
+import io.activej.eventloop.Eventloop;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.rpc.client.RpcClient;
+import io.activej.rpc.protocol.RpcOverloadException;
+import io.activej.rpc.protocol.RpcRemoteException;
+import io.activej.rpc.server.RpcConcurrencyLimiter;
+import io.activej.rpc.server.RpcServer;
+import io.activej.test.rules.ActivePromisesRule;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.ClassBuilderConstantsRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.activej.promise.TestUtils.await;
+import static io.activej.rpc.client.sender.RpcStrategies.server;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public final class RpcServerBatchingTest {
+	private static final int REQUESTS = 100;
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@Rule
+	public final ActivePromisesRule activePromisesRule = new ActivePromisesRule();
+
+	@Rule
+	public final ClassBuilderConstantsRule classBuilderConstantsRule = new ClassBuilderConstantsRule();
+
+	private final List<Integer> batchSizes = new ArrayList<>();
+	private final RpcConcurrencyLimiter limiter = RpcConcurrencyLimiter.fixed(2);
+	private RpcClient client;
+	private RpcServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		int port = getFreePort();
+		Eventloop eventloop = Eventloop.getCurrentEventloop();
+
+		server = RpcServer.create(eventloop)
+				.withMessageTypes(Integer.class, Long.class, String.class)
+				.withBatchHandler(Integer.class, (List<Integer> requests) -> {
+					batchSizes.add(requests.size());
+					if (requests.contains(-1)) {
+						return Promise.ofException(new MalformedDataException("Negative request"));
+					}
+					return Promise.of(requests.stream().map(request -> request * 2).collect(toList()));
+				})
+				.withBatchHandler(Long.class, (List<Long> requests) -> Promise.of(new ArrayList<>()))
+				.withHandler(String.class, request -> Promises.delay(Duration.ofMillis(50), "Hello, " + request))
+				.withConcurrencyLimiter(String.class, limiter)
+				.withListenPort(port);
+
+		client = RpcClient.create(eventloop)
+				.withMessageTypes(Integer.class, Long.class, String.class)
+				.withStrategy(server(new InetSocketAddress(port)));
+
+		server.listen();
+	}
+
+	@Test
+	public void testBatches() {
+		List<Integer> result = await(client.start()
+				.then(() -> Promises.toList(IntStream.range(0, REQUESTS)
+						.mapToObj(i -> client.<Integer, Integer>sendRequest(i))))
+				.then(this::stop));
+
+		assertEquals(IntStream.range(0, REQUESTS).map(i -> i * 2).boxed().collect(toList()), result);
+		assertEquals(REQUESTS, batchSizes.stream().mapToInt(Integer::intValue).sum());
+		assertTrue(batchSizes.size() < REQUESTS);
+	}
+
+	@Test
+	public void testBatchFailure() {
+		List<Try<Integer>> result = await(client.start()
+				.then(() -> Promises.toList(
+						client.<Integer, Integer>sendRequest(1).toTry(),
+						client.<Integer, Integer>sendRequest(-1).toTry()))
+				.then(this::stop));
+
+		assertEquals(1, batchSizes.size());
+		for (Try<Integer> response : result) {
+			RpcRemoteException e = (RpcRemoteException) response.getException();
+			assertNotNull(e);
+			assertEquals(MalformedDataException.class.getName(), e.getCauseClassName());
+		}
+	}
+
+	@Test
+	public void testBatchWithMissingResponses() {
+		Try<Long> result = await(client.start()
+				.then(() -> client.<Long, Long>sendRequest(1L).toTry())
+				.then(this::stop));
+
+		assertTrue(result.getException() instanceof RpcRemoteException);
+	}
+
+	@Test
+	public void testConcurrencyLimit() {
+		List<Try<String>> result = await(client.start()
+				.then(() -> Promises.toList(IntStream.range(0, 5)
+						.mapToObj(i -> client.<String, String>sendRequest("World " + i).toTry())))
+				.then(this::stop));
+
+		assertEquals("Hello, World 0", result.get(0).get());
+		assertEquals("Hello, World 1", result.get(1).get());
+		for (Try<String> response : result.subList(2, 5)) {
+			RpcRemoteException e = (RpcRemoteException) response.getException();
+			assertNotNull(e);
+			assertEquals(RpcOverloadException.class.getName(), e.getCauseClassName());
+		}
+		assertEquals(3, limiter.getRejected());
+		assertEquals(3, server.getRejectedRequests().getTotalCount());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	private <T> Promise<T> stop(T result) {
+		return client.stop()
+				.then(server::close)
+				.map($ -> result);
+	}
+}
@@ -0,0 +1,197 @@
+package io.activej.rpc;
+
+import io.activej.datastream.AbstractStreamConsumer;
+import io.activej.datastream.StreamSupplier;
+import io.activej.eventloop.Eventloop;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.rpc.client.RpcClient;
+import io.activej.rpc.protocol.RpcRemoteException;
+import io.activej.rpc.server.RpcServer;
+import io.activej.serializer.annotations.Deserialize;
+import io.activej.serializer.annotations.Serialize;
+import io.activej.test.rules.ActivePromisesRule;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.ClassBuilderConstantsRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.activej.promise.TestUtils.await;
+import static io.activej.promise.TestUtils.awaitException;
+import static io.activej.rpc.client.sender.RpcStrategies.server;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.*;
+
+public final class RpcStreamingTest {
+	private static final int WINDOW = 16;
+	private static final int COUNT = 10_000;
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@Rule
+	public final ActivePromisesRule activePromisesRule = new ActivePromisesRule();
+
+	@Rule
+	public final ClassBuilderConstantsRule classBuilderConstantsRule = new ClassBuilderConstantsRule();
+
+	public static final class RangeRequest {
+		@Serialize
+		public final int count;
+
+		public RangeRequest(@Deserialize("count") int count) {
+			this.count = count;
+		}
+	}
+
+	public static final class SumRequest {
+		@Serialize
+		public final int initial;
+
+		public SumRequest(@Deserialize("initial") int initial) {
+			this.initial = initial;
+		}
+	}
+
+	private int produced;
+	private RpcClient client;
+	private RpcServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		int port = getFreePort();
+		Eventloop eventloop = Eventloop.getCurrentEventloop();
+
+		server = RpcServer.create(eventloop)
+				.withMessageTypes(RangeRequest.class, SumRequest.class, Integer.class, String.class)
+				.withStreamWindow(WINDOW)
+				.withStreamHandler(RangeRequest.class, request -> {
+					if (request.count < 0) {
+						return StreamSupplier.closingWithError(new IllegalArgumentException("Negative count"));
+					}
+					return StreamSupplier.ofIterator(new Iterator<Integer>() {
+						@Override
+						public boolean hasNext() {
+							return produced < request.count;
+						}
+
+						@Override
+						public Integer next() {
+							return produced++;
+						}
+					});
+				})
+				.withUploadHandler(SumRequest.class, (SumRequest request, StreamSupplier<Integer> items) -> items.toList()
+						.map(list -> list.stream().mapToInt(Integer::intValue).sum() + request.initial))
+				.withHandler(String.class, request -> Promise.of("Hello, " + request))
+				.withListenPort(port);
+
+		client = RpcClient.create(eventloop)
+				.withMessageTypes(RangeRequest.class, SumRequest.class, Integer.class, String.class)
+				.withStreamWindow(WINDOW)
+				.withStrategy(server(new InetSocketAddress(port)));
+
+		server.listen();
+	}
+
+	@Test
+	public void testStream() {
+		List<Integer> result = await(client.start()
+				.then(() -> Promises.toTuple(
+						client.<RangeRequest, Integer>sendStreamRequest(new RangeRequest(COUNT)).toList(),
+						client.sendRequest("World")))
+				.then(tuple -> stop(tuple.getValue1())));
+
+		assertEquals(IntStream.range(0, COUNT).boxed().collect(toList()), result);
+	}
+
+	@Test
+	public void testUpload() {
+		Integer result = await(client.start()
+				.then(() -> client.<SumRequest, Integer, Integer>sendUploadRequest(new SumRequest(1),
+						StreamSupplier.ofStream(IntStream.range(0, COUNT).boxed())))
+				.then(this::stop));
+
+		assertEquals(COUNT * (COUNT - 1) / 2 + 1, result.intValue());
+	}
+
+	@Test
+	public void testConcurrentStreams() {
+		List<List<Integer>> result = await(client.start()
+				.then(() -> Promises.toList(
+						client.<RangeRequest, Integer>sendStreamRequest(new RangeRequest(0)).toList(),
+						client.<RangeRequest, Integer>sendStreamRequest(new RangeRequest(1)).toList()))
+				.then(this::stop));
+
+		assertEquals(2, result.size());
+		assertEquals(1, result.get(0).size() + result.get(1).size());
+	}
+
+	@Test
+	public void testFlowControl() {
+		int consumed = 100;
+		List<Integer> received = new ArrayList<>();
+		AbstractStreamConsumer<Integer> consumer = new AbstractStreamConsumer<Integer>() {
+			@Override
+			protected void onStarted() {
+				resume(item -> {
+					received.add(item);
+					if (received.size() == consumed) {
+						suspend();
+					}
+				});
+			}
+		};
+
+		Exception e = awaitException(client.start()
+				.then(() -> {
+					client.<RangeRequest, Integer>sendStreamRequest(new RangeRequest(COUNT)).streamTo(consumer);
+					return Promises.delay(200L);
+				})
+				.then(() -> {
+					assertEquals(consumed, received.size());
+					assertTrue(produced <= consumed + WINDOW);
+					consumer.closeEx(new Exception("Cancelled"));
+					return Promises.delay(100L);
+				})
+				.then(() -> {
+					assertEquals(0, server.getConnections().get(0).getActiveStreams());
+					return stop(null);
+				})
+				.then(() -> consumer.getAcknowledgement()));
+
+		assertEquals("Cancelled", e.getMessage());
+		assertTrue(produced < COUNT);
+	}
+
+	@Test
+	public void testStreamError() {
+		Exception e = awaitException(client.start()
+				.then(() -> client.<RangeRequest, Integer>sendStreamRequest(new RangeRequest(-1)).toList())
+				.then(($, e1) -> stop(null).then(() -> Promise.ofException(e1))));
+
+		assertThat(e, instanceOf(RpcRemoteException.class));
+		assertEquals(IllegalArgumentException.class.getName(), ((RpcRemoteException) e).getCauseClassName());
+	}
+
+	private <T> Promise<T> stop(T result) {
+		return client.stop()
+				.then(server::close)
+				.map($ -> result);
+	}
+}
@@ -0,0 +1,134 @@
+package io.activej.rpc.client;
+
+import io.activej.async.callback.Callback;
+import org.junit.Test;
+
+import java.util.*;
+
+import static io.activej.rpc.client.RpcCallbackTable.NO_DEADLINE;
+import static org.junit.Assert.*;
+
+public final class RpcCallbackTableTest {
+	@Test
+	public void testPutGetRemove() {
+		RpcCallbackTable table = new RpcCallbackTable();
+		Callback<Object> cb1 = callback();
+		Callback<Object> cb2 = callback();
+		table.put(1, cb1, NO_DEADLINE);
+		table.put(17, cb2, NO_DEADLINE); // collides with cookie 1
+
+		assertSame(cb1, table.get(1));
+		assertSame(cb2, table.get(17));
+		assertNull(table.get(33));
+		assertEquals(2, table.size());
+
+		assertSame(cb1, table.remove(1));
+		assertNull(table.remove(1));
+		assertSame(cb2, table.get(17));
+		assertSame(cb2, table.remove(17));
+		assertTrue(table.isEmpty());
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(0);
+		RpcCallbackTable table = new RpcCallbackTable();
+		Map<Integer, Callback<?>> expected = new HashMap<>();
+		List<Integer> active = new ArrayList<>();
+		int cookie = Integer.MAX_VALUE - 50_000; // cookies overflow to negative values
+		for (int i = 0; i < 100_000; i++) {
+			if (active.isEmpty() || random.nextInt(3) != 0) {
+				cookie++;
+				Callback<Object> cb = callback();
+				table.put(cookie, cb, NO_DEADLINE);
+				expected.put(cookie, cb);
+				active.add(cookie);
+			} else {
+				int removed = active.remove(random.nextInt(active.size()));
+				assertSame(expected.remove(removed), table.remove(removed));
+			}
+			assertEquals(expected.size(), table.size());
+		}
+		for (Map.Entry<Integer, Callback<?>> entry : expected.entrySet()) {
+			assertSame(entry.getValue(), table.get(entry.getKey()));
+		}
+		assertEquals(expected.size(), table.removeAll().size());
+		assertTrue(table.isEmpty());
+		assertNull(table.get(cookie));
+	}
+
+	@Test
+	public void testExpire() {
+		RpcCallbackTable table = new RpcCallbackTable();
+		Set<Callback<?>> expectedExpired = new HashSet<>();
+		for (int cookie = 0; cookie < 1000; cookie++) {
+			Callback<Object> cb = callback();
+			long deadline = cookie % 3 == 0 ? NO_DEADLINE : cookie % 2 == 0 ? 100 : 200;
+			table.put(cookie, cb, deadline);
+			if (deadline == 100) expectedExpired.add(cb);
+		}
+		assertTrue(table.hasDeadlines());
+
+		List<Callback<?>> expired = new ArrayList<>();
+		table.expire(150, expired);
+		assertEquals(expectedExpired, new HashSet<>(expired));
+		assertEquals(expectedExpired.size(), expired.size());
+		assertEquals(1000 - expired.size(), table.size());
+		for (int cookie = 0; cookie < 1000; cookie++) {
+			assertEquals(cookie % 3 != 0 && cookie % 2 == 0, table.get(cookie) == null);
+		}
+
+		expired.clear();
+		table.expire(200, expired);
+		assertFalse(table.hasDeadlines());
+		assertEquals(334, table.size());
+	}
+
+	@Test
+	public void testCapacityFollowsActiveRequests() {
+		RpcCallbackTable table = new RpcCallbackTable();
+		for (int cookie = 0; cookie < 1_000_000; cookie++) {
+			table.put(cookie, callback(), NO_DEADLINE);
+			if (cookie >= 100) {
+				assertNotNull(table.remove(cookie - 100));
+			}
+		}
+		assertEquals(100, table.size());
+		assertTrue(table.capacity() <= 256);
+	}
+
+	@Test
+	public void testCapacityShrinksAfterBurst() {
+		RpcCallbackTable table = new RpcCallbackTable();
+		for (int cookie = 0; cookie < 1_000_000; cookie++) {
+			table.put(cookie, callback(), cookie < 10 ? NO_DEADLINE : 100);
+		}
+		assertTrue(table.capacity() >= 2_000_000);
+
+		List<Callback<?>> expired = new ArrayList<>();
+		table.expire(100, expired);
+		assertEquals(1_000_000 - 10, expired.size());
+		assertEquals(10, table.size());
+		assertTrue(table.capacity() <= 128);
+		for (int cookie = 0; cookie < 10; cookie++) {
+			assertNotNull(table.get(cookie));
+		}
+
+		for (int cookie = 1_000_000; cookie < 2_000_000; cookie++) {
+			table.put(cookie, callback(), NO_DEADLINE);
+		}
+		for (int cookie = 1_000_000; cookie < 2_000_000; cookie++) {
+			assertNotNull(table.remove(cookie));
+		}
+		assertEquals(10, table.size());
+		assertTrue(table.capacity() <= 128);
+	}
+
+	private static Callback<Object> callback() {
+		return new Callback<Object>() {
+			@Override
+			public void accept(Object result, Exception e) {
+			}
+		};
+	}
+}
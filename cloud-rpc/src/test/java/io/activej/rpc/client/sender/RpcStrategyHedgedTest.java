@@ -0,0 +1,135 @@
+package io.activej.rpc.client.sender;
+
+import io.activej.common.recycle.Recyclable;
+import io.activej.promise.Promises;
+import io.activej.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.activej.rpc.client.sender.helper.RpcMessageDataStub;
+import io.activej.rpc.client.sender.helper.RpcSenderDeferredStub;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.activej.promise.TestUtils.await;
+import static io.activej.rpc.client.sender.Callbacks.forFuture;
+import static io.activej.rpc.client.sender.RpcStrategies.hedged;
+import static io.activej.rpc.client.sender.RpcStrategies.servers;
+import static io.activej.rpc.client.sender.RpcStrategyHedged.RESPONSE_TIMES_MIN;
+import static io.activej.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public class RpcStrategyHedgedTest {
+	private static final String HOST = "localhost";
+	private static final Object DATA = new RpcMessageDataStub();
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	private RpcSenderDeferredStub connection1;
+	private RpcSenderDeferredStub connection2;
+	private RpcStrategyHedged strategy;
+	private RpcSender sender;
+
+	private long currentTime;
+
+	@Before
+	public void setUp() {
+		InetSocketAddress address1 = new InetSocketAddress(HOST, getFreePort());
+		InetSocketAddress address2 = new InetSocketAddress(HOST, getFreePort());
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		connection1 = new RpcSenderDeferredStub();
+		connection2 = new RpcSenderDeferredStub();
+		pool.put(address1, connection1);
+		pool.put(address2, connection2);
+		strategy = hedged(servers(address1, address2));
+		strategy.nanoTime = () -> currentTime;
+		sender = strategy.createSender(pool);
+	}
+
+	@Test
+	public void itShouldNotHedgeBeforeEnoughResponseTimesAreObserved() {
+		assertEquals(-1, strategy.getHedgeDelay());
+
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		sender.sendRequest(DATA, 1000, forFuture(future));
+		await(Promises.delay(Duration.ofMillis(10)));
+
+		assertEquals(1, connection1.getRequests() + connection2.getRequests());
+		assertFalse(future.isDone());
+	}
+
+	@Test
+	public void itShouldHedgeSlowRequest() throws Exception {
+		warmUp();
+		assertEquals(1, strategy.getHedgeDelay());
+
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		sender.sendRequest(DATA, 1000, forFuture(future));
+		RpcSenderDeferredStub primary = connection1.getPending() == 1 ? connection1 : connection2;
+		RpcSenderDeferredStub secondary = primary == connection1 ? connection2 : connection1;
+		assertEquals(0, secondary.getPending());
+
+		await(Promises.delay(Duration.ofMillis(10)));
+		assertEquals(1, secondary.getPending());
+
+		secondary.complete("hedged");
+		assertEquals("hedged", future.get());
+
+		AtomicBoolean recycled = new AtomicBoolean();
+		primary.complete((Recyclable) () -> recycled.set(true));
+		assertEquals("hedged", future.get());
+		assertTrue(recycled.get());
+	}
+
+	@Test
+	public void itShouldWaitForHedgedRequestWhenPrimaryFails() throws Exception {
+		warmUp();
+
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		sender.sendRequest(DATA, 1000, forFuture(future));
+		RpcSenderDeferredStub primary = connection1.getPending() == 1 ? connection1 : connection2;
+		RpcSenderDeferredStub secondary = primary == connection1 ? connection2 : connection1;
+		await(Promises.delay(Duration.ofMillis(10)));
+
+		primary.completeExceptionally(new Exception("Primary failed"));
+		assertFalse(future.isDone());
+
+		secondary.completeExceptionally(new Exception("Hedge failed"));
+		try {
+			future.get();
+			fail();
+		} catch (ExecutionException e) {
+			assertEquals("Hedge failed", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void itShouldNotHedgeCompletedRequest() throws Exception {
+		warmUp();
+		int requests = connection1.getRequests() + connection2.getRequests();
+
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		sender.sendRequest(DATA, 1000, forFuture(future));
+		RpcSenderDeferredStub primary = connection1.getPending() == 1 ? connection1 : connection2;
+		primary.complete("primary");
+		await(Promises.delay(Duration.ofMillis(10)));
+
+		assertEquals("primary", future.get());
+		assertEquals(requests + 1, connection1.getRequests() + connection2.getRequests());
+	}
+
+	private void warmUp() {
+		for (int i = 0; i < RESPONSE_TIMES_MIN; i++) {
+			sender.sendRequest(DATA, 1000, Callbacks.ignore());
+			currentTime += 1_000_000;
+			if (connection1.getPending() != 0) connection1.complete(i);
+			if (connection2.getPending() != 0) connection2.complete(i);
+		}
+	}
+}
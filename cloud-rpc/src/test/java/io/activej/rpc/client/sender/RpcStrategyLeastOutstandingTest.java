@@ -0,0 +1,123 @@
+package io.activej.rpc.client.sender;
+
+import io.activej.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.activej.rpc.client.sender.helper.RpcMessageDataStub;
+import io.activej.rpc.client.sender.helper.RpcSenderDeferredStub;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static io.activej.rpc.client.sender.Callbacks.ignore;
+import static io.activej.rpc.client.sender.RpcStrategies.leastOutstanding;
+import static io.activej.rpc.client.sender.RpcStrategies.servers;
+import static io.activej.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public class RpcStrategyLeastOutstandingTest {
+	private static final String HOST = "localhost";
+	private static final Object DATA = new RpcMessageDataStub();
+
+	private InetSocketAddress address1;
+	private InetSocketAddress address2;
+	private InetSocketAddress address3;
+
+	private long currentTime;
+
+	@Before
+	public void setUp() {
+		address1 = new InetSocketAddress(HOST, getFreePort());
+		address2 = new InetSocketAddress(HOST, getFreePort());
+		address3 = new InetSocketAddress(HOST, getFreePort());
+	}
+
+	@Test
+	public void itShouldSendRequestToSenderWithLeastOutstandingRequests() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcSenderDeferredStub connection1 = new RpcSenderDeferredStub();
+		RpcSenderDeferredStub connection2 = new RpcSenderDeferredStub();
+		RpcSenderDeferredStub connection3 = new RpcSenderDeferredStub();
+		pool.put(address1, connection1);
+		pool.put(address2, connection2);
+		pool.put(address3, connection3);
+		RpcSender sender = leastOutstanding(servers(address1, address2, address3)).createSender(pool);
+
+		for (int i = 0; i < 6; i++) {
+			sender.sendRequest(DATA, 50, ignore());
+		}
+		assertEquals(2, connection1.getPending());
+		assertEquals(2, connection2.getPending());
+		assertEquals(2, connection3.getPending());
+
+		connection2.complete(1);
+		connection2.complete(2);
+		connection3.complete(3);
+		for (int i = 0; i < 3; i++) {
+			sender.sendRequest(DATA, 50, ignore());
+		}
+		assertEquals(2, connection1.getPending());
+		assertEquals(2, connection2.getPending());
+		assertEquals(2, connection3.getPending());
+		assertEquals(2, connection1.getRequests());
+		assertEquals(4, connection2.getRequests());
+		assertEquals(3, connection3.getRequests());
+	}
+
+	@Test
+	public void itShouldPreferFasterSenderWhenOutstandingRequestsAreEqual() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcSenderDeferredStub connection1 = new RpcSenderDeferredStub();
+		RpcSenderDeferredStub connection2 = new RpcSenderDeferredStub();
+		pool.put(address1, connection1);
+		pool.put(address2, connection2);
+		RpcStrategyLeastOutstanding strategy = leastOutstanding(servers(address1, address2));
+		strategy.nanoTime = () -> currentTime;
+		RpcSender sender = strategy.createSender(pool);
+
+		sender.sendRequest(DATA, 50, ignore());
+		sender.sendRequest(DATA, 50, ignore());
+		currentTime += 1_000_000;
+		connection1.complete(1);
+		currentTime += 100_000_000;
+		connection2.complete(2);
+
+		for (int i = 0; i < 10; i++) {
+			sender.sendRequest(DATA, 50, ignore());
+			connection1.complete(1);
+		}
+		assertEquals(11, connection1.getRequests());
+		assertEquals(1, connection2.getRequests());
+	}
+
+	@Test
+	public void itShouldKeepLoadsWhenSenderIsRecreated() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcSenderDeferredStub connection1 = new RpcSenderDeferredStub();
+		RpcSenderDeferredStub connection2 = new RpcSenderDeferredStub();
+		RpcSenderDeferredStub connection3 = new RpcSenderDeferredStub();
+		pool.put(address1, connection1);
+		pool.put(address2, connection2);
+		RpcStrategyLeastOutstanding strategy = leastOutstanding(servers(address1, address2, address3));
+
+		RpcSender sender = strategy.createSender(pool);
+		for (int i = 0; i < 4; i++) {
+			sender.sendRequest(DATA, 50, ignore());
+		}
+
+		pool.put(address3, connection3);
+		sender = strategy.createSender(pool);
+		for (int i = 0; i < 2; i++) {
+			sender.sendRequest(DATA, 50, ignore());
+		}
+		assertEquals(2, connection1.getRequests());
+		assertEquals(2, connection2.getRequests());
+		assertEquals(2, connection3.getRequests());
+	}
+
+	@Test
+	public void itShouldNotBeCreatedWhenThereAreNoActiveSubSenders() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+
+		assertNull(leastOutstanding(servers(address1, address2)).createSender(pool));
+	}
+}
@@ -0,0 +1,77 @@
+package io.activej.rpc.client.sender;
+
+import io.activej.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.activej.rpc.client.sender.helper.RpcMessageDataStub;
+import io.activej.rpc.client.sender.helper.RpcSenderDeferredStub;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static io.activej.rpc.client.sender.Callbacks.ignore;
+import static io.activej.rpc.client.sender.RpcStrategies.powerOfTwoChoices;
+import static io.activej.rpc.client.sender.RpcStrategies.servers;
+import static io.activej.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public class RpcStrategyPowerOfTwoChoicesTest {
+	private static final String HOST = "localhost";
+	private static final Object DATA = new RpcMessageDataStub();
+
+	private InetSocketAddress address1;
+	private InetSocketAddress address2;
+
+	private long currentTime;
+
+	@Before
+	public void setUp() {
+		address1 = new InetSocketAddress(HOST, getFreePort());
+		address2 = new InetSocketAddress(HOST, getFreePort());
+	}
+
+	@Test
+	public void itShouldAvoidSlowSender() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcSenderDeferredStub fast = new RpcSenderDeferredStub();
+		RpcSenderDeferredStub slow = new RpcSenderDeferredStub();
+		pool.put(address1, fast);
+		pool.put(address2, slow);
+		RpcStrategyPowerOfTwoChoices strategy = powerOfTwoChoices(servers(address1, address2));
+		strategy.nanoTime = () -> currentTime;
+		RpcSender sender = strategy.createSender(pool);
+
+		for (int i = 0; i < 1000; i++) {
+			sender.sendRequest(DATA, 50, ignore());
+			currentTime += 1_000_000;
+			if (fast.getPending() != 0) fast.complete(i);
+			if (slow.getPending() != 0 && i % 100 == 0) slow.complete(i);
+		}
+
+		assertTrue(slow.getRequests() < 20);
+		assertEquals(1000, fast.getRequests() + slow.getRequests());
+	}
+
+	@Test
+	public void itShouldSpreadRequestsBetweenEqualSenders() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcSenderDeferredStub connection1 = new RpcSenderDeferredStub();
+		RpcSenderDeferredStub connection2 = new RpcSenderDeferredStub();
+		pool.put(address1, connection1);
+		pool.put(address2, connection2);
+		RpcSender sender = powerOfTwoChoices(servers(address1, address2)).createSender(pool);
+
+		for (int i = 0; i < 100; i++) {
+			sender.sendRequest(DATA, 50, ignore());
+		}
+
+		assertEquals(50, connection1.getPending());
+		assertEquals(50, connection2.getPending());
+	}
+
+	@Test
+	public void itShouldNotBeCreatedWhenThereAreNoActiveSubSenders() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+
+		assertNull(powerOfTwoChoices(servers(address1, address2)).createSender(pool));
+	}
+}
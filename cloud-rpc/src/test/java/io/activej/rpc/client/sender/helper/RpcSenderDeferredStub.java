@@ -0,0 +1,36 @@
+package io.activej.rpc.client.sender.helper;
+
+import io.activej.async.callback.Callback;
+import io.activej.rpc.client.sender.RpcSender;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+@SuppressWarnings("unchecked")
+public final class RpcSenderDeferredStub implements RpcSender {
+	private final Queue<Callback<Object>> callbacks = new ArrayDeque<>();
+	private int requests;
+
+	public int getRequests() {
+		return requests;
+	}
+
+	public int getPending() {
+		return callbacks.size();
+	}
+
+	public void complete(Object result) {
+		callbacks.remove().accept(result, null);
+	}
+
+	public void completeExceptionally(Exception e) {
+		callbacks.remove().accept(null, e);
+	}
+
+	@Override
+	public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+		requests++;
+		callbacks.add((Callback<Object>) cb);
+	}
+}
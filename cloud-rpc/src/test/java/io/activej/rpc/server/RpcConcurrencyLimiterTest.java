@@ -0,0 +1,65 @@
+package io.activej.rpc.server;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public final class RpcConcurrencyLimiterTest {
+	private static final long FAST = Duration.ofMillis(1).toNanos();
+	private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+	@Test
+	public void testRejectsAboveLimit() {
+		RpcConcurrencyLimiter limiter = RpcConcurrencyLimiter.fixed(2);
+
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(1, limiter.getRejected());
+
+		limiter.release(FAST, false);
+		assertTrue(limiter.tryAcquire());
+		assertEquals(2, limiter.getLimit());
+		assertEquals(2, limiter.getInFlight());
+	}
+
+	@Test
+	public void testAdditiveIncrease() {
+		RpcConcurrencyLimiter limiter = RpcConcurrencyLimiter.create()
+				.withInitialLimit(4)
+				.withLatencyThreshold(Duration.ofSeconds(1));
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(limiter.tryAcquire());
+		}
+		limiter.release(FAST, false);
+		limiter.release(FAST, false);
+		assertEquals(6, limiter.getLimit());
+
+		// less than a half of the limit is in use, so the limit is not increased
+		limiter.release(FAST, false);
+		limiter.release(FAST, false);
+		assertEquals(6, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testMultiplicativeDecrease() {
+		RpcConcurrencyLimiter limiter = RpcConcurrencyLimiter.create()
+				.withInitialLimit(10)
+				.withLimits(5, 100)
+				.withBackoffRatio(0.5)
+				.withLatencyThreshold(Duration.ofSeconds(1));
+
+		assertTrue(limiter.tryAcquire());
+		limiter.release(SLOW, false);
+		assertEquals(5, limiter.getLimit());
+
+		assertTrue(limiter.tryAcquire());
+		limiter.release(FAST, true);
+		assertEquals(5, limiter.getLimit());
+		assertEquals(2, limiter.getDropped());
+	}
+}
@@ -657,6 +657,25 @@ public class ByteBuf implements Recyclable {
 		tail += length;
 	}
 
+	/**
+	 * Puts remaining bytes of a given {@link ByteBuffer} to this {@code ByteBuf}
+	 * from the {@link #tail} and increases the {@link #tail} by the amount of bytes put.
+	 * The position of the given {@link ByteBuffer} is moved to its limit.
+	 * <p>
+	 * Given {@link ByteBuffer} may be a direct one.
+	 *
+	 * @param byteBuffer the {@link ByteBuffer} which will be put to the {@link #array}
+	 */
+	public void put(@NotNull ByteBuffer byteBuffer) {
+		if (CHECK_RECYCLE && isRecycled()) throw ByteBufPool.onByteBufRecycled(this);
+		int length = byteBuffer.remaining();
+		if (CHECK) {
+			checkArgument(tail + length <= array.length, () -> "This buf cannot hold " + length + " more bytes");
+		}
+		byteBuffer.get(array, tail, length);
+		tail += length;
+	}
+
 	/**
 	 * Finds the given value in the {@link #array} and returns its position.
 	 * <p>
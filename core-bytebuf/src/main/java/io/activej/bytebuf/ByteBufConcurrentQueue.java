@@ -55,6 +55,42 @@ final class ByteBufConcurrentQueue {
 			pos2 = ((long) head << 32) + (tail & 0xFFFFFFFFL);
 		} while (!pos.compareAndSet(pos1, pos2));
 
+		return take(tail);
+	}
+
+	/**
+	 * Polls up to {@code count} ByteBufs with a single CAS operation
+	 *
+	 * @param dst   an array to which polled ByteBufs are stored
+	 * @param from  an index in the array starting from which ByteBufs are stored
+	 * @param count maximum number of ByteBufs to be polled
+	 * @return actual number of polled ByteBufs
+	 */
+	public int pollAll(ByteBuf[] dst, int from, int count) {
+		long pos1, pos2;
+		int head, tail, n;
+		do {
+			pos1 = pos.get();
+			head = (int) (pos1 >>> 32);
+			tail = (int) pos1;
+			n = Math.min(count, head - tail);
+			if (n <= 0) {
+				return 0;
+			}
+			if (ByteBufPool.USE_WATCHDOG) {
+				int size = head - tail - n;
+				realMin.updateAndGet(prevMin -> Math.min(prevMin, size));
+			}
+			pos2 = ((long) head << 32) + ((tail + n) & 0xFFFFFFFFL);
+		} while (!pos.compareAndSet(pos1, pos2));
+
+		for (int i = 0; i < n; i++) {
+			dst[from + i] = take(tail + 1 + i);
+		}
+		return n;
+	}
+
+	private @NotNull ByteBuf take(int tail) {
 		Integer boxedTail = null;
 
 		while (true) {
@@ -84,7 +120,32 @@ final class ByteBufConcurrentQueue {
 			pos2 = pos1 + 0x100000000L;
 		} while (!pos.compareAndSet(pos1, pos2));
 
-		int head = (int) (pos2 >>> 32);
+		put(buf, (int) (pos2 >>> 32));
+	}
+
+	/**
+	 * Offers ByteBufs from a given array range with a single CAS operation
+	 *
+	 * @param src  an array which contains ByteBufs to be offered
+	 * @param from an index of the first ByteBuf to be offered (inclusive)
+	 * @param to   an index of the last ByteBuf to be offered (exclusive)
+	 */
+	public void offerAll(ByteBuf[] src, int from, int to) {
+		int n = to - from;
+		if (n <= 0) return;
+		long pos1, pos2;
+		do {
+			pos1 = pos.get();
+			pos2 = pos1 + ((long) n << 32);
+		} while (!pos.compareAndSet(pos1, pos2));
+
+		int head = (int) (pos1 >>> 32);
+		for (int i = 0; i < n; i++) {
+			put(src[from + i], head + 1 + i);
+		}
+	}
+
+	private void put(@NotNull ByteBuf buf, int head) {
 		buf.pos = head;
 
 		AtomicReferenceArray<ByteBuf> bufs = array.get();
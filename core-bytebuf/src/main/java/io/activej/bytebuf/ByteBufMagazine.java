@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.bytebuf;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A per-thread cache of {@link ByteBuf ByteBufs} that sits in front of {@link ByteBufPool} slabs.
+ * <p>
+ * Each slab has its own magazine of a fixed capacity. When a magazine is empty, it is refilled
+ * with a half of its capacity from the shared slab. When a magazine is full, a half of it is
+ * flushed back to the shared slab. Both operations take a single CAS on the shared slab.
+ * <p>
+ * A magazine is only accessed by its owner thread, counters may be read by other threads for stats.
+ */
+final class ByteBufMagazine {
+	private final ByteBuf[][] bufs;
+	private final int[] sizes;
+
+	long hits;
+	long misses;
+	long flushes;
+
+	ByteBufMagazine(int numberOfSlabs, int capacity) {
+		this.bufs = new ByteBuf[numberOfSlabs][capacity];
+		this.sizes = new int[numberOfSlabs];
+	}
+
+	@Nullable ByteBuf poll(int index) {
+		ByteBuf[] magazine = bufs[index];
+		int size = sizes[index];
+		if (size != 0) {
+			hits++;
+			ByteBuf buf = magazine[--size];
+			magazine[size] = null;
+			sizes[index] = size;
+			return buf;
+		}
+		misses++;
+		size = ByteBufPool.slabs[index].pollAll(magazine, 0, magazine.length / 2 + 1);
+		if (size == 0) return null;
+		ByteBuf buf = magazine[--size];
+		magazine[size] = null;
+		sizes[index] = size;
+		return buf;
+	}
+
+	void offer(int index, @NotNull ByteBuf buf) {
+		ByteBuf[] magazine = bufs[index];
+		int size = sizes[index];
+		if (size == magazine.length) {
+			flushes++;
+			int half = magazine.length / 2;
+			ByteBufPool.slabs[index].offerAll(magazine, half, size);
+			Arrays.fill(magazine, half, size, null);
+			size = half;
+		}
+		magazine[size] = buf;
+		sizes[index] = size + 1;
+	}
+
+	int size(int index) {
+		return sizes[index];
+	}
+
+	void clear(int index) {
+		Arrays.fill(bufs[index], null);
+		sizes[index] = 0;
+	}
+
+	void clear() {
+		for (int i = 0; i < bufs.length; i++) {
+			Arrays.fill(bufs[i], null);
+			sizes[i] = 0;
+		}
+		hits = misses = flushes = 0;
+	}
+}
@@ -21,8 +21,11 @@ import io.activej.common.ApplicationSettings;
 import io.activej.common.MemSize;
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.activej.common.Checks.checkArgument;
@@ -86,6 +89,19 @@ public final class ByteBufPool {
 	 */
 	static final boolean CLEAR_ON_RECYCLE = ApplicationSettings.getBoolean(ByteBufPool.class, "clearOnRecycle", false);
 
+	/**
+	 * Allows to put a per-thread magazine cache in front of shared slabs,
+	 * which reduces contention on slabs when ByteBufs are allocated and recycled
+	 * by many threads (e.g. worker eventloops). By default set at value {@code false}.
+	 * <p>
+	 * Only ByteBufs whose size does not exceed {@code threadLocalCacheMaxBufSize}
+	 * are cached, each thread caches up to {@code threadLocalCacheSize} ByteBufs per slab.
+	 */
+	static final boolean USE_THREAD_LOCAL_CACHE = ApplicationSettings.getBoolean(ByteBufPool.class, "threadLocalCache", false);
+	static final int THREAD_LOCAL_CACHE_SIZE = ApplicationSettings.getInt(ByteBufPool.class, "threadLocalCacheSize", 64);
+	static final int THREAD_LOCAL_CACHE_MAX_BUF_SIZE = ApplicationSettings.getMemSize(ByteBufPool.class, "threadLocalCacheMaxBufSize", MemSize.kilobytes(64)).toInt();
+	private static final int THREAD_LOCAL_CACHE_MAX_INDEX = 32 - numberOfLeadingZeros(THREAD_LOCAL_CACHE_MAX_BUF_SIZE - 1);
+
 	static final boolean USE_WATCHDOG = ApplicationSettings.getBoolean(ByteBufPool.class, "useWatchdog", false);
 	static final Duration WATCHDOG_INTERVAL = ApplicationSettings.getDuration(ByteBufPool.class, "watchdogInterval", Duration.ofSeconds(2));
 	static final Duration WATCHDOG_SMOOTHING_WINDOW = ApplicationSettings.getDuration(ByteBufPool.class, "watchdogSmoothingWindow", Duration.ofSeconds(10));
@@ -106,6 +122,18 @@ public final class ByteBufPool {
 	static final AtomicInteger[] created;
 	static final AtomicInteger[] reused;
 
+	/**
+	 * A separate set of slabs which stores direct (off-heap) {@link ByteBuffer ByteBuffers}.
+	 * <p>
+	 * Direct buffers are used as I/O staging buffers, so that the JDK does not need to
+	 * allocate and cache its own temporary direct buffers per thread on each syscall.
+	 */
+	static final ConcurrentLinkedQueue<ByteBuffer>[] directSlabs;
+	static final AtomicInteger[] directCreated;
+
+	private static final List<WeakReference<ByteBufMagazine>> magazines = new ArrayList<>();
+	private static final ThreadLocal<ByteBufMagazine> MAGAZINE = ThreadLocal.withInitial(ByteBufPool::createMagazine);
+
 	private static final ByteBufPoolStats stats = new ByteBufPoolStats();
 
 	/**
@@ -167,10 +195,18 @@ public final class ByteBufPool {
 		slabStats = new SlabStats[NUMBER_OF_SLABS];
 		created = new AtomicInteger[NUMBER_OF_SLABS];
 		reused = new AtomicInteger[NUMBER_OF_SLABS];
+		//noinspection unchecked
+		directSlabs = new ConcurrentLinkedQueue[NUMBER_OF_SLABS];
+		directCreated = new AtomicInteger[NUMBER_OF_SLABS];
 		for (int i = 0; i < NUMBER_OF_SLABS; i++) {
 			slabs[i] = new ByteBufConcurrentQueue();
 			created[i] = new AtomicInteger();
 			reused[i] = new AtomicInteger();
+			directSlabs[i] = new ConcurrentLinkedQueue<>();
+			directCreated[i] = new AtomicInteger();
+		}
+		if (USE_THREAD_LOCAL_CACHE) {
+			checkArgument(THREAD_LOCAL_CACHE_SIZE >= 2, "Thread local cache size should be at least 2");
 		}
 		if (USE_WATCHDOG) {
 			for (int i = 0; i < NUMBER_OF_SLABS; i++) {
@@ -218,8 +254,9 @@ public final class ByteBufPool {
 			}
 		}
 		int index = 32 - numberOfLeadingZeros(size - 1); // index==32 for size==0
-		ByteBufConcurrentQueue queue = slabs[index];
-		ByteBuf buf = queue.poll();
+		ByteBuf buf = USE_THREAD_LOCAL_CACHE && index <= THREAD_LOCAL_CACHE_MAX_INDEX ?
+				MAGAZINE.get().poll(index) :
+				slabs[index].poll();
 		if (buf != null) {
 			if (ByteBuf.CHECK_RECYCLE && buf.refs != -1) throw onByteBufRecycled(buf);
 			buf.tail = 0;
@@ -254,6 +291,7 @@ public final class ByteBufPool {
 		int slab = 32 - numberOfLeadingZeros(buf.array.length - 1);
 		ByteBufConcurrentQueue queue = slabs[slab];
 		queue.clear();
+		if (USE_THREAD_LOCAL_CACHE && slab <= THREAD_LOCAL_CACHE_MAX_INDEX) MAGAZINE.get().clear(slab);
 		return new AssertionError("Attempt to use recycled ByteBuf" +
 				(REGISTRY ? ByteBufPool.getByteBufTrace(buf) : ""));
 	}
@@ -301,13 +339,88 @@ public final class ByteBufPool {
 	 */
 	static void recycle(@NotNull ByteBuf buf) {
 		int slab = 32 - numberOfLeadingZeros(buf.array.length - 1);
-		ByteBufConcurrentQueue queue = slabs[slab];
 		if (CLEAR_ON_RECYCLE) Arrays.fill(buf.array(), (byte) 0);
 		if (REGISTRY) {
 			recycleRegistry.put(buf, buildRegistryEntry(buf));
 			allocateRegistry.remove(buf);
 		}
-		queue.offer(buf);
+		if (USE_THREAD_LOCAL_CACHE && slab <= THREAD_LOCAL_CACHE_MAX_INDEX) {
+			MAGAZINE.get().offer(slab, buf);
+		} else {
+			slabs[slab].offer(buf);
+		}
+	}
+
+	private static ByteBufMagazine createMagazine() {
+		ByteBufMagazine magazine = new ByteBufMagazine(NUMBER_OF_SLABS, THREAD_LOCAL_CACHE_SIZE);
+		synchronized (magazines) {
+			magazines.removeIf(ref -> ref.get() == null);
+			magazines.add(new WeakReference<>(magazine));
+		}
+		return magazine;
+	}
+
+	private static List<ByteBufMagazine> getMagazines() {
+		List<ByteBufMagazine> result = new ArrayList<>();
+		synchronized (magazines) {
+			for (WeakReference<ByteBufMagazine> ref : magazines) {
+				ByteBufMagazine magazine = ref.get();
+				if (magazine != null) result.add(magazine);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a number of ByteBufs stored in a given slab,
+	 * including ByteBufs cached by thread local magazines
+	 */
+	private static int slabSize(int index) {
+		int size = slabs[index].size();
+		if (USE_THREAD_LOCAL_CACHE) {
+			for (ByteBufMagazine magazine : getMagazines()) {
+				size += magazine.size(index);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Allocates a direct (off-heap) {@link ByteBuffer} from a separate set of slabs
+	 * with capacity of <code>ceil(log<sub>2</sub>(size))<sup>2</sup></code> bytes.
+	 * <p>
+	 * Returned buffer is cleared, so its limit is equal to its capacity.
+	 * Buffer should be returned to the pool via {@link #recycleDirect(ByteBuffer)}
+	 * once it is no longer needed.
+	 *
+	 * @param size returned buffer capacity is guaranteed to be bigger or equal to requested size
+	 * @return direct byte buffer from this pool
+	 */
+	public static @NotNull ByteBuffer allocateDirect(int size) {
+		assert size >= 0 : "Allocating ByteBuffer with negative size";
+		int index = 32 - numberOfLeadingZeros(size - 1); // index==32 for size==0
+		ByteBuffer buffer = directSlabs[index].poll();
+		if (buffer != null) {
+			buffer.clear();
+			return buffer;
+		}
+		directCreated[index].incrementAndGet();
+		return ByteBuffer.allocateDirect(index == 32 ? 0 : 1 << index);
+	}
+
+	/**
+	 * Returns provided direct ByteBuffer to the appropriate direct slab.
+	 * <p>
+	 * Buffer must have been allocated via {@link #allocateDirect(int)}
+	 * and must not be used after it is recycled.
+	 *
+	 * @param buffer the direct ByteBuffer to be recycled
+	 */
+	public static void recycleDirect(@NotNull ByteBuffer buffer) {
+		int capacity = buffer.capacity();
+		checkArgument(buffer.isDirect() && (capacity & (capacity - 1)) == 0,
+				"Only direct buffers allocated by ByteBufPool can be recycled");
+		directSlabs[32 - numberOfLeadingZeros(capacity - 1)].offer(buffer);
 	}
 
 	public static @NotNull ByteBuf ensureWriteRemaining(@NotNull ByteBuf buf, int newWriteRemaining) {
@@ -396,14 +509,22 @@ public final class ByteBufPool {
 
 	/**
 	 * Clears all of the slabs and stats.
+	 * <p>
+	 * Thread local magazines are cleared as well, so this method
+	 * should not be called while ByteBufs are being allocated or recycled.
 	 */
 	public static void clear() {
 		for (int i = 0; i < ByteBufPool.NUMBER_OF_SLABS; i++) {
 			slabs[i].clear();
 			created[i].set(0);
 			reused[i].set(0);
+			directSlabs[i].clear();
+			directCreated[i].set(0);
 			if (USE_WATCHDOG) slabStats[i].clear();
 		}
+		for (ByteBufMagazine magazine : getMagazines()) {
+			magazine.clear();
+		}
 		allocateRegistry.clear();
 		recycleRegistry.clear();
 	}
@@ -427,6 +548,20 @@ public final class ByteBufPool {
 
 		long getTotalEvicted();
 
+		int getDirectCreatedItems();
+
+		int getDirectPoolItems();
+
+		long getDirectPoolSizeKB();
+
+		long getThreadLocalCacheHits();
+
+		long getThreadLocalCacheMisses();
+
+		long getThreadLocalCacheFlushes();
+
+		int getThreadLocalCacheItems();
+
 		List<String> getPoolSlabs();
 
 		List<Entry> queryUnrecycledBufs(int limit);
@@ -464,14 +599,18 @@ public final class ByteBufPool {
 
 		@Override
 		public int getPoolItems() {
-			return stream(slabs).mapToInt(ByteBufConcurrentQueue::size).sum();
+			int result = 0;
+			for (int i = 0; i < NUMBER_OF_SLABS; i++) {
+				result += slabSize(i);
+			}
+			return result;
 		}
 
 		public String getPoolItemsString() {
 			StringBuilder sb = new StringBuilder();
 			for (int i = 0; i < ByteBufPool.NUMBER_OF_SLABS; ++i) {
 				int createdItems = created[i].get();
-				int poolItems = slabs[i].size();
+				int poolItems = slabSize(i);
 				if (createdItems != poolItems) {
 					sb.append(String.format("Slab %d (%d) ", i, (1 << i)))
 							.append(" created: ").append(createdItems)
@@ -486,7 +625,7 @@ public final class ByteBufPool {
 			long result = 0;
 			for (int i = 0; i < slabs.length - 1; i++) {
 				long slabSize = 1L << i;
-				result += slabSize * slabs[i].size();
+				result += slabSize * slabSize(i);
 			}
 			return result;
 		}
@@ -516,6 +655,56 @@ public final class ByteBufPool {
 			return totalEvicted;
 		}
 
+		@Override
+		public int getDirectCreatedItems() {
+			return stream(directCreated).mapToInt(AtomicInteger::get).sum();
+		}
+
+		@Override
+		public int getDirectPoolItems() {
+			return stream(directSlabs).mapToInt(ConcurrentLinkedQueue::size).sum();
+		}
+
+		public long getDirectPoolSize() {
+			long result = 0;
+			for (int i = 0; i < directSlabs.length - 1; i++) {
+				long slabSize = 1L << i;
+				result += slabSize * directSlabs[i].size();
+			}
+			return result;
+		}
+
+		@Override
+		public long getDirectPoolSizeKB() {
+			return getDirectPoolSize() / 1024;
+		}
+
+		@Override
+		public long getThreadLocalCacheHits() {
+			return getMagazines().stream().mapToLong(magazine -> magazine.hits).sum();
+		}
+
+		@Override
+		public long getThreadLocalCacheMisses() {
+			return getMagazines().stream().mapToLong(magazine -> magazine.misses).sum();
+		}
+
+		@Override
+		public long getThreadLocalCacheFlushes() {
+			return getMagazines().stream().mapToLong(magazine -> magazine.flushes).sum();
+		}
+
+		@Override
+		public int getThreadLocalCacheItems() {
+			int result = 0;
+			for (ByteBufMagazine magazine : getMagazines()) {
+				for (int i = 0; i < NUMBER_OF_SLABS; i++) {
+					result += magazine.size(i);
+				}
+			}
+			return result;
+		}
+
 		public Map<ByteBuf, Entry> getUnrecycledBufs() {
 			return new HashMap<>(allocateRegistry);
 		}
@@ -537,7 +726,7 @@ public final class ByteBufPool {
 				int idx = (i + 32) % slabs.length;
 				long slabSize = idx == 32 ? 0 : 1L << idx;
 				ByteBufConcurrentQueue slab = slabs[idx];
-				int count = slab.size();
+				int count = slabSize(idx);
 				String slabInfo = slabSize + "," +
 						(STATS ? created[idx] : "-") + "," +
 						(STATS ? reused[idx] : "-") + "," +
@@ -2,6 +2,8 @@ package io.activej.bytebuf;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 import static io.activej.bytebuf.ByteBufTest.initByteBufPool;
 import static org.junit.Assert.*;
 
@@ -103,4 +105,25 @@ public class ByteArraySlabPoolTest {
 			checkReuse(i);
 		}
 	}
+
+	@Test
+	public void testDirectBufsReuse() {
+		ByteBufPool.clear();
+
+		ByteBuffer buffer = ByteBufPool.allocateDirect(100);
+		assertTrue(buffer.isDirect());
+		assertEquals(128, buffer.capacity());
+		assertEquals(128, buffer.limit());
+		buffer.put((byte) 1);
+		ByteBufPool.recycleDirect(buffer);
+		assertEquals(1, ByteBufPool.getStats().getDirectPoolItems());
+
+		ByteBuffer reallocated = ByteBufPool.allocateDirect(128);
+		assertSame(buffer, reallocated);
+		assertEquals(0, reallocated.position());
+		assertEquals(128, reallocated.limit());
+		assertEquals(0, ByteBufPool.getStats().getDirectPoolItems());
+		assertEquals(1, ByteBufPool.getStats().getDirectCreatedItems());
+		ByteBufPool.recycleDirect(reallocated);
+	}
 }
@@ -0,0 +1,80 @@
+package io.activej.bytebuf;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static io.activej.bytebuf.ByteBufTest.initByteBufPool;
+import static org.junit.Assert.*;
+
+public class ByteBufMagazineTest {
+	static {
+		initByteBufPool();
+	}
+
+	private static final int SLAB = 3;
+
+	@Before
+	public void setUp() {
+		ByteBufPool.clear();
+	}
+
+	@Test
+	public void testFlushAndRefill() {
+		ByteBufMagazine magazine = new ByteBufMagazine(33, 4);
+		ByteBufConcurrentQueue slab = ByteBufPool.slabs[SLAB];
+
+		Set<ByteBuf> offered = new HashSet<>();
+		for (int i = 0; i < 6; i++) {
+			ByteBuf buf = ByteBuf.wrapForWriting(new byte[8]);
+			offered.add(buf);
+			magazine.offer(SLAB, buf);
+		}
+		assertEquals(4, magazine.size(SLAB));
+		assertEquals(2, slab.size());
+		assertEquals(1, magazine.flushes);
+
+		Set<ByteBuf> polled = new HashSet<>();
+		for (int i = 0; i < 4; i++) {
+			polled.add(magazine.poll(SLAB));
+		}
+		assertEquals(4, magazine.hits);
+		assertEquals(0, magazine.misses);
+
+		polled.add(magazine.poll(SLAB));
+		assertEquals(1, magazine.misses);
+		assertEquals(1, magazine.size(SLAB));
+		assertEquals(0, slab.size());
+
+		polled.add(magazine.poll(SLAB));
+		assertEquals(offered, polled);
+
+		assertNull(magazine.poll(SLAB));
+		assertEquals(2, magazine.misses);
+	}
+
+	@Test
+	public void testBatchOperations() {
+		ByteBufConcurrentQueue queue = new ByteBufConcurrentQueue();
+		ByteBuf[] bufs = new ByteBuf[100];
+		for (int i = 0; i < bufs.length; i++) {
+			bufs[i] = ByteBuf.wrapForWriting(new byte[]{(byte) i});
+		}
+		queue.offerAll(bufs, 0, 60);
+		queue.offer(bufs[60]);
+		queue.offerAll(bufs, 61, 100);
+		assertEquals(100, queue.size());
+
+		ByteBuf[] polled = new ByteBuf[100];
+		assertEquals(30, queue.pollAll(polled, 0, 30));
+		assertSame(bufs[30], queue.poll());
+		assertEquals(69, queue.pollAll(polled, 31, 100));
+		assertEquals(0, queue.pollAll(polled, 0, 100));
+		assertTrue(queue.isEmpty());
+
+		polled[30] = bufs[30];
+		assertArrayEquals(bufs, polled);
+	}
+}
@@ -110,6 +110,20 @@ public class ByteBufTest {
 		assertEquals(8, buffer.limit());
 	}
 
+	@Test
+	public void putsDirectByteBuffer() {
+		ByteBuffer direct = ByteBuffer.allocateDirect(16);
+		direct.put(BYTES);
+		direct.flip();
+
+		ByteBuf buf = createEmptyByteBufOfSize(16);
+		buf.put(direct);
+
+		assertEquals(BYTES.length, buf.readRemaining());
+		assertEquals(direct.limit(), direct.position());
+		assertArrayEquals(BYTES, buf.asArray());
+	}
+
 	@Test
 	public void testPoolAndRecycleMechanism() {
 		int size = 500;
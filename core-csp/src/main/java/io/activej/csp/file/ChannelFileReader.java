@@ -24,7 +24,9 @@ import io.activej.bytebuf.ByteBufPool;
 import io.activej.common.MemSize;
 import io.activej.csp.AbstractChannelSupplier;
 import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,6 +38,7 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import static io.activej.common.Checks.checkArgument;
 import static java.nio.file.StandardOpenOption.READ;
@@ -57,6 +60,9 @@ public final class ChannelFileReader extends AbstractChannelSupplier<ByteBuf> {
 	private long position = 0;
 	private long limit = Long.MAX_VALUE;
 
+	private @Nullable SettablePromise<Void> endOfStream;
+	private @Nullable Promise<Void> newEndOfStream;
+
 	private ChannelFileReader(AsyncFileService fileService, FileChannel channel) {
 		this.fileService = fileService;
 		this.channel = channel;
@@ -121,19 +127,54 @@ public final class ChannelFileReader extends AbstractChannelSupplier<ByteBuf> {
 		return position;
 	}
 
+	public long getLimit() {
+		return limit;
+	}
+
+	public FileChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Advances this reader by a given number of bytes which have been consumed
+	 * directly from the underlying file channel (e.g. with {@link FileChannel#transferTo})
+	 *
+	 * @param bytes number of consumed bytes
+	 */
+	public void advance(long bytes) {
+		checkArgument(bytes >= 0 && bytes <= limit, "Cannot advance beyond the limit");
+		position += bytes;
+		if (limit != Long.MAX_VALUE) {
+			limit -= bytes;
+		}
+	}
+
+	/**
+	 * Unlike the default implementation, returns this reader itself,
+	 * so that consumers are still able to access the underlying file channel directly
+	 */
+	@Override
+	public ChannelFileReader withEndOfStream(Function<Promise<Void>, Promise<Void>> fn) {
+		if (endOfStream == null) {
+			endOfStream = new SettablePromise<>();
+			newEndOfStream = fn.apply(endOfStream);
+		} else {
+			newEndOfStream = fn.apply(newEndOfStream);
+		}
+		return this;
+	}
+
 	@Override
 	protected Promise<ByteBuf> doGet() {
 		if (limit == 0) {
-			close();
-			return Promise.of(null);
+			return endOfStream();
 		}
 		ByteBuf buf = ByteBufPool.allocateExact((int) Math.min(bufferSize, limit));
 		return fileService.read(channel, position, buf.array(), buf.head(), buf.writeRemaining()) // reads are synchronized at least on asyncFile, so if produce() is called twice, position wont be broken (i hope)
 				.then(bytesRead -> {
 					if (bytesRead == 0) { // no data read, assuming end of file
 						buf.recycle();
-						close();
-						return Promise.of(null);
+						return endOfStream();
 					}
 
 					buf.moveTail(Math.toIntExact(bytesRead));
@@ -149,8 +190,22 @@ public final class ChannelFileReader extends AbstractChannelSupplier<ByteBuf> {
 				});
 	}
 
+	private Promise<ByteBuf> endOfStream() {
+		if (endOfStream == null) {
+			close();
+			return Promise.of(null);
+		}
+		endOfStream.trySet(null);
+		close();
+		assert newEndOfStream != null;
+		return newEndOfStream.map($ -> null);
+	}
+
 	@Override
 	protected void onClosed(@NotNull Exception e) {
+		if (endOfStream != null) {
+			endOfStream.trySetException(e);
+		}
 		try {
 			if (!channel.isOpen()) {
 				throw new AsyncCloseException("File has been closed");
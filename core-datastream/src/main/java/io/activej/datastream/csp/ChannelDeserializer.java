@@ -27,8 +27,14 @@ import io.activej.csp.ChannelSupplier;
 import io.activej.datastream.AbstractStreamSupplier;
 import io.activej.datastream.StreamSupplier;
 import io.activej.serializer.BinarySerializer;
+import io.activej.serializer.BinaryView;
 import io.activej.serializer.CorruptedDataException;
+import io.activej.serializer.SchemaSerializer;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.function.Predicate;
+
+import static io.activej.common.Checks.checkState;
 import static java.lang.String.format;
 
 /**
@@ -37,21 +43,37 @@ import static java.lang.String.format;
  */
 public final class ChannelDeserializer<T> extends AbstractStreamSupplier<T> implements WithChannelToStream<ChannelDeserializer<T>, ByteBuf, T> {
 	private ChannelSupplier<ByteBuf> input;
-	private final BinarySerializer<T> valueSerializer;
+	private final @Nullable SchemaSerializer<T> schemaSerializer;
+	private BinarySerializer<T> valueSerializer;
 
 	private final ByteBufs bufs = new ByteBufs();
 
 	private boolean explicitEndOfStream = false;
 
-	private ChannelDeserializer(BinarySerializer<T> valueSerializer) {
+	private @Nullable Class<? extends BinaryView> filterViewType;
+	private @Nullable BinaryView filterView;
+	private @Nullable Predicate<BinaryView> filter;
+
+	private ChannelDeserializer(@Nullable BinarySerializer<T> valueSerializer, @Nullable SchemaSerializer<T> schemaSerializer) {
 		this.valueSerializer = valueSerializer;
+		this.schemaSerializer = schemaSerializer;
 	}
 
 	/**
 	 * Creates a new instance of the deserializer for type T
 	 */
 	public static <T> ChannelDeserializer<T> create(BinarySerializer<T> valueSerializer) {
-		return new ChannelDeserializer<>(valueSerializer);
+		return new ChannelDeserializer<>(valueSerializer, null);
+	}
+
+	/**
+	 * Creates a new instance of the deserializer for type T, which reads a stream
+	 * written by {@link ChannelSerializer#create(SchemaSerializer)}.
+	 * <p>
+	 * Items are decoded by a serializer specialized for a schema found in a header of the stream
+	 */
+	public static <T> ChannelDeserializer<T> create(SchemaSerializer<T> schemaSerializer) {
+		return new ChannelDeserializer<>(null, schemaSerializer);
 	}
 
 	public ChannelDeserializer<T> withExplicitEndOfStream() {
@@ -63,6 +85,40 @@ public final class ChannelDeserializer<T> extends AbstractStreamSupplier<T> impl
 		return this;
 	}
 
+	/**
+	 * Skips items which do not match a given predicate, without decoding them.
+	 * <p>
+	 * A predicate is tested against a view, which is moved to each encoded item in turn.
+	 * A view should be built for the same class and version as a serializer of this deserializer,
+	 * see {@link io.activej.serializer.SerializerBuilder#buildView}
+	 * <p>
+	 * A stream written by {@link ChannelSerializer#create(SchemaSerializer)} should be filtered
+	 * with {@link #withFilter(Class, Predicate)} instead
+	 */
+	@SuppressWarnings("unchecked")
+	public <V extends BinaryView> ChannelDeserializer<T> withFilter(V view, Predicate<? super V> filter) {
+		checkState(schemaSerializer == null, "A view of a schema-framed stream depends on a version of the stream, " +
+				"use withFilter(Class, Predicate) instead");
+		this.filterView = view;
+		this.filter = (Predicate<BinaryView>) filter;
+		return this;
+	}
+
+	/**
+	 * Skips items which do not match a given predicate, without decoding them,
+	 * for a deserializer created by {@link #create(SchemaSerializer)}.
+	 * <p>
+	 * A view of a given type is built for a version found in a header of the stream,
+	 * see {@link SchemaSerializer#buildView}
+	 */
+	@SuppressWarnings("unchecked")
+	public <V extends BinaryView> ChannelDeserializer<T> withFilter(Class<V> viewType, Predicate<? super V> filter) {
+		checkState(schemaSerializer != null, "A view type can only be used with a schema serializer");
+		this.filterViewType = viewType;
+		this.filter = (Predicate<BinaryView>) filter;
+		return this;
+	}
+
 	@Override
 	public ChannelInput<ByteBuf> getInput() {
 		return input -> {
@@ -153,8 +209,7 @@ public final class ChannelDeserializer<T> extends AbstractStreamSupplier<T> impl
 				}
 
 				if (firstBufRemaining >= messageSize) {
-					T item = valueSerializer.decode(array, pos + headerSize);
-					send(item);
+					decode(array, pos + headerSize);
 					if (firstBufRemaining != messageSize) {
 						firstBuf.moveHead(messageSize);
 					} else {
@@ -182,14 +237,28 @@ public final class ChannelDeserializer<T> extends AbstractStreamSupplier<T> impl
 			return -1;
 		}
 
-		bufs.consume(messageSize, buf -> {
-			T item = valueSerializer.decode(buf.array(), buf.head() + headerSize);
-			send(item);
-		});
+		bufs.consume(messageSize, buf -> decode(buf.array(), buf.head() + headerSize));
 
 		return 1;
 	}
 
+	private void decode(byte[] array, int pos) {
+		if (valueSerializer == null) {
+			assert schemaSerializer != null;
+			valueSerializer = schemaSerializer.decodeHeader(array, pos);
+			if (filterViewType != null) {
+				filterView = schemaSerializer.buildView(filterViewType, schemaSerializer.decodeHeaderVersion(array, pos));
+			}
+			return;
+		}
+		if (filterView != null) {
+			assert filter != null;
+			filterView.wrap(array, pos);
+			if (!filter.test(filterView)) return;
+		}
+		send(valueSerializer.decode(array, pos));
+	}
+
 	private static int readEncodedSize(byte[] array, int pos, byte b) {
 		if (b < 0) {
 			int dataSize = b & 0x7f;
@@ -27,6 +27,7 @@ import io.activej.datastream.StreamConsumer;
 import io.activej.datastream.StreamDataAcceptor;
 import io.activej.promise.Promise;
 import io.activej.serializer.BinarySerializer;
+import io.activej.serializer.SchemaSerializer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -61,6 +62,7 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 	public static final MemSize DEFAULT_INITIAL_BUFFER_SIZE = MemSize.kilobytes(16);
 
 	private final BinarySerializer<T> serializer;
+	private final byte @Nullable [] header;
 
 	private MemSize initialBufferSize = DEFAULT_INITIAL_BUFFER_SIZE;
 	private byte @Nullable [] explicitEndOfStream;
@@ -75,15 +77,36 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 	private boolean sending;
 
 	// region creators
-	private ChannelSerializer(BinarySerializer<T> serializer) {
+	private ChannelSerializer(BinarySerializer<T> serializer, byte @Nullable [] header) {
 		this.serializer = serializer;
+		this.header = header;
 	}
 
 	/**
 	 * Creates a new instance of the serializer for type T
 	 */
 	public static <T> ChannelSerializer<T> create(BinarySerializer<T> serializer) {
-		return new ChannelSerializer<>(serializer);
+		return new ChannelSerializer<>(serializer, null);
+	}
+
+	/**
+	 * Creates a new instance of the serializer for type T, which starts a stream
+	 * with a header describing a schema of serialized items.
+	 * <p>
+	 * Such a stream should be read by {@link ChannelDeserializer#create(SchemaSerializer)}
+	 */
+	public static <T> ChannelSerializer<T> create(SchemaSerializer<T> serializer) {
+		byte[] header = serializer.getHeader();
+		byte[] message = new byte[varIntSize(header.length) + header.length];
+		int pos = 0;
+		int size = header.length;
+		while ((size & ~0x7F) != 0) {
+			message[pos++] = (byte) ((size & 0x7F) | 0x80);
+			size >>>= 7;
+		}
+		message[pos++] = (byte) size;
+		System.arraycopy(header, 0, message, pos, header.length);
+		return new ChannelSerializer<>(serializer.getSerializer(), message);
 	}
 
 	/**
@@ -150,6 +173,9 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 	@Override
 	protected void onInit() {
 		input = new Input(serializer, initialBufferSize.toInt(), serializationErrorHandler);
+		if (header != null) {
+			bufs.add(ByteBuf.wrapForReading(header));
+		}
 	}
 
 	@Override
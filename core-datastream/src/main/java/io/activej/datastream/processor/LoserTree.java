@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.activej.datastream.processor;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+/**
+ * A tournament tree of losers which selects the least of the elements merged by {@link StreamReducer}.
+ * <p>
+ * Each element occupies a fixed leaf given by its index, absent elements are treated as greater than any other.
+ * Internal nodes keep the losers of their matches and the root keeps the overall winner,
+ * so replacing the winner replays a single leaf-to-root path in exactly {@code log(k)} comparisons,
+ * while a binary heap needs up to twice as many to sift a new element down.
+ * <p>
+ * Only the leaf of the last polled element is replayed incrementally,
+ * offering an element to any other leaf rebuilds the whole tree on the next {@link #poll()}.
+ */
+final class LoserTree<E> {
+	private final Comparator<? super E> comparator;
+	private final ToIntFunction<? super E> indexFunction;
+
+	private Object[] leaves = new Object[0];
+	private int[] tree = new int[0];
+	private int size;
+
+	private boolean rebuild;
+	private int polled = -1;
+
+	LoserTree(Comparator<? super E> comparator, ToIntFunction<? super E> indexFunction) {
+		this.comparator = comparator;
+		this.indexFunction = indexFunction;
+	}
+
+	void offer(E element) {
+		int index = indexFunction.applyAsInt(element);
+		if (index >= leaves.length) {
+			leaves = Arrays.copyOf(leaves, index + 1);
+			tree = new int[index + 1];
+			rebuild = true;
+		}
+		assert leaves[index] == null;
+		leaves[index] = element;
+		size++;
+		if (index != polled) {
+			rebuild = true;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Nullable E poll() {
+		if (rebuild) {
+			build();
+		} else if (polled != -1) {
+			replay(polled);
+		}
+		rebuild = false;
+		polled = -1;
+		if (size == 0) return null;
+		int winner = tree[0];
+		E element = (E) leaves[winner];
+		leaves[winner] = null;
+		polled = winner;
+		size--;
+		return element;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void clear() {
+		Arrays.fill(leaves, null);
+		size = 0;
+		rebuild = true;
+		polled = -1;
+	}
+
+	private void build() {
+		int k = leaves.length;
+		if (k == 0) return;
+		int[] winners = new int[2 * k];
+		for (int i = 0; i < k; i++) {
+			winners[k + i] = i;
+		}
+		for (int node = k - 1; node >= 1; node--) {
+			int left = winners[2 * node];
+			int right = winners[2 * node + 1];
+			if (beats(left, right)) {
+				winners[node] = left;
+				tree[node] = right;
+			} else {
+				winners[node] = right;
+				tree[node] = left;
+			}
+		}
+		tree[0] = k == 1 ? 0 : winners[1];
+	}
+
+	private void replay(int leaf) {
+		int k = leaves.length;
+		int winner = leaf;
+		for (int node = (k + leaf) >>> 1; node >= 1; node >>>= 1) {
+			int loser = tree[node];
+			if (beats(loser, winner)) {
+				tree[node] = winner;
+				winner = loser;
+			}
+		}
+		tree[0] = winner;
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean beats(int leaf1, int leaf2) {
+		Object element1 = leaves[leaf1];
+		Object element2 = leaves[leaf2];
+		if (element1 == null) return false;
+		if (element2 == null) return true;
+		int compare = comparator.compare((E) element1, (E) element2);
+		return compare < 0 || compare == 0 && leaf1 < leaf2;
+	}
+}
@@ -49,30 +49,22 @@ public final class StreamReducer<K, O, A> implements HasStreamInputs, HasStreamO
 	private @Nullable K key = null;
 	private @Nullable A accumulator;
 
-	private final PriorityQueue<Input<?>> priorityQueue;
+	private final LoserTree<Input<?>> priorityQueue;
 	private int streamsAwaiting;
 	private int streamsOpen;
 
-	private StreamReducer(@NotNull PriorityQueue<Input<?>> priorityQueue) {
+	private StreamReducer(@NotNull Comparator<Input<?>> inputComparator) {
 		this.output = new Output();
-		this.priorityQueue = priorityQueue;
+		this.priorityQueue = new LoserTree<>(inputComparator, input -> input.index);
 	}
 
 	public static <K, O, A> StreamReducer<K, O, A> create(Comparator<K> keyComparator) {
-		return new StreamReducer<>(new PriorityQueue<>(1, (input1, input2) -> {
-			int compare = ((Comparator) keyComparator).compare(input1.headKey, input2.headKey);
-			if (compare != 0) return compare;
-			return input1.index - input2.index;
-		}));
+		return new StreamReducer<>((input1, input2) -> ((Comparator) keyComparator).compare(input1.headKey, input2.headKey));
 	}
 
 	@SuppressWarnings({"ComparatorCombinators", "Convert2Diamond"})
 	public static <K extends Comparable<K>, O, A> StreamReducer<K, O, A> create() {
-		return new StreamReducer<K, O, A>(new PriorityQueue<>(1, (input1, input2) -> {
-			int compare = input1.headKey.compareTo(input2.headKey);
-			if (compare != 0) return compare;
-			return input1.index - input2.index;
-		}));
+		return new StreamReducer<K, O, A>((input1, input2) -> input1.headKey.compareTo(input2.headKey));
 	}
 
 	public StreamReducer<K, O, A> withBufferSize(int bufferSize) {
@@ -106,7 +98,7 @@ public final class StreamReducer<K, O, A> implements HasStreamInputs, HasStreamO
 		private I headItem;
 		private K headKey;
 		private final int index;
-		private final PriorityQueue<Input<?>> priorityQueue;
+		private final LoserTree<Input<?>> priorityQueue;
 		private final ArrayDeque<I> deque = new ArrayDeque<>();
 		private final int bufferSize;
 
@@ -17,11 +17,15 @@
 package io.activej.datastream.processor;
 
 import io.activej.async.AsyncAccumulator;
+import io.activej.common.ApplicationSettings;
+import io.activej.common.MemSize;
 import io.activej.datastream.AbstractStreamConsumer;
 import io.activej.datastream.StreamConsumer;
 import io.activej.datastream.StreamDataAcceptor;
 import io.activej.datastream.StreamSupplier;
 import io.activej.promise.Promise;
+import io.activej.serializer.BinarySerializer;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
@@ -30,7 +34,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
+import static io.activej.common.Checks.checkArgument;
 import static io.activej.datastream.processor.StreamReducers.deduplicateReducer;
 import static io.activej.datastream.processor.StreamReducers.mergeReducer;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -38,12 +44,21 @@ import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Represent {@link StreamTransformer} which receives data and saves it in
  * collection, when it receives end of stream it sorts it and streams to destination.
+ * <p>
+ * Whenever the collection exceeds its limits, it is sorted on a sorting executor
+ * and spilled to a {@link StreamSorterStorage} as a sorted run.
+ * At the end of stream the runs are merged by {@link StreamReducer},
+ * if there are too many of them, they are first merged into bigger runs in several passes.
  *
  * @param <K> type of keys
  * @param <T> type of objects
  */
 public final class StreamSorter<K, T> implements StreamTransformer<T, T> {
 	private static final Logger logger = getLogger(StreamSorter.class);
+
+	public static final int DEFAULT_MERGE_FAN_IN = ApplicationSettings.getInt(StreamSorter.class, "mergeFanIn", 64);
+	public static final int DEFAULT_SORTING_PARALLELISM = 3;
+
 	private final AsyncAccumulator<? extends List<Integer>> temporaryStreamsAccumulator;
 	private final StreamSorterStorage<T> storage;
 	private final Function<T, K> keyFunction;
@@ -56,6 +71,10 @@ public final class StreamSorter<K, T> implements StreamTransformer<T, T> {
 	private final StreamSupplier<T> output;
 
 	private Executor sortingExecutor = Runnable::run;
+	private int sortingParallelism = DEFAULT_SORTING_PARALLELISM;
+	private int mergeFanIn = DEFAULT_MERGE_FAN_IN;
+	private long memoryLimit = Long.MAX_VALUE;
+	private @Nullable ToIntFunction<? super T> sizeEstimator;
 
 	private StreamSorter(StreamSorterStorage<T> storage,
 			Function<T, K> keyFunction, Comparator<K> keyComparator, boolean deduplicate,
@@ -80,21 +99,17 @@ public final class StreamSorter<K, T> implements StreamTransformer<T, T> {
 							ArrayList<T> sortedList = input.list;
 							input.list = null;
 							return Promise.ofBlocking(sortingExecutor, () -> sortedList.sort(itemComparator))
-									.map($ -> {
+									.combine(mergeRuns(new ArrayList<>(streamIds), true), ($, runs) -> {
 										StreamSupplier<T> listSupplier = StreamSupplier.ofIterator(deduplicate ?
 												new DistinctIterator<>(sortedList, keyFunction, keyComparator) :
 												sortedList.iterator());
-										logger.info("Items in memory: {}, files: {}", sortedList.size(), streamIds.size());
-										if (streamIds.isEmpty()) {
+										logger.info("Items in memory: {}, files: {}", sortedList.size(), runs.size());
+										if (runs.isEmpty()) {
 											return listSupplier;
 										}
 										StreamReducer<K, T, Void> streamMerger = StreamReducer.create(keyComparator);
 										listSupplier.streamTo(streamMerger.newInput(keyFunction, deduplicate ? deduplicateReducer() : mergeReducer()));
-										for (Integer streamId : streamIds) {
-											StreamSupplier.ofPromise(storage.read(streamId))
-													.streamTo(streamMerger.newInput(keyFunction, deduplicate ? deduplicateReducer() : mergeReducer()));
-										}
-										return streamMerger.getOutput();
+										return merge(streamMerger, runs);
 									});
 						}));
 	}
@@ -104,6 +119,126 @@ public final class StreamSorter<K, T> implements StreamTransformer<T, T> {
 		return this;
 	}
 
+	/**
+	 * Sets the maximum number of runs which are sorted and spilled to the storage concurrently.
+	 * The input is suspended while this many runs are in progress.
+	 * <p>
+	 * Runs are sorted on the sorting executor, so a multithreaded executor
+	 * allows to sort several runs on different cores at the same time.
+	 */
+	public StreamSorter<K, T> withSortingParallelism(int sortingParallelism) {
+		checkArgument(sortingParallelism > 0, "Sorting parallelism must be positive value, got %s", sortingParallelism);
+		this.sortingParallelism = sortingParallelism;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of runs which are merged at once.
+	 * If there are more runs at the end of stream, groups of runs are merged
+	 * into new runs in the storage until the final merge fits into this limit.
+	 */
+	public StreamSorter<K, T> withMergeFanIn(int mergeFanIn) {
+		checkArgument(mergeFanIn >= 2, "Merge fan-in must be at least 2, got %s", mergeFanIn);
+		this.mergeFanIn = mergeFanIn;
+		return this;
+	}
+
+	/**
+	 * Limits the estimated size of items kept in memory, in addition to the number of items.
+	 *
+	 * @param memoryLimit   maximum estimated size of items in memory before they are spilled to the storage
+	 * @param sizeEstimator function which estimates the size of a single item in bytes,
+	 *                      see {@link #serializedSizeEstimator(BinarySerializer, int)}
+	 */
+	public StreamSorter<K, T> withMemoryLimit(MemSize memoryLimit, ToIntFunction<? super T> sizeEstimator) {
+		checkArgument(memoryLimit.toLong() > 0, "Memory limit must be positive value, got %s", memoryLimit);
+		this.memoryLimit = memoryLimit.toLong();
+		this.sizeEstimator = sizeEstimator;
+		return this;
+	}
+
+	/**
+	 * Returns an estimator which serializes every {@code sampleRate}-th item with a given serializer
+	 * and estimates the size of other items as an average serialized size of the sampled ones.
+	 * <p>
+	 * The estimator is not thread-safe, it should be used by a single sorter.
+	 */
+	public static <T> ToIntFunction<T> serializedSizeEstimator(BinarySerializer<T> serializer, int sampleRate) {
+		checkArgument(sampleRate > 0, "Sample rate must be positive value, got %s", sampleRate);
+		return new SerializedSizeEstimator<>(serializer, sampleRate);
+	}
+
+	private Promise<List<Integer>> mergeRuns(List<Integer> runs, boolean firstPass) {
+		// one more input of the final merge is taken by the items from memory
+		if (runs.size() < mergeFanIn) {
+			return Promise.of(runs);
+		}
+		// each merge reduces the number of runs by (group size - 1), so the first merge takes only as many runs
+		// as needed for the rest of merges to be full and to leave exactly (mergeFanIn - 1) runs in the end
+		int groupSize = firstPass ? runs.size() % (mergeFanIn - 1) + 1 : mergeFanIn;
+		if (groupSize == 1) groupSize = mergeFanIn;
+		List<Integer> group = new ArrayList<>(runs.subList(0, groupSize));
+		List<Integer> rest = new ArrayList<>(runs.subList(groupSize, runs.size()));
+		return storage.newPartitionId()
+				.then(partitionId -> {
+					input.partitionIds.add(partitionId);
+					return merge(StreamReducer.create(keyComparator), group)
+							.streamTo(storage.writeStream(partitionId))
+							.then(() -> storage.cleanup(group)
+									.map(($, e) -> {
+										// runs which failed to be removed are retried on final cleanup
+										if (e == null) {
+											input.partitionIds.removeAll(group);
+										}
+										logger.trace("Merged {} runs into run {}", group.size(), partitionId);
+										rest.add(partitionId);
+										return rest;
+									}));
+				})
+				.then(runsLeft -> mergeRuns(runsLeft, false));
+	}
+
+	private StreamSupplier<T> merge(StreamReducer<K, T, Void> streamMerger, List<Integer> runs) {
+		for (Integer run : runs) {
+			storage.readStream(run)
+					.streamTo(streamMerger.newInput(keyFunction, distinct ? deduplicateReducer() : mergeReducer()));
+		}
+		return streamMerger.getOutput();
+	}
+
+	private static final class SerializedSizeEstimator<T> implements ToIntFunction<T> {
+		private final BinarySerializer<T> serializer;
+		private final int sampleRate;
+
+		private byte[] buffer = new byte[256];
+		private long sampledSize;
+		private int samples;
+		private int skipped;
+
+		private SerializedSizeEstimator(BinarySerializer<T> serializer, int sampleRate) {
+			this.serializer = serializer;
+			this.sampleRate = sampleRate;
+		}
+
+		@Override
+		public int applyAsInt(T item) {
+			if (samples != 0 && ++skipped < sampleRate) {
+				return (int) (sampledSize / samples);
+			}
+			skipped = 0;
+			while (true) {
+				try {
+					int size = serializer.encode(buffer, 0, item);
+					sampledSize += size;
+					samples++;
+					return size;
+				} catch (ArrayIndexOutOfBoundsException e) {
+					buffer = new byte[buffer.length * 2];
+				}
+			}
+		}
+	}
+
 	private static final class DistinctIterator<K, T> implements Iterator<T> {
 		private final ArrayList<T> sortedList;
 		private final Function<T, K> keyFunction;
@@ -158,6 +293,7 @@ public final class StreamSorter<K, T> implements StreamTransformer<T, T> {
 		private final List<Integer> partitionIds;
 
 		private ArrayList<T> list = new ArrayList<>();
+		private long listSize;
 		private Promise<Void> cleanupPromise;
 
 		private Input(List<Integer> partitionIds) {
@@ -172,11 +308,15 @@ public final class StreamSorter<K, T> implements StreamTransformer<T, T> {
 		@Override
 		public void accept(T item) {
 			list.add(item);
-			if (list.size() < itemsInMemory) {
+			if (sizeEstimator != null) {
+				listSize += sizeEstimator.applyAsInt(item);
+			}
+			if (list.size() < itemsInMemory && listSize < memoryLimit) {
 				return;
 			}
 			ArrayList<T> sortedList = this.list;
-			list = new ArrayList<>(itemsInMemory);
+			list = new ArrayList<>(sortedList.size());
+			listSize = 0;
 
 			temporaryStreamsAccumulator.addPromise(
 					Promise.ofBlocking(sortingExecutor, () -> sortedList.sort(itemComparator))
@@ -196,7 +336,7 @@ public final class StreamSorter<K, T> implements StreamTransformer<T, T> {
 		}
 
 		private void suspendOrResume() {
-			if (temporaryStreamsAccumulator.getActivePromises() > 2) {
+			if (temporaryStreamsAccumulator.getActivePromises() >= sortingParallelism) {
 				suspend();
 			} else {
 				resume(this);
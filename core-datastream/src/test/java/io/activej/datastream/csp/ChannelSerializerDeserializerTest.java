@@ -3,7 +3,13 @@ package io.activej.datastream.csp;
 import io.activej.common.MemSize;
 import io.activej.datastream.StreamConsumerToList;
 import io.activej.datastream.StreamSupplier;
+import io.activej.codegen.DefiningClassLoader;
+import io.activej.serializer.BinarySerializer;
 import io.activej.serializer.BinarySerializers;
+import io.activej.serializer.BinaryView;
+import io.activej.serializer.SchemaSerializer;
+import io.activej.serializer.SerializerBuilder;
+import io.activej.serializer.annotations.Serialize;
 import io.activej.test.rules.ByteBufRule;
 import io.activej.test.rules.EventloopRule;
 import org.junit.ClassRule;
@@ -14,6 +20,8 @@ import java.util.concurrent.ThreadLocalRandom;
 
 import static io.activej.promise.TestUtils.await;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
@@ -61,4 +69,101 @@ public final class ChannelSerializerDeserializerTest {
 			assertArrayEquals(byteArrays.get(i), deserialized.get(i));
 		}
 	}
+
+	@Test
+	public void schemaSerializer() {
+		DefiningClassLoader classLoader = DefiningClassLoader.create();
+		SchemaSerializer<TestItem> writer = SerializerBuilder.create(classLoader)
+				.withEncodeVersion(1)
+				.buildSchemaSerializer(TestItem.class);
+		SchemaSerializer<TestItem> reader = SerializerBuilder.create(classLoader)
+				.buildSchemaSerializer(TestItem.class);
+
+		List<TestItem> items = asList(new TestItem(1, "a"), new TestItem(2, "b"), new TestItem(3, "c"));
+		StreamConsumerToList<TestItem> consumer = StreamConsumerToList.create();
+
+		await(StreamSupplier.ofIterable(items)
+				.transformWith(ChannelSerializer.create(writer).withInitialBufferSize(MemSize.bytes(1)))
+				.transformWith(ChannelDeserializer.create(reader))
+				.streamTo(consumer));
+
+		assertEquals(asList(1, 2, 3), consumer.getList().stream().map(item -> item.id).collect(toList()));
+		assertEquals(asList(null, null, null), consumer.getList().stream().map(item -> item.name).collect(toList()));
+	}
+
+	@Test
+	public void schemaSerializerEmptyStream() {
+		SchemaSerializer<TestItem> schemaSerializer = SerializerBuilder.create(DefiningClassLoader.create())
+				.buildSchemaSerializer(TestItem.class);
+
+		StreamConsumerToList<TestItem> consumer = StreamConsumerToList.create();
+
+		await(StreamSupplier.<TestItem>ofIterable(emptyList())
+				.transformWith(ChannelSerializer.create(schemaSerializer))
+				.transformWith(ChannelDeserializer.create(schemaSerializer))
+				.streamTo(consumer));
+
+		assertEquals(emptyList(), consumer.getList());
+	}
+
+	@Test
+	public void filterWithView() {
+		SerializerBuilder builder = SerializerBuilder.create(DefiningClassLoader.create());
+		BinarySerializer<TestItem> serializer = builder.build(TestItem.class);
+		TestItemView view = builder.buildView(TestItem.class, TestItemView.class);
+
+		List<TestItem> items = asList(new TestItem(1, "a"), new TestItem(2, "b"), new TestItem(3, "c"), new TestItem(4, "d"));
+		StreamConsumerToList<TestItem> consumer = StreamConsumerToList.create();
+
+		await(StreamSupplier.ofIterable(items)
+				.transformWith(ChannelSerializer.create(serializer))
+				.transformWith(ChannelDeserializer.create(serializer)
+						.withFilter(view, item -> item.getId() % 2 == 0))
+				.streamTo(consumer));
+
+		assertEquals(asList(2, 4), consumer.getList().stream().map(item -> item.id).collect(toList()));
+		assertEquals(asList("b", "d"), consumer.getList().stream().map(item -> item.name).collect(toList()));
+	}
+
+	@Test
+	public void schemaSerializerWithFilter() {
+		DefiningClassLoader classLoader = DefiningClassLoader.create();
+		SchemaSerializer<TestItem> writer = SerializerBuilder.create(classLoader)
+				.withEncodeVersion(1)
+				.buildSchemaSerializer(TestItem.class);
+		SchemaSerializer<TestItem> reader = SerializerBuilder.create(classLoader)
+				.buildSchemaSerializer(TestItem.class);
+
+		List<TestItem> items = asList(new TestItem(1, "a"), new TestItem(2, "b"), new TestItem(3, "c"), new TestItem(4, "d"));
+		StreamConsumerToList<TestItem> consumer = StreamConsumerToList.create();
+
+		await(StreamSupplier.ofIterable(items)
+				.transformWith(ChannelSerializer.create(writer))
+				.transformWith(ChannelDeserializer.create(reader)
+						.withFilter(TestItemView.class, item -> item.getId() % 2 == 0))
+				.streamTo(consumer));
+
+		assertEquals(asList(2, 4), consumer.getList().stream().map(item -> item.id).collect(toList()));
+		assertEquals(asList(null, null), consumer.getList().stream().map(item -> item.name).collect(toList()));
+	}
+
+	public interface TestItemView extends BinaryView {
+		int getId();
+	}
+
+	public static final class TestItem {
+		@Serialize(added = 1)
+		public int id;
+
+		@Serialize(added = 2)
+		public String name;
+
+		public TestItem() {
+		}
+
+		public TestItem(int id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+	}
 }
@@ -0,0 +1,76 @@
+package io.activej.datastream.processor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public final class LoserTreeTest {
+
+	@Test
+	public void testMergeSortedSequences() {
+		Random random = new Random(0);
+		for (int k = 1; k <= 17; k++) {
+			List<List<Integer>> sequences = new ArrayList<>();
+			List<Integer> expected = new ArrayList<>();
+			for (int i = 0; i < k; i++) {
+				List<Integer> sequence = new ArrayList<>();
+				int n = random.nextInt(20);
+				for (int j = 0; j < n; j++) {
+					sequence.add(random.nextInt(50));
+				}
+				sequence.sort(Comparator.naturalOrder());
+				sequences.add(sequence);
+				expected.addAll(sequence);
+			}
+			expected.sort(Comparator.naturalOrder());
+
+			LoserTree<Head> tree = new LoserTree<>(Comparator.comparingInt(head -> head.value), head -> head.index);
+			int[] positions = new int[k];
+			for (int i = 0; i < k; i++) {
+				if (!sequences.get(i).isEmpty()) {
+					tree.offer(new Head(i, sequences.get(i).get(positions[i]++)));
+				}
+			}
+
+			List<Integer> actual = new ArrayList<>();
+			Head head;
+			while ((head = tree.poll()) != null) {
+				actual.add(head.value);
+				List<Integer> sequence = sequences.get(head.index);
+				if (positions[head.index] < sequence.size()) {
+					tree.offer(new Head(head.index, sequence.get(positions[head.index]++)));
+				}
+			}
+			assertEquals(expected, actual);
+			assertTrue(tree.isEmpty());
+		}
+	}
+
+	@Test
+	public void testTiesAreResolvedByIndex() {
+		LoserTree<Head> tree = new LoserTree<>(Comparator.comparingInt(head -> head.value), head -> head.index);
+		tree.offer(new Head(2, 1));
+		tree.offer(new Head(0, 1));
+		tree.offer(new Head(1, 1));
+
+		assertEquals(0, tree.poll().index);
+		assertEquals(1, tree.poll().index);
+		assertEquals(2, tree.poll().index);
+		assertNull(tree.poll());
+	}
+
+	private static final class Head {
+		final int index;
+		final int value;
+
+		Head(int index, int value) {
+			this.index = index;
+			this.value = value;
+		}
+	}
+}
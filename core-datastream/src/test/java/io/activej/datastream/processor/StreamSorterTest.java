@@ -23,9 +23,12 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static io.activej.datastream.TestStreamTransformers.*;
@@ -99,6 +102,107 @@ public final class StreamSorterTest {
 		assertEndOfStream(sorter);
 	}
 
+	@Test
+	public void testMultiPassMerge() throws IOException {
+		Random random = new Random(0);
+		List<Integer> items = IntStream.range(0, 1000).map($ -> random.nextInt(500)).boxed().collect(Collectors.toList());
+		StreamSupplier<Integer> source = StreamSupplier.ofIterable(items);
+
+		Executor executor = Executors.newFixedThreadPool(4);
+		Path storagePath = tempFolder.newFolder().toPath();
+		StreamSorterStorage<Integer> storage = StreamSorterStorageImpl.create(executor, INT_SERIALIZER, FRAME_FORMAT, storagePath);
+		StreamSorter<Integer, Integer> sorter = StreamSorter.create(storage, Function.identity(), Integer::compareTo, false, 10)
+				.withSortingExecutor(executor)
+				.withSortingParallelism(4)
+				.withMergeFanIn(3);
+
+		StreamConsumerToList<Integer> consumerToList = StreamConsumerToList.create();
+
+		await(source.transformWith(sorter)
+				.streamTo(consumerToList.transformWith(randomlySuspending())));
+
+		assertEquals(items.stream().sorted().collect(Collectors.toList()), consumerToList.getList());
+		assertEndOfStream(source, consumerToList);
+		assertEndOfStream(sorter);
+		try (Stream<Path> contents = Files.list(storagePath)) {
+			assertFalse(contents.findAny().isPresent());
+		}
+	}
+
+	@Test
+	public void testFirstMergePassMergesOnlyExcessRuns() throws IOException {
+		StreamSupplier<Integer> source = StreamSupplier.of(3, 1, 3, 2, 5, 1, 4, 3, 2);
+
+		Executor executor = Executors.newSingleThreadExecutor();
+		StreamSorterStorage<Integer> fileStorage = StreamSorterStorageImpl.create(executor, INT_SERIALIZER, FRAME_FORMAT, tempFolder.newFolder().toPath());
+		List<Integer> created = new ArrayList<>();
+		List<List<Integer>> cleanups = new ArrayList<>();
+		StreamSorterStorage<Integer> storage = new StreamSorterStorage<Integer>() {
+			@Override
+			public Promise<Integer> newPartitionId() {
+				return fileStorage.newPartitionId().whenResult(created::add);
+			}
+
+			@Override
+			public Promise<StreamConsumer<Integer>> write(int partition) {
+				return fileStorage.write(partition);
+			}
+
+			@Override
+			public Promise<StreamSupplier<Integer>> read(int partition) {
+				return fileStorage.read(partition);
+			}
+
+			@Override
+			public Promise<Void> cleanup(List<Integer> partitionsToDelete) {
+				cleanups.add(new ArrayList<>(partitionsToDelete));
+				return fileStorage.cleanup(partitionsToDelete);
+			}
+		};
+		// 4 runs are spilled, while 4 inputs may be merged at once (including the items in memory)
+		StreamSorter<Integer, Integer> sorter = StreamSorter.create(storage, Function.identity(), Integer::compareTo, false, 2)
+				.withMergeFanIn(4);
+
+		StreamConsumerToList<Integer> consumerToList = StreamConsumerToList.create();
+
+		await(source.transformWith(sorter)
+				.streamTo(consumerToList.transformWith(randomlySuspending())));
+
+		assertEquals(asList(1, 1, 2, 2, 3, 3, 3, 4, 5), consumerToList.getList());
+		assertEquals(5, created.size());
+		// only 2 runs are merged to free a single input of the final merge
+		assertEquals(2, cleanups.get(0).size());
+		assertTrue(created.subList(0, 4).containsAll(cleanups.get(0)));
+		assertEquals(2, cleanups.size());
+		assertEquals(3, cleanups.get(1).size());
+		assertTrue(cleanups.get(1).contains(created.get(4)));
+	}
+
+	@Test
+	public void testMemoryLimit() throws IOException {
+		StreamSupplier<Integer> source = StreamSupplier.of(6, 5, 4, 3, 2, 1);
+
+		Executor executor = Executors.newSingleThreadExecutor();
+		Path storagePath = tempFolder.newFolder().toPath();
+		StreamSorterStorage<Integer> storage = StreamSorterStorageImpl.create(executor, INT_SERIALIZER, FRAME_FORMAT, storagePath);
+		StreamSorter<Integer, Integer> sorter = StreamSorter.create(storage, Function.identity(), Integer::compareTo, true, Integer.MAX_VALUE)
+				.withMemoryLimit(MemSize.of(8), StreamSorter.serializedSizeEstimator(INT_SERIALIZER, 1));
+
+		StreamConsumerToList<Integer> consumer = StreamConsumerToList.create();
+
+		Promise<Void> inputPromise = source.streamTo(sorter.getInput());
+
+		// wait some time till files are actually created
+		await(Promise.complete().async());
+
+		try (Stream<Path> contents = Files.list(storagePath)) {
+			assertEquals(3, contents.count());
+		}
+
+		await(inputPromise, sorter.getOutput().streamTo(consumer));
+		assertEquals(asList(1, 2, 3, 4, 5, 6), consumer.getList());
+	}
+
 	@Test
 	public void testErrorOnConsumer() throws IOException {
 		StreamSupplier<Integer> source = StreamSupplier.of(3, 1, 3, 2, 5, 1, 4, 3, 2);
@@ -19,6 +19,7 @@ package io.activej.eventloop;
 import io.activej.async.callback.AsyncComputation;
 import io.activej.async.callback.Callback;
 import io.activej.async.exception.AsyncTimeoutException;
+import io.activej.common.ApplicationSettings;
 import io.activej.common.Checks;
 import io.activej.common.exception.UncheckedException;
 import io.activej.common.function.RunnableEx;
@@ -34,10 +35,14 @@ import io.activej.eventloop.inspector.EventloopInspector;
 import io.activej.eventloop.inspector.EventloopStats;
 import io.activej.eventloop.jmx.EventloopJmxBeanWithStats;
 import io.activej.eventloop.net.DatagramSocketSettings;
+import io.activej.eventloop.net.NioTransport;
 import io.activej.eventloop.net.ServerSocketSettings;
+import io.activej.eventloop.net.Transport;
+import io.activej.eventloop.schedule.PriorityScheduledTaskQueue;
 import io.activej.eventloop.schedule.ScheduledRunnable;
+import io.activej.eventloop.schedule.ScheduledTaskQueue;
 import io.activej.eventloop.schedule.Scheduler;
-import io.activej.eventloop.util.OptimizedSelectedKeysSet;
+import io.activej.eventloop.util.MpscQueue;
 import io.activej.eventloop.util.RunnableWithContext;
 import io.activej.jmx.api.attribute.JmxAttribute;
 import io.activej.jmx.api.attribute.JmxOperation;
@@ -55,16 +60,15 @@ import java.nio.channels.spi.SelectorProvider;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static io.activej.common.Checks.checkArgument;
 import static io.activej.common.Checks.checkState;
-import static io.activej.common.Utils.nonNullElseGet;
-import static io.activej.eventloop.util.Utils.tryToOptimizeSelector;
-import static java.util.Collections.emptyIterator;
 
 /**
  * It is an internal class for asynchronous programming. In asynchronous
@@ -90,6 +94,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	public static final boolean JIGSAW_DETECTED;
 	public static final Duration DEFAULT_SMOOTHING_WINDOW = Duration.ofMinutes(1);
 	public static final Duration DEFAULT_IDLE_INTERVAL = Duration.ofSeconds(1);
+	public static final Duration DEFAULT_SPIN_DURATION = ApplicationSettings.getDuration(Eventloop.class, "spinDuration", Duration.ZERO);
 
 	static {
 		JIGSAW_DETECTED = ReflectionUtils.isClassPresent("java.lang.Module");
@@ -107,19 +112,31 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	/**
 	 * Collection of concurrent tasks which were added from other threads.
 	 */
-	private final ConcurrentLinkedQueue<Runnable> concurrentTasks = new ConcurrentLinkedQueue<>();
+	private final MpscQueue<Runnable> concurrentTasks = new MpscQueue<>();
+
+	/**
+	 * Is set while eventloop is about to block in select,
+	 * other threads wake up the selector only if this flag is set.
+	 */
+	private final AtomicBoolean selecting = new AtomicBoolean();
+
+	/**
+	 * Amount of selector wakeups made by other threads which have posted concurrent tasks.
+	 */
+	private final AtomicLong wakeups = new AtomicLong();
+	private long lastWakeups;
 
 	/**
 	 * Collection of scheduled tasks that are scheduled
 	 * to be executed at particular timestamp.
 	 */
-	private final PriorityQueue<ScheduledRunnable> scheduledTasks = new PriorityQueue<>();
+	private ScheduledTaskQueue scheduledTasks = PriorityScheduledTaskQueue.create();
 
 	/**
 	 * Collection of background tasks,
 	 * if eventloop contains only background tasks, it will be closed.
 	 */
-	private final PriorityQueue<ScheduledRunnable> backgroundTasks = new PriorityQueue<>();
+	private ScheduledTaskQueue backgroundTasks = PriorityScheduledTaskQueue.create();
 
 	/**
 	 * Amount of concurrent operations in other threads,
@@ -145,7 +162,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	 */
 	private @Nullable Selector selector;
 
-	private @Nullable SelectorProvider selectorProvider;
+	private @NotNull Transport transport = NioTransport.create();
 
 	/**
 	 * The thread in which eventloop is running.
@@ -166,11 +183,20 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 
 	private Duration idleInterval = DEFAULT_IDLE_INTERVAL;
 
+	/**
+	 * Time to busy-poll the selector and concurrent tasks before blocking in select
+	 */
+	private Duration spinDuration = DEFAULT_SPIN_DURATION;
+
 	/**
 	 * Amount of selected keys for last Selector.select()
 	 */
 	private int lastSelectedKeys;
 	private int cancelledKeys;
+
+	private final Consumer<SelectionKey> selectedKeyHandler = this::processSelectedKey;
+	private int invalidKeys, acceptKeys, connectKeys, readKeys, writeKeys;
+	private @Nullable Stopwatch selectedKeyStopwatch;
 	private int lastExternalTasksCount;
 
 	// JMX
@@ -215,7 +241,15 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	}
 
 	public @NotNull Eventloop withSelectorProvider(@Nullable SelectorProvider selectorProvider) {
-		this.selectorProvider = selectorProvider;
+		return withTransport(NioTransport.create().withSelectorProvider(selectorProvider));
+	}
+
+	/**
+	 * Sets an I/O backend of this eventloop, {@link NioTransport} is used by default
+	 */
+	public @NotNull Eventloop withTransport(@NotNull Transport transport) {
+		checkState(selector == null, "Selector has already been opened");
+		this.transport = transport;
 		return this;
 	}
 
@@ -224,6 +258,33 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return this;
 	}
 
+	/**
+	 * Makes this eventloop spin on non-blocking selects and concurrent tasks
+	 * for a given duration before blocking in select.
+	 * <p>
+	 * This trades CPU time for latency of I/O events and tasks posted from other threads.
+	 * A zero duration (default) disables spinning.
+	 */
+	public @NotNull Eventloop withSpinDuration(@NotNull Duration spinDuration) {
+		checkArgument(!spinDuration.isNegative(), "Spin duration cannot be negative");
+		this.spinDuration = spinDuration;
+		return this;
+	}
+
+	/**
+	 * Sets a factory of queues which hold scheduled and background tasks of this eventloop.
+	 * By default, tasks are kept in a {@link PriorityScheduledTaskQueue}.
+	 * <p>
+	 * For example, {@code withScheduledTaskQueue(TimingWheelScheduledTaskQueue::create)}
+	 * makes scheduling and cancelling of tasks O(1) at the cost of a timer resolution.
+	 */
+	public @NotNull Eventloop withScheduledTaskQueue(@NotNull Function<CurrentTimeProvider, ScheduledTaskQueue> queueFactory) {
+		checkState(scheduledTasks.isEmpty() && backgroundTasks.isEmpty(), "Eventloop already has scheduled tasks");
+		this.scheduledTasks = queueFactory.apply(this);
+		this.backgroundTasks = queueFactory.apply(this);
+		return this;
+	}
+
 	public @NotNull Eventloop withCurrentThread() {
 		CURRENT_EVENTLOOP.set(this);
 		return this;
@@ -271,7 +332,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	private void openSelector() {
 		if (selector == null) {
 			try {
-				selector = nonNullElseGet(selectorProvider, SelectorProvider::provider).openSelector();
+				selector = transport.openSelector();
 			} catch (Exception e) {
 				logger.error("Could not open selector", e);
 				throw new RuntimeException(e);
@@ -368,7 +429,6 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		ensureSelector();
 		assert selector != null;
 		breakEventloop = false;
-		boolean setWasOptimized = !JIGSAW_DETECTED && tryToOptimizeSelector(selector);
 
 		long timeAfterSelectorSelect;
 		long timeAfterBusinessLogic = 0;
@@ -376,11 +436,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 			try {
 				long selectTimeout = getSelectTimeout();
 				if (inspector != null) inspector.onUpdateSelectorSelectTimeout(selectTimeout);
-				if (selectTimeout <= 0) {
-					lastSelectedKeys = selector.selectNow();
-				} else {
-					lastSelectedKeys = selector.select(selectTimeout);
-				}
+				lastSelectedKeys = select(selector, selectTimeout);
 				cancelledKeys = 0;
 			} catch (ClosedChannelException e) {
 				logger.error("Selector is closed, exiting...", e);
@@ -390,9 +446,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 			}
 
 			timeAfterSelectorSelect = refreshTimestampAndGet();
-			int keys = setWasOptimized ?
-					optimizedProcessSelectedKeys((OptimizedSelectedKeysSet) selector.selectedKeys()) :
-					processSelectedKeys(selector.selectedKeys());
+			int keys = processSelectedKeys(selector);
 			int concurrentTasks = executeConcurrentTasks();
 			int scheduledTasks = executeScheduledTasks();
 			int backgroundTasks = executeBackgroundTasks();
@@ -423,6 +477,38 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		closeSelector();
 	}
 
+	private int select(@NotNull Selector selector, long selectTimeout) throws IOException {
+		if (selectTimeout <= 0) {
+			return transport.select(selector, 0);
+		}
+		long spinNanos = spinDuration.toNanos();
+		if (spinNanos != 0) {
+			long spinStart = System.nanoTime();
+			long spinEnd = spinStart + Math.min(spinNanos, selectTimeout * 1_000_000L);
+			long now;
+			do {
+				int keys = transport.select(selector, 0);
+				if (keys != 0 || !concurrentTasks.isEmpty()) {
+					if (inspector != null) inspector.onUpdateSelectorSpin(true);
+					return keys;
+				}
+				now = System.nanoTime();
+			} while (now - spinEnd < 0);
+			if (inspector != null) inspector.onUpdateSelectorSpin(false);
+			selectTimeout -= (now - spinStart) / 1_000_000L;
+			if (selectTimeout <= 0) {
+				return 0;
+			}
+		}
+		selecting.set(true);
+		if (!concurrentTasks.isEmpty()) {
+			selectTimeout = 0;
+		}
+		int keys = transport.select(selector, selectTimeout);
+		selecting.lazySet(false);
+		return keys;
+	}
+
 	private long getSelectTimeout() {
 		if (!concurrentTasks.isEmpty() || !localTasks.isEmpty())
 			return 0L;
@@ -431,65 +517,27 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return Math.min(getTimeBeforeExecution(scheduledTasks), getTimeBeforeExecution(backgroundTasks));
 	}
 
-	private long getTimeBeforeExecution(PriorityQueue<ScheduledRunnable> taskQueue) {
-		while (!taskQueue.isEmpty()) {
-			ScheduledRunnable first = taskQueue.peek();
-			if (first.isCancelled()) {
-				taskQueue.poll();
-				continue;
-			}
-			return first.getTimestamp() - currentTimeMillis();
+	private long getTimeBeforeExecution(ScheduledTaskQueue taskQueue) {
+		long nextTimestamp = taskQueue.getNextTimestamp();
+		if (nextTimestamp == Long.MAX_VALUE) {
+			return idleInterval.toMillis();
 		}
-		return idleInterval.toMillis();
+		return nextTimestamp - currentTimeMillis();
 	}
 
 	/**
 	 * Processes selected keys related to various I/O events: accept, connect, read, write.
 	 *
-	 * @param selectedKeys set that contains all selected keys, returned from NIO Selector.select()
+	 * @param selector a selector whose selected keys are passed to {@link #processSelectedKey}
 	 */
-	private int processSelectedKeys(@NotNull Set<SelectionKey> selectedKeys) {
+	private int processSelectedKeys(@NotNull Selector selector) {
 		long startTimestamp = timestamp;
-		Stopwatch sw = monitoring ? Stopwatch.createUnstarted() : null;
-
-		int invalidKeys = 0, acceptKeys = 0, connectKeys = 0, readKeys = 0, writeKeys = 0;
-
-		Iterator<SelectionKey> iterator = lastSelectedKeys != 0 ? selectedKeys.iterator() : emptyIterator();
-		while (iterator.hasNext()) {
-			SelectionKey key = iterator.next();
-			iterator.remove();
-
-			if (!key.isValid()) {
-				invalidKeys++;
-				continue;
-			}
+		selectedKeyStopwatch = monitoring ? Stopwatch.createUnstarted() : null;
 
-			if (sw != null) {
-				sw.reset();
-				sw.start();
-			}
+		invalidKeys = acceptKeys = connectKeys = readKeys = writeKeys = 0;
 
-			if (key.isAcceptable()) {
-				onAccept(key);
-				acceptKeys++;
-			} else if (key.isConnectable()) {
-				onConnect(key);
-				connectKeys++;
-			} else {
-				if (key.isReadable()) {
-					onRead(key);
-					readKeys++;
-				}
-				if (key.isValid()) {
-					if (key.isWritable()) {
-						onWrite(key);
-						writeKeys++;
-					}
-				} else {
-					invalidKeys++;
-				}
-			}
-			if (sw != null && inspector != null) inspector.onUpdateSelectedKeyDuration(sw);
+		if (lastSelectedKeys != 0) {
+			transport.processSelectedKeys(selector, selectedKeyHandler);
 		}
 
 		int keys = acceptKeys + connectKeys + readKeys + writeKeys + invalidKeys;
@@ -503,56 +551,39 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return keys;
 	}
 
-	private int optimizedProcessSelectedKeys(@NotNull OptimizedSelectedKeysSet selectedKeys) {
-		long startTimestamp = timestamp;
-		Stopwatch sw = monitoring ? Stopwatch.createUnstarted() : null;
-
-		int invalidKeys = 0, acceptKeys = 0, connectKeys = 0, readKeys = 0, writeKeys = 0;
+	private void processSelectedKey(SelectionKey key) {
+		if (!key.isValid()) {
+			invalidKeys++;
+			return;
+		}
 
-		for (int i = 0; i < selectedKeys.size(); i++) {
-			SelectionKey key = selectedKeys.get(i);
-			if (!key.isValid()) {
-				invalidKeys++;
-				continue;
-			}
+		Stopwatch sw = selectedKeyStopwatch;
+		if (sw != null) {
+			sw.reset();
+			sw.start();
+		}
 
-			if (sw != null) {
-				sw.reset();
-				sw.start();
+		if (key.isAcceptable()) {
+			onAccept(key);
+			acceptKeys++;
+		} else if (key.isConnectable()) {
+			onConnect(key);
+			connectKeys++;
+		} else {
+			if (key.isReadable()) {
+				onRead(key);
+				readKeys++;
 			}
-
-			if (key.isAcceptable()) {
-				onAccept(key);
-				acceptKeys++;
-			} else if (key.isConnectable()) {
-				onConnect(key);
-				connectKeys++;
-			} else {
-				if (key.isReadable()) {
-					onRead(key);
-					readKeys++;
-				}
-				if (key.isValid()) {
-					if (key.isWritable()) {
-						onWrite(key);
-						writeKeys++;
-					}
-				} else {
-					invalidKeys++;
+			if (key.isValid()) {
+				if (key.isWritable()) {
+					onWrite(key);
+					writeKeys++;
 				}
+			} else {
+				invalidKeys++;
 			}
-			if (sw != null && inspector != null) inspector.onUpdateSelectedKeyDuration(sw);
-		}
-		selectedKeys.clear();
-		int keys = acceptKeys + connectKeys + readKeys + writeKeys + invalidKeys;
-
-		if (keys != 0) {
-			long loopTime = refreshTimestampAndGet() - startTimestamp;
-			if (inspector != null)
-				inspector.onUpdateSelectedKeysStats(lastSelectedKeys, invalidKeys, acceptKeys, connectKeys, readKeys, writeKeys, loopTime);
 		}
-
-		return keys;
+		if (sw != null && inspector != null) inspector.onUpdateSelectedKeyDuration(sw);
 	}
 
 	private static void executeTask(@Async.Execute Runnable task) {
@@ -633,7 +664,13 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 
 		if (concurrentTasks != 0) {
 			long loopTime = refreshTimestampAndGet() - startTimestamp;
-			if (inspector != null) inspector.onUpdateConcurrentTasksStats(concurrentTasks, loopTime);
+			if (inspector != null) {
+				inspector.onUpdateConcurrentTasksStats(concurrentTasks, loopTime);
+				long wakeups = this.wakeups.get();
+				int newWakeups = (int) (wakeups - lastWakeups);
+				lastWakeups = wakeups;
+				inspector.onUpdateWakeups(newWakeups, Math.max(0, concurrentTasks - newWakeups));
+			}
 		}
 
 		return concurrentTasks;
@@ -650,7 +687,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return executeScheduledTasks(backgroundTasks);
 	}
 
-	private int executeScheduledTasks(PriorityQueue<ScheduledRunnable> taskQueue) {
+	private int executeScheduledTasks(ScheduledTaskQueue taskQueue) {
 		long startTimestamp = timestamp;
 		boolean background = taskQueue == backgroundTasks;
 
@@ -658,17 +695,9 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		Stopwatch sw = monitoring ? Stopwatch.createUnstarted() : null;
 
 		for (; ; ) {
-			ScheduledRunnable peeked = taskQueue.peek();
+			ScheduledRunnable peeked = taskQueue.poll(currentTimeMillis());
 			if (peeked == null)
 				break;
-			if (peeked.isCancelled()) {
-				taskQueue.poll();
-				continue;
-			}
-			if (peeked.getTimestamp() > currentTimeMillis()) {
-				break;
-			}
-			taskQueue.poll();
 
 			Runnable runnable = peeked.getRunnable();
 			if (sw != null) {
@@ -970,14 +999,21 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	 * Posts a new task from other threads.
 	 * This is the preferred method of communicating
 	 * with eventloop from other threads.
+	 * <p>
+	 * The selector is only woken up if eventloop is blocked in select,
+	 * so that a burst of tasks results in a single wakeup.
 	 *
 	 * @param runnable runnable of this task
 	 */
 	@Override
 	public void execute(@NotNull @Async.Schedule Runnable runnable) {
 		concurrentTasks.offer(runnable);
-		if (selector != null) {
-			selector.wakeup();
+		if (selecting.get() && selecting.compareAndSet(true, false)) {
+			Selector selector = this.selector;
+			if (selector != null) {
+				wakeups.incrementAndGet();
+				selector.wakeup();
+			}
 		}
 	}
 
@@ -1012,8 +1048,8 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 
 	private @NotNull ScheduledRunnable addScheduledTask(long timestamp, Runnable runnable, boolean background) {
 		ScheduledRunnable scheduledTask = ScheduledRunnable.create(timestamp, runnable);
-		PriorityQueue<ScheduledRunnable> taskQueue = background ? backgroundTasks : scheduledTasks;
-		taskQueue.offer(scheduledTask);
+		ScheduledTaskQueue taskQueue = background ? backgroundTasks : scheduledTasks;
+		taskQueue.add(scheduledTask);
 		return scheduledTask;
 	}
 
@@ -1206,6 +1242,17 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		this.idleInterval = idleInterval;
 	}
 
+	@JmxAttribute
+	public Duration getSpinDuration() {
+		return spinDuration;
+	}
+
+	@JmxAttribute
+	public void setSpinDuration(Duration spinDuration) {
+		checkArgument(!spinDuration.isNegative(), "Spin duration cannot be negative");
+		this.spinDuration = spinDuration;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder("Eventloop");
@@ -28,6 +28,8 @@ public interface EventloopInspector extends BaseInspector<EventloopInspector> {
 
 	void onUpdateSelectorSelectTimeout(long selectorSelectTimeout);
 
+	void onUpdateSelectorSpin(boolean spinHit);
+
 	void onUpdateSelectedKeyDuration(@NotNull Stopwatch sw);
 
 	void onUpdateSelectedKeysStats(int lastSelectedKeys, int invalidKeys, int acceptKeys, int connectKeys, int readKeys, int writeKeys, long loopTime);
@@ -40,6 +42,8 @@ public interface EventloopInspector extends BaseInspector<EventloopInspector> {
 
 	void onUpdateConcurrentTasksStats(int newConcurrentTasks, long loopTime);
 
+	void onUpdateWakeups(int wakeups, int coalescedWakeups);
+
 	void onUpdateScheduledTaskDuration(@NotNull Runnable runnable, @Nullable Stopwatch sw, boolean background);
 
 	void onUpdateScheduledTasksStats(int scheduledTasks, long loopTime, boolean background);
@@ -45,6 +45,10 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 	private final EventStats idleLoops;
 	private final EventStats idleLoopsWaitingExternalTask;
 	private final EventStats selectOverdues;
+	private final EventStats wakeups;
+	private final EventStats coalescedWakeups;
+	private final EventStats spinHits;
+	private final EventStats spinMisses;
 
 	private EventloopStats() {
 		loops = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
@@ -59,6 +63,10 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 		idleLoops = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
 		idleLoopsWaitingExternalTask = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
 		selectOverdues = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+		wakeups = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+		coalescedWakeups = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+		spinHits = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+		spinMisses = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
 	}
 
 	public static EventloopStats create() {
@@ -91,6 +99,15 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 		if (selectorSelectTimeout < 0) selectOverdues.recordEvent();
 	}
 
+	@Override
+	public void onUpdateSelectorSpin(boolean spinHit) {
+		if (spinHit) {
+			spinHits.recordEvent();
+		} else {
+			spinMisses.recordEvent();
+		}
+	}
+
 	@Override
 	public void onUpdateSelectedKeyDuration(@NotNull Stopwatch sw) {
 		keys.oneKeyTime.recordValue((int) sw.elapsed(TimeUnit.MICROSECONDS));
@@ -140,6 +157,12 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 		tasks.concurrent.tasksPerLoop.recordValue(newConcurrentTasks);
 	}
 
+	@Override
+	public void onUpdateWakeups(int wakeups, int coalescedWakeups) {
+		this.wakeups.recordEvents(wakeups);
+		this.coalescedWakeups.recordEvents(coalescedWakeups);
+	}
+
 	@Override
 	public void onUpdateScheduledTaskDuration(@NotNull Runnable runnable, @Nullable Stopwatch sw, boolean background) {
 		if (background) {
@@ -234,6 +257,33 @@ public final class EventloopStats extends AbstractInspector<EventloopInspector>
 	public EventStats getSelectOverdues() {
 		return selectOverdues;
 	}
+
+	@JmxAttribute
+	public EventStats getWakeups() {
+		return wakeups;
+	}
+
+	@JmxAttribute
+	public EventStats getCoalescedWakeups() {
+		return coalescedWakeups;
+	}
+
+	@JmxAttribute
+	public EventStats getSpinHits() {
+		return spinHits;
+	}
+
+	@JmxAttribute
+	public EventStats getSpinMisses() {
+		return spinMisses;
+	}
+
+	@JmxAttribute
+	public double getSpinHitRatio() {
+		long hits = spinHits.getTotalCount();
+		long total = hits + spinMisses.getTotalCount();
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
 	// endregion
 
 	// region helper classes for stats grouping
@@ -162,6 +162,14 @@ public final class ThrottlingController implements EventloopJmxBean, EventloopIn
 		this.concurrentTasksSize = concurrentTasksSize;
 	}
 
+	@Override
+	public void onUpdateWakeups(int wakeups, int coalescedWakeups) {
+	}
+
+	@Override
+	public void onUpdateSelectorSpin(boolean spinHit) {
+	}
+
 	@Override
 	public void onUpdateScheduledTaskDuration(@NotNull Runnable runnable, @Nullable Stopwatch sw, boolean background) {
 
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.eventloop.net;
+
+import io.activej.eventloop.Eventloop;
+import io.activej.eventloop.util.OptimizedSelectedKeysSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static io.activej.common.Utils.nonNullElseGet;
+import static io.activej.eventloop.util.Utils.tryToOptimizeSelector;
+
+/**
+ * A default {@link Transport} which is based on a NIO {@link Selector}.
+ * <p>
+ * If possible, selected keys {@link java.util.HashSet} of a selector is replaced
+ * with an array-based {@link OptimizedSelectedKeysSet}, so that no garbage is produced
+ * while processing selected keys.
+ */
+public final class NioTransport implements Transport {
+	private @Nullable SelectorProvider selectorProvider;
+	private boolean optimizeSelectedKeys = !Eventloop.JIGSAW_DETECTED;
+
+	// region builders
+	private NioTransport() {
+	}
+
+	public static NioTransport create() {
+		return new NioTransport();
+	}
+
+	public NioTransport withSelectorProvider(@Nullable SelectorProvider selectorProvider) {
+		this.selectorProvider = selectorProvider;
+		return this;
+	}
+
+	public NioTransport withOptimizedSelectedKeys(boolean optimizeSelectedKeys) {
+		this.optimizeSelectedKeys = optimizeSelectedKeys;
+		return this;
+	}
+	// endregion
+
+	@Override
+	public @NotNull Selector openSelector() throws IOException {
+		Selector selector = nonNullElseGet(selectorProvider, SelectorProvider::provider).openSelector();
+		if (optimizeSelectedKeys) {
+			tryToOptimizeSelector(selector);
+		}
+		return selector;
+	}
+
+	@Override
+	public int select(@NotNull Selector selector, long timeout) throws IOException {
+		return timeout <= 0 ? selector.selectNow() : selector.select(timeout);
+	}
+
+	@Override
+	public void processSelectedKeys(@NotNull Selector selector, @NotNull Consumer<SelectionKey> handler) {
+		Set<SelectionKey> selectedKeys = selector.selectedKeys();
+		if (selectedKeys.isEmpty()) return;
+		if (selectedKeys instanceof OptimizedSelectedKeysSet) {
+			OptimizedSelectedKeysSet optimizedKeys = (OptimizedSelectedKeysSet) selectedKeys;
+			for (int i = 0; i < optimizedKeys.size(); i++) {
+				handler.accept(optimizedKeys.get(i));
+			}
+			optimizedKeys.clear();
+		} else {
+			Iterator<SelectionKey> iterator = selectedKeys.iterator();
+			while (iterator.hasNext()) {
+				SelectionKey key = iterator.next();
+				iterator.remove();
+				handler.accept(key);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "NioTransport{" +
+				"selectorProvider=" + selectorProvider +
+				", optimizeSelectedKeys=" + optimizeSelectedKeys +
+				'}';
+	}
+}
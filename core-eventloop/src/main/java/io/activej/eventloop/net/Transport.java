@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.eventloop.net;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.function.Consumer;
+
+/**
+ * An I/O backend of an eventloop.
+ * <p>
+ * A transport opens a {@link Selector} which sockets of an eventloop are registered with,
+ * waits for I/O readiness and hands a batch of ready keys over to the eventloop.
+ * An alternative backend may provide its own {@link java.nio.channels.spi.AbstractSelector}
+ * implementation and deliver ready keys without {@link java.util.Set} bookkeeping.
+ * <p>
+ * A transport is only accessed from an eventloop thread, except for {@link Selector#wakeup()}.
+ * A single transport instance may be shared between several eventloops.
+ *
+ * @see NioTransport
+ */
+public interface Transport {
+	/**
+	 * Opens a new selector for an eventloop
+	 */
+	@NotNull Selector openSelector() throws IOException;
+
+	/**
+	 * Waits for channels of a given selector to become ready for I/O
+	 *
+	 * @param selector a selector opened by this transport
+	 * @param timeout  maximum time to wait in milliseconds, if not positive, does not block
+	 * @return a number of keys which are ready for I/O
+	 */
+	int select(@NotNull Selector selector, long timeout) throws IOException;
+
+	/**
+	 * Passes each key selected by a previous {@link #select} call to a given handler and
+	 * clears the selected keys
+	 *
+	 * @param selector a selector opened by this transport
+	 * @param handler  a handler of selected keys
+	 */
+	void processSelectedKeys(@NotNull Selector selector, @NotNull Consumer<SelectionKey> handler);
+}
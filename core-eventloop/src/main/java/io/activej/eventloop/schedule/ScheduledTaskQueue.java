@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.eventloop.schedule;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A queue of {@link ScheduledRunnable scheduled tasks} which is used by an eventloop
+ * to keep track of scheduled and background tasks.
+ * <p>
+ * Implementations are not thread-safe, they are only accessed from an eventloop thread.
+ */
+public interface ScheduledTaskQueue {
+	void add(@NotNull ScheduledRunnable task);
+
+	/**
+	 * Retrieves and removes a non-cancelled task which is due to be executed at given time.
+	 *
+	 * @param currentTimeMillis current time
+	 * @return a task whose timestamp is not greater than {@code currentTimeMillis},
+	 * or {@code null} if there are no such tasks
+	 */
+	@Nullable ScheduledRunnable poll(long currentTimeMillis);
+
+	/**
+	 * Returns a timestamp before which no task of this queue is going to be due.
+	 * The returned value may be less than the timestamp of the earliest task.
+	 *
+	 * @return a timestamp of the earliest task or {@link Long#MAX_VALUE} if there are no tasks
+	 */
+	long getNextTimestamp();
+
+	/**
+	 * Returns a number of tasks in this queue. Depending on implementation,
+	 * the returned value may include cancelled tasks that have not been removed yet.
+	 */
+	int size();
+
+	default boolean isEmpty() {
+		return size() == 0;
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.eventloop.schedule;
+
+import io.activej.common.time.CurrentTimeProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A {@link ScheduledTaskQueue} based on a hashed timing wheel.
+ * <p>
+ * Time is divided into ticks of a fixed duration, each tick is mapped onto one of
+ * the wheel buckets. A bucket is a doubly-linked list of tasks, so that both scheduling and
+ * cancelling a task take O(1) time. Tasks which are scheduled further than a wheel
+ * revolution ahead stay in their bucket until the wheel reaches their tick.
+ * <p>
+ * A task is never executed before its timestamp, but it may be executed up to one tick later
+ * than it would be executed by {@link PriorityScheduledTaskQueue}. Tasks which are due in the same
+ * tick are executed in the order they were scheduled. If tasks have not been polled for longer than
+ * a wheel revolution, overdue tasks are returned in the order of buckets rather than timestamps.
+ */
+public final class TimingWheelScheduledTaskQueue implements ScheduledTaskQueue {
+	public static final long DEFAULT_TICK_MILLIS = 1;
+	public static final int DEFAULT_WHEEL_SIZE = 4096;
+
+	private final long tickMillis;
+	private final int mask;
+	private final Bucket[] buckets;
+	private final long[] nonEmptyBuckets;
+	private final Bucket ready = new Bucket(this, -1);
+
+	/**
+	 * The last tick whose tasks have been moved to the {@code ready} bucket
+	 */
+	private long cursor;
+	private int size;
+
+	// region builders
+	private TimingWheelScheduledTaskQueue(long tickMillis, int wheelSize, long currentTimeMillis) {
+		this.tickMillis = tickMillis;
+		this.mask = wheelSize - 1;
+		this.buckets = new Bucket[wheelSize];
+		for (int i = 0; i < wheelSize; i++) {
+			buckets[i] = new Bucket(this, i);
+		}
+		this.nonEmptyBuckets = new long[wheelSize >>> 6];
+		this.cursor = Math.floorDiv(currentTimeMillis, tickMillis);
+	}
+
+	public static TimingWheelScheduledTaskQueue create(@NotNull CurrentTimeProvider timeProvider) {
+		return create(timeProvider, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+	}
+
+	public static TimingWheelScheduledTaskQueue create(@NotNull CurrentTimeProvider timeProvider, long tickMillis, int wheelSize) {
+		checkArgument(tickMillis > 0, "Tick duration should be positive");
+		checkArgument(wheelSize >= 64 && Integer.bitCount(wheelSize) == 1, "Wheel size should be a power of 2 not less than 64");
+		return new TimingWheelScheduledTaskQueue(tickMillis, wheelSize, timeProvider.currentTimeMillis());
+	}
+	// endregion
+
+	@Override
+	public void add(@NotNull ScheduledRunnable task) {
+		long tick = tickOf(task);
+		if (tick <= cursor) {
+			ready.addLast(task);
+		} else {
+			int index = (int) (tick & mask);
+			buckets[index].addLast(task);
+			nonEmptyBuckets[index >>> 6] |= 1L << index;
+		}
+		size++;
+	}
+
+	@Override
+	public @Nullable ScheduledRunnable poll(long currentTimeMillis) {
+		ScheduledRunnable task = ready.head;
+		if (task == null) {
+			if (size == 0) return null;
+			advance(Math.floorDiv(currentTimeMillis, tickMillis));
+			task = ready.head;
+			if (task == null) return null;
+		}
+		ready.unlink(task);
+		size--;
+		return task;
+	}
+
+	@Override
+	public long getNextTimestamp() {
+		if (ready.head != null) return ready.head.getTimestamp();
+		if (size == 0) return Long.MAX_VALUE;
+		long tick = nextNonEmptyTick(cursor + 1, cursor + buckets.length);
+		return tick == Long.MAX_VALUE ? Long.MAX_VALUE : tick * tickMillis;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	public int getWheelSize() {
+		return buckets.length;
+	}
+
+	private long tickOf(ScheduledRunnable task) {
+		return -Math.floorDiv(-task.getTimestamp(), tickMillis);
+	}
+
+	private void advance(long currentTick) {
+		if (currentTick <= cursor) return;
+		long last = cursor + Math.min(currentTick - cursor, buckets.length);
+		for (long tick = nextNonEmptyTick(cursor + 1, last);
+			 tick != Long.MAX_VALUE;
+			 tick = nextNonEmptyTick(tick + 1, last)) {
+			expire((int) (tick & mask), currentTick);
+		}
+		cursor = currentTick;
+	}
+
+	private long nextNonEmptyTick(long from, long to) {
+		long tick = from;
+		while (tick <= to) {
+			int index = (int) (tick & mask);
+			long word = nonEmptyBuckets[index >>> 6] >>> index;
+			if (word == 0) {
+				tick += 64 - (index & 63);
+				continue;
+			}
+			tick += Long.numberOfTrailingZeros(word);
+			return tick <= to ? tick : Long.MAX_VALUE;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	private void expire(int index, long currentTick) {
+		Bucket bucket = buckets[index];
+		for (ScheduledRunnable task = bucket.head; task != null; ) {
+			ScheduledRunnable next = task.next;
+			if (tickOf(task) <= currentTick) {
+				bucket.unlink(task);
+				ready.addLast(task);
+			}
+			task = next;
+		}
+		if (bucket.head == null) {
+			nonEmptyBuckets[index >>> 6] &= ~(1L << index);
+		}
+	}
+
+	void remove(Bucket bucket, ScheduledRunnable task) {
+		bucket.unlink(task);
+		size--;
+		int index = bucket.index;
+		if (index != -1 && bucket.head == null) {
+			nonEmptyBuckets[index >>> 6] &= ~(1L << index);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "TimingWheelScheduledTaskQueue{" +
+				"tickMillis=" + tickMillis +
+				", wheelSize=" + buckets.length +
+				", size=" + size +
+				'}';
+	}
+
+	static final class Bucket {
+		final TimingWheelScheduledTaskQueue wheel;
+		final int index;
+
+		@Nullable ScheduledRunnable head;
+		@Nullable ScheduledRunnable tail;
+
+		Bucket(TimingWheelScheduledTaskQueue wheel, int index) {
+			this.wheel = wheel;
+			this.index = index;
+		}
+
+		void addLast(ScheduledRunnable task) {
+			task.bucket = this;
+			task.prev = tail;
+			if (tail == null) {
+				head = task;
+			} else {
+				tail.next = task;
+			}
+			tail = task;
+		}
+
+		@SuppressWarnings("AssignmentToNull")
+		void unlink(ScheduledRunnable task) {
+			ScheduledRunnable prev = task.prev;
+			ScheduledRunnable next = task.next;
+			if (prev == null) {
+				head = next;
+			} else {
+				prev.next = next;
+			}
+			if (next == null) {
+				tail = prev;
+			} else {
+				next.prev = prev;
+			}
+			task.bucket = null;
+			task.prev = null;
+			task.next = null;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.eventloop.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * An unbounded lock-free multi-producer single-consumer queue.
+ * <p>
+ * Elements are stored in array chunks of a fixed size which are linked together,
+ * so that unlike {@link java.util.concurrent.ConcurrentLinkedQueue} no node is allocated per element.
+ * Producers claim a slot with a single CAS, a new chunk is allocated by a producer which
+ * claims the last slot of a current chunk.
+ * <p>
+ * {@link #poll()} may only be called from a single consumer thread.
+ */
+public final class MpscQueue<T> {
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	private static final Object JUMP = new Object();
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicLongFieldUpdater<MpscQueue> PRODUCER_INDEX = AtomicLongFieldUpdater.newUpdater(MpscQueue.class, "producerIndex");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicLongFieldUpdater<MpscQueue> CONSUMER_INDEX = AtomicLongFieldUpdater.newUpdater(MpscQueue.class, "consumerIndex");
+
+	private final int chunkSize;
+	private final long mask;
+
+	/**
+	 * Indices are incremented by 2, an odd producer index means that a new chunk is being linked
+	 */
+	private volatile long producerIndex;
+	private volatile long producerLimit;
+	private volatile AtomicReferenceArray<Object> producerChunk;
+
+	private volatile long consumerIndex;
+	private AtomicReferenceArray<Object> consumerChunk;
+
+	public MpscQueue() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	public MpscQueue(int chunkSize) {
+		checkArgument(chunkSize >= 2 && Integer.bitCount(chunkSize) == 1, "Chunk size should be a power of 2");
+		this.chunkSize = chunkSize;
+		this.mask = (chunkSize - 1L) << 1;
+		AtomicReferenceArray<Object> chunk = new AtomicReferenceArray<>(chunkSize + 1);
+		this.producerChunk = chunk;
+		this.consumerChunk = chunk;
+		this.producerLimit = mask;
+	}
+
+	public void offer(@NotNull T item) {
+		while (true) {
+			long limit = producerLimit;
+			long index = producerIndex;
+			if ((index & 1) == 1) {
+				continue;
+			}
+			AtomicReferenceArray<Object> chunk = producerChunk;
+			if (index >= limit) {
+				if (PRODUCER_INDEX.compareAndSet(this, index, index + 1)) {
+					linkNextChunk(chunk, index, item);
+					return;
+				}
+				continue;
+			}
+			if (PRODUCER_INDEX.compareAndSet(this, index, index + 2)) {
+				chunk.lazySet(offset(index), item);
+				return;
+			}
+		}
+	}
+
+	private void linkNextChunk(AtomicReferenceArray<Object> chunk, long index, T item) {
+		AtomicReferenceArray<Object> nextChunk = new AtomicReferenceArray<>(chunkSize + 1);
+		producerChunk = nextChunk;
+		producerLimit = index + mask;
+		int offset = offset(index);
+		nextChunk.lazySet(offset, item);
+		chunk.lazySet(chunkSize, nextChunk);
+		producerIndex = index + 2;
+		chunk.lazySet(offset, JUMP);
+	}
+
+	/**
+	 * Retrieves and removes the head of this queue. Should only be called from a consumer thread.
+	 *
+	 * @return the head of this queue, or {@code null} if this queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public @Nullable T poll() {
+		AtomicReferenceArray<Object> chunk = consumerChunk;
+		long index = consumerIndex;
+		int offset = offset(index);
+		Object item = chunk.get(offset);
+		if (item == null) {
+			if (index == producerIndex) {
+				return null;
+			}
+			// a slot has been claimed by a producer, but an item is not visible yet
+			do {
+				item = chunk.get(offset);
+			} while (item == null);
+		}
+		if (item == JUMP) {
+			chunk = (AtomicReferenceArray<Object>) chunk.get(chunkSize);
+			consumerChunk = chunk;
+			item = chunk.get(offset);
+		}
+		chunk.lazySet(offset, null);
+		CONSUMER_INDEX.lazySet(this, index + 2);
+		return (T) item;
+	}
+
+	public boolean isEmpty() {
+		return consumerIndex == producerIndex;
+	}
+
+	/**
+	 * Returns an approximate number of elements in this queue
+	 */
+	public int size() {
+		long consumerIndex = this.consumerIndex;
+		long producerIndex = this.producerIndex;
+		return (int) Math.max(0, (producerIndex - consumerIndex) >> 1);
+	}
+
+	private int offset(long index) {
+		return (int) ((index & mask) >> 1);
+	}
+
+	@Override
+	public String toString() {
+		return "MpscQueue{size=" + size() + '}';
+	}
+}
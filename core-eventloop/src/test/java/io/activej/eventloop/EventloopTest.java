@@ -6,9 +6,14 @@ import io.activej.eventloop.util.RunnableWithContext;
 import org.junit.Test;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Objects.requireNonNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public final class EventloopTest {
 	@Test
@@ -41,4 +46,61 @@ public final class EventloopTest {
 		Duration smoothingWindow = Eventloop.create().withInspector(EventloopStats.create()).getSmoothingWindow();
 		assertEquals(Eventloop.DEFAULT_SMOOTHING_WINDOW, smoothingWindow);
 	}
+
+	@Test
+	public void testConcurrentTasks() throws InterruptedException {
+		EventloopStats stats = EventloopStats.create();
+		Eventloop eventloop = Eventloop.create().withInspector(stats);
+		eventloop.keepAlive(true);
+		Thread eventloopThread = new Thread(eventloop);
+		eventloopThread.start();
+
+		int producers = 4;
+		int tasksPerProducer = 10_000;
+		AtomicInteger executed = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(producers * tasksPerProducer);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < producers; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < tasksPerProducer; j++) {
+					eventloop.execute(() -> {
+						executed.incrementAndGet();
+						latch.countDown();
+					});
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		latch.await();
+		eventloop.execute(() -> eventloop.keepAlive(false));
+		eventloopThread.join();
+
+		assertEquals(producers * tasksPerProducer, executed.get());
+		assertTrue(stats.getWakeups().getTotalCount() < producers * tasksPerProducer);
+	}
+
+	@Test
+	public void testSpinBeforeSelect() throws InterruptedException {
+		EventloopStats stats = EventloopStats.create();
+		Eventloop eventloop = Eventloop.create()
+				.withSpinDuration(Duration.ofMillis(50))
+				.withInspector(stats);
+		eventloop.keepAlive(true);
+		Thread eventloopThread = new Thread(eventloop);
+		eventloopThread.start();
+
+		for (int i = 0; i < 10; i++) {
+			CountDownLatch latch = new CountDownLatch(1);
+			eventloop.execute(latch::countDown);
+			latch.await();
+		}
+		eventloop.execute(() -> eventloop.keepAlive(false));
+		eventloopThread.join();
+
+		assertTrue(stats.getSpinHits().getTotalCount() > 0);
+	}
 }
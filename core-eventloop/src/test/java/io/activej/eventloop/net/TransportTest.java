@@ -0,0 +1,94 @@
+package io.activej.eventloop.net;
+
+import io.activej.eventloop.Eventloop;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public final class TransportTest {
+	@Test
+	public void testOptimizedSelectedKeys() throws IOException {
+		doTestConnect(NioTransport.create());
+	}
+
+	@Test
+	public void testNonOptimizedSelectedKeys() throws IOException {
+		doTestConnect(NioTransport.create().withOptimizedSelectedKeys(false));
+	}
+
+	private static void doTestConnect(NioTransport nioTransport) throws IOException {
+		CountingTransport transport = new CountingTransport(nioTransport);
+		Eventloop eventloop = Eventloop.create().withTransport(transport).withCurrentThread();
+
+		List<SocketChannel> accepted = new ArrayList<>();
+		List<SocketChannel> connected = new ArrayList<>();
+		ServerSocketChannel serverChannel = eventloop.listen(new InetSocketAddress("localhost", 0), ServerSocketSettings.create(16),
+				channel -> {
+					accepted.add(channel);
+					eventloop.closeChannel(channel, null);
+					eventloop.closeChannel(serverChannel(eventloop), null);
+				});
+		eventloop.connect(serverChannel.socket().getLocalSocketAddress(), (channel, e) -> {
+			assertNull(e);
+			connected.add(channel);
+			eventloop.closeChannel(channel, channel.keyFor(eventloop.getSelector()));
+		});
+		eventloop.run();
+
+		assertEquals(1, accepted.size());
+		assertEquals(1, connected.size());
+		assertTrue(transport.selects > 0);
+		assertTrue(transport.processedKeys >= 2);
+	}
+
+	private static ServerSocketChannel serverChannel(Eventloop eventloop) {
+		Selector selector = eventloop.getSelector();
+		assertNotNull(selector);
+		for (SelectionKey key : selector.keys()) {
+			if (key.channel() instanceof ServerSocketChannel) {
+				return (ServerSocketChannel) key.channel();
+			}
+		}
+		throw new AssertionError();
+	}
+
+	private static final class CountingTransport implements Transport {
+		private final Transport transport;
+		int selects;
+		int processedKeys;
+
+		CountingTransport(Transport transport) {
+			this.transport = transport;
+		}
+
+		@Override
+		public @NotNull Selector openSelector() throws IOException {
+			return transport.openSelector();
+		}
+
+		@Override
+		public int select(@NotNull Selector selector, long timeout) throws IOException {
+			selects++;
+			return transport.select(selector, timeout);
+		}
+
+		@Override
+		public void processSelectedKeys(@NotNull Selector selector, @NotNull Consumer<SelectionKey> handler) {
+			transport.processSelectedKeys(selector, key -> {
+				processedKeys++;
+				handler.accept(key);
+			});
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package io.activej.eventloop.schedule;
+
+import io.activej.eventloop.Eventloop;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public final class TimingWheelScheduledTaskQueueTest {
+	private static final Runnable NOOP = () -> {};
+
+	@Test
+	public void testNeverPollsEarly() {
+		TimingWheelScheduledTaskQueue queue = TimingWheelScheduledTaskQueue.create(() -> 1000, 10, 64);
+
+		ScheduledRunnable task1 = ScheduledRunnable.create(1005, NOOP);
+		ScheduledRunnable task2 = ScheduledRunnable.create(1010, NOOP);
+		ScheduledRunnable task3 = ScheduledRunnable.create(1000 + 10 * 64 * 3 + 1, NOOP);
+		queue.add(task3);
+		queue.add(task2);
+		queue.add(task1);
+		assertEquals(3, queue.size());
+		assertEquals(1010, queue.getNextTimestamp());
+
+		assertNull(queue.poll(1009));
+		assertSame(task2, queue.poll(1010));
+		assertSame(task1, queue.poll(1010));
+		assertNull(queue.poll(1010));
+
+		assertNull(queue.poll(1000 + 10 * 64 * 3));
+		assertSame(task3, queue.poll(1000 + 10 * 64 * 3 + 10));
+		assertTrue(queue.isEmpty());
+		assertEquals(Long.MAX_VALUE, queue.getNextTimestamp());
+	}
+
+	@Test
+	public void testCancel() {
+		TimingWheelScheduledTaskQueue queue = TimingWheelScheduledTaskQueue.create(() -> 0);
+
+		ScheduledRunnable task1 = ScheduledRunnable.create(10, NOOP);
+		ScheduledRunnable task2 = ScheduledRunnable.create(10, NOOP);
+		ScheduledRunnable task3 = ScheduledRunnable.create(20, NOOP);
+		queue.add(task1);
+		queue.add(task2);
+		queue.add(task3);
+
+		task1.cancel();
+		assertEquals(2, queue.size());
+		assertEquals(10, queue.getNextTimestamp());
+
+		task2.cancel();
+		assertEquals(20, queue.getNextTimestamp());
+
+		assertSame(task3, queue.poll(30));
+		task3.cancel();
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll(30));
+	}
+
+	@Test
+	public void testSameTasksAsPriorityQueue() {
+		Random random = new Random(0);
+		TimingWheelScheduledTaskQueue wheel = TimingWheelScheduledTaskQueue.create(() -> 0, 1, 64);
+		PriorityScheduledTaskQueue heap = PriorityScheduledTaskQueue.create();
+
+		for (int i = 0; i < 10_000; i++) {
+			long timestamp = random.nextInt(1000);
+			ScheduledRunnable wheelTask = ScheduledRunnable.create(timestamp, NOOP);
+			ScheduledRunnable heapTask = ScheduledRunnable.create(timestamp, NOOP);
+			wheel.add(wheelTask);
+			heap.add(heapTask);
+			if (random.nextInt(4) == 0) {
+				wheelTask.cancel();
+				heapTask.cancel();
+			}
+		}
+
+		for (long now = 0; now <= 1000; now += 1 + random.nextInt(100)) {
+			assertTrue(wheel.getNextTimestamp() <= heap.getNextTimestamp());
+			List<Long> fromHeap = new ArrayList<>();
+			List<Long> fromWheel = new ArrayList<>();
+			for (ScheduledRunnable task; (task = heap.poll(now)) != null; ) {
+				fromHeap.add(task.getTimestamp());
+			}
+			for (ScheduledRunnable task; (task = wheel.poll(now)) != null; ) {
+				fromWheel.add(task.getTimestamp());
+			}
+			fromWheel.sort(null);
+			assertEquals(fromHeap, fromWheel);
+		}
+		assertEquals(heap.getNextTimestamp(), wheel.getNextTimestamp());
+	}
+
+	@Test
+	public void testEventloopWithTimingWheel() {
+		long start = System.currentTimeMillis();
+		Eventloop eventloop = Eventloop.create()
+				.withScheduledTaskQueue(TimingWheelScheduledTaskQueue::create)
+				.withCurrentThread();
+
+		List<Integer> executed = new ArrayList<>();
+		eventloop.delay(30, () -> executed.add(3));
+		eventloop.delay(10, () -> executed.add(1));
+		eventloop.delay(20, () -> executed.add(2)).cancel();
+		eventloop.delay(20, () -> executed.add(2));
+		eventloop.delayBackground(10_000, () -> executed.add(4));
+		eventloop.run();
+
+		assertTrue(System.currentTimeMillis() - start >= 30);
+		assertEquals(Arrays.asList(1, 2, 3), executed);
+	}
+}
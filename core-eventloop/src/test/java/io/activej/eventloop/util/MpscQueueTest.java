@@ -0,0 +1,74 @@
+package io.activej.eventloop.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public final class MpscQueueTest {
+	@Test
+	public void testSingleThreaded() {
+		MpscQueue<Integer> queue = new MpscQueue<>(4);
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll());
+
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 10; i++) {
+				queue.offer(i);
+			}
+			assertEquals(10, queue.size());
+			for (int i = 0; i < 10; i++) {
+				assertEquals(Integer.valueOf(i), queue.poll());
+			}
+			assertTrue(queue.isEmpty());
+			assertNull(queue.poll());
+		}
+	}
+
+	@Test
+	public void testMultipleProducers() throws InterruptedException {
+		int producers = 4;
+		int itemsPerProducer = 200_000;
+		MpscQueue<long[]> queue = new MpscQueue<>(16);
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+				for (int i = 0; i < itemsPerProducer; i++) {
+					queue.offer(new long[]{producer, i});
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+
+		long[] nextExpected = new long[producers];
+		int received = 0;
+		while (received != producers * itemsPerProducer) {
+			long[] item = queue.poll();
+			if (item == null) {
+				Thread.yield();
+				continue;
+			}
+			int producer = (int) item[0];
+			assertEquals(nextExpected[producer]++, item[1]);
+			received++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll());
+	}
+}
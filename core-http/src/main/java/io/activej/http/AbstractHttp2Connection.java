@@ -0,0 +1,890 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.async.exception.AsyncCloseException;
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.common.ApplicationSettings;
+import io.activej.common.MemSize;
+import io.activej.csp.ChannelSupplier;
+import io.activej.eventloop.Eventloop;
+import io.activej.http.hpack.HpackDecoder;
+import io.activej.http.hpack.HpackEncoder;
+import io.activej.http.stream.BufsConsumerGzipDeflater;
+import io.activej.net.socket.tcp.AsyncTcpSocket;
+import io.activej.promise.Promise;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.bytebuf.ByteBufStrings.equalsLowerCaseAscii;
+import static io.activej.common.Utils.nullify;
+import static io.activej.http.AbstractHttpConnection.CONTENT_ENCODING_GZIP;
+import static io.activej.http.AbstractHttpConnection.MAX_HEADERS;
+import static io.activej.http.Http2Exception.*;
+import static io.activej.http.HttpHeaderValue.ofBytes;
+import static io.activej.http.HttpHeaderValue.ofDecimal;
+import static io.activej.http.HttpHeaders.*;
+import static io.activej.http.HttpUtils.hashCodeCI;
+import static io.activej.http.HttpUtils.translateToHttpException;
+import static java.lang.Math.min;
+
+/**
+ * A common part of HTTP/2 connections (RFC 7540): framing, header compression, settings and flow control.
+ * <p>
+ * An HTTP/2 connection takes over the socket of a regular {@link AbstractHttpConnection}.
+ * The latter stays in connection pools and is reported to inspectors, while requests and responses
+ * are multiplexed over {@link Http2Stream streams} of this connection.
+ */
+abstract class AbstractHttp2Connection {
+	public static final int MAX_CONCURRENT_STREAMS = ApplicationSettings.getInt(AbstractHttp2Connection.class, "maxConcurrentStreams", 100);
+	public static final MemSize INITIAL_STREAM_WINDOW_SIZE = ApplicationSettings.getMemSize(AbstractHttp2Connection.class, "initialStreamWindowSize", MemSize.kilobytes(256));
+	public static final MemSize INITIAL_CONNECTION_WINDOW_SIZE = ApplicationSettings.getMemSize(AbstractHttp2Connection.class, "initialConnectionWindowSize", MemSize.megabytes(1));
+	public static final MemSize MAX_HEADER_BLOCK_SIZE = ApplicationSettings.getMemSize(AbstractHttp2Connection.class, "maxHeaderBlockSize", MemSize.kilobytes(64));
+
+	static final byte[] PREFACE = encodeAscii("PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n");
+
+	static final int FRAME_HEADER_SIZE = 9;
+	static final int DEFAULT_WINDOW_SIZE = 65535;
+	static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+	static final int MAX_FRAME_SIZE_LIMIT = 16777215;
+
+	// frame types
+	static final int DATA = 0x0;
+	static final int HEADERS = 0x1;
+	static final int PRIORITY = 0x2;
+	static final int RST_STREAM = 0x3;
+	static final int SETTINGS = 0x4;
+	static final int PUSH_PROMISE = 0x5;
+	static final int PING = 0x6;
+	static final int GOAWAY = 0x7;
+	static final int WINDOW_UPDATE = 0x8;
+	static final int CONTINUATION = 0x9;
+
+	// frame flags
+	static final int FLAG_END_STREAM = 0x1;
+	static final int FLAG_ACK = 0x1;
+	static final int FLAG_END_HEADERS = 0x4;
+	static final int FLAG_PADDED = 0x8;
+	static final int FLAG_PRIORITY = 0x20;
+
+	// settings
+	static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+	static final int SETTINGS_ENABLE_PUSH = 0x2;
+	static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+	static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+	static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+	static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+	static final byte[] STATUS = encodeAscii(":status");
+	static final byte[] METHOD = encodeAscii(":method");
+	static final byte[] PATH = encodeAscii(":path");
+	static final byte[] SCHEME = encodeAscii(":scheme");
+	static final byte[] AUTHORITY = encodeAscii(":authority");
+
+	private static final int INITIAL_WRITE_BUFFER_SIZE = 16384;
+
+	protected final Eventloop eventloop;
+	protected final AsyncTcpSocket socket;
+	private final AbstractHttpConnection connection;
+
+	protected final HpackEncoder hpackEncoder = HpackEncoder.create();
+	private final HpackDecoder hpackDecoder = HpackDecoder.create();
+	private final List<byte[]> headerFields = new ArrayList<>();
+
+	protected final Map<Integer, Http2Stream> streams = new HashMap<>();
+	private final ArrayDeque<Http2Stream> blockedStreams = new ArrayDeque<>();
+	private List<Http2Stream> flushWaiters = new ArrayList<>();
+
+	protected final int localInitialWindowSize = INITIAL_STREAM_WINDOW_SIZE.toInt();
+	private final int localConnectionWindowSize = INITIAL_CONNECTION_WINDOW_SIZE.toInt();
+
+	protected int remoteInitialWindowSize = DEFAULT_WINDOW_SIZE;
+	// assumed until the peer announces its own limit, so that an initial burst of streams is not refused
+	protected int remoteMaxConcurrentStreams = MAX_CONCURRENT_STREAMS;
+	private int remoteMaxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+	private int sendWindow = DEFAULT_WINDOW_SIZE;
+	private int recvWindow = DEFAULT_WINDOW_SIZE;
+	private int recvUnacknowledged;
+
+	private @Nullable ByteBuf readBuf;
+	private @Nullable ByteBuf writeBuf;
+	private boolean flushPosted;
+
+	private int continuationStreamId;
+	private int continuationFlags;
+	private @Nullable ByteBuf headerBlock;
+
+	protected int lastRemoteStreamId;
+	protected boolean goAwayReceived;
+	protected boolean goAwaySent;
+	private boolean closed;
+
+	AbstractHttp2Connection(Eventloop eventloop, AsyncTcpSocket socket, AbstractHttpConnection connection) {
+		this.eventloop = eventloop;
+		this.socket = socket;
+		this.connection = connection;
+	}
+
+	// region hooks
+	protected abstract void writeSettings();
+
+	/**
+	 * Called on a complete header block, either initial headers or trailers.
+	 * A {@link MalformedHttpException} resets the stream.
+	 *
+	 * @param fields decoded header names and values, one after another
+	 */
+	protected abstract void onHeaders(int streamId, boolean endStream, List<byte[]> fields) throws MalformedHttpException, Http2Exception;
+
+	protected abstract void onStreamClosed(Http2Stream stream, @Nullable Exception e);
+
+	protected abstract void onGoAway();
+
+	protected void onRemoteSettings() {
+	}
+	// endregion
+
+	/**
+	 * Starts processing of the connection
+	 *
+	 * @param readBuf bytes that have already been read from the socket, if any
+	 */
+	void start(@Nullable ByteBuf readBuf) {
+		writeSettings();
+		if (localConnectionWindowSize > DEFAULT_WINDOW_SIZE) {
+			writeWindowUpdate(0, localConnectionWindowSize - DEFAULT_WINDOW_SIZE);
+			recvWindow = localConnectionWindowSize;
+		}
+		this.readBuf = readBuf;
+		processReadBuf();
+	}
+
+	final boolean isClosed() {
+		return closed || connection.isClosed();
+	}
+
+	public int getActiveStreams() {
+		return streams.size();
+	}
+
+	// region reading
+	private void read() {
+		socket.read()
+				.run((buf, e) -> {
+					if (isClosed()) {
+						if (buf != null) buf.recycle();
+						return;
+					}
+					if (e != null) {
+						connection.closeWithError(translateToHttpException(e));
+						return;
+					}
+					if (buf == null) {
+						connection.close();
+						return;
+					}
+					readBuf = readBuf == null ? buf : ByteBufPool.append(readBuf, buf);
+					processReadBuf();
+				});
+	}
+
+	private void processReadBuf() {
+		try {
+			while (readBuf != null) {
+				int remaining = readBuf.readRemaining();
+				if (remaining < FRAME_HEADER_SIZE) break;
+				byte[] array = readBuf.array();
+				int head = readBuf.head();
+				int length = (array[head] & 0xFF) << 16 | (array[head + 1] & 0xFF) << 8 | (array[head + 2] & 0xFF);
+				if (length > DEFAULT_MAX_FRAME_SIZE) {
+					throw new Http2Exception(FRAME_SIZE_ERROR, "Frame size exceeds SETTINGS_MAX_FRAME_SIZE");
+				}
+				if (remaining < FRAME_HEADER_SIZE + length) break;
+				int type = array[head + 3] & 0xFF;
+				int flags = array[head + 4] & 0xFF;
+				int streamId = readInt(array, head + 5) & 0x7FFFFFFF;
+				readBuf.moveHead(FRAME_HEADER_SIZE + length);
+				onFrame(type, flags, streamId, readBuf, head + FRAME_HEADER_SIZE, length);
+				if (isClosed() || goAwaySent) return;
+			}
+			if (readBuf != null && !readBuf.canRead()) {
+				readBuf.recycle();
+				readBuf = null;
+			}
+		} catch (Http2Exception e) {
+			closeWithGoAway(e);
+			return;
+		}
+		read();
+	}
+
+	private void onFrame(int type, int flags, int streamId, ByteBuf buf, int offset, int length) throws Http2Exception {
+		if (continuationStreamId != 0 && type != CONTINUATION) {
+			throw new Http2Exception(PROTOCOL_ERROR, "CONTINUATION frame expected");
+		}
+		byte[] array = buf.array();
+		switch (type) {
+			case DATA:
+				onDataFrame(flags, streamId, buf, offset, length);
+				break;
+			case HEADERS:
+				onHeadersFrame(flags, streamId, array, offset, length);
+				break;
+			case PRIORITY:
+				if (streamId == 0) throw new Http2Exception(PROTOCOL_ERROR, "PRIORITY frame on stream 0");
+				if (length != 5) resetStream(streamId, FRAME_SIZE_ERROR);
+				break;
+			case RST_STREAM:
+				if (streamId == 0) throw new Http2Exception(PROTOCOL_ERROR, "RST_STREAM frame on stream 0");
+				if (length != 4) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid RST_STREAM frame size");
+				onRstStream(streamId, readInt(array, offset));
+				break;
+			case SETTINGS:
+				if (streamId != 0) throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS frame on stream " + streamId);
+				if ((flags & FLAG_ACK) != 0) {
+					if (length != 0) throw new Http2Exception(FRAME_SIZE_ERROR, "SETTINGS acknowledgement with payload");
+					break;
+				}
+				if (length % 6 != 0) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid SETTINGS frame size");
+				onSettings(array, offset, length);
+				break;
+			case PUSH_PROMISE:
+				throw new Http2Exception(PROTOCOL_ERROR, "Server push is disabled");
+			case PING:
+				if (streamId != 0) throw new Http2Exception(PROTOCOL_ERROR, "PING frame on stream " + streamId);
+				if (length != 8) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid PING frame size");
+				if ((flags & FLAG_ACK) == 0) {
+					ByteBuf out = ensureWriteBuf(FRAME_HEADER_SIZE + 8);
+					writeFrameHeader(out, 8, PING, FLAG_ACK, 0);
+					out.put(array, offset, 8);
+				}
+				break;
+			case GOAWAY:
+				if (streamId != 0) throw new Http2Exception(PROTOCOL_ERROR, "GOAWAY frame on stream " + streamId);
+				if (length < 8) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid GOAWAY frame size");
+				onGoAwayFrame(readInt(array, offset) & 0x7FFFFFFF, readInt(array, offset + 4));
+				break;
+			case WINDOW_UPDATE:
+				if (length != 4) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE frame size");
+				onWindowUpdate(streamId, readInt(array, offset) & 0x7FFFFFFF);
+				break;
+			case CONTINUATION:
+				if (continuationStreamId == 0 || streamId != continuationStreamId) {
+					throw new Http2Exception(PROTOCOL_ERROR, "Unexpected CONTINUATION frame");
+				}
+				onContinuationFrame(flags, array, offset, length);
+				break;
+			default:
+				// unknown frame types must be ignored
+		}
+	}
+
+	private void onDataFrame(int flags, int streamId, ByteBuf buf, int offset, int length) throws Http2Exception {
+		if (streamId == 0) throw new Http2Exception(PROTOCOL_ERROR, "DATA frame on stream 0");
+		recvWindow -= length;
+		if (recvWindow < 0) throw new Http2Exception(FLOW_CONTROL_ERROR, "Connection flow control window exceeded");
+
+		int frameLength = length;
+		if ((flags & FLAG_PADDED) != 0) {
+			if (length == 0) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid padded DATA frame");
+			int padding = buf.array()[offset] & 0xFF;
+			if (padding >= length) throw new Http2Exception(PROTOCOL_ERROR, "Padding exceeds frame size");
+			offset++;
+			length -= padding + 1;
+		}
+
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null || stream.remoteEnded || stream.inbound == null) {
+			if (stream == null && isIdle(streamId)) throw new Http2Exception(PROTOCOL_ERROR, "DATA frame on idle stream");
+			acknowledgeConnectionWindow(frameLength);
+			resetStream(streamId, STREAM_CLOSED);
+			return;
+		}
+
+		stream.recvWindow -= frameLength;
+		if (stream.recvWindow < 0) {
+			acknowledgeConnectionWindow(frameLength);
+			resetStream(streamId, FLOW_CONTROL_ERROR);
+			return;
+		}
+		if (frameLength != length) {
+			onConsumed(stream, frameLength - length);
+		}
+		if (length != 0) {
+			stream.inbound.put(buf.slice(offset, length));
+		}
+		if ((flags & FLAG_END_STREAM) != 0) {
+			onRemoteEnd(stream);
+		}
+	}
+
+	private void onHeadersFrame(int flags, int streamId, byte[] array, int offset, int length) throws Http2Exception {
+		if (streamId == 0) throw new Http2Exception(PROTOCOL_ERROR, "HEADERS frame on stream 0");
+		int limit = offset + length;
+		if ((flags & FLAG_PADDED) != 0) {
+			if (length == 0) throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid padded HEADERS frame");
+			int padding = array[offset++] & 0xFF;
+			limit -= padding;
+		}
+		if ((flags & FLAG_PRIORITY) != 0) {
+			offset += 5;
+		}
+		if (offset > limit) throw new Http2Exception(PROTOCOL_ERROR, "Padding exceeds frame size");
+		if ((flags & FLAG_END_HEADERS) != 0) {
+			onHeaderBlock(streamId, (flags & FLAG_END_STREAM) != 0, array, offset, limit);
+			return;
+		}
+		continuationStreamId = streamId;
+		continuationFlags = flags;
+		headerBlock = ByteBufPool.allocate(2 * (limit - offset));
+		headerBlock.put(array, offset, limit - offset);
+	}
+
+	private void onContinuationFrame(int flags, byte[] array, int offset, int length) throws Http2Exception {
+		assert headerBlock != null;
+		if (headerBlock.readRemaining() + length > MAX_HEADER_BLOCK_SIZE.toInt()) {
+			throw new Http2Exception(ENHANCE_YOUR_CALM, "Header block exceeds " + MAX_HEADER_BLOCK_SIZE);
+		}
+		headerBlock = ByteBufPool.append(headerBlock, array, offset, length);
+		if ((flags & FLAG_END_HEADERS) != 0) {
+			ByteBuf block = headerBlock;
+			int streamId = continuationStreamId;
+			headerBlock = null;
+			continuationStreamId = 0;
+			try {
+				onHeaderBlock(streamId, (continuationFlags & FLAG_END_STREAM) != 0, block.array(), block.head(), block.tail());
+			} finally {
+				block.recycle();
+			}
+		}
+	}
+
+	private void onHeaderBlock(int streamId, boolean endStream, byte[] array, int offset, int limit) throws Http2Exception {
+		headerFields.clear();
+		try {
+			hpackDecoder.decode(array, offset, limit, (name, value) -> {
+				if (headerFields.size() >= 2 * MAX_HEADERS) throw new MalformedHttpException("Too many headers");
+				headerFields.add(name);
+				headerFields.add(value);
+			});
+		} catch (MalformedHttpException e) {
+			if (headerFields.size() < 2 * MAX_HEADERS) {
+				throw new Http2Exception(COMPRESSION_ERROR, e.getMessage());
+			}
+			throw new Http2Exception(ENHANCE_YOUR_CALM, e.getMessage());
+		}
+		try {
+			onHeaders(streamId, endStream, headerFields);
+		} catch (MalformedHttpException e) {
+			resetStream(streamId, PROTOCOL_ERROR);
+		}
+	}
+
+	private void onRstStream(int streamId, int errorCode) throws Http2Exception {
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null) {
+			if (isIdle(streamId)) throw new Http2Exception(PROTOCOL_ERROR, "RST_STREAM frame on idle stream");
+			return;
+		}
+		closeStream(stream, new Http2Exception(errorCode, "Stream reset by peer"));
+	}
+
+	private void onSettings(byte[] array, int offset, int length) throws Http2Exception {
+		for (int i = offset; i < offset + length; i += 6) {
+			int id = (array[i] & 0xFF) << 8 | (array[i + 1] & 0xFF);
+			int value = readInt(array, i + 2);
+			switch (id) {
+				case SETTINGS_HEADER_TABLE_SIZE:
+					hpackEncoder.setMaxTableSize(value < 0 ? HpackDecoder.DEFAULT_HEADER_TABLE_SIZE : min(value, HpackDecoder.DEFAULT_HEADER_TABLE_SIZE));
+					break;
+				case SETTINGS_ENABLE_PUSH:
+					if (value != 0 && value != 1) throw new Http2Exception(PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH value");
+					break;
+				case SETTINGS_MAX_CONCURRENT_STREAMS:
+					remoteMaxConcurrentStreams = value < 0 ? Integer.MAX_VALUE : value;
+					break;
+				case SETTINGS_INITIAL_WINDOW_SIZE:
+					if (value < 0) throw new Http2Exception(FLOW_CONTROL_ERROR, "Invalid SETTINGS_INITIAL_WINDOW_SIZE value");
+					int delta = value - remoteInitialWindowSize;
+					remoteInitialWindowSize = value;
+					for (Http2Stream stream : streams.values()) {
+						if ((long) stream.sendWindow + delta > Integer.MAX_VALUE) {
+							throw new Http2Exception(FLOW_CONTROL_ERROR, "Stream flow control window overflow");
+						}
+						stream.sendWindow += delta;
+					}
+					break;
+				case SETTINGS_MAX_FRAME_SIZE:
+					if (value < DEFAULT_MAX_FRAME_SIZE || value > MAX_FRAME_SIZE_LIMIT) {
+						throw new Http2Exception(PROTOCOL_ERROR, "Invalid SETTINGS_MAX_FRAME_SIZE value");
+					}
+					remoteMaxFrameSize = value;
+					break;
+				default:
+					// SETTINGS_MAX_HEADER_LIST_SIZE is advisory, unknown settings must be ignored
+			}
+		}
+		ByteBuf out = ensureWriteBuf(FRAME_HEADER_SIZE);
+		writeFrameHeader(out, 0, SETTINGS, FLAG_ACK, 0);
+		resumeBlockedStreams();
+		onRemoteSettings();
+	}
+
+	private void onGoAwayFrame(int lastStreamId, int errorCode) {
+		goAwayReceived = true;
+		Http2Exception e = new Http2Exception(errorCode == NO_ERROR ? REFUSED_STREAM : errorCode, "Connection is going away");
+		for (Http2Stream stream : new ArrayList<>(streams.values())) {
+			if (stream.id > lastStreamId && !isRemoteStream(stream.id)) {
+				closeStream(stream, e);
+			}
+		}
+		onGoAway();
+	}
+
+	private void onWindowUpdate(int streamId, int increment) throws Http2Exception {
+		if (streamId == 0) {
+			if (increment == 0) throw new Http2Exception(PROTOCOL_ERROR, "Zero WINDOW_UPDATE increment");
+			if ((long) sendWindow + increment > Integer.MAX_VALUE) {
+				throw new Http2Exception(FLOW_CONTROL_ERROR, "Connection flow control window overflow");
+			}
+			sendWindow += increment;
+			resumeBlockedStreams();
+			return;
+		}
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null) {
+			if (isIdle(streamId)) throw new Http2Exception(PROTOCOL_ERROR, "WINDOW_UPDATE frame on idle stream");
+			return;
+		}
+		if (increment == 0 || (long) stream.sendWindow + increment > Integer.MAX_VALUE) {
+			resetStream(streamId, increment == 0 ? PROTOCOL_ERROR : FLOW_CONTROL_ERROR);
+			return;
+		}
+		stream.sendWindow += increment;
+		if (stream.blocked && stream.sendWindow > 0 && sendWindow > 0) {
+			blockedStreams.remove(stream);
+			stream.blocked = false;
+			trySendData(stream);
+		}
+	}
+
+	private boolean isRemoteStream(int streamId) {
+		return ((streamId & 1) == 1) == (this instanceof Http2ServerConnection);
+	}
+
+	protected abstract boolean isIdle(int streamId);
+	// endregion
+
+	// region flow control
+	private void acknowledgeConnectionWindow(int size) {
+		recvUnacknowledged += size;
+		if (recvUnacknowledged >= localConnectionWindowSize / 2) {
+			writeWindowUpdate(0, recvUnacknowledged);
+			recvWindow += recvUnacknowledged;
+			recvUnacknowledged = 0;
+		}
+	}
+
+	/**
+	 * Gives received bytes back to the connection and stream flow control windows, once they are consumed.
+	 * The connection window is credited even after the stream is closed, as its buffered data
+	 * still occupies the connection window until it is consumed or discarded
+	 */
+	void onConsumed(Http2Stream stream, int size) {
+		if (isClosed()) return;
+		acknowledgeConnectionWindow(size);
+		if (stream.closed || stream.remoteEnded) return;
+		stream.recvUnacknowledged += size;
+		if (stream.recvUnacknowledged >= localInitialWindowSize / 2) {
+			writeWindowUpdate(stream.id, stream.recvUnacknowledged);
+			stream.recvWindow += stream.recvUnacknowledged;
+			stream.recvUnacknowledged = 0;
+		}
+	}
+
+	private void resumeBlockedStreams() {
+		for (int i = blockedStreams.size(); i > 0 && sendWindow > 0; i--) {
+			Http2Stream stream = blockedStreams.poll();
+			stream.blocked = false;
+			if (!stream.closed) {
+				trySendData(stream);
+			}
+		}
+	}
+	// endregion
+
+	// region streams
+	/**
+	 * Sends headers and body of a message over the stream.
+	 * Connection-specific headers are not sent as they are prohibited in HTTP/2.
+	 *
+	 * @param block a header block with pseudo-headers already encoded
+	 */
+	protected final void writeMessage(Http2Stream stream, HttpMessage message, ByteBuf block) {
+		ByteBuf body = message.body;
+		ChannelSupplier<ByteBuf> bodyStream = message.bodyStream;
+		message.body = null;
+		message.bodyStream = null;
+		if (body != null) {
+			if ((message.flags & HttpMessage.USE_GZIP) != 0) {
+				body = GzipProcessorUtils.toGzip(body);
+				message.addHeader(CONTENT_ENCODING, ofBytes(CONTENT_ENCODING_GZIP));
+			}
+			message.addHeader(CONTENT_LENGTH, ofDecimal(body.readRemaining()));
+		} else if (bodyStream != null) {
+			if ((message.flags & HttpMessage.USE_GZIP) != 0) {
+				message.addHeader(CONTENT_ENCODING, ofBytes(CONTENT_ENCODING_GZIP));
+				bodyStream = bodyStream.transformWith(BufsConsumerGzipDeflater.create());
+			}
+		} else if (message.isContentLengthExpected()) {
+			message.addHeader(CONTENT_LENGTH, ofDecimal(0));
+		}
+
+		block = encodeHeaders(block, message);
+		boolean endStream = bodyStream == null && (body == null || !body.canRead());
+		writeHeaders(stream.id, block, endStream);
+		if (endStream) {
+			if (body != null) body.recycle();
+			onLocalEnd(stream);
+		} else if (body != null) {
+			stream.pendingData = body;
+			stream.pendingEnd = true;
+			trySendData(stream);
+		} else {
+			stream.outbound = bodyStream;
+			pullOutbound(stream);
+		}
+	}
+
+	private ByteBuf encodeHeaders(ByteBuf block, HttpMessage message) {
+		Object[] kvPairs = message.headers.kvPairs;
+		for (int i = 0; i < kvPairs.length - 1; i += 2) {
+			HttpHeader header = (HttpHeader) kvPairs[i];
+			if (header == null || header == CONNECTION || header == HOST || header == TRANSFER_ENCODING || header == UPGRADE) {
+				continue;
+			}
+			block = hpackEncoder.encodeHeader(block, header.lowerCaseBytes(), toBytes(message.headers.valueAt(i)));
+		}
+		return block;
+	}
+
+	private void pullOutbound(Http2Stream stream) {
+		ChannelSupplier<ByteBuf> outbound = stream.outbound;
+		assert outbound != null;
+		outbound.get()
+				.run((buf, e) -> {
+					if (stream.closed || isClosed()) {
+						if (buf != null) buf.recycle();
+						return;
+					}
+					if (e != null) {
+						resetStream(stream.id, INTERNAL_ERROR);
+						return;
+					}
+					if (buf != null) {
+						stream.pendingData = buf;
+					} else {
+						stream.pendingData = ByteBuf.empty();
+						stream.pendingEnd = true;
+					}
+					trySendData(stream);
+				});
+	}
+
+	private void trySendData(Http2Stream stream) {
+		ByteBuf data;
+		while ((data = stream.pendingData) != null) {
+			int remaining = data.readRemaining();
+			int size = min(remaining, min(remoteMaxFrameSize, min(sendWindow, stream.sendWindow)));
+			if (size <= 0 && remaining != 0) {
+				if (!stream.blocked) {
+					stream.blocked = true;
+					blockedStreams.add(stream);
+				}
+				return;
+			}
+			boolean last = size == remaining;
+			boolean endStream = last && stream.pendingEnd;
+			ByteBuf out = ensureWriteBuf(FRAME_HEADER_SIZE + size);
+			writeFrameHeader(out, size, DATA, endStream ? FLAG_END_STREAM : 0, stream.id);
+			out.put(data.array(), data.head(), size);
+			data.moveHead(size);
+			sendWindow -= size;
+			stream.sendWindow -= size;
+			if (last) {
+				data.recycle();
+				stream.pendingData = null;
+				if (endStream) {
+					onLocalEnd(stream);
+				} else {
+					// the next chunk is requested once this one is written to the socket
+					flushWaiters.add(stream);
+				}
+			}
+		}
+	}
+
+	private void onLocalEnd(Http2Stream stream) {
+		stream.localEnded = true;
+		stream.outbound = null;
+		if (stream.remoteEnded) {
+			closeStream(stream, null);
+		} else if (isRemoteStream(stream.id)) {
+			// a response is complete, the rest of a request is not needed
+			writeRstStream(stream.id, NO_ERROR);
+			closeStream(stream, null);
+			if (stream.inbound != null) {
+				// releases unread request body back to the connection flow control window
+				stream.inbound.close();
+			}
+		}
+	}
+
+	protected final void onRemoteEnd(Http2Stream stream) {
+		stream.remoteEnded = true;
+		if (stream.inbound != null) {
+			stream.inbound.end();
+		}
+		if (stream.localEnded) {
+			closeStream(stream, null);
+		}
+	}
+
+	protected final void resetStream(int streamId, int errorCode) {
+		writeRstStream(streamId, errorCode);
+		Http2Stream stream = streams.get(streamId);
+		if (stream != null) {
+			closeStream(stream, new Http2Exception(errorCode, "Stream reset"));
+		}
+	}
+
+	protected final void closeStream(Http2Stream stream, @Nullable Exception e) {
+		if (stream.closed) return;
+		stream.closed = true;
+		streams.remove(stream.id);
+		if (stream.blocked) {
+			blockedStreams.remove(stream);
+			stream.blocked = false;
+		}
+		stream.pendingData = nullify(stream.pendingData, ByteBuf::recycle);
+		if (e != null) {
+			if (stream.outbound != null) {
+				stream.outbound.closeEx(e);
+				stream.outbound = null;
+			}
+			if (stream.inbound != null) {
+				stream.inbound.closeEx(e);
+			}
+		}
+		onStreamClosed(stream, e);
+	}
+	// endregion
+
+	// region writing
+	private ByteBuf ensureWriteBuf(int size) {
+		if (writeBuf == null) {
+			writeBuf = ByteBufPool.allocate(Math.max(size, INITIAL_WRITE_BUFFER_SIZE));
+		} else {
+			writeBuf = ByteBufPool.ensureWriteRemaining(writeBuf, size);
+		}
+		if (!flushPosted) {
+			flushPosted = true;
+			eventloop.postLast(this::flush);
+		}
+		return writeBuf;
+	}
+
+	private void flush() {
+		flushPosted = false;
+		if (writeBuf == null || isClosed()) return;
+		ByteBuf buf = writeBuf;
+		writeBuf = null;
+		List<Http2Stream> waiters = flushWaiters.isEmpty() ? null : flushWaiters;
+		if (waiters != null) {
+			flushWaiters = new ArrayList<>();
+		}
+		socket.write(buf)
+				.run(($, e) -> {
+					if (isClosed()) return;
+					if (e != null) {
+						connection.closeWithError(translateToHttpException(e));
+						return;
+					}
+					if (waiters != null) {
+						for (Http2Stream stream : waiters) {
+							if (!stream.closed && stream.pendingData == null && stream.outbound != null) {
+								pullOutbound(stream);
+							}
+						}
+					}
+				});
+	}
+
+	protected final void writeBytes(byte[] bytes) {
+		ensureWriteBuf(bytes.length).put(bytes);
+	}
+
+	protected final void writeSettings(int... settings) {
+		int length = settings.length / 2 * 6;
+		ByteBuf out = ensureWriteBuf(FRAME_HEADER_SIZE + length);
+		writeFrameHeader(out, length, SETTINGS, 0, 0);
+		for (int i = 0; i < settings.length; i += 2) {
+			out.writeShort((short) settings[i]);
+			out.writeInt(settings[i + 1]);
+		}
+	}
+
+	private void writeHeaders(int streamId, ByteBuf block, boolean endStream) {
+		int type = HEADERS;
+		int flags = endStream ? FLAG_END_STREAM : 0;
+		do {
+			int size = min(block.readRemaining(), remoteMaxFrameSize);
+			boolean last = size == block.readRemaining();
+			ByteBuf out = ensureWriteBuf(FRAME_HEADER_SIZE + size);
+			writeFrameHeader(out, size, type, last ? flags | FLAG_END_HEADERS : flags, streamId);
+			out.put(block.array(), block.head(), size);
+			block.moveHead(size);
+			type = CONTINUATION;
+			flags = 0;
+		} while (block.canRead());
+		block.recycle();
+	}
+
+	private void writeWindowUpdate(int streamId, int increment) {
+		ByteBuf out = ensureWriteBuf(FRAME_HEADER_SIZE + 4);
+		writeFrameHeader(out, 4, WINDOW_UPDATE, 0, streamId);
+		out.writeInt(increment);
+	}
+
+	private void writeRstStream(int streamId, int errorCode) {
+		ByteBuf out = ensureWriteBuf(FRAME_HEADER_SIZE + 4);
+		writeFrameHeader(out, 4, RST_STREAM, 0, streamId);
+		out.writeInt(errorCode);
+	}
+
+	private void writeGoAway(int errorCode) {
+		goAwaySent = true;
+		ByteBuf out = ensureWriteBuf(FRAME_HEADER_SIZE + 8);
+		writeFrameHeader(out, 8, GOAWAY, 0, 0);
+		out.writeInt(lastRemoteStreamId);
+		out.writeInt(errorCode);
+	}
+
+	static byte[] toBytes(HttpHeaderValue value) {
+		byte[] bytes = new byte[value.estimateSize()];
+		int size = value.writeTo(bytes, 0);
+		return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * Adds regular header fields, which follow pseudo-headers, to a message
+	 */
+	static void addHeaders(HttpMessage message, List<byte[]> fields, int from) throws MalformedHttpException {
+		for (int i = from; i < fields.size(); i += 2) {
+			byte[] name = fields.get(i);
+			if (name.length == 0 || name[0] == ':') {
+				throw new MalformedHttpException("Pseudo-header after regular headers");
+			}
+			HttpHeader header = HttpHeaders.of(hashCodeCI(name, 0, name.length), name, 0, name.length);
+			message.addHeader(header, fields.get(i + 1));
+		}
+	}
+
+	static boolean isGzipped(List<byte[]> fields) {
+		byte[] contentEncoding = CONTENT_ENCODING.lowerCaseBytes();
+		for (int i = 0; i < fields.size(); i += 2) {
+			byte[] value = fields.get(i + 1);
+			if (Arrays.equals(fields.get(i), contentEncoding) &&
+					equalsLowerCaseAscii(CONTENT_ENCODING_GZIP, value, 0, value.length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void writeFrameHeader(ByteBuf buf, int length, int type, int flags, int streamId) {
+		buf.writeByte((byte) (length >>> 16));
+		buf.writeShort((short) length);
+		buf.writeByte((byte) type);
+		buf.writeByte((byte) flags);
+		buf.writeInt(streamId);
+	}
+
+	private static int readInt(byte[] array, int offset) {
+		return (array[offset] & 0xFF) << 24 | (array[offset + 1] & 0xFF) << 16 | (array[offset + 2] & 0xFF) << 8 | (array[offset + 3] & 0xFF);
+	}
+	// endregion
+
+	// region closing
+	/**
+	 * Sends GOAWAY and closes the connection once it is written
+	 */
+	protected final void shutdown() {
+		closeWithGoAway(null);
+	}
+
+	private void closeWithGoAway(@Nullable Http2Exception e) {
+		if (isClosed()) return;
+		if (!goAwaySent) {
+			writeGoAway(e == null ? NO_ERROR : e.getErrorCode());
+		}
+		ByteBuf buf = writeBuf;
+		writeBuf = null;
+		Promise<Void> written = buf != null ? socket.write(buf) : Promise.complete();
+		written.run(($, writeException) -> {
+			if (e == null) {
+				connection.close();
+			} else {
+				connection.closeWithError(e);
+			}
+		});
+	}
+
+	/**
+	 * Called by the owning connection when it is closed
+	 */
+	void onClosed(@NotNull Exception e) {
+		if (closed) return;
+		closed = true;
+		for (Http2Stream stream : new ArrayList<>(streams.values())) {
+			closeStream(stream, e);
+		}
+		readBuf = nullify(readBuf, ByteBuf::recycle);
+		writeBuf = nullify(writeBuf, ByteBuf::recycle);
+		headerBlock = nullify(headerBlock, ByteBuf::recycle);
+	}
+
+	void onClosed() {
+		onClosed(new AsyncCloseException("Connection closed"));
+	}
+	// endregion
+
+	@Override
+	public String toString() {
+		return "streams=" + streams.size() +
+				", sendWindow=" + sendWindow +
+				", recvWindow=" + recvWindow +
+				", lastRemoteStreamId=" + lastRemoteStreamId +
+				", goAwaySent=" + goAwaySent +
+				", goAwayReceived=" + goAwayReceived;
+	}
+}
@@ -26,14 +26,18 @@ import io.activej.common.MemSize;
 import io.activej.common.recycle.Recyclable;
 import io.activej.csp.*;
 import io.activej.csp.binary.BinaryChannelSupplier;
+import io.activej.csp.file.ChannelFileReader;
 import io.activej.eventloop.Eventloop;
 import io.activej.http.stream.*;
 import io.activej.net.socket.tcp.AsyncTcpSocket;
+import io.activej.net.socket.tcp.AsyncTcpSocketNio;
 import io.activej.promise.Promise;
 import org.intellij.lang.annotations.MagicConstant;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.time.Duration;
 
 import static io.activej.bytebuf.ByteBufStrings.*;
@@ -50,6 +54,18 @@ public abstract class AbstractHttpConnection {
 	public static final int MAX_HEADER_LINE_SIZE_BYTES = MAX_HEADER_LINE_SIZE.toInt(); // http://stackoverflow.com/questions/686217/maximum-on-http-header-values
 	public static final int MAX_HEADERS = ApplicationSettings.getInt(HttpMessage.class, "maxHeaders", 100); // http://httpd.apache.org/docs/2.2/mod/core.html#limitrequestfields
 
+	/**
+	 * Whether file bodies may be sent with {@link java.nio.channels.FileChannel#transferTo}
+	 * directly into a socket, bypassing user space buffers
+	 */
+	public static final boolean SENDFILE = ApplicationSettings.getBoolean(AbstractHttpConnection.class, "sendfile", true);
+
+	/**
+	 * Whether values of received headers are kept as regions of a read buffer
+	 * and are materialized only when accessed
+	 */
+	public static final boolean LAZY_HEADERS = ApplicationSettings.getBoolean(AbstractHttpConnection.class, "lazyHeaders", true);
+
 	protected static final HttpHeaderValue CONNECTION_KEEP_ALIVE_HEADER = HttpHeaderValue.ofBytes(encodeAscii("keep-alive"));
 	protected static final HttpHeaderValue CONNECTION_CLOSE_HEADER = HttpHeaderValue.ofBytes(encodeAscii("close"));
 	protected static final long UNSET_CONTENT_LENGTH = -1L;
@@ -513,6 +529,12 @@ public abstract class AbstractHttpConnection {
 		httpMessage.bodyStream = null;
 
 		if (!WebSocket.ENABLED || !isWebSocket()) {
+			if (SENDFILE && bodyStream instanceof ChannelFileReader && socket instanceof AsyncTcpSocketNio &&
+					(httpMessage.flags & HttpMessage.USE_GZIP) == 0) {
+				writeFile(writeBuf, httpMessage, (ChannelFileReader) bodyStream);
+				return;
+			}
+
 			if ((httpMessage.flags & HttpMessage.USE_GZIP) != 0) {
 				httpMessage.addHeader(CONTENT_ENCODING, ofBytes(CONTENT_ENCODING_GZIP));
 				BufsConsumerGzipDeflater deflater = BufsConsumerGzipDeflater.create();
@@ -546,6 +568,52 @@ public abstract class AbstractHttpConnection {
 				});
 	}
 
+	/**
+	 * Sends file contents with {@link AsyncTcpSocketNio#transferFrom}, so that they are not copied to user space
+	 */
+	private void writeFile(@Nullable ByteBuf writeBuf, HttpMessage httpMessage, ChannelFileReader reader) {
+		FileChannel file = reader.getChannel();
+		long position = reader.getPosition();
+		long count;
+		try {
+			count = Math.min(reader.getLimit(), file.size() - position);
+		} catch (IOException e) {
+			if (writeBuf != null) writeBuf.recycle();
+			reader.closeEx(e);
+			closeWithError(translateToHttpException(e));
+			return;
+		}
+		if (httpMessage.headers.get(CONTENT_LENGTH) == null) {
+			httpMessage.addHeader(CONTENT_LENGTH, Long.toString(count));
+		}
+
+		ByteBuf buf = ByteBufPool.allocate(httpMessage.estimateSize());
+		httpMessage.writeTo(buf);
+		if (writeBuf != null) {
+			socket.write(writeBuf);
+		}
+		socket.write(buf);
+		((AsyncTcpSocketNio) socket).transferFrom(file, position, count)
+				.then(() -> {
+					reader.advance(count);
+					// completes the stream, so that its end of stream handlers are called
+					return reader.get();
+				})
+				.run((extraBuf, e) -> {
+					if (extraBuf != null) {
+						extraBuf.recycle();
+						reader.close();
+					}
+					if (isClosed()) return;
+					if (e == null) {
+						onBodySent();
+					} else {
+						reader.closeEx(e);
+						closeWithError(translateToHttpException(e));
+					}
+				});
+	}
+
 	private void writeStream(ChannelSupplier<ByteBuf> supplier) {
 		supplier.streamTo(ChannelConsumer.of(
 						buf -> socket.write(buf)
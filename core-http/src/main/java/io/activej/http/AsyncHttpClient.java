@@ -83,6 +83,7 @@ public final class AsyncHttpClient implements IAsyncHttpClient, IAsyncWebSocketC
 	public static final MemSize MAX_BODY_SIZE = ApplicationSettings.getMemSize(AsyncHttpClient.class, "maxBodySize", MemSize.ZERO);
 	public static final MemSize MAX_WEB_SOCKET_MESSAGE_SIZE = ApplicationSettings.getMemSize(AsyncHttpClient.class, "maxWebSocketMessageSize", MemSize.megabytes(1));
 	public static final int MAX_KEEP_ALIVE_REQUESTS = ApplicationSettings.getInt(AsyncHttpClient.class, "maxKeepAliveRequests", 0);
+	public static final int PIPELINING_DEPTH = ApplicationSettings.getInt(AsyncHttpClient.class, "pipeliningDepth", 1);
 
 	private final @NotNull Eventloop eventloop;
 	private @NotNull AsyncDnsClient asyncDnsClient;
@@ -91,6 +92,10 @@ public final class AsyncHttpClient implements IAsyncHttpClient, IAsyncWebSocketC
 	final HashMap<InetSocketAddress, AddressLinkedList> addresses = new HashMap<>();
 	final ConnectionsLinkedList poolKeepAlive = new ConnectionsLinkedList();
 	final ConnectionsLinkedList poolReadWrite = new ConnectionsLinkedList();
+	private final HashMap<InetSocketAddress, HttpClientConnection> http2Connections = new HashMap<>();
+	private final HashMap<InetSocketAddress, Promise<HttpClientConnection>> http2Connects = new HashMap<>();
+	private final HashMap<InetSocketAddress, HttpClientConnection> pipelinedConnections = new HashMap<>();
+	private final HashMap<InetSocketAddress, PipelinedConnect> pipelinedConnects = new HashMap<>();
 	private int poolKeepAliveExpired;
 	private int poolReadWriteExpired;
 
@@ -104,6 +109,8 @@ public final class AsyncHttpClient implements IAsyncHttpClient, IAsyncWebSocketC
 	int maxBodySize = MAX_BODY_SIZE.toInt();
 	int maxWebSocketMessageSize = MAX_WEB_SOCKET_MESSAGE_SIZE.toInt();
 	int maxKeepAliveRequests = MAX_KEEP_ALIVE_REQUESTS;
+	boolean http2PriorKnowledge;
+	int pipeliningDepth = PIPELINING_DEPTH;
 
 	// SSL
 	private SSLContext sslContext;
@@ -310,6 +317,29 @@ public final class AsyncHttpClient implements IAsyncHttpClient, IAsyncWebSocketC
 		return this;
 	}
 
+	/**
+	 * Enables HTTP/1.1 pipelining: up to {@code pipeliningDepth} requests may be
+	 * outstanding on a single keep-alive connection, responses are matched to requests in order.
+	 * <p>
+	 * Only idempotent requests with a fully buffered body are pipelined, other requests are sent as usual.
+	 * A pipelining depth of 1 (default) disables pipelining.
+	 */
+	public AsyncHttpClient withPipelining(int pipeliningDepth) {
+		checkArgument(pipeliningDepth >= 1, "Pipelining depth should be positive");
+		this.pipeliningDepth = pipeliningDepth;
+		return this;
+	}
+
+	/**
+	 * Sends requests over HTTP/2 without negotiation, assuming that servers support it.
+	 * Requests to the same address are multiplexed over a single connection.
+	 * Web socket requests are still sent over HTTP/1.1.
+	 */
+	public AsyncHttpClient withHttp2PriorKnowledge() {
+		this.http2PriorKnowledge = true;
+		return this;
+	}
+
 	public AsyncHttpClient withReadWriteTimeout(@NotNull Duration readWriteTimeout) {
 		this.readWriteTimeoutMillis = (int) readWriteTimeout.toMillis();
 		return this;
@@ -462,6 +492,14 @@ public final class AsyncHttpClient implements IAsyncHttpClient, IAsyncWebSocketC
 		InetAddress inetAddress = inetAddresses[(inetAddressIdx++ & Integer.MAX_VALUE) % inetAddresses.length];
 		InetSocketAddress address = new InetSocketAddress(inetAddress, request.getUrl().getPort());
 
+		if (http2PriorKnowledge && !isWebSocket) {
+			return doSendHttp2(request, address);
+		}
+
+		if (pipeliningDepth > 1 && !isWebSocket && keepAliveTimeoutMillis != 0 && HttpClientConnection.isPipelinable(request)) {
+			return doSendPipelined(request, address);
+		}
+
 		HttpClientConnection keepAliveConnection = takeKeepAliveConnection(address);
 		if (keepAliveConnection != null) {
 			if (isWebSocket) {
@@ -471,6 +509,118 @@ public final class AsyncHttpClient implements IAsyncHttpClient, IAsyncWebSocketC
 			}
 		}
 
+		return connect(request, address)
+				.then(connection -> {
+					if (isWebSocket) {
+						return connection.sendWebSocketRequest(request);
+					} else {
+						return connection.send(request);
+					}
+				}, e -> {
+					request.recycleBody();
+					return Promise.ofException(e);
+				});
+	}
+
+	private Promise<HttpResponse> doSendHttp2(HttpRequest request, InetSocketAddress address) {
+		HttpClientConnection http2Connection = http2Connections.get(address);
+		if (http2Connection != null) {
+			if (http2Connection.isHttp2Available()) {
+				return http2Connection.sendHttp2(request);
+			}
+			http2Connections.remove(address);
+		}
+		Promise<HttpClientConnection> http2Connect = http2Connects.get(address);
+		if (http2Connect == null) {
+			http2Connect = connect(request, address)
+					.whenResult(connection -> {
+						connection.startHttp2();
+						if (!connection.isClosed()) {
+							http2Connections.put(address, connection);
+						}
+					})
+					.whenComplete(() -> http2Connects.remove(address));
+			if (!http2Connect.isComplete()) {
+				http2Connects.put(address, http2Connect);
+			}
+		}
+		return http2Connect
+				.then(connection -> connection.isHttp2Available() ?
+								connection.sendHttp2(request) :
+								doSendHttp2(request, address),
+						e -> {
+							request.recycleBody();
+							return Promise.ofException(e);
+						});
+	}
+
+	void removeHttp2Connection(HttpClientConnection connection) {
+		http2Connections.remove(connection.remoteAddress, connection);
+	}
+
+	private Promise<HttpResponse> doSendPipelined(HttpRequest request, InetSocketAddress address) {
+		HttpClientConnection pipelinedConnection = pipelinedConnections.get(address);
+		if (pipelinedConnection != null) {
+			if (pipelinedConnection.canPipeline()) {
+				return pipelinedConnection.sendPipelined(request);
+			}
+			pipelinedConnections.remove(address);
+		}
+
+		PipelinedConnect pipelinedConnect = pipelinedConnects.get(address);
+		if (pipelinedConnect != null && pipelinedConnect.waiting < pipeliningDepth) {
+			pipelinedConnect.waiting++;
+			// the first request has already been sent by the time this callback is called
+			return pipelinedConnect.connect
+					.then(connection -> connection.canPipeline() ?
+									connection.sendPipelined(request) :
+									doSendPipelined(request, address),
+							e -> {
+								request.recycleBody();
+								return Promise.ofException(e);
+							});
+		}
+
+		HttpClientConnection keepAliveConnection = takeKeepAliveConnection(address);
+		if (keepAliveConnection != null) {
+			Promise<HttpResponse> responsePromise = keepAliveConnection.send(request);
+			if (!keepAliveConnection.isClosed()) {
+				pipelinedConnections.put(address, keepAliveConnection);
+			}
+			return responsePromise;
+		}
+
+		PipelinedConnect newConnect = new PipelinedConnect(connect(request, address));
+		pipelinedConnects.put(address, newConnect);
+		return newConnect.connect
+				.then(connection -> {
+					pipelinedConnects.remove(address, newConnect);
+					Promise<HttpResponse> responsePromise = connection.send(request);
+					if (!connection.isClosed()) {
+						pipelinedConnections.put(address, connection);
+					}
+					return responsePromise;
+				}, e -> {
+					pipelinedConnects.remove(address, newConnect);
+					request.recycleBody();
+					return Promise.ofException(e);
+				});
+	}
+
+	void removePipelinedConnection(HttpClientConnection connection) {
+		pipelinedConnections.remove(connection.remoteAddress, connection);
+	}
+
+	private static final class PipelinedConnect {
+		final Promise<HttpClientConnection> connect;
+		int waiting = 1;
+
+		PipelinedConnect(Promise<HttpClientConnection> connect) {
+			this.connect = connect;
+		}
+	}
+
+	private Promise<HttpClientConnection> connect(HttpRequest request, InetSocketAddress address) {
 		boolean isSecure = request.getProtocol().isSecure();
 		if (isSecure && sslContext == null) {
 			request.recycleBody();
@@ -503,14 +653,9 @@ public final class AsyncHttpClient implements IAsyncHttpClient, IAsyncWebSocketC
 					if (expiredConnectionsCheck == null)
 						scheduleExpiredConnectionsCheck();
 
-					if (isWebSocket) {
-						return connection.sendWebSocketRequest(request);
-					} else {
-						return connection.send(request);
-					}
+					return Promise.of(connection);
 				}, e -> {
 					if (inspector != null) inspector.onConnectError(request, address, e);
-					request.recycleBody();
 					return Promise.ofException(translateToHttpException(e));
 				});
 	}
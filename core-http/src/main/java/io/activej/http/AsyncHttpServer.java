@@ -55,6 +55,7 @@ public final class AsyncHttpServer extends AbstractServer<AsyncHttpServer> {
 	public static final MemSize MAX_BODY_SIZE = ApplicationSettings.getMemSize(AsyncHttpServer.class, "maxBodySize", MemSize.ZERO);
 	public static final MemSize MAX_WEB_SOCKET_MESSAGE_SIZE = ApplicationSettings.getMemSize(AsyncHttpServer.class, "maxWebSocketMessageSize", MemSize.megabytes(1));
 	public static final int MAX_KEEP_ALIVE_REQUESTS = ApplicationSettings.getInt(AsyncHttpServer.class, "maxKeepAliveRequests", 0);
+	public static final boolean HTTP2 = ApplicationSettings.getBoolean(AsyncHttpServer.class, "http2", true);
 
 	private final @NotNull AsyncServlet servlet;
 	private @NotNull HttpExceptionFormatter errorFormatter = HttpExceptionFormatter.COMMON_FORMATTER;
@@ -66,6 +67,8 @@ public final class AsyncHttpServer extends AbstractServer<AsyncHttpServer> {
 	int maxBodySize = MAX_BODY_SIZE.toInt();
 	int maxWebSocketMessageSize = MAX_WEB_SOCKET_MESSAGE_SIZE.toInt();
 	int maxKeepAliveRequests = MAX_KEEP_ALIVE_REQUESTS;
+	boolean http2 = HTTP2;
+	@Nullable HttpCompression compression;
 
 	final ConnectionsLinkedList poolNew = new ConnectionsLinkedList();
 	final ConnectionsLinkedList poolReadWrite = new ConnectionsLinkedList();
@@ -201,6 +204,16 @@ public final class AsyncHttpServer extends AbstractServer<AsyncHttpServer> {
 		return withKeepAliveTimeout(Duration.ZERO);
 	}
 
+	/**
+	 * Enables or disables HTTP/2 with prior knowledge.
+	 * If enabled, connections that start with HTTP/2 connection preface are served over HTTP/2,
+	 * other connections are served over HTTP/1.x as usual.
+	 */
+	public AsyncHttpServer withHttp2(boolean http2) {
+		this.http2 = http2;
+		return this;
+	}
+
 	public AsyncHttpServer withReadWriteTimeout(@NotNull Duration readWriteTimeout) {
 		this.readWriteTimeoutMillis = (int) readWriteTimeout.toMillis();
 		return this;
@@ -236,6 +249,14 @@ public final class AsyncHttpServer extends AbstractServer<AsyncHttpServer> {
 		return this;
 	}
 
+	/**
+	 * Enables compression of responses, negotiated with clients
+	 */
+	public AsyncHttpServer withCompression(@NotNull HttpCompression compression) {
+		this.compression = compression;
+		return this;
+	}
+
 	public AsyncHttpServer withInspector(Inspector inspector) {
 		this.inspector = inspector;
 		return this;
@@ -0,0 +1,475 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.common.ApplicationSettings;
+import io.activej.common.MemSize;
+import io.activej.common.time.CurrentTimeProvider;
+import io.activej.eventloop.Eventloop;
+import io.activej.eventloop.jmx.EventloopJmxBean;
+import io.activej.jmx.api.attribute.JmxAttribute;
+import io.activej.jmx.api.attribute.JmxOperation;
+import io.activej.jmx.api.attribute.JmxReducers.JmxReducerSum;
+import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.http.HttpHeaders.*;
+import static java.util.Arrays.asList;
+
+/**
+ * A servlet decorator which coalesces concurrent identical {@code GET} requests
+ * and caches responses as allowed by their {@code Cache-Control} header.
+ * <p>
+ * Requests are identical if they have the same URL and the same values of
+ * {@link #withVaryHeaders vary headers}. While a request is being served by the next servlet,
+ * identical requests wait for its response. If the response turns out to be shareable, they receive its copy,
+ * otherwise they are served by the next servlet on their own.
+ * <p>
+ * A response is shared and cached only if its code is 200, it has no cookies and it has
+ * {@code max-age} or {@code s-maxage} directive without {@code no-store}, {@code no-cache} or {@code private} ones.
+ * Its body size must also be known in advance and must not exceed {@link #withMaxBodySize maximum body size},
+ * other responses are streamed through without loading their bodies.
+ * Bodies of cached responses are kept in pooled bufs, which are shared by responses being sent, until the total size
+ * of the cache exceeds its maximum size and least recently used responses are evicted.
+ * Conditional requests with {@code If-None-Match} header matching an {@code ETag} of a response are answered with 304.
+ * <p>
+ * Requests with {@code Authorization} header, with {@code Cookie} header (unless it is one of vary headers)
+ * or with {@code no-cache} or {@code no-store} directives bypass this servlet.
+ */
+public final class CachingServlet implements AsyncServlet, EventloopJmxBean {
+	public static final MemSize MAX_SIZE = ApplicationSettings.getMemSize(CachingServlet.class, "maxSize", MemSize.megabytes(64));
+	public static final MemSize MAX_BODY_SIZE = ApplicationSettings.getMemSize(CachingServlet.class, "maxBodySize", MemSize.megabytes(1));
+
+	/**
+	 * An estimated size of a cache entry without its body and headers
+	 */
+	static final int ENTRY_OVERHEAD = 256;
+
+	private final Eventloop eventloop;
+	private final AsyncServlet next;
+
+	private final LinkedHashMap<String, CachedResponse> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, Promise<CachedResponse>> pending = new HashMap<>();
+
+	private List<HttpHeader> varyHeaders = Collections.emptyList();
+	private long maxSize = MAX_SIZE.toLong();
+	private int maxBodySize = MAX_BODY_SIZE.toInt();
+
+	private long size;
+
+	CurrentTimeProvider now;
+
+	// region stats
+	private long hits;
+	private long misses;
+	private long coalesced;
+	private long notModified;
+	private long evictions;
+	// endregion
+
+	// region builders
+	private CachingServlet(Eventloop eventloop, AsyncServlet next) {
+		this.eventloop = eventloop;
+		this.next = next;
+		this.now = eventloop;
+	}
+
+	public static CachingServlet create(Eventloop eventloop, AsyncServlet next) {
+		return new CachingServlet(eventloop, next);
+	}
+
+	public static Function<AsyncServlet, AsyncServlet> decorator(Eventloop eventloop) {
+		return next -> new CachingServlet(eventloop, next);
+	}
+
+	/**
+	 * Sets request headers which affect responses, so that requests which differ in them are served separately
+	 */
+	public CachingServlet withVaryHeaders(HttpHeader... varyHeaders) {
+		this.varyHeaders = asList(varyHeaders);
+		return this;
+	}
+
+	public CachingServlet withMaxSize(MemSize maxSize) {
+		this.maxSize = maxSize.toLong();
+		return this;
+	}
+
+	/**
+	 * Sets a maximum size of a response body which is loaded to be cached or shared by coalesced requests.
+	 * Responses with larger bodies are streamed through
+	 */
+	public CachingServlet withMaxBodySize(MemSize maxBodySize) {
+		this.maxBodySize = maxBodySize.toInt();
+		return this;
+	}
+	// endregion
+
+	@Override
+	public @NotNull Promise<HttpResponse> serve(@NotNull HttpRequest request) throws Exception {
+		if (request.getMethod() != HttpMethod.GET || request.getHeader(AUTHORIZATION) != null ||
+				request.getHeader(COOKIE) != null && !varyHeaders.contains(COOKIE)) {
+			return next.serveAsync(request);
+		}
+		String requestCacheControl = request.getHeader(CACHE_CONTROL);
+		if (requestCacheControl != null &&
+				(hasDirective(requestCacheControl, "no-cache") || hasDirective(requestCacheControl, "no-store"))) {
+			return next.serveAsync(request);
+		}
+
+		String key = toKey(request);
+		long timestamp = now.currentTimeMillis();
+		CachedResponse cached = cache.get(key);
+		if (cached != null) {
+			if (cached.expirationTimestamp > timestamp) {
+				hits++;
+				return Promise.of(respond(cached, request, timestamp));
+			}
+			remove(key, cached);
+		}
+		misses++;
+
+		Promise<@Nullable CachedResponse> pendingResponse = pending.get(key);
+		if (pendingResponse != null) {
+			return pendingResponse.then(response -> {
+				if (response == null) {
+					// a response is not shareable, so it is served again
+					return serveNext(request);
+				}
+				coalesced++;
+				return Promise.of(respond(response, request, now.currentTimeMillis()));
+			});
+		}
+
+		SettablePromise<@Nullable CachedResponse> loaded = new SettablePromise<>();
+		pending.put(key, loaded);
+		return serveNext(request)
+				.then(response -> {
+					long bodySize = getBodySize(response);
+					if (getMaxAge(response) == 0 || bodySize == -1 || bodySize > maxBodySize) {
+						pending.remove(key);
+						loaded.set(null);
+						return Promise.of(response);
+					}
+					return response.loadBody(maxBodySize)
+							.map($ -> {
+								CachedResponse cachedResponse = CachedResponse.of(response, now.currentTimeMillis());
+								response.recycleBody();
+								HttpResponse result = respond(cachedResponse, request, now.currentTimeMillis());
+								pending.remove(key);
+								loaded.set(cachedResponse);
+								put(key, cachedResponse);
+								return result;
+							});
+				})
+				.whenException(e -> {
+					if (pending.remove(key, loaded)) {
+						loaded.setException(e);
+					}
+				});
+	}
+
+	private Promise<HttpResponse> serveNext(HttpRequest request) {
+		try {
+			return next.serveAsync(request);
+		} catch (Exception e) {
+			return Promise.ofException(e);
+		}
+	}
+
+	private HttpResponse respond(CachedResponse cached, HttpRequest request, long timestamp) {
+		HttpResponse response = cached.toResponse(request, timestamp);
+		if (response.getCode() == 304) notModified++;
+		return response;
+	}
+
+	private String toKey(HttpRequest request) {
+		String url = request.getFullUrl();
+		if (varyHeaders.isEmpty()) return url;
+		StringBuilder sb = new StringBuilder(url);
+		for (HttpHeader header : varyHeaders) {
+			String value = request.getHeader(header);
+			sb.append('\n');
+			if (value != null) sb.append(value);
+		}
+		return sb.toString();
+	}
+
+	private void put(String key, CachedResponse response) {
+		if (response.size > maxSize) {
+			// caching it would evict everything else and then the response itself
+			CachedResponse previous = cache.remove(key);
+			if (previous != null) {
+				size -= previous.size;
+				previous.body.recycle();
+			}
+			response.body.recycle();
+			return;
+		}
+		CachedResponse previous = cache.put(key, response);
+		if (previous != null) {
+			size -= previous.size;
+			previous.body.recycle();
+		}
+		size += response.size;
+		Iterator<CachedResponse> iterator = cache.values().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			CachedResponse evicted = iterator.next();
+			iterator.remove();
+			size -= evicted.size;
+			evicted.body.recycle();
+			evictions++;
+		}
+	}
+
+	private void remove(String key, CachedResponse response) {
+		cache.remove(key);
+		size -= response.size;
+		response.body.recycle();
+	}
+
+	static boolean hasDirective(String cacheControl, String directive) {
+		return getDirectiveStart(cacheControl, directive) != -1;
+	}
+
+	/**
+	 * Returns a value of a {@code directive=seconds} directive, or -1 if there is no such directive or it is malformed
+	 */
+	static long getSeconds(String cacheControl, String directive) {
+		int start = getDirectiveStart(cacheControl, directive);
+		if (start == -1) return -1;
+		int pos = start + directive.length();
+		if (pos >= cacheControl.length() || cacheControl.charAt(pos) != '=') return -1;
+		long seconds = 0;
+		int digits = 0;
+		for (pos++; pos < cacheControl.length(); pos++, digits++) {
+			char c = cacheControl.charAt(pos);
+			if (c < '0' || c > '9') break;
+			seconds = Math.min(seconds * 10 + (c - '0'), Integer.MAX_VALUE);
+		}
+		return digits != 0 ? seconds : -1;
+	}
+
+	private static int getDirectiveStart(String cacheControl, String directive) {
+		int length = directive.length();
+		for (int i = 0; (i = indexOfIgnoreCase(cacheControl, directive, i)) != -1; i += length) {
+			boolean startsToken = i == 0 || cacheControl.charAt(i - 1) == ',' || cacheControl.charAt(i - 1) == ' ';
+			int end = i + length;
+			boolean endsToken = end == cacheControl.length() || cacheControl.charAt(end) == ',' ||
+					cacheControl.charAt(end) == ' ' || cacheControl.charAt(end) == '=';
+			if (startsToken && endsToken) return i;
+		}
+		return -1;
+	}
+
+	private static int indexOfIgnoreCase(String string, String substring, int from) {
+		for (int i = from; i <= string.length() - substring.length(); i++) {
+			if (string.regionMatches(true, i, substring, 0, substring.length())) return i;
+		}
+		return -1;
+	}
+
+	private static long getMaxAge(HttpResponse response) {
+		String cacheControl = response.getHeader(CACHE_CONTROL);
+		if (response.getCode() != 200 || cacheControl == null ||
+				response.getHeader(SET_COOKIE) != null || "*".equals(response.getHeader(VARY)) ||
+				hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache") ||
+				hasDirective(cacheControl, "private")) {
+			return 0;
+		}
+		long sharedMaxAge = getSeconds(cacheControl, "s-maxage");
+		return sharedMaxAge != -1 ? sharedMaxAge : Math.max(getSeconds(cacheControl, "max-age"), 0);
+	}
+
+	/**
+	 * Returns a size of a response body if it is known before the body is loaded, or -1 otherwise
+	 */
+	private static long getBodySize(HttpResponse response) {
+		if (response.bodyStream == null) {
+			return response.body != null ? response.body.readRemaining() : 0;
+		}
+		String contentLength = response.getHeader(CONTENT_LENGTH);
+		if (contentLength == null) return -1;
+		try {
+			return Long.parseLong(contentLength.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	static boolean matchesETag(String ifNoneMatch, String eTag) {
+		String tag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.equals("*")) return true;
+			if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+			if (candidate.equals(tag)) return true;
+		}
+		return false;
+	}
+
+	private static final class CachedResponse {
+		final int code;
+		final List<Map.Entry<HttpHeader, HttpHeaderValue>> headers;
+		final ByteBuf body;
+		final boolean gzip;
+		final @Nullable String eTag;
+		final long timestamp;
+		final long expirationTimestamp;
+		final long size;
+
+		CachedResponse(int code, List<Map.Entry<HttpHeader, HttpHeaderValue>> headers, ByteBuf body,
+				boolean gzip, @Nullable String eTag, long timestamp, long expirationTimestamp, long size) {
+			this.code = code;
+			this.headers = headers;
+			this.body = body;
+			this.gzip = gzip;
+			this.eTag = eTag;
+			this.timestamp = timestamp;
+			this.expirationTimestamp = expirationTimestamp;
+			this.size = size;
+		}
+
+		static CachedResponse of(HttpResponse response, long timestamp) {
+			List<Map.Entry<HttpHeader, HttpHeaderValue>> headers = new ArrayList<>();
+			long size = ENTRY_OVERHEAD;
+			for (Map.Entry<HttpHeader, HttpHeaderValue> entry : response.getHeaders()) {
+				HttpHeader header = entry.getKey();
+				if (header == CONTENT_LENGTH || header == TRANSFER_ENCODING || header == CONNECTION) continue;
+				// values may refer to buffers of the response, so they are copied
+				byte[] value = encodeAscii(entry.getValue().toString());
+				headers.add(new AbstractMap.SimpleImmutableEntry<>(header, HttpHeaderValue.ofBytes(value)));
+				size += header.size() + value.length;
+			}
+			ByteBuf body = response.getBody();
+			ByteBuf copy = ByteBufPool.allocate(body.readRemaining());
+			copy.put(body.array(), body.head(), body.readRemaining());
+			size += copy.readRemaining();
+
+			return new CachedResponse(response.getCode(), headers, copy,
+					(response.flags & HttpMessage.USE_GZIP) != 0, response.getHeader(ETAG),
+					timestamp, timestamp + getMaxAge(response) * 1000, size);
+		}
+
+		HttpResponse toResponse(HttpRequest request, long currentTimestamp) {
+			String ifNoneMatch;
+			if (eTag != null && (ifNoneMatch = request.getHeader(IF_NONE_MATCH)) != null && matchesETag(ifNoneMatch, eTag)) {
+				HttpResponse response = HttpResponse.ofCode(304);
+				for (Map.Entry<HttpHeader, HttpHeaderValue> entry : headers) {
+					HttpHeader header = entry.getKey();
+					if (header == ETAG || header == CACHE_CONTROL || header == VARY || header == EXPIRES || header == DATE) {
+						response.addHeader(header, entry.getValue());
+					}
+				}
+				return response;
+			}
+			HttpResponse response = HttpResponse.ofCode(code);
+			for (Map.Entry<HttpHeader, HttpHeaderValue> entry : headers) {
+				response.addHeader(entry.getKey(), entry.getValue());
+			}
+			if (currentTimestamp - timestamp >= 1000) {
+				response.addHeader(AGE, HttpHeaderValue.ofDecimal((int) ((currentTimestamp - timestamp) / 1000)));
+			}
+			response.setBody(body.slice());
+			if (gzip) response.setBodyGzipCompression();
+			return response;
+		}
+	}
+
+	// region jmx
+	@Override
+	public @NotNull Eventloop getEventloop() {
+		return eventloop;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public int getEntries() {
+		return cache.size();
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getSize() {
+		return size;
+	}
+
+	@JmxAttribute
+	public MemSize getMaxSize() {
+		return MemSize.of(maxSize);
+	}
+
+	@JmxAttribute
+	public void setMaxSize(MemSize maxSize) {
+		this.maxSize = maxSize.toLong();
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public int getPending() {
+		return pending.size();
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getHits() {
+		return hits;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getMisses() {
+		return misses;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getCoalesced() {
+		return coalesced;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getNotModified() {
+		return notModified;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getEvictions() {
+		return evictions;
+	}
+
+	@JmxOperation
+	public void resetStats() {
+		hits = 0;
+		misses = 0;
+		coalesced = 0;
+		notModified = 0;
+		evictions = 0;
+	}
+
+	@JmxOperation
+	public void clear() {
+		for (CachedResponse response : cache.values()) {
+			response.body.recycle();
+		}
+		cache.clear();
+		size = 0;
+	}
+	// endregion
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.promise.Promise;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static io.activej.http.Protocol.WS;
+import static io.activej.http.Protocol.WSS;
+import static io.activej.http.RoutingServlet.WS_ORDINAL;
+
+/**
+ * An immutable snapshot of a {@link RoutingServlet}, compiled for fast request routing.
+ * <p>
+ * Static path segments of each level of a routing tree are kept in a radix tree,
+ * which is matched directly against the bytes of a request URL, so that routing by static paths does not allocate.
+ * Routing semantics are the same as those of {@link RoutingServlet}.
+ *
+ * @see RoutingServlet#compile()
+ */
+public final class CompiledRoutingServlet implements AsyncServlet {
+	private final Node root;
+
+	CompiledRoutingServlet(Node root) {
+		this.root = root;
+	}
+
+	@Override
+	public @NotNull Promise<HttpResponse> serve(@NotNull HttpRequest request) throws Exception {
+		Protocol protocol = request.getProtocol();
+		int ordinal = protocol == WS || protocol == WSS ? WS_ORDINAL : request.getMethod().ordinal();
+		Promise<HttpResponse> processed = tryServe(root, request, request.getUrl(), ordinal);
+		return processed != null ?
+				processed :
+				Promise.ofException(HttpError.notFound404());
+	}
+
+	private static @Nullable Promise<HttpResponse> tryServe(Node node, HttpRequest request, UrlParser url, int ordinal) throws Exception {
+		int introPosition = url.pos;
+		int start = introPosition + 1;
+		int end = url.pollUrlPartEnd();
+
+		if (end == -1 || end == start) {
+			AsyncServlet servlet = node.rootServlets[ordinal];
+			if (servlet != null) {
+				return servlet.serveAsync(request);
+			}
+		} else {
+			short position = url.pos;
+			Node transit = node.routes.get(url.getRaw(), start, end);
+			if (transit != null) {
+				Promise<HttpResponse> result = tryServe(transit, request, url, ordinal);
+				if (result != null) {
+					return result;
+				}
+				url.pos = position;
+			}
+			if (node.parameterNames.length != 0) {
+				String urlPart = url.decodeUrlPart(start, end);
+				for (int i = 0; i < node.parameterNames.length; i++) {
+					String key = node.parameterNames[i];
+					request.putPathParameter(key, urlPart);
+					Promise<HttpResponse> result = tryServe(node.parameterNodes[i], request, url, ordinal);
+					if (result != null) {
+						return result;
+					}
+					request.removePathParameter(key);
+					url.pos = position;
+				}
+			}
+		}
+
+		AsyncServlet servlet = node.fallbackServlets[ordinal];
+		if (servlet != null) {
+			url.pos = (short) introPosition;
+			return servlet.serveAsync(request);
+		}
+		return null;
+	}
+
+	static final class Node {
+		/**
+		 * Servlets by ordinals of HTTP methods (or by {@link RoutingServlet#WS_ORDINAL}),
+		 * with servlets mapped to any HTTP method being already substituted
+		 */
+		final AsyncServlet[] rootServlets;
+		final AsyncServlet[] fallbackServlets;
+
+		final RadixTree<Node> routes;
+		final String[] parameterNames;
+		final Node[] parameterNodes;
+
+		Node(AsyncServlet[] rootServlets, AsyncServlet[] fallbackServlets,
+				Map<String, Node> routes, String[] parameterNames, Node[] parameterNodes) {
+			this.rootServlets = rootServlets;
+			this.fallbackServlets = fallbackServlets;
+			this.routes = RadixTree.create(routes);
+			this.parameterNames = parameterNames;
+			this.parameterNodes = parameterNodes;
+		}
+	}
+
+	/**
+	 * An immutable radix tree keyed by byte sequences
+	 */
+	static final class RadixTree<V> {
+		private static final byte[] NO_BYTES = {};
+
+		private final byte[] label;
+		private final byte[] childBytes;
+		private final RadixTree<V>[] children;
+		private final @Nullable V value;
+
+		private RadixTree(byte[] label, byte[] childBytes, RadixTree<V>[] children, @Nullable V value) {
+			this.label = label;
+			this.childBytes = childBytes;
+			this.children = children;
+			this.value = value;
+		}
+
+		static <V> RadixTree<V> create(Map<String, V> map) {
+			if (map.isEmpty()) {
+				//noinspection unchecked
+				return new RadixTree<>(NO_BYTES, NO_BYTES, new RadixTree[0], null);
+			}
+			List<Map.Entry<byte[], V>> entries = new ArrayList<>();
+			for (Map.Entry<String, V> entry : map.entrySet()) {
+				entries.add(new AbstractMap.SimpleImmutableEntry<>(UrlParser.encodeUrlPart(entry.getKey()), entry.getValue()));
+			}
+			return build(entries, 0);
+		}
+
+		private static <V> RadixTree<V> build(List<Map.Entry<byte[], V>> entries, int depth) {
+			byte[] first = entries.get(0).getKey();
+			int prefixEnd = first.length;
+			for (Map.Entry<byte[], V> entry : entries) {
+				byte[] key = entry.getKey();
+				int i = depth;
+				while (i < prefixEnd && i < key.length && key[i] == first[i]) i++;
+				prefixEnd = i;
+			}
+
+			V value = null;
+			TreeMap<Byte, List<Map.Entry<byte[], V>>> groups = new TreeMap<>();
+			for (Map.Entry<byte[], V> entry : entries) {
+				byte[] key = entry.getKey();
+				if (key.length == prefixEnd) {
+					value = entry.getValue();
+				} else {
+					groups.computeIfAbsent(key[prefixEnd], $ -> new ArrayList<>()).add(entry);
+				}
+			}
+
+			byte[] childBytes = new byte[groups.size()];
+			//noinspection unchecked
+			RadixTree<V>[] children = new RadixTree[groups.size()];
+			int i = 0;
+			for (Map.Entry<Byte, List<Map.Entry<byte[], V>>> group : groups.entrySet()) {
+				childBytes[i] = group.getKey();
+				children[i++] = build(group.getValue(), prefixEnd);
+			}
+			return new RadixTree<>(Arrays.copyOfRange(first, depth, prefixEnd), childBytes, children, value);
+		}
+
+		@Nullable V get(byte[] array, int from, int to) {
+			RadixTree<V> node = this;
+			int pos = from;
+			while (true) {
+				byte[] label = node.label;
+				if (to - pos < label.length) {
+					return null;
+				}
+				for (byte b : label) {
+					if (array[pos++] != b) {
+						return null;
+					}
+				}
+				if (pos == to) {
+					return node.value;
+				}
+				int index = Arrays.binarySearch(node.childBytes, array[pos]);
+				if (index < 0) {
+					return null;
+				}
+				node = node.children[index];
+			}
+		}
+	}
+}
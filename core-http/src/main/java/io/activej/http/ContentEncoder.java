@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.csp.ChannelSupplier;
+
+/**
+ * A content coding of HTTP message bodies, as named in {@code Accept-Encoding}
+ * and {@code Content-Encoding} headers.
+ * <p>
+ * Implementations are used by {@link HttpCompression} to compress responses
+ * and may be called from several eventloop threads concurrently.
+ *
+ * @see ContentEncoders
+ */
+public interface ContentEncoder {
+	/**
+	 * Returns a case-insensitive token of this coding, such as {@code gzip}
+	 */
+	String getName();
+
+	/**
+	 * Encodes a whole body, recycling the given buf
+	 */
+	ByteBuf encode(ByteBuf body);
+
+	/**
+	 * Encodes a stream of body bufs
+	 */
+	ChannelSupplier<ByteBuf> encode(ChannelSupplier<ByteBuf> bodyStream);
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.common.ApplicationSettings;
+import io.activej.csp.ChannelSupplier;
+import io.activej.http.stream.BufsConsumerDeflater;
+import io.activej.http.stream.BufsConsumerGzipDeflater;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * This class contains {@link ContentEncoder content encoders} based on the DEFLATE algorithm.
+ * <p>
+ * {@link Deflater Deflaters} are pooled per thread, and thus per eventloop,
+ * so that their native buffers are not reallocated for each compressed body.
+ * Bodies as a whole and body streams may be compressed with different levels,
+ * as streams are typically large and compressing them at high level costs a lot of CPU time.
+ */
+public final class ContentEncoders {
+	public static final int MAX_POOLED_DEFLATERS = ApplicationSettings.getInt(ContentEncoders.class, "maxPooledDeflaters", 16);
+
+	private static final ContentEncoder GZIP = gzip(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_COMPRESSION);
+	private static final ContentEncoder DEFLATE = deflate(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_COMPRESSION);
+
+	public static ContentEncoder gzip() {
+		return GZIP;
+	}
+
+	public static ContentEncoder gzip(int level) {
+		return gzip(level, level);
+	}
+
+	public static ContentEncoder gzip(int level, int streamLevel) {
+		return new DeflaterContentEncoder("gzip", true, level, streamLevel);
+	}
+
+	public static ContentEncoder deflate() {
+		return DEFLATE;
+	}
+
+	public static ContentEncoder deflate(int level) {
+		return deflate(level, level);
+	}
+
+	public static ContentEncoder deflate(int level, int streamLevel) {
+		return new DeflaterContentEncoder("deflate", false, level, streamLevel);
+	}
+
+	private static final class DeflaterContentEncoder implements ContentEncoder {
+		private final String name;
+		private final boolean gzip;
+		private final DeflaterPool pool;
+		private final DeflaterPool streamPool;
+
+		DeflaterContentEncoder(String name, boolean gzip, int level, int streamLevel) {
+			checkArgument(isValidLevel(level) && isValidLevel(streamLevel), "Invalid compression level");
+			this.name = name;
+			this.gzip = gzip;
+			this.pool = new DeflaterPool(level, gzip);
+			this.streamPool = level == streamLevel ? pool : new DeflaterPool(streamLevel, gzip);
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public ByteBuf encode(ByteBuf body) {
+			Deflater deflater = pool.take();
+			try {
+				return gzip ?
+						GzipProcessorUtils.toGzip(body, deflater) :
+						GzipProcessorUtils.toDeflate(body, deflater);
+			} finally {
+				pool.release(deflater);
+			}
+		}
+
+		@Override
+		public ChannelSupplier<ByteBuf> encode(ChannelSupplier<ByteBuf> bodyStream) {
+			Deflater deflater = streamPool.take();
+			if (gzip) {
+				BufsConsumerGzipDeflater transformer = BufsConsumerGzipDeflater.create().withDeflater(deflater);
+				transformer.getProcessCompletion().whenResult(() -> streamPool.release(deflater));
+				return bodyStream.transformWith(transformer);
+			} else {
+				BufsConsumerDeflater transformer = BufsConsumerDeflater.create().withDeflater(deflater);
+				transformer.getProcessCompletion().whenResult(() -> streamPool.release(deflater));
+				return bodyStream.transformWith(transformer);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+
+		private static boolean isValidLevel(int level) {
+			return level == Deflater.DEFAULT_COMPRESSION || level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION;
+		}
+	}
+
+	private static final class DeflaterPool {
+		private final ThreadLocal<ArrayDeque<Deflater>> deflaters = ThreadLocal.withInitial(ArrayDeque::new);
+		private final int level;
+		private final boolean nowrap;
+
+		DeflaterPool(int level, boolean nowrap) {
+			this.level = level;
+			this.nowrap = nowrap;
+		}
+
+		Deflater take() {
+			Deflater deflater = deflaters.get().poll();
+			return deflater != null ? deflater : new Deflater(level, nowrap);
+		}
+
+		/**
+		 * Returns a deflater to the pool of a current thread.
+		 * Deflaters that failed should be ended instead of being released
+		 */
+		void release(Deflater deflater) {
+			deflater.reset();
+			ArrayDeque<Deflater> deflaters = this.deflaters.get();
+			if (deflaters.size() < MAX_POOLED_DEFLATERS) {
+				deflaters.push(deflater);
+			} else {
+				deflater.end();
+			}
+		}
+	}
+}
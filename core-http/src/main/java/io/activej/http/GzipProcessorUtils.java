@@ -39,6 +39,10 @@ public final class GzipProcessorUtils {
 	private static final int GZIP_HEADER_SIZE = GZIP_HEADER.length;
 	private static final int GZIP_FOOTER_SIZE = 8;
 
+	// rfc 1950 section 2.2
+	private static final int ZLIB_HEADER_SIZE = 2;
+	private static final int ZLIB_FOOTER_SIZE = 4;
+
 	private static final int FHCRC = 2;
 	private static final int FEXTRA = 4;
 	private static final int FNAME = 8;
@@ -75,9 +79,16 @@ public final class GzipProcessorUtils {
 	}
 
 	public static ByteBuf toGzip(ByteBuf src) {
+		return toGzip(src, ensureCompressor());
+	}
+
+	/**
+	 * Compresses given buf into GZIP format with a given compressor,
+	 * which should be created with {@code nowrap} set and should not have been used since last reset
+	 */
+	static ByteBuf toGzip(ByteBuf src, Deflater compressor) {
 		if (CHECK) checkArgument(src.readRemaining() >= 0);
 
-		Deflater compressor = ensureCompressor();
 		compressor.setInput(src.array(), src.head(), src.readRemaining());
 		compressor.finish();
 		int dataSize = src.readRemaining();
@@ -93,6 +104,20 @@ public final class GzipProcessorUtils {
 		return dst;
 	}
 
+	/**
+	 * Compresses given buf into ZLIB format (RFC 1950), as used by {@code deflate} content coding,
+	 * with a given compressor, which should be created without {@code nowrap} set and should not have been used since last reset
+	 */
+	static ByteBuf toDeflate(ByteBuf src, Deflater compressor) {
+		compressor.setInput(src.array(), src.head(), src.readRemaining());
+		compressor.finish();
+		ByteBuf dst = ByteBufPool.allocate(ZLIB_HEADER_SIZE + estimateMaxCompressedSize(src.readRemaining()) + ZLIB_FOOTER_SIZE);
+		dst = writeCompressedData(compressor, src, dst);
+
+		src.recycle();
+		return dst;
+	}
+
 	private static int readExpectedInputSize(ByteBuf buf) throws MalformedHttpException {
 		// trailer size - 8 bytes. 4 bytes for CRC32, 4 bytes for ISIZE
 		check(buf.readRemaining() >= 8, buf, () -> new MalformedHttpException("Corrupted GZIP header"));
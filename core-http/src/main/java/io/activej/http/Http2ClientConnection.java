@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.csp.ChannelSupplier;
+import io.activej.http.AsyncHttpClient.Inspector;
+import io.activej.http.stream.BufsConsumerGzipInflater;
+import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.http.Http2Exception.PROTOCOL_ERROR;
+import static io.activej.http.HttpHeaders.HOST;
+import static io.activej.http.HttpMessage.MUST_LOAD_BODY;
+import static io.activej.http.HttpVersion.HTTP_2_0;
+
+/**
+ * A client side of HTTP/2 connection.
+ * Requests are sent over new streams of a single connection, and responses may arrive in any order.
+ * Requests that exceed the limit of concurrent streams set by a server wait for other streams to complete.
+ */
+final class Http2ClientConnection extends AbstractHttp2Connection {
+	private static final byte[] HTTP = encodeAscii("http");
+	private static final byte[] HTTPS = encodeAscii("https");
+
+	private final HttpClientConnection connection;
+	private final AsyncHttpClient client;
+	private final @Nullable Inspector inspector;
+
+	private final ArrayDeque<PendingRequest> pendingRequests = new ArrayDeque<>();
+	private int nextStreamId = 1;
+
+	private static final class PendingRequest {
+		final HttpRequest request;
+		final SettablePromise<HttpResponse> promise;
+
+		PendingRequest(HttpRequest request, SettablePromise<HttpResponse> promise) {
+			this.request = request;
+			this.promise = promise;
+		}
+	}
+
+	Http2ClientConnection(HttpClientConnection connection, AsyncHttpClient client) {
+		super(connection.eventloop, connection.socket, connection);
+		this.connection = connection;
+		this.client = client;
+		this.inspector = client.inspector;
+	}
+
+	/**
+	 * Whether new requests may be sent over this connection
+	 */
+	boolean isAvailable() {
+		return !isClosed() && !goAwayReceived && !goAwaySent &&
+				(client.maxKeepAliveRequests == 0 || connection.numberOfRequests < client.maxKeepAliveRequests);
+	}
+
+	Promise<HttpResponse> send(HttpRequest request) {
+		if (!isAvailable()) {
+			request.recycleBody();
+			return Promise.ofException(new HttpException("HTTP/2 connection is not available"));
+		}
+		SettablePromise<HttpResponse> promise = new SettablePromise<>();
+		connection.numberOfRequests++;
+		if (streams.size() < remoteMaxConcurrentStreams) {
+			openStream(request, promise);
+		} else {
+			pendingRequests.add(new PendingRequest(request, promise));
+		}
+		updatePool();
+		return promise;
+	}
+
+	private void openStream(HttpRequest request, SettablePromise<HttpResponse> promise) {
+		int streamId = nextStreamId;
+		nextStreamId += 2;
+		Http2Stream stream = new Http2Stream(this, streamId, remoteInitialWindowSize, localInitialWindowSize);
+		stream.promise = promise;
+		streams.put(streamId, stream);
+
+		UrlParser url = request.getUrl();
+		HttpHeaderValue host = request.headers.get(HOST);
+		String hostAndPort = url.getHostAndPort();
+		ByteBuf path = ByteBufPool.allocate(url.getPathAndQueryLength());
+		url.writePathAndQuery(path);
+
+		ByteBuf block = hpackEncoder.beginHeaderBlock(ByteBufPool.allocate(256));
+		block = hpackEncoder.encodeHeader(block, METHOD, request.getMethod().bytes);
+		block = hpackEncoder.encodeHeader(block, SCHEME, request.getProtocol().isSecure() ? HTTPS : HTTP);
+		if (host != null) {
+			block = hpackEncoder.encodeHeader(block, AUTHORITY, toBytes(host));
+		} else if (hostAndPort != null) {
+			block = hpackEncoder.encodeHeader(block, AUTHORITY, encodeAscii(hostAndPort));
+		}
+		block = hpackEncoder.encodeHeader(block, PATH, path.asArray());
+		writeMessage(stream, request, block);
+	}
+
+	@Override
+	protected void writeSettings() {
+		writeBytes(PREFACE);
+		writeSettings(
+				SETTINGS_ENABLE_PUSH, 0,
+				SETTINGS_INITIAL_WINDOW_SIZE, localInitialWindowSize);
+	}
+
+	@Override
+	protected boolean isIdle(int streamId) {
+		return (streamId & 1) == 0 || streamId >= nextStreamId;
+	}
+
+	@Override
+	protected void onHeaders(int streamId, boolean endStream, List<byte[]> fields) throws MalformedHttpException, Http2Exception {
+		Http2Stream stream = streams.get(streamId);
+		if (stream == null) {
+			if (isIdle(streamId)) throw new Http2Exception(PROTOCOL_ERROR, "HEADERS frame on idle stream");
+			return;
+		}
+		if (stream.response != null) {
+			// trailers are not exposed to clients
+			if (!endStream) throw new MalformedHttpException("Trailers must end a stream");
+			onRemoteEnd(stream);
+			return;
+		}
+		if (fields.isEmpty() || !Arrays.equals(fields.get(0), STATUS)) {
+			throw new MalformedHttpException("Status pseudo-header is missing");
+		}
+		int code = parseStatusCode(fields.get(1));
+		if (code < 200) {
+			// informational responses are skipped
+			if (endStream) throw new MalformedHttpException("Informational response must not end a stream");
+			return;
+		}
+
+		HttpResponse response = new HttpResponse(HTTP_2_0, code, connection);
+		response.maxBodySize = connection.maxBodySize;
+		addHeaders(response, fields, 2);
+		response.flags |= MUST_LOAD_BODY;
+		if (endStream) {
+			response.body = ByteBuf.empty();
+		} else {
+			ChannelSupplier<ByteBuf> body = stream.createInbound();
+			if (isGzipped(fields)) {
+				body = body.transformWith(BufsConsumerGzipInflater.create());
+			}
+			// just as with HTTP/1.1, a response is recycled once its body is received
+			response.bodyStream = body.withEndOfStream(eos -> eos.whenResult(() -> eventloop.post(response::recycle)));
+		}
+		stream.response = response;
+		if (inspector != null) inspector.onHttpResponse(response);
+
+		SettablePromise<HttpResponse> promise = stream.promise;
+		stream.promise = null;
+		//noinspection ConstantConditions
+		promise.set(response);
+		if (endStream) {
+			onRemoteEnd(stream);
+		}
+	}
+
+	private static int parseStatusCode(byte[] value) throws MalformedHttpException {
+		if (value.length != 3) throw new MalformedHttpException("Invalid HTTP Status Code");
+		int code = 0;
+		for (byte b : value) {
+			if (b < '0' || b > '9') throw new MalformedHttpException("Invalid HTTP Status Code");
+			code = code * 10 + (b - '0');
+		}
+		if (code < 100) throw new MalformedHttpException("Invalid HTTP Status Code " + code);
+		return code;
+	}
+
+	@Override
+	protected void onStreamClosed(Http2Stream stream, @Nullable Exception e) {
+		if (stream.promise != null) {
+			SettablePromise<HttpResponse> promise = stream.promise;
+			stream.promise = null;
+			promise.setException(e != null ? e : new HttpException("Stream closed without a response"));
+		}
+		while (!pendingRequests.isEmpty() && streams.size() < remoteMaxConcurrentStreams && !isClosed()) {
+			PendingRequest pending = pendingRequests.poll();
+			openStream(pending.request, pending.promise);
+		}
+		updatePool();
+	}
+
+	@Override
+	protected void onRemoteSettings() {
+		while (!pendingRequests.isEmpty() && streams.size() < remoteMaxConcurrentStreams) {
+			PendingRequest pending = pendingRequests.poll();
+			openStream(pending.request, pending.promise);
+		}
+	}
+
+	@Override
+	protected void onGoAway() {
+		client.removeHttp2Connection(connection);
+		failPendingRequests(new HttpException("HTTP/2 connection is going away"));
+		updatePool();
+	}
+
+	private void updatePool() {
+		if (isClosed()) return;
+		if (!streams.isEmpty() || !pendingRequests.isEmpty()) {
+			if (connection.pool != client.poolReadWrite) {
+				connection.switchPool(client.poolReadWrite);
+			}
+			return;
+		}
+		if (!isAvailable() || client.keepAliveTimeoutMillis == 0) {
+			client.removeHttp2Connection(connection);
+			shutdown();
+		} else if (connection.pool != client.poolKeepAlive) {
+			connection.switchPool(client.poolKeepAlive);
+		}
+	}
+
+	private void failPendingRequests(Exception e) {
+		while (!pendingRequests.isEmpty()) {
+			PendingRequest pending = pendingRequests.poll();
+			pending.request.recycleBody();
+			pending.promise.setException(e);
+		}
+	}
+
+	@Override
+	void onClosed(@NotNull Exception e) {
+		super.onClosed(e);
+		failPendingRequests(e);
+	}
+
+	@Override
+	public String toString() {
+		return "Http2ClientConnection{" +
+				"remoteAddress=" + connection.remoteAddress +
+				", pendingRequests=" + pendingRequests.size() +
+				", " + super.toString() +
+				'}';
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.csp.ChannelSupplier;
+import io.activej.http.AsyncHttpServer.Inspector;
+import io.activej.http.stream.BufsConsumerGzipInflater;
+import io.activej.net.socket.tcp.AsyncTcpSocketSsl;
+import io.activej.promise.Promise;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.http.Http2Exception.PROTOCOL_ERROR;
+import static io.activej.http.Http2Exception.REFUSED_STREAM;
+import static io.activej.http.Http2Exception.STREAM_CLOSED;
+import static io.activej.http.HttpHeaders.HOST;
+import static io.activej.http.HttpMessage.MUST_LOAD_BODY;
+import static io.activej.http.HttpVersion.HTTP_2_0;
+import static io.activej.http.Protocol.HTTP;
+import static io.activej.http.Protocol.HTTPS;
+
+/**
+ * A server side of HTTP/2 connection.
+ * Each stream opened by a client carries a single request, which is served by the servlet of the server.
+ */
+final class Http2ServerConnection extends AbstractHttp2Connection {
+	private static final byte[][] STATUS_CODES = new byte[600][];
+
+	static {
+		for (int i = 100; i < STATUS_CODES.length; i++) {
+			STATUS_CODES[i] = encodeAscii(Integer.toString(i));
+		}
+	}
+
+	private final HttpServerConnection connection;
+	private final AsyncHttpServer server;
+	private final AsyncServlet servlet;
+	private final @Nullable Inspector inspector;
+	private final InetAddress remoteAddress;
+
+	Http2ServerConnection(HttpServerConnection connection, AsyncHttpServer server, AsyncServlet servlet, InetAddress remoteAddress) {
+		super(connection.eventloop, connection.socket, connection);
+		this.connection = connection;
+		this.server = server;
+		this.servlet = servlet;
+		this.inspector = server.inspector;
+		this.remoteAddress = remoteAddress;
+	}
+
+	@Override
+	protected void writeSettings() {
+		writeSettings(
+				SETTINGS_MAX_CONCURRENT_STREAMS, MAX_CONCURRENT_STREAMS,
+				SETTINGS_INITIAL_WINDOW_SIZE, localInitialWindowSize);
+	}
+
+	@Override
+	protected boolean isIdle(int streamId) {
+		return (streamId & 1) == 0 || streamId > lastRemoteStreamId;
+	}
+
+	@Override
+	protected void onHeaders(int streamId, boolean endStream, List<byte[]> fields) throws MalformedHttpException, Http2Exception {
+		Http2Stream stream = streams.get(streamId);
+		if (stream != null) {
+			// trailers are not exposed to servlets
+			if (!endStream) throw new MalformedHttpException("Trailers must end a stream");
+			onRemoteEnd(stream);
+			return;
+		}
+		if ((streamId & 1) == 0) throw new Http2Exception(PROTOCOL_ERROR, "Client stream ids must be odd");
+		if (streamId <= lastRemoteStreamId) throw new Http2Exception(STREAM_CLOSED, "HEADERS frame on closed stream");
+		lastRemoteStreamId = streamId;
+		if (streams.size() >= MAX_CONCURRENT_STREAMS) {
+			resetStream(streamId, REFUSED_STREAM);
+			return;
+		}
+
+		HttpRequest request = createRequest(fields);
+		stream = new Http2Stream(this, streamId, remoteInitialWindowSize, localInitialWindowSize);
+		stream.request = request;
+		streams.put(streamId, stream);
+
+		request.flags |= MUST_LOAD_BODY;
+		if (endStream) {
+			stream.remoteEnded = true;
+			request.body = ByteBuf.empty();
+		} else {
+			ChannelSupplier<ByteBuf> body = stream.createInbound();
+			if (isGzipped(fields)) {
+				body = body.transformWith(BufsConsumerGzipInflater.create());
+			}
+			request.bodyStream = body;
+		}
+		request.setProtocol(socket instanceof AsyncTcpSocketSsl ? HTTPS : HTTP);
+		request.setRemoteAddress(remoteAddress);
+
+		connection.numberOfRequests++;
+		if (inspector != null) inspector.onHttpRequest(request);
+		updatePool();
+
+		serve(stream, request);
+	}
+
+	private HttpRequest createRequest(List<byte[]> fields) throws MalformedHttpException {
+		HttpMethod method = null;
+		byte[] path = null;
+		byte[] authority = null;
+		int regularHeaders = fields.size();
+		for (int i = 0; i < fields.size(); i += 2) {
+			byte[] name = fields.get(i);
+			if (name.length == 0 || name[0] != ':') {
+				regularHeaders = i;
+				break;
+			}
+			byte[] value = fields.get(i + 1);
+			if (Arrays.equals(name, METHOD)) {
+				method = getHttpMethod(value);
+			} else if (Arrays.equals(name, PATH)) {
+				path = value;
+			} else if (Arrays.equals(name, AUTHORITY)) {
+				authority = value;
+			} else if (!Arrays.equals(name, SCHEME)) {
+				throw new MalformedHttpException("Unknown pseudo-header");
+			}
+		}
+		if (method == null || path == null || path.length == 0) {
+			throw new MalformedHttpException("Mandatory pseudo-headers are missing");
+		}
+
+		HttpRequest request = new HttpRequest(HTTP_2_0, method, UrlParser.parse(path, 0, path.length), connection);
+		request.maxBodySize = connection.maxBodySize;
+		if (authority != null) {
+			request.addHeader(HOST, authority);
+		}
+		try {
+			addHeaders(request, fields, regularHeaders);
+		} catch (MalformedHttpException e) {
+			request.recycle();
+			throw e;
+		}
+		return request;
+	}
+
+	private static HttpMethod getHttpMethod(byte[] value) throws MalformedHttpException {
+		for (HttpMethod method : HttpMethod.values()) {
+			if (method.compareTo(value, 0, value.length)) {
+				return method;
+			}
+		}
+		throw new MalformedHttpException("Unknown HTTP method");
+	}
+
+	private void serve(Http2Stream stream, HttpRequest request) {
+		Promise<HttpResponse> servletResult;
+		try {
+			servletResult = servlet.serveAsync(request);
+		} catch (Exception e) {
+			servletResult = Promise.ofException(e);
+		}
+		servletResult.run((response, e) -> {
+			if (stream.closed || isClosed()) {
+				request.recycle();
+				if (response != null) {
+					response.recycleBody();
+				}
+				return;
+			}
+			if (e == null) {
+				if (inspector != null) inspector.onHttpResponse(request, response);
+				if (server.compression != null) server.compression.compress(request, response);
+			} else {
+				if (inspector != null) inspector.onServletException(request, e);
+				response = server.formatHttpError(e);
+			}
+			request.recycle();
+			ByteBuf block = hpackEncoder.beginHeaderBlock(ByteBufPool.allocate(256));
+			int code = response.getCode();
+			block = hpackEncoder.encodeHeader(block, STATUS, code >= 100 && code < STATUS_CODES.length ?
+					STATUS_CODES[code] :
+					encodeAscii(Integer.toString(code)));
+			writeMessage(stream, response, block);
+		});
+	}
+
+	@Override
+	protected void onStreamClosed(Http2Stream stream, @Nullable Exception e) {
+		updatePool();
+	}
+
+	@Override
+	protected void onGoAway() {
+		if (streams.isEmpty()) {
+			shutdown();
+		}
+	}
+
+	private void updatePool() {
+		if (isClosed()) return;
+		if (!streams.isEmpty()) {
+			if (connection.pool != server.poolServing) {
+				connection.switchPool(server.poolServing);
+			}
+			return;
+		}
+		if (goAwayReceived || server.keepAliveTimeoutMillis == 0 ||
+				server.maxKeepAliveRequests != 0 && connection.numberOfRequests >= server.maxKeepAliveRequests) {
+			shutdown();
+		} else {
+			connection.switchPool(server.poolKeepAlive);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Http2ServerConnection{" +
+				"remoteAddress=" + remoteAddress +
+				", " + super.toString() +
+				'}';
+	}
+}
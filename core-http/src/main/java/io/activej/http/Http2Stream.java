@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufs;
+import io.activej.csp.AbstractChannelSupplier;
+import io.activej.csp.ChannelSupplier;
+import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single HTTP/2 stream, carrying one request and its response.
+ */
+final class Http2Stream {
+	final AbstractHttp2Connection connection;
+	final int id;
+
+	int sendWindow;
+	int recvWindow;
+	int recvUnacknowledged;
+
+	@Nullable ByteBuf pendingData;
+	boolean pendingEnd;
+	@Nullable ChannelSupplier<ByteBuf> outbound;
+	boolean blocked;
+
+	@Nullable Inbound inbound;
+
+	boolean localEnded;
+	boolean remoteEnded;
+	boolean closed;
+
+	// server side
+	@Nullable HttpRequest request;
+
+	// client side
+	@Nullable SettablePromise<HttpResponse> promise;
+	@Nullable HttpResponse response;
+
+	Http2Stream(AbstractHttp2Connection connection, int id, int sendWindow, int recvWindow) {
+		this.connection = connection;
+		this.id = id;
+		this.sendWindow = sendWindow;
+		this.recvWindow = recvWindow;
+	}
+
+	Inbound createInbound() {
+		return inbound = new Inbound();
+	}
+
+	/**
+	 * A body stream of DATA frames received over this stream.
+	 * Flow control window is given back to the peer as the data is taken by the consumer.
+	 */
+	final class Inbound extends AbstractChannelSupplier<ByteBuf> {
+		private final ByteBufs bufs = new ByteBufs();
+		private boolean ended;
+		private @Nullable SettablePromise<ByteBuf> take;
+
+		void put(ByteBuf buf) {
+			if (isClosed()) {
+				connection.onConsumed(Http2Stream.this, buf.readRemaining());
+				buf.recycle();
+				return;
+			}
+			if (take != null) {
+				SettablePromise<ByteBuf> take = this.take;
+				this.take = null;
+				connection.onConsumed(Http2Stream.this, buf.readRemaining());
+				take.set(buf);
+				return;
+			}
+			bufs.add(buf);
+		}
+
+		void end() {
+			ended = true;
+			if (take != null) {
+				SettablePromise<ByteBuf> take = this.take;
+				this.take = null;
+				take.set(null);
+			}
+		}
+
+		@Override
+		protected Promise<ByteBuf> doGet() {
+			if (bufs.hasRemaining()) {
+				ByteBuf buf = bufs.takeRemaining();
+				connection.onConsumed(Http2Stream.this, buf.readRemaining());
+				return Promise.of(buf);
+			}
+			if (ended) {
+				return Promise.of(null);
+			}
+			take = new SettablePromise<>();
+			return take;
+		}
+
+		@Override
+		protected void onClosed(@NotNull Exception e) {
+			int remaining = bufs.remainingBytes();
+			bufs.recycle();
+			if (remaining != 0) {
+				connection.onConsumed(Http2Stream.this, remaining);
+			}
+			if (take != null) {
+				SettablePromise<ByteBuf> take = this.take;
+				this.take = null;
+				take.setException(e);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Http2Stream{" +
+				"id=" + id +
+				", sendWindow=" + sendWindow +
+				", recvWindow=" + recvWindow +
+				", localEnded=" + localEnded +
+				", remoteEnded=" + remoteEnded +
+				", closed=" + closed +
+				'}';
+	}
+}
@@ -33,6 +33,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
 
 import static io.activej.bytebuf.ByteBufStrings.SP;
 import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
@@ -100,6 +101,12 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 	private final AsyncHttpClient client;
 	private final @Nullable Inspector inspector;
 
+	private @Nullable Http2ClientConnection http2;
+
+	// promises of requests that were sent after the one being currently received
+	private @Nullable ArrayDeque<SettablePromise<HttpResponse>> pipeline;
+	private boolean pipelinable;
+
 	final InetSocketAddress remoteAddress;
 	@Nullable HttpClientConnection addressPrev;
 	HttpClientConnection addressNext;
@@ -121,6 +128,10 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 		return remoteAddress;
 	}
 
+	public boolean isHttp2() {
+		return http2 != null;
+	}
+
 	@Override
 	protected void readMessage() throws MalformedHttpException {
 		readStartLine();
@@ -128,12 +139,14 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 
 	@Override
 	protected void onClosedWithError(@NotNull Exception e) {
+		if (http2 != null) http2.onClosed(e);
 		if (inspector != null) inspector.onHttpError(this, e);
 		if (promise != null) {
 			SettablePromise<HttpResponse> promise = this.promise;
 			this.promise = null;
 			promise.setException(e);
 		}
+		failPipeline(e);
 	}
 
 	@Override
@@ -182,7 +195,11 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 	protected void onHeader(HttpHeader header, byte[] array, int off, int len) throws MalformedHttpException {
 		assert response != null;
 		if (response.headers.size() >= MAX_HEADERS) throw new MalformedHttpException("Too many headers");
-		response.addHeader(header, array, off, len);
+		if (LAZY_HEADERS) {
+			response.addRawHeader(header, array, off, len);
+		} else {
+			response.addHeader(header, array, off, len);
+		}
 	}
 
 	@Override
@@ -356,6 +373,18 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 			readBuf = null;
 		}
 
+		if (pipeline != null && !pipeline.isEmpty()) {
+			if ((flags & KEEP_ALIVE) != 0 && ((flags & CHUNKED) != 0 || contentLength != UNSET_CONTENT_LENGTH)) {
+				// pipelined requests have been written already
+				flags = BODY_SENT;
+				promise = pipeline.poll();
+				readHttpResponse();
+			} else {
+				close();
+			}
+			return;
+		}
+
 		if ((flags & KEEP_ALIVE) != 0 &&
 				client.keepAliveTimeoutMillis != 0 &&
 				((flags & CHUNKED) != 0 || contentLength != UNSET_CONTENT_LENGTH)) {
@@ -397,6 +426,7 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 			connectionHeader = CONNECTION_CLOSE_HEADER;
 		}
 		request.addHeader(CONNECTION, connectionHeader);
+		pipelinable = connectionHeader == CONNECTION_KEEP_ALIVE_HEADER && isPipelinable(request);
 		ByteBuf buf = renderHttpMessage(request);
 		if (buf != null) {
 			writeBuf(buf);
@@ -409,19 +439,102 @@ public final class HttpClientConnection extends AbstractHttpConnection {
 		return promise;
 	}
 
+	/**
+	 * Only idempotent requests with a fully buffered body may be pipelined (RFC 7230, section 6.3.2)
+	 * <p>
+	 * HEAD requests are not pipelined, as a response to them may carry a {@code Content-Length}
+	 * without a body, and the response parser does not know which request a response belongs to
+	 */
+	static boolean isPipelinable(HttpRequest request) {
+		HttpMethod method = request.getMethod();
+		return request.bodyStream == null &&
+				(method == HttpMethod.GET || method == HttpMethod.PUT ||
+						method == HttpMethod.DELETE || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE);
+	}
+
+	/**
+	 * Whether another request may be pipelined after those which are being processed
+	 */
+	boolean canPipeline() {
+		return pipelinable && !isClosed() && pool == client.poolReadWrite &&
+				(pipeline == null ? 0 : pipeline.size()) + 1 < client.pipeliningDepth;
+	}
+
+	/**
+	 * Writes the request without waiting for responses to the previous ones.
+	 * Responses are matched to requests in the order the requests were sent.
+	 *
+	 * @param request request for sending, must be {@link #isPipelinable pipelinable}
+	 */
+	Promise<HttpResponse> sendPipelined(HttpRequest request) {
+		assert canPipeline() && isPipelinable(request);
+		SettablePromise<HttpResponse> promise = new SettablePromise<>();
+		if (pipeline == null) pipeline = new ArrayDeque<>();
+		pipeline.add(promise);
+		HttpHeaderValue connectionHeader = CONNECTION_KEEP_ALIVE_HEADER;
+		if (++numberOfRequests >= client.maxKeepAliveRequests && client.maxKeepAliveRequests != 0) {
+			connectionHeader = CONNECTION_CLOSE_HEADER;
+			pipelinable = false;
+		}
+		request.addHeader(CONNECTION, connectionHeader);
+		ByteBuf buf = renderHttpMessage(request);
+		assert buf != null;
+		socket.write(buf)
+				.whenException(e -> closeWithError(translateToHttpException(e)));
+		return promise;
+	}
+
+	private void failPipeline(Exception e) {
+		if (pipeline == null) return;
+		while (!pipeline.isEmpty()) {
+			pipeline.poll().setException(e);
+		}
+	}
+
+	/**
+	 * Starts HTTP/2 with prior knowledge over this connection
+	 */
+	void startHttp2() {
+		assert !isClosed() && http2 == null;
+		http2 = new Http2ClientConnection(this, client);
+		(pool = client.poolReadWrite).addLastNode(this);
+		poolTimestamp = eventloop.currentTimeMillis();
+		http2.start(null);
+	}
+
+	boolean isHttp2Available() {
+		return http2 != null && http2.isAvailable();
+	}
+
+	/**
+	 * Sends the request over a new HTTP/2 stream of this connection
+	 *
+	 * @param request request for sending
+	 */
+	Promise<HttpResponse> sendHttp2(HttpRequest request) {
+		assert http2 != null;
+		return http2.send(request);
+	}
+
 	/**
 	 * After closing this connection it removes it from its connections cache and recycles
 	 * Http response.
 	 */
 	@Override
 	protected void onClosed() {
+		if (http2 != null) {
+			http2.onClosed();
+			client.removeHttp2Connection(this);
+		}
 		if (inspector != null) inspector.onDisconnect(this);
 		if (promise != null) {
 			SettablePromise<HttpResponse> promise = this.promise;
 			this.promise = null;
 			promise.setException(new AsyncCloseException("Connection closed"));
 		}
-		if (pool == client.poolKeepAlive) {
+		failPipeline(new AsyncCloseException("Connection closed"));
+		client.removePipelinedConnection(this);
+		if (pool == client.poolKeepAlive && http2 == null) {
 			AddressLinkedList addresses = client.addresses.get(remoteAddress);
 			addresses.removeNode(this);
 			if (addresses.isEmpty()) {
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.common.ApplicationSettings;
+import io.activej.common.MemSize;
+import io.activej.csp.ChannelSupplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.common.Checks.checkArgument;
+import static io.activej.http.HttpHeaders.*;
+import static java.util.Arrays.asList;
+
+/**
+ * A policy of compression of HTTP responses, negotiated by {@code Accept-Encoding} request header.
+ * <p>
+ * A response is compressed only if:
+ * <ul>
+ *     <li>it is not encoded yet and it is not a partial content</li>
+ *     <li>its media type is compressible, by default textual types are</li>
+ *     <li>its body is not smaller than a minimum size, or it is a stream of unknown length</li>
+ *     <li>a client accepts one of the {@link ContentEncoder encoders}, which are tried in order of the client's preference,
+ *     and then in order they are specified in</li>
+ * </ul>
+ * Body streams of known length (such as files) are not compressed, so that they still may be sent without copying.
+ *
+ * @see AsyncHttpServer#withCompression(HttpCompression)
+ */
+public final class HttpCompression {
+	public static final MemSize MIN_SIZE = ApplicationSettings.getMemSize(HttpCompression.class, "minSize", MemSize.kilobytes(1));
+
+	private static final HttpHeaderValue VARY_ACCEPT_ENCODING = HttpHeaderValue.ofBytes(encodeAscii("Accept-Encoding"));
+
+	private final List<ContentEncoder> encoders = new ArrayList<>();
+	private final List<HttpHeaderValue> encoderNames = new ArrayList<>();
+	private int minSize = MIN_SIZE.toInt();
+	private Predicate<String> mediaTypes = HttpCompression::isCompressible;
+
+	// region builders
+	private HttpCompression() {
+		withEncoders(ContentEncoders.gzip(), ContentEncoders.deflate());
+	}
+
+	/**
+	 * Creates a compression policy which uses {@link ContentEncoders#gzip() gzip}
+	 * and {@link ContentEncoders#deflate() deflate} encoders, unless other encoders are specified
+	 */
+	public static HttpCompression create() {
+		return new HttpCompression();
+	}
+
+	public HttpCompression withEncoders(ContentEncoder... encoders) {
+		return withEncoders(asList(encoders));
+	}
+
+	public HttpCompression withEncoders(List<ContentEncoder> encoders) {
+		checkArgument(!encoders.isEmpty(), "No encoders specified");
+		this.encoders.clear();
+		this.encoderNames.clear();
+		for (ContentEncoder encoder : encoders) {
+			this.encoders.add(encoder);
+			this.encoderNames.add(HttpHeaderValue.of(encoder.getName()));
+		}
+		return this;
+	}
+
+	public HttpCompression withMinSize(MemSize minSize) {
+		this.minSize = minSize.toInt();
+		return this;
+	}
+
+	/**
+	 * Sets a predicate of media types (lower case, without parameters, e.g. {@code application/json})
+	 * whose bodies should be compressed
+	 */
+	public HttpCompression withMediaTypes(Predicate<String> mediaTypes) {
+		this.mediaTypes = mediaTypes;
+		return this;
+	}
+	// endregion
+
+	/**
+	 * Returns whether a media type is a textual one, which compresses well.
+	 * Images, audio, video, fonts and archives are already compressed
+	 */
+	public static boolean isCompressible(@NotNull String mediaType) {
+		return mediaType.startsWith("text/") ||
+				mediaType.endsWith("/json") || mediaType.endsWith("+json") ||
+				mediaType.endsWith("/xml") || mediaType.endsWith("+xml") ||
+				mediaType.endsWith("/javascript") || mediaType.endsWith("/x-javascript") ||
+				mediaType.equals("application/x-www-form-urlencoded") ||
+				mediaType.equals("application/wasm");
+	}
+
+	void compress(HttpRequest request, HttpResponse response) {
+		if ((response.flags & HttpMessage.USE_GZIP) != 0 || response.headers.get(CONTENT_ENCODING) != null) return;
+		int code = response.getCode();
+		if (code < 200 || code == 204 || code == 206 || code == 304 || request.getMethod() == HttpMethod.HEAD) return;
+
+		ByteBuf body = response.body;
+		ChannelSupplier<ByteBuf> bodyStream = response.bodyStream;
+		if (body != null) {
+			if (body.readRemaining() < minSize) return;
+		} else if (bodyStream == null || response.headers.get(CONTENT_LENGTH) != null) {
+			return;
+		}
+
+		String contentType = response.getHeader(CONTENT_TYPE);
+		if (contentType == null || !mediaTypes.test(toMediaType(contentType))) return;
+
+		if (response.headers.get(VARY) == null) {
+			response.addHeader(VARY, VARY_ACCEPT_ENCODING);
+		}
+		int index = negotiate(request.getHeader(ACCEPT_ENCODING));
+		if (index == -1) return;
+
+		ContentEncoder encoder = encoders.get(index);
+		response.addHeader(CONTENT_ENCODING, encoderNames.get(index));
+		if (body != null) {
+			response.body = encoder.encode(body);
+		} else {
+			response.bodyStream = encoder.encode(bodyStream);
+		}
+	}
+
+	private int negotiate(@Nullable String acceptEncoding) {
+		if (acceptEncoding == null) return -1;
+		int best = -1;
+		float bestQuality = 0;
+		for (int i = 0; i < encoders.size(); i++) {
+			float quality = getQuality(acceptEncoding, encoders.get(i).getName());
+			if (quality > bestQuality) {
+				best = i;
+				bestQuality = quality;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns a quality value of a given coding in {@code Accept-Encoding} header, or 0 if it is not acceptable
+	 */
+	static float getQuality(String acceptEncoding, String coding) {
+		float wildcardQuality = 0;
+		int length = acceptEncoding.length();
+		int pos = 0;
+		while (pos < length) {
+			int end = acceptEncoding.indexOf(',', pos);
+			if (end == -1) end = length;
+			int tokenEnd = acceptEncoding.indexOf(';', pos);
+			if (tokenEnd == -1 || tokenEnd > end) tokenEnd = end;
+
+			int tokenStart = skipSpaces(acceptEncoding, pos, tokenEnd);
+			while (tokenEnd > tokenStart && acceptEncoding.charAt(tokenEnd - 1) == ' ') tokenEnd--;
+			float quality = parseQuality(acceptEncoding, tokenEnd, end);
+
+			int tokenLength = tokenEnd - tokenStart;
+			if (tokenLength == coding.length() && acceptEncoding.regionMatches(true, tokenStart, coding, 0, tokenLength)) {
+				return quality;
+			}
+			if (tokenLength == 1 && acceptEncoding.charAt(tokenStart) == '*') {
+				wildcardQuality = quality;
+			}
+			pos = end + 1;
+		}
+		return wildcardQuality;
+	}
+
+	private static float parseQuality(String acceptEncoding, int from, int to) {
+		int q = acceptEncoding.indexOf("q=", from);
+		if (q == -1 || q >= to) return 1;
+		try {
+			return Float.parseFloat(acceptEncoding.substring(q + 2, to).trim());
+		} catch (NumberFormatException ignored) {
+			return 0;
+		}
+	}
+
+	private static int skipSpaces(String string, int from, int to) {
+		while (from < to && string.charAt(from) == ' ') from++;
+		return from;
+	}
+
+	private static String toMediaType(String contentType) {
+		int end = contentType.indexOf(';');
+		return (end == -1 ? contentType : contentType.substring(0, end)).trim().toLowerCase();
+	}
+}
@@ -40,6 +40,19 @@ public final class HttpHeader extends Token {
 		return length + offset;
 	}
 
+	/**
+	 * Returns a lower case name of this header, as required by HTTP/2
+	 */
+	byte[] lowerCaseBytes() {
+		if (lowerCase != null) return lowerCase;
+		byte[] result = new byte[length];
+		for (int i = 0; i < length; i++) {
+			byte b = bytes[offset + i];
+			result[i] = b >= 'A' && b <= 'Z' ? (byte) (b + 'a' - 'A') : b;
+		}
+		return result;
+	}
+
 	@Override
 	public int hashCode() {
 		return hashCodeCI;
@@ -29,12 +29,45 @@ final class HttpHeadersMultimap<K, V> {
 	Object[] kvPairs = new Object[INITIAL_SIZE];
 	int size;
 
+	/**
+	 * Offsets and lengths of values within {@link #rawArray}, for pairs whose values are not materialized yet
+	 */
+	int @Nullable [] rawValues;
+	byte @Nullable [] rawArray;
+
 	@Contract(pure = true)
 	public int size() {
 		return size;
 	}
 
 	public void add(@NotNull K key, @NotNull V value) {
+		int i = slotFor(key);
+		kvPairs[i + 1] = value;
+	}
+
+	/**
+	 * Adds a header whose value is a region of a given array.
+	 * The value is materialized only when it is accessed,
+	 * so the array must not be changed as long as this multimap is in use.
+	 * <p>
+	 * All raw values are expected to share a single array, otherwise the value is materialized at once
+	 */
+	@SuppressWarnings("unchecked")
+	void addRaw(@NotNull K key, byte[] array, int offset, int length) {
+		if (rawArray != null && rawArray != array) {
+			add(key, (V) HttpHeaderValue.ofBytes(array, offset, length));
+			return;
+		}
+		rawArray = array;
+		int i = slotFor(key);
+		if (rawValues == null) {
+			rawValues = new int[kvPairs.length];
+		}
+		rawValues[i] = offset;
+		rawValues[i + 1] = length;
+	}
+
+	private int slotFor(@NotNull K key) {
 		if (size++ > kvPairs.length / 4) {
 			resize();
 		}
@@ -44,8 +77,7 @@ final class HttpHeadersMultimap<K, V> {
 		for (int i = key.hashCode() & (kvPairs.length - 2); ; i = (i + 2) & (kvPairs.length - 2)) {
 			if (kvPairs[i] == null) {
 				kvPairs[i] = key;
-				kvPairs[i + 1] = value;
-				return;
+				return i;
 			}
 		}
 	}
@@ -53,16 +85,39 @@ final class HttpHeadersMultimap<K, V> {
 	@SuppressWarnings("unchecked")
 	private void resize() {
 		Object[] oldKvPairs = this.kvPairs;
+		int[] oldRawValues = this.rawValues;
 		this.kvPairs = new Object[this.kvPairs.length * 4];
+		this.rawValues = oldRawValues != null ? new int[this.kvPairs.length] : null;
 		for (int i = 0; i != oldKvPairs.length; i += 2) {
 			K k = (K) oldKvPairs[i];
 			if (k != null) {
 				V v = (V) oldKvPairs[i + 1];
-				add(k, v);
+				int slot = slotFor(k);
+				if (v != null) {
+					kvPairs[slot + 1] = v;
+				} else {
+					assert oldRawValues != null && rawValues != null;
+					rawValues[slot] = oldRawValues[i];
+					rawValues[slot + 1] = oldRawValues[i + 1];
+				}
 			}
 		}
 	}
 
+	/**
+	 * Returns a value of a pair at given index of {@link #kvPairs}, materializing it if needed
+	 */
+	@SuppressWarnings("unchecked")
+	V valueAt(int i) {
+		Object v = kvPairs[i + 1];
+		if (v == null) {
+			assert rawArray != null && rawValues != null;
+			v = HttpHeaderValue.ofBytes(rawArray, rawValues[i], rawValues[i + 1]);
+			kvPairs[i + 1] = v;
+		}
+		return (V) v;
+	}
+
 	@Contract(pure = true)
 	@SuppressWarnings("unchecked")
 	public @Nullable V get(@NotNull K key) {
@@ -72,7 +127,7 @@ final class HttpHeadersMultimap<K, V> {
 				return null;
 			}
 			if (k.equals(key)) {
-				return (V) kvPairs[i + 1];
+				return valueAt(i);
 			}
 		}
 	}
@@ -99,7 +154,7 @@ final class HttpHeadersMultimap<K, V> {
 							K k = (K) kvPairs[i];
 							if (k != null) {
 								this.k = k;
-								this.v = (V) kvPairs[i + 1];
+								this.v = valueAt(i);
 								i += 2;
 								return;
 							}
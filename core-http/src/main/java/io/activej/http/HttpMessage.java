@@ -102,6 +102,14 @@ public abstract class HttpMessage {
 		headers.add(header, value);
 	}
 
+	/**
+	 * Adds a header whose value is decoded lazily from a given array, when it is first accessed
+	 */
+	void addRawHeader(@NotNull HttpHeader header, byte[] array, int off, int len) {
+		if (CHECK) checkState(!isRecycled());
+		headers.addRaw(header, array, off, len);
+	}
+
 	public final Collection<Map.Entry<HttpHeader, HttpHeaderValue>> getHeaders() {
 		if (CHECK) checkState(!isRecycled());
 		return headers.getEntries();
@@ -117,7 +125,7 @@ public abstract class HttpMessage {
 			}
 			if (k.equals(header)) {
 				try {
-					decoder.decode(((HttpHeaderValue) headers.kvPairs[i + 1]).getBuf(), list);
+					decoder.decode(headers.valueAt(i).getBuf(), list);
 				} catch (MalformedHttpException ignored) {
 				}
 			}
@@ -437,7 +445,7 @@ public abstract class HttpMessage {
 		for (int i = 0; i < headers.kvPairs.length - 1; i += 2) {
 			HttpHeader k = (HttpHeader) headers.kvPairs[i];
 			if (k != null) {
-				HttpHeaderValue v = (HttpHeaderValue) headers.kvPairs[i + 1];
+				HttpHeaderValue v = headers.valueAt(i);
 				array[offset++] = CR;
 				array[offset++] = LF;
 				offset = k.writeTo(array, offset);
@@ -460,7 +468,7 @@ public abstract class HttpMessage {
 		for (int i = 0; i < headers.kvPairs.length - 1; i += 2) {
 			HttpHeader k = (HttpHeader) headers.kvPairs[i];
 			if (k != null) {
-				HttpHeaderValue v = (HttpHeaderValue) headers.kvPairs[i + 1];
+				HttpHeaderValue v = headers.valueAt(i);
 				// CR,LF,header,": ",value
 				size += 2 + k.size() + 2 + v.estimateSize();
 			}
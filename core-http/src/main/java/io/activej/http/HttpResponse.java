@@ -200,8 +200,19 @@ public final class HttpResponse extends HttpMessage implements Promisable<HttpRe
 		}
 
 		response.addHeader(CONTENT_TYPE, HttpHeaderValue.ofContentType(ContentType.of(mediaType)));
-		response.addHeader(ACCEPT_RANGES, "bytes");
 		response.addHeader(CONTENT_DISPOSITION, inline ? "inline" : "attachment; filename=\"" + localName + "\"");
+		return withFileSlice(response, downloader, size, rangeHeader);
+	}
+
+	/**
+	 * Sets a body of the response to a slice of a file requested by a given range header
+	 * (or to the whole file if there is no range header).
+	 * <p>
+	 * A body stream of the file slice is obtained before the response is returned,
+	 * so that a file which is backed by a local file channel may be sent to the network directly.
+	 */
+	static @NotNull Promise<HttpResponse> withFileSlice(HttpResponse response, FileSliceSupplier downloader, long size, @Nullable String rangeHeader) {
+		response.addHeader(ACCEPT_RANGES, "bytes");
 
 		long contentLength, offset;
 		if (rangeHeader != null) {
@@ -218,15 +229,15 @@ public final class HttpResponse extends HttpMessage implements Promisable<HttpRe
 				if (parts[1].isEmpty()) {
 					return Promise.ofException(HttpError.ofCode(416, "Invalid range"));
 				}
-				offset = size - Long.parseLong(parts[1]);
-				endOffset = size;
+				offset = Math.max(0, size - Long.parseLong(parts[1]));
+				endOffset = size - 1;
 			} else {
 				if (parts[1].isEmpty()) {
 					offset = Long.parseLong(parts[0]);
 					endOffset = size - 1;
 				} else {
 					offset = Long.parseLong(parts[0]);
-					endOffset = Long.parseLong(parts[1]);
+					endOffset = Math.min(Long.parseLong(parts[1]), size - 1);
 				}
 			}
 			if (endOffset != -1 && offset > endOffset) {
@@ -239,8 +250,11 @@ public final class HttpResponse extends HttpMessage implements Promisable<HttpRe
 			offset = 0;
 		}
 		response.addHeader(CONTENT_LENGTH, Long.toString(contentLength));
-		response.setBodyStream(ChannelSupplier.ofPromise(downloader.getFileSlice(offset, contentLength)));
-		return Promise.of(response);
+		return downloader.getFileSlice(offset, contentLength)
+				.map(supplier -> {
+					response.setBodyStream(supplier);
+					return response;
+				});
 	}
 
 	public static @NotNull Promise<HttpResponse> file(FileSliceSupplier downloader, String name, long size) {
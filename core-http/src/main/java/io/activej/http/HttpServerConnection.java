@@ -87,6 +87,8 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 
 	private @Nullable ByteBuf writeBuf;
 
+	private @Nullable Http2ServerConnection http2;
+
 	private static final byte[] EXPECT_100_CONTINUE = encodeAscii("100-continue");
 	private static final byte[] EXPECT_RESPONSE_CONTINUE = encodeAscii("HTTP/1.1 100 Continue\r\n\r\n");
 
@@ -126,8 +128,13 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 		return remoteAddress;
 	}
 
+	public boolean isHttp2() {
+		return http2 != null;
+	}
+
 	@Override
 	protected void readMessage() throws MalformedHttpException {
+		if (server.http2 && numberOfRequests == 0 && startHttp2()) return;
 		do {
 			contentLength = 0L; // RFC 7230, section 3.3.3: if no Content-Length header is set, server can assume that a length of a message is 0
 			flags = READING_MESSAGES;
@@ -144,8 +151,39 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 		}
 	}
 
+	/**
+	 * Hands the connection over to HTTP/2 if it starts with HTTP/2 connection preface
+	 *
+	 * @return {@code true} if the connection is served over HTTP/2
+	 * or if more bytes are needed to tell
+	 */
+	private boolean startHttp2() {
+		byte[] preface = AbstractHttp2Connection.PREFACE;
+		//noinspection ConstantConditions
+		int size = min(readBuf.readRemaining(), preface.length);
+		byte[] array = readBuf.array();
+		int head = readBuf.head();
+		for (int i = 0; i < size; i++) {
+			if (array[head + i] != preface[i]) return false;
+		}
+		if (size < preface.length) {
+			socket.read().run(readMessageConsumer);
+			return true;
+		}
+		readBuf.moveHead(preface.length);
+		ByteBuf buf = readBuf.canRead() ? readBuf : nullify(readBuf, ByteBuf::recycle);
+		readBuf = null;
+		stashedBufs = nullify(stashedBufs, Recyclable::recycle);
+		http2 = new Http2ServerConnection(this, server, servlet, remoteAddress);
+		http2.start(buf);
+		return true;
+	}
+
 	@Override
 	protected void onClosedWithError(@NotNull Exception e) {
+		if (http2 != null) {
+			http2.onClosed(e);
+		}
 		if (inspector != null) {
 			inspector.onHttpError(this, e);
 		}
@@ -247,7 +285,11 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 		if (request.headers.size() >= MAX_HEADERS) {
 			throw new MalformedHttpException("Too many headers");
 		}
-		request.addHeader(header, array, off, len);
+		if (LAZY_HEADERS) {
+			request.addRawHeader(header, array, off, len);
+		} else {
+			request.addHeader(header, array, off, len);
+		}
 	}
 
 	private void writeHttpResponse(HttpResponse httpResponse) {
@@ -370,6 +412,9 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 				if (inspector != null) {
 					inspector.onHttpResponse(request, response);
 				}
+				if (server.compression != null) {
+					server.compression.compress(request, response);
+				}
 				recycle();
 				writeHttpResponse(response);
 			} else {
@@ -457,6 +502,9 @@ public final class HttpServerConnection extends AbstractHttpConnection {
 
 	@Override
 	protected void onClosed() {
+		if (http2 != null) {
+			http2.onClosed();
+		}
 		if (pool != server.poolServing) {
 			request = nullify(request, HttpMessage::recycle);
 			readBuf = nullify(readBuf, ByteBuf::recycle);
@@ -40,7 +40,7 @@ public final class RoutingServlet implements AsyncServlet, WithInitializer<Routi
 	private static final String STAR = "*";
 	private static final String WILDCARD = "/" + STAR;
 
-	private static final int WS_ORDINAL = HttpMethod.values().length;
+	static final int WS_ORDINAL = HttpMethod.values().length;
 	private static final int ANY_HTTP_ORDINAL = WS_ORDINAL + 1;
 
 	private final AsyncServlet[] rootServlets = new AsyncServlet[ANY_HTTP_ORDINAL + 1];
@@ -150,6 +150,35 @@ public final class RoutingServlet implements AsyncServlet, WithInitializer<Routi
 		return merged;
 	}
 
+	/**
+	 * Compiles this servlet into an immutable servlet, which routes requests faster.
+	 * Subsequent changes of this servlet do not affect the compiled one.
+	 */
+	@Contract("-> new")
+	public CompiledRoutingServlet compile() {
+		return new CompiledRoutingServlet(compileNode());
+	}
+
+	private CompiledRoutingServlet.Node compileNode() {
+		AsyncServlet[] compiledRootServlets = new AsyncServlet[WS_ORDINAL + 1];
+		AsyncServlet[] compiledFallbackServlets = new AsyncServlet[WS_ORDINAL + 1];
+		for (int i = 0; i <= WS_ORDINAL; i++) {
+			compiledRootServlets[i] = getOrDefault(rootServlets, i);
+			compiledFallbackServlets[i] = getOrDefault(fallbackServlets, i);
+		}
+		Map<String, CompiledRoutingServlet.Node> compiledRoutes = new HashMap<>();
+		routes.forEach((route, subtree) -> compiledRoutes.put(route, subtree.compileNode()));
+		String[] parameterNames = new String[parameters.size()];
+		CompiledRoutingServlet.Node[] parameterNodes = new CompiledRoutingServlet.Node[parameters.size()];
+		int i = 0;
+		for (Entry<String, RoutingServlet> entry : parameters.entrySet()) {
+			parameterNames[i] = entry.getKey();
+			parameterNodes[i++] = entry.getValue().compileNode();
+		}
+		return new CompiledRoutingServlet.Node(compiledRootServlets, compiledFallbackServlets,
+				compiledRoutes, parameterNames, parameterNodes);
+	}
+
 	@Override
 	public @NotNull Promise<HttpResponse> serve(@NotNull HttpRequest request) throws Exception {
 		Promise<HttpResponse> processed = tryServe(request);
@@ -18,26 +18,32 @@ package io.activej.http;
 
 import io.activej.async.function.AsyncSupplier;
 import io.activej.bytebuf.ByteBuf;
+import io.activej.csp.file.ChannelFileReader;
 import io.activej.http.loader.ResourceIsADirectoryException;
 import io.activej.http.loader.ResourceNotFoundException;
 import io.activej.http.loader.StaticLoader;
+import io.activej.http.loader.StaticLoaderFileReader;
+import io.activej.http.loader.StaticLoaderLruCache;
+import io.activej.http.loader.StaticResource;
 import io.activej.promise.Promise;
 import io.activej.promise.Promises;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static io.activej.http.HttpHeaderValue.ofContentType;
-import static io.activej.http.HttpHeaders.CONTENT_TYPE;
+import static io.activej.http.HttpHeaders.*;
 
 /**
  * This servlet allows return HTTP responses by HTTP paths from some predefined storage, mainly the filesystem.
@@ -145,6 +151,78 @@ public final class StaticServlet implements AsyncServlet {
 				.withHeader(CONTENT_TYPE, ofContentType(contentType));
 	}
 
+	private Promise<HttpResponse> loadHttpResponse(HttpRequest request, String path, ContentType contentType) {
+		if (resourceLoader instanceof StaticLoaderLruCache) {
+			return ((StaticLoaderLruCache) resourceLoader).loadResource(path)
+					.map(resource -> createHttpResponse(request, resource, contentType));
+		}
+		if (resourceLoader instanceof StaticLoaderFileReader) {
+			// files are not read into memory, they are sent to network directly
+			return ((StaticLoaderFileReader) resourceLoader).open(path)
+					.then(reader -> createHttpResponse(request, reader, contentType));
+		}
+		return resourceLoader.load(path)
+				.map(byteBuf -> createHttpResponse(byteBuf, contentType));
+	}
+
+	private Promise<HttpResponse> createHttpResponse(HttpRequest request, ChannelFileReader reader, ContentType contentType) {
+		long size;
+		try {
+			size = reader.getChannel().size();
+		} catch (IOException e) {
+			reader.closeEx(e);
+			return Promise.ofException(e);
+		}
+		String rangeHeader = request.getHeader(RANGE);
+		HttpResponse response = responseSupplier.get();
+		if (rangeHeader != null) {
+			response = toPartialResponse(response);
+		}
+		response.addHeader(CONTENT_TYPE, ofContentType(contentType));
+		return HttpResponse.withFileSlice(response,
+						(offset, limit) -> {
+							reader.advance(offset);
+							return Promise.of(reader.withLimit(limit));
+						},
+						size, rangeHeader)
+				.whenException(e -> reader.closeEx(e));
+	}
+
+	/**
+	 * A code of a response cannot be changed, so headers of a configured response are copied to a 206 response
+	 */
+	private static HttpResponse toPartialResponse(HttpResponse response) {
+		HttpResponse partialResponse = HttpResponse.ofCode(206);
+		for (Map.Entry<HttpHeader, HttpHeaderValue> entry : response.getHeaders()) {
+			partialResponse.addHeader(entry.getKey(), entry.getValue());
+		}
+		response.recycle();
+		return partialResponse;
+	}
+
+	private HttpResponse createHttpResponse(HttpRequest request, StaticResource resource, ContentType contentType) {
+		String eTag = resource.getETag();
+		String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+		if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(eTag))) {
+			return HttpResponse.ofCode(304)
+					.withHeader(ETAG, eTag);
+		}
+		HttpResponse response = responseSupplier.get()
+				.withHeader(CONTENT_TYPE, ofContentType(contentType))
+				.withHeader(ETAG, eTag);
+		if (resource.hasGzippedVariant()) {
+			response.addHeader(VARY, "Accept-Encoding");
+			String acceptEncoding = request.getHeader(ACCEPT_ENCODING);
+			if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+				//noinspection ConstantConditions
+				return response
+						.withHeader(CONTENT_ENCODING, "gzip")
+						.withBody(resource.getGzippedBuf());
+			}
+		}
+		return response.withBody(resource.getBuf());
+	}
+
 	@Override
 	public @NotNull Promise<HttpResponse> serve(@NotNull HttpRequest request) {
 		String mappedPath = pathMapper.apply(request);
@@ -152,36 +230,33 @@ public final class StaticServlet implements AsyncServlet {
 		ContentType contentType = contentTypeResolver.apply(mappedPath);
 		return Promise.complete()
 				.then(() -> (mappedPath.endsWith("/") || mappedPath.isEmpty()) ?
-						tryLoadIndexResource(mappedPath) :
-						resourceLoader.load(mappedPath)
-								.map(byteBuf -> createHttpResponse(byteBuf, contentType))
+						tryLoadIndexResource(request, mappedPath) :
+						loadHttpResponse(request, mappedPath, contentType)
 								.then((value, e) -> {
 									if (e instanceof ResourceIsADirectoryException) {
-										return tryLoadIndexResource(mappedPath);
+										return tryLoadIndexResource(request, mappedPath);
 									} else {
 										return Promise.of(value, e);
 									}
 								}))
 				.then(Promise::of, e ->
 						e instanceof ResourceNotFoundException ?
-								tryLoadDefaultResource() :
-								Promise.ofException(HttpError.ofCode(400, e)));
+								tryLoadDefaultResource(request) :
+								Promise.ofException(e instanceof HttpError ? e : HttpError.ofCode(400, e)));
 	}
 
-	private @NotNull Promise<HttpResponse> tryLoadIndexResource(String mappedPath) {
+	private @NotNull Promise<HttpResponse> tryLoadIndexResource(HttpRequest request, String mappedPath) {
 		String dirPath = mappedPath.endsWith("/") || mappedPath.isEmpty() ? mappedPath : (mappedPath + '/');
 		return Promises.first(
 						indexResources.stream()
 								.map(indexResource -> AsyncSupplier.of(() ->
-										resourceLoader.load(dirPath + indexResource)
-												.map(byteBuf -> createHttpResponse(byteBuf, contentTypeResolver.apply(indexResource))))))
+										loadHttpResponse(request, dirPath + indexResource, contentTypeResolver.apply(indexResource)))))
 				.mapException(e -> new ResourceNotFoundException("Could not find '" + mappedPath + '\'', e));
 	}
 
-	private @NotNull Promise<? extends HttpResponse> tryLoadDefaultResource() {
+	private @NotNull Promise<? extends HttpResponse> tryLoadDefaultResource(HttpRequest request) {
 		return defaultResource != null ?
-				resourceLoader.load(defaultResource)
-						.map(buf -> createHttpResponse(buf, contentTypeResolver.apply(defaultResource))) :
+				loadHttpResponse(request, defaultResource, contentTypeResolver.apply(defaultResource)) :
 				Promise.ofException(HttpError.notFound404());
 	}
 }
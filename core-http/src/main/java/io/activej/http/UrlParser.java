@@ -484,6 +484,37 @@ public final class UrlParser {
 		}
 	}
 
+	/**
+	 * Same as {@link #pollUrlPart()}, but instead of decoding a part
+	 * returns its end within a raw URL, the part starts right after the position preceding this call.
+	 *
+	 * @return the end of the polled part or -1 if there are no more parts
+	 */
+	int pollUrlPartEnd() {
+		if (pos >= pathEnd) {
+			return -1;
+		}
+		int nextSlash = indexOf(SLASH, pos + 1);
+		if (nextSlash == -1) {
+			pos = limit;
+			return pathEnd;
+		}
+		pos = nextSlash > pathEnd ? pathEnd : (short) nextSlash;
+		return pos;
+	}
+
+	String decodeUrlPart(int start, int end) {
+		return new String(raw, start, end - start, CHARSET);
+	}
+
+	static byte[] encodeUrlPart(String urlPart) {
+		return urlPart.getBytes(CHARSET);
+	}
+
+	byte[] getRaw() {
+		return raw;
+	}
+
 	private boolean isEqual(@NotNull String key, int start, int end) {
 		if (end - start != key.length()) {
 			return false;
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http.hpack;
+
+import io.activej.http.MalformedHttpException;
+
+import java.util.Arrays;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A stateful decoder of HPACK header blocks, as defined in RFC 7541.
+ * <p>
+ * A single instance should be used for all header blocks received over a connection, in order.
+ * Header names and values passed to a {@link HeaderListener} are never modified afterwards,
+ * so they may be retained by the listener.
+ */
+public final class HpackDecoder {
+	public static final int DEFAULT_HEADER_TABLE_SIZE = 4096;
+
+	@FunctionalInterface
+	public interface HeaderListener {
+		void onHeader(byte[] name, byte[] value) throws MalformedHttpException;
+	}
+
+	private final HpackDynamicTable dynamicTable;
+	private int maxTableSize;
+
+	private byte[] array;
+	private int pos;
+	private int limit;
+
+	private HpackDecoder(int maxTableSize) {
+		this.dynamicTable = new HpackDynamicTable(maxTableSize);
+		this.maxTableSize = maxTableSize;
+	}
+
+	public static HpackDecoder create() {
+		return new HpackDecoder(DEFAULT_HEADER_TABLE_SIZE);
+	}
+
+	public static HpackDecoder create(int maxTableSize) {
+		checkArgument(maxTableSize >= 0, "Table size cannot be negative");
+		return new HpackDecoder(maxTableSize);
+	}
+
+	/**
+	 * Sets an upper bound for dynamic table size updates that an encoder may send,
+	 * it should match the SETTINGS_HEADER_TABLE_SIZE value announced to the peer.
+	 */
+	public void setMaxTableSize(int maxTableSize) {
+		checkArgument(maxTableSize >= 0, "Table size cannot be negative");
+		this.maxTableSize = maxTableSize;
+		if (dynamicTable.getMaxSize() > maxTableSize) {
+			dynamicTable.setMaxSize(maxTableSize);
+		}
+	}
+
+	public int getTableSize() {
+		return dynamicTable.size();
+	}
+
+	public void decode(byte[] array, int offset, int limit, HeaderListener listener) throws MalformedHttpException {
+		this.array = array;
+		this.pos = offset;
+		this.limit = limit;
+		try {
+			boolean headerSeen = false;
+			while (pos < limit) {
+				int b = array[pos] & 0xFF;
+				if ((b & 0x80) != 0) {
+					int index = readInt(7);
+					listener.onHeader(getName(index), getValue(index));
+					headerSeen = true;
+				} else if ((b & 0x40) != 0) {
+					byte[] name = readName(6);
+					byte[] value = readString();
+					dynamicTable.add(name, value);
+					listener.onHeader(name, value);
+					headerSeen = true;
+				} else if ((b & 0x20) != 0) {
+					if (headerSeen) throw new MalformedHttpException("Dynamic table size update after a header field");
+					int size = readInt(5);
+					if (size > maxTableSize) throw new MalformedHttpException("Dynamic table size update exceeds the limit");
+					dynamicTable.setMaxSize(size);
+				} else {
+					// literal header field without indexing or never indexed
+					byte[] name = readName(4);
+					byte[] value = readString();
+					listener.onHeader(name, value);
+					headerSeen = true;
+				}
+			}
+		} finally {
+			this.array = null;
+		}
+	}
+
+	private byte[] readName(int prefixBits) throws MalformedHttpException {
+		int index = readInt(prefixBits);
+		return index == 0 ? readString() : getName(index);
+	}
+
+	private byte[] getName(int index) throws MalformedHttpException {
+		if (index == 0) throw new MalformedHttpException("Invalid header table index 0");
+		if (index <= HpackStaticTable.LENGTH) return HpackStaticTable.NAMES[index];
+		index -= HpackStaticTable.LENGTH + 1;
+		if (index >= dynamicTable.length()) throw new MalformedHttpException("Header table index is out of bounds");
+		return dynamicTable.getName(index);
+	}
+
+	private byte[] getValue(int index) {
+		if (index <= HpackStaticTable.LENGTH) return HpackStaticTable.VALUES[index];
+		return dynamicTable.getValue(index - HpackStaticTable.LENGTH - 1);
+	}
+
+	private byte[] readString() throws MalformedHttpException {
+		if (pos == limit) throw new MalformedHttpException("Truncated header block");
+		boolean huffman = (array[pos] & 0x80) != 0;
+		int length = readInt(7);
+		if (length > limit - pos) throw new MalformedHttpException("Truncated header block");
+		int offset = pos;
+		pos += length;
+		return huffman ?
+				Huffman.decode(array, offset, length) :
+				Arrays.copyOfRange(array, offset, offset + length);
+	}
+
+	private int readInt(int prefixBits) throws MalformedHttpException {
+		int mask = (1 << prefixBits) - 1;
+		int value = array[pos++] & mask;
+		if (value < mask) return value;
+		for (int shift = 0; shift < 28; shift += 7) {
+			if (pos == limit) throw new MalformedHttpException("Truncated header block");
+			int b = array[pos++];
+			value += (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0) break;
+				return value;
+			}
+		}
+		throw new MalformedHttpException("Integer overflow in header block");
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http.hpack;
+
+/**
+ * A FIFO of header fields with a size limit, shared by HPACK encoder and decoder.
+ * The most recently added entry has index 0.
+ */
+final class HpackDynamicTable {
+	static final int ENTRY_OVERHEAD = 32;
+
+	private byte[][] names = new byte[16][];
+	private byte[][] values = new byte[16][];
+	private int head;
+	private int length;
+
+	private int size;
+	private int maxSize;
+
+	HpackDynamicTable(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	static int sizeOf(byte[] name, byte[] value) {
+		return ENTRY_OVERHEAD + name.length + value.length;
+	}
+
+	int length() {
+		return length;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int getMaxSize() {
+		return maxSize;
+	}
+
+	byte[] getName(int index) {
+		return names[slot(index)];
+	}
+
+	byte[] getValue(int index) {
+		return values[slot(index)];
+	}
+
+	void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		evict(0);
+	}
+
+	/**
+	 * Adds an entry, evicting the oldest ones as needed.
+	 * An entry larger than the table just empties it, as specified in RFC 7541, section 4.4
+	 */
+	void add(byte[] name, byte[] value) {
+		int entrySize = sizeOf(name, value);
+		evict(entrySize);
+		if (entrySize > maxSize) return;
+		if (length == names.length) {
+			grow();
+		}
+		head = (head - 1) & (names.length - 1);
+		names[head] = name;
+		values[head] = value;
+		length++;
+		size += entrySize;
+	}
+
+	private int slot(int index) {
+		assert index >= 0 && index < length;
+		return (head + index) & (names.length - 1);
+	}
+
+	private void evict(int requiredSize) {
+		while (length != 0 && size + requiredSize > maxSize) {
+			int slot = slot(length - 1);
+			size -= sizeOf(names[slot], values[slot]);
+			names[slot] = null;
+			values[slot] = null;
+			length--;
+		}
+	}
+
+	private void grow() {
+		byte[][] newNames = new byte[names.length * 2][];
+		byte[][] newValues = new byte[values.length * 2][];
+		for (int i = 0; i < length; i++) {
+			newNames[i] = getName(i);
+			newValues[i] = getValue(i);
+		}
+		names = newNames;
+		values = newValues;
+		head = 0;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http.hpack;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+
+import java.util.Arrays;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A stateful encoder of HPACK header blocks, as defined in RFC 7541.
+ * <p>
+ * Headers that are fully present in the static or dynamic table are sent as a single index,
+ * other headers are added to the dynamic table unless their values are unlikely to repeat.
+ * Credentials are always sent as never-indexed literals.
+ * String literals are Huffman encoded whenever it makes them shorter.
+ * <p>
+ * Header names are expected to be in lower case. Arrays passed to this encoder may be retained
+ * in its dynamic table, so they should not be modified afterwards.
+ */
+public final class HpackEncoder {
+	private static final byte[][] NOT_INDEXED = {
+			encodeAscii(":path"),
+			encodeAscii("content-length"),
+			encodeAscii("content-range"),
+			encodeAscii("date"),
+			encodeAscii("etag"),
+			encodeAscii("expires"),
+			encodeAscii("last-modified"),
+			encodeAscii("if-modified-since"),
+			encodeAscii("if-none-match"),
+			encodeAscii("location"),
+			encodeAscii("cookie"),
+			encodeAscii("set-cookie")
+	};
+
+	private static final byte[][] NEVER_INDEXED = {
+			encodeAscii("authorization"),
+			encodeAscii("proxy-authorization")
+	};
+
+	private final HpackDynamicTable dynamicTable;
+
+	private int pendingMinTableSize = -1;
+	private int pendingTableSize = -1;
+
+	private HpackEncoder(int maxTableSize) {
+		this.dynamicTable = new HpackDynamicTable(maxTableSize);
+	}
+
+	public static HpackEncoder create() {
+		return new HpackEncoder(HpackDecoder.DEFAULT_HEADER_TABLE_SIZE);
+	}
+
+	/**
+	 * Changes the size of the dynamic table, it should be called when the peer announces
+	 * a new SETTINGS_HEADER_TABLE_SIZE value. The change is signalled at the beginning of the next header block.
+	 */
+	public void setMaxTableSize(int maxTableSize) {
+		checkArgument(maxTableSize >= 0, "Table size cannot be negative");
+		pendingMinTableSize = pendingMinTableSize == -1 ? maxTableSize : Math.min(pendingMinTableSize, maxTableSize);
+		pendingTableSize = maxTableSize;
+	}
+
+	public int getTableSize() {
+		return dynamicTable.size();
+	}
+
+	/**
+	 * Should be called before the first header of every header block
+	 *
+	 * @return a buffer to write the rest of the block into, may differ from the given one
+	 */
+	public ByteBuf beginHeaderBlock(ByteBuf buf) {
+		if (pendingTableSize == -1) return buf;
+		buf = ByteBufPool.ensureWriteRemaining(buf, 12);
+		if (pendingMinTableSize < pendingTableSize) {
+			dynamicTable.setMaxSize(pendingMinTableSize);
+			writeInt(buf, 0x20, 5, pendingMinTableSize);
+		}
+		dynamicTable.setMaxSize(pendingTableSize);
+		writeInt(buf, 0x20, 5, pendingTableSize);
+		pendingMinTableSize = pendingTableSize = -1;
+		return buf;
+	}
+
+	/**
+	 * Encodes a single header field
+	 *
+	 * @return a buffer containing the encoded field, may differ from the given one
+	 */
+	public ByteBuf encodeHeader(ByteBuf buf, byte[] name, byte[] value) {
+		buf = ByteBufPool.ensureWriteRemaining(buf, 16 + name.length + value.length);
+
+		int nameIndex = 0;
+		for (int i = 1; i <= HpackStaticTable.LENGTH; i++) {
+			if (!Arrays.equals(HpackStaticTable.NAMES[i], name)) continue;
+			if (Arrays.equals(HpackStaticTable.VALUES[i], value)) {
+				writeInt(buf, 0x80, 7, i);
+				return buf;
+			}
+			if (nameIndex == 0) {
+				nameIndex = i;
+			}
+		}
+		for (int i = 0; i < dynamicTable.length(); i++) {
+			if (!Arrays.equals(dynamicTable.getName(i), name)) continue;
+			if (Arrays.equals(dynamicTable.getValue(i), value)) {
+				writeInt(buf, 0x80, 7, HpackStaticTable.LENGTH + 1 + i);
+				return buf;
+			}
+			if (nameIndex == 0) {
+				nameIndex = HpackStaticTable.LENGTH + 1 + i;
+			}
+		}
+
+		if (contains(NEVER_INDEXED, name)) {
+			writeInt(buf, 0x10, 4, nameIndex);
+		} else if (contains(NOT_INDEXED, name) || HpackDynamicTable.sizeOf(name, value) > dynamicTable.getMaxSize()) {
+			writeInt(buf, 0x00, 4, nameIndex);
+		} else {
+			writeInt(buf, 0x40, 6, nameIndex);
+			dynamicTable.add(name, value);
+		}
+		if (nameIndex == 0) {
+			writeString(buf, name);
+		}
+		writeString(buf, value);
+		return buf;
+	}
+
+	private static void writeString(ByteBuf buf, byte[] string) {
+		int huffmanLength = Huffman.encodedLength(string, 0, string.length);
+		if (huffmanLength < string.length) {
+			writeInt(buf, 0x80, 7, huffmanLength);
+			Huffman.encode(buf, string, 0, string.length);
+		} else {
+			writeInt(buf, 0x00, 7, string.length);
+			buf.put(string);
+		}
+	}
+
+	private static void writeInt(ByteBuf buf, int pattern, int prefixBits, int value) {
+		int mask = (1 << prefixBits) - 1;
+		if (value < mask) {
+			buf.writeByte((byte) (pattern | value));
+			return;
+		}
+		buf.writeByte((byte) (pattern | mask));
+		value -= mask;
+		while (value >= 0x80) {
+			buf.writeByte((byte) (value | 0x80));
+			value >>>= 7;
+		}
+		buf.writeByte((byte) value);
+	}
+
+	private static boolean contains(byte[][] names, byte[] name) {
+		for (byte[] n : names) {
+			if (Arrays.equals(n, name)) return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http.hpack;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+
+/**
+ * The HPACK static table, as defined in RFC 7541, Appendix A.
+ * Entries are 1-based, index 0 is unused.
+ */
+final class HpackStaticTable {
+	static final int LENGTH = 61;
+
+	static final byte[][] NAMES = new byte[LENGTH + 1][];
+	static final byte[][] VALUES = new byte[LENGTH + 1][];
+
+	static {
+		add(1, ":authority", "");
+		add(2, ":method", "GET");
+		add(3, ":method", "POST");
+		add(4, ":path", "/");
+		add(5, ":path", "/index.html");
+		add(6, ":scheme", "http");
+		add(7, ":scheme", "https");
+		add(8, ":status", "200");
+		add(9, ":status", "204");
+		add(10, ":status", "206");
+		add(11, ":status", "304");
+		add(12, ":status", "400");
+		add(13, ":status", "404");
+		add(14, ":status", "500");
+		add(15, "accept-charset", "");
+		add(16, "accept-encoding", "gzip, deflate");
+		add(17, "accept-language", "");
+		add(18, "accept-ranges", "");
+		add(19, "accept", "");
+		add(20, "access-control-allow-origin", "");
+		add(21, "age", "");
+		add(22, "allow", "");
+		add(23, "authorization", "");
+		add(24, "cache-control", "");
+		add(25, "content-disposition", "");
+		add(26, "content-encoding", "");
+		add(27, "content-language", "");
+		add(28, "content-length", "");
+		add(29, "content-location", "");
+		add(30, "content-range", "");
+		add(31, "content-type", "");
+		add(32, "cookie", "");
+		add(33, "date", "");
+		add(34, "etag", "");
+		add(35, "expect", "");
+		add(36, "expires", "");
+		add(37, "from", "");
+		add(38, "host", "");
+		add(39, "if-match", "");
+		add(40, "if-modified-since", "");
+		add(41, "if-none-match", "");
+		add(42, "if-range", "");
+		add(43, "if-unmodified-since", "");
+		add(44, "last-modified", "");
+		add(45, "link", "");
+		add(46, "location", "");
+		add(47, "max-forwards", "");
+		add(48, "proxy-authenticate", "");
+		add(49, "proxy-authorization", "");
+		add(50, "range", "");
+		add(51, "referer", "");
+		add(52, "refresh", "");
+		add(53, "retry-after", "");
+		add(54, "server", "");
+		add(55, "set-cookie", "");
+		add(56, "strict-transport-security", "");
+		add(57, "transfer-encoding", "");
+		add(58, "user-agent", "");
+		add(59, "vary", "");
+		add(60, "via", "");
+		add(61, "www-authenticate", "");
+	}
+
+	private static void add(int index, String name, String value) {
+		NAMES[index] = encodeAscii(name);
+		VALUES[index] = encodeAscii(value);
+	}
+}
@@ -17,6 +17,7 @@
 package io.activej.http.loader;
 
 import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
 import io.activej.promise.Promise;
 import org.jetbrains.annotations.NotNull;
 
@@ -58,6 +59,14 @@ public interface StaticLoader {
 		return cacheOf(this, map);
 	}
 
+	/**
+	 * Caches loaded resources in memory, evicting least recently used ones
+	 * once their total size exceeds given limit
+	 */
+	default StaticLoaderLruCache cached(MemSize maxSize) {
+		return StaticLoaderLruCache.create(this, maxSize);
+	}
+
 	static StaticLoader cacheOf(StaticLoader loader) {
 		return cacheOf(loader, new HashMap<>());
 	}
@@ -25,7 +25,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.Executor;
 
-class StaticLoaderFileReader implements StaticLoader {
+/**
+ * A {@link StaticLoader} which loads resources from a directory of a file system.
+ * Besides loading whole resources into memory, it is able to open them as file channels,
+ * which can be sent to network without copying file contents to user space.
+ */
+public final class StaticLoaderFileReader implements StaticLoader {
 	private final Executor executor;
 	private final Path root;
 
@@ -40,6 +45,17 @@ class StaticLoaderFileReader implements StaticLoader {
 
 	@Override
 	public Promise<ByteBuf> load(String path) {
+		return open(path)
+				.then(cfr -> cfr.toCollector(ByteBufs.collector()));
+	}
+
+	/**
+	 * Opens a resource for reading, the returned reader is responsible for closing the file
+	 *
+	 * @param path path of the resource
+	 * @return promise of a reader of the whole resource
+	 */
+	public Promise<ChannelFileReader> open(String path) {
 		Path file = root.resolve(path).normalize();
 
 		if (!file.startsWith(root)) {
@@ -57,7 +73,6 @@ class StaticLoaderFileReader implements StaticLoader {
 						throw new ResourceNotFoundException("Could not find '" + path + '\'');
 					}
 				})
-				.then(() -> ChannelFileReader.open(executor, file))
-				.then(cfr -> cfr.toCollector(ByteBufs.collector()));
+				.then(() -> ChannelFileReader.open(executor, file));
 	}
 }
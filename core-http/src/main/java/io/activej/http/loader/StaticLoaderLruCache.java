@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http.loader;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
+import io.activej.eventloop.Eventloop;
+import io.activej.jmx.api.ConcurrentJmxBean;
+import io.activej.jmx.api.attribute.JmxAttribute;
+import io.activej.jmx.api.attribute.JmxOperation;
+import io.activej.promise.Promise;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A {@link StaticLoader} which keeps loaded resources in memory.
+ * <p>
+ * The total size of cached resources (including their gzipped variants) is bounded,
+ * least recently used resources are evicted first. Resources that do not exist
+ * are cached as well, so that repeated requests to a missing resource do not hit the underlying loader.
+ * <p>
+ * Resources are compressed and hashed on an {@link #withExecutor executor}, so that loading of a large resource
+ * does not block an eventloop. Concurrent requests to a resource which is being loaded wait for it to be loaded once.
+ * <p>
+ * This cache may be shared between several eventloops.
+ */
+public final class StaticLoaderLruCache implements StaticLoader, ConcurrentJmxBean {
+	public static final MemSize DEFAULT_MIN_GZIP_SIZE = MemSize.bytes(256);
+
+	// an approximate memory overhead of a single cache entry besides its content
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private final StaticLoader resourceLoader;
+	private final LinkedHashMap<String, StaticResource> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, CompletableFuture<StaticResource>> pending = new HashMap<>();
+	private long maxSize;
+	private long size;
+
+	private Executor executor = ForkJoinPool.commonPool();
+	private boolean gzip = true;
+	private int minGzipSize = DEFAULT_MIN_GZIP_SIZE.toInt();
+
+	// stats
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	private StaticLoaderLruCache(StaticLoader resourceLoader, long maxSize) {
+		this.resourceLoader = resourceLoader;
+		this.maxSize = maxSize;
+	}
+
+	public static StaticLoaderLruCache create(StaticLoader resourceLoader, MemSize maxSize) {
+		checkArgument(maxSize.toLong() > 0, "Cache size should be positive");
+		return new StaticLoaderLruCache(resourceLoader, maxSize.toLong());
+	}
+
+	/**
+	 * Sets an executor which prepares loaded resources (computes their gzipped variants and ETags).
+	 * By default, a common fork-join pool is used
+	 */
+	public StaticLoaderLruCache withExecutor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Whether to precompute gzipped variants of cached resources
+	 */
+	public StaticLoaderLruCache withGzip(boolean gzip) {
+		this.gzip = gzip;
+		return this;
+	}
+
+	/**
+	 * Resources smaller than given size are not compressed
+	 */
+	public StaticLoaderLruCache withMinGzipSize(MemSize minGzipSize) {
+		this.minGzipSize = minGzipSize.toInt();
+		return this;
+	}
+
+	@Override
+	public Promise<ByteBuf> load(String path) {
+		return loadResource(path).map(StaticResource::getBuf);
+	}
+
+	public Promise<StaticResource> loadResource(String path) {
+		StaticResource resource;
+		CompletableFuture<StaticResource> pendingResource = null;
+		boolean loading = false;
+		synchronized (this) {
+			resource = get(path);
+			if (resource == null) {
+				pendingResource = pending.get(path);
+				if (pendingResource == null) {
+					pendingResource = new CompletableFuture<>();
+					pending.put(path, pendingResource);
+					loading = true;
+				}
+			}
+		}
+		if (resource == StaticResource.NOT_FOUND) {
+			return Promise.ofException(new ResourceNotFoundException("Could not find '" + path + '\''));
+		} else if (resource != null) {
+			return Promise.of(resource);
+		} else if (!loading) {
+			return awaitPending(pendingResource);
+		}
+		CompletableFuture<StaticResource> loadingResource = pendingResource;
+		return resourceLoader.load(path)
+				.then(buf -> {
+					byte[] bytes;
+					try {
+						bytes = buf.getArray();
+					} finally {
+						buf.recycle();
+					}
+					return Promise.ofBlocking(executor, () -> StaticResource.create(bytes, gzip, minGzipSize));
+				})
+				.whenComplete((loaded, e) -> {
+					synchronized (this) {
+						pending.remove(path);
+						if (e == null) {
+							put(path, loaded);
+						} else if (e instanceof ResourceNotFoundException) {
+							put(path, StaticResource.NOT_FOUND);
+						}
+					}
+					if (e == null) {
+						loadingResource.complete(loaded);
+					} else {
+						loadingResource.completeExceptionally(e);
+					}
+				});
+	}
+
+	/**
+	 * Waits for a resource which is being loaded, possibly by another eventloop
+	 */
+	private static Promise<StaticResource> awaitPending(CompletableFuture<StaticResource> pendingResource) {
+		Eventloop eventloop = Eventloop.getCurrentEventloop();
+		return Promise.ofCallback(cb -> {
+			eventloop.startExternalTask();
+			pendingResource.whenComplete((resource, e) -> {
+				eventloop.execute(() -> cb.accept(resource, (Exception) e));
+				eventloop.completeExternalTask();
+			});
+		});
+	}
+
+	private synchronized @Nullable StaticResource get(String path) {
+		StaticResource resource = cache.get(path);
+		if (resource != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return resource;
+	}
+
+	private synchronized void put(String path, StaticResource resource) {
+		long weight = weightOf(path, resource);
+		if (weight > maxSize) {
+			StaticResource old = cache.remove(path);
+			if (old != null) {
+				size -= weightOf(path, old);
+			}
+			return;
+		}
+		StaticResource old = cache.put(path, resource);
+		if (old != null) {
+			size -= weightOf(path, old);
+		}
+		size += weight;
+		evict();
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String, StaticResource>> iterator = cache.entrySet().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			Map.Entry<String, StaticResource> eldest = iterator.next();
+			size -= weightOf(eldest.getKey(), eldest.getValue());
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	private static long weightOf(String path, StaticResource resource) {
+		return ENTRY_OVERHEAD + 2L * path.length() + resource.weight();
+	}
+
+	// region jmx
+	@JmxAttribute
+	public synchronized long getMaxSize() {
+		return maxSize;
+	}
+
+	@JmxAttribute
+	public synchronized void setMaxSize(long maxSize) {
+		checkArgument(maxSize > 0, "Cache size should be positive");
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	@JmxAttribute
+	public synchronized long getSize() {
+		return size;
+	}
+
+	@JmxAttribute
+	public synchronized int getEntries() {
+		return cache.size();
+	}
+
+	@JmxAttribute
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	@JmxAttribute
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	@JmxAttribute
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	@JmxAttribute
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	@JmxOperation
+	public synchronized void clear() {
+		cache.clear();
+		size = 0;
+	}
+
+	@JmxOperation
+	public synchronized void resetStats() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+	// endregion
+
+	@Override
+	public synchronized String toString() {
+		return "StaticLoaderLruCache{" +
+				"entries=" + cache.size() +
+				", size=" + size +
+				", maxSize=" + maxSize +
+				'}';
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http.loader;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.http.GzipProcessorUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.zip.CRC32;
+
+import static io.activej.bytebuf.ByteBuf.wrapForReading;
+
+/**
+ * An immutable resource held by {@link StaticLoaderLruCache}.
+ * <p>
+ * Besides the content itself, it holds a precomputed gzipped variant of the content
+ * (if compression is worthwhile) and a strong entity tag.
+ * Buffers returned by this class wrap shared arrays and must not be modified.
+ */
+public final class StaticResource {
+	static final StaticResource NOT_FOUND = new StaticResource(new byte[0], null, "\"\"");
+
+	private final byte[] bytes;
+	private final byte @Nullable [] gzipped;
+	private final String eTag;
+
+	private StaticResource(byte[] bytes, byte @Nullable [] gzipped, String eTag) {
+		this.bytes = bytes;
+		this.gzipped = gzipped;
+		this.eTag = eTag;
+	}
+
+	static StaticResource create(byte[] bytes, boolean gzip, int minGzipSize) {
+		return new StaticResource(bytes, gzip && bytes.length >= minGzipSize ? gzip(bytes) : null, eTagOf(bytes));
+	}
+
+	private static byte @Nullable [] gzip(byte[] bytes) {
+		ByteBuf gzipped = GzipProcessorUtils.toGzip(wrapForReading(bytes));
+		try {
+			// there is no point in storing and sending a compressed variant which is barely smaller
+			return gzipped.readRemaining() < bytes.length - bytes.length / 8 ? gzipped.getArray() : null;
+		} finally {
+			gzipped.recycle();
+		}
+	}
+
+	private static String eTagOf(byte[] bytes) {
+		CRC32 crc32 = new CRC32();
+		crc32.update(bytes, 0, bytes.length);
+		return "\"" + Integer.toHexString(bytes.length) + '-' + Long.toHexString(crc32.getValue()) + '"';
+	}
+
+	public ByteBuf getBuf() {
+		return wrapForReading(bytes);
+	}
+
+	public @Nullable ByteBuf getGzippedBuf() {
+		return gzipped != null ? wrapForReading(gzipped) : null;
+	}
+
+	public boolean hasGzippedVariant() {
+		return gzipped != null;
+	}
+
+	public String getETag() {
+		return eTag;
+	}
+
+	public int size() {
+		return bytes.length;
+	}
+
+	int weight() {
+		return bytes.length + (gzipped != null ? gzipped.length : 0);
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.http.session;
+
+import io.activej.common.ApplicationSettings;
+import io.activej.common.MemSize;
+import io.activej.common.time.CurrentTimeProvider;
+import io.activej.eventloop.Eventloop;
+import io.activej.eventloop.jmx.EventloopJmxBean;
+import io.activej.eventloop.schedule.ScheduledRunnable;
+import io.activej.jmx.api.attribute.JmxAttribute;
+import io.activej.jmx.api.attribute.JmxOperation;
+import io.activej.jmx.api.attribute.JmxReducers.JmxReducerSum;
+import io.activej.promise.Promise;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import static io.activej.common.Checks.checkArgument;
+
+/**
+ * A session storage over a hash map which is bounded by a number of sessions and by their estimated size.
+ * <p>
+ * Sessions are kept in order of last access, so that sessions which are accessed least recently
+ * are evicted when the store overflows, and expired sessions are removed proactively
+ * by a background timer of an eventloop, rather than only when they are accessed.
+ * <p>
+ * This store is not thread-safe and belongs to a single eventloop.
+ * With several worker eventloops, each of them may have its own store,
+ * provided that requests of a session are routed to the same worker.
+ */
+public final class SessionStoreBounded<T> implements SessionStore<T>, EventloopJmxBean {
+	public static final int MAX_SESSIONS = ApplicationSettings.getInt(SessionStoreBounded.class, "maxSessions", 100_000);
+	public static final Duration EXPIRATION_CHECK_INTERVAL = ApplicationSettings.getDuration(SessionStoreBounded.class, "expirationCheckInterval", Duration.ofSeconds(1));
+
+	/**
+	 * An estimated size of a map entry and of its session holder
+	 */
+	static final int ENTRY_OVERHEAD = 96;
+
+	private final Eventloop eventloop;
+	private final LinkedHashMap<String, Session<T>> store = new LinkedHashMap<>(16, 0.75f, true);
+
+	private @Nullable Duration sessionLifetime;
+	private int maxSessions = MAX_SESSIONS;
+	private long maxSize = Long.MAX_VALUE;
+	private ToIntFunction<T> sizeEstimator = $ -> 0;
+	private long expirationCheckInterval = EXPIRATION_CHECK_INTERVAL.toMillis();
+
+	private long size;
+	private @Nullable ScheduledRunnable expirationCheck;
+
+	CurrentTimeProvider now;
+
+	// region stats
+	private long hits;
+	private long misses;
+	private long expirations;
+	private long evictions;
+	// endregion
+
+	private SessionStoreBounded(Eventloop eventloop) {
+		this.eventloop = eventloop;
+		this.now = eventloop;
+	}
+
+	public static <T> SessionStoreBounded<T> create(Eventloop eventloop) {
+		return new SessionStoreBounded<>(eventloop);
+	}
+
+	public SessionStoreBounded<T> withLifetime(Duration sessionLifetime) {
+		this.sessionLifetime = sessionLifetime;
+		return this;
+	}
+
+	public SessionStoreBounded<T> withMaxSessions(int maxSessions) {
+		checkArgument(maxSessions > 0, "Max number of sessions should be positive");
+		this.maxSessions = maxSessions;
+		return this;
+	}
+
+	/**
+	 * Bounds a total estimated size of sessions, as measured by a given estimator
+	 * plus the size of session ids and of an internal overhead
+	 */
+	public SessionStoreBounded<T> withMaxSize(MemSize maxSize, ToIntFunction<T> sizeEstimator) {
+		this.maxSize = maxSize.toLong();
+		this.sizeEstimator = sizeEstimator;
+		return this;
+	}
+
+	public SessionStoreBounded<T> withExpirationCheckInterval(Duration expirationCheckInterval) {
+		checkArgument(!expirationCheckInterval.isNegative() && !expirationCheckInterval.isZero(),
+				"Expiration check interval should be positive");
+		this.expirationCheckInterval = expirationCheckInterval.toMillis();
+		return this;
+	}
+
+	@Override
+	public Promise<Void> save(String sessionId, T sessionObject) {
+		Session<T> session = new Session<>(sessionObject, now.currentTimeMillis(),
+				ENTRY_OVERHEAD + 2L * sessionId.length() + sizeEstimator.applyAsInt(sessionObject));
+		Session<T> previous = store.put(sessionId, session);
+		if (previous != null) {
+			size -= previous.size;
+		}
+		size += session.size;
+		evict();
+		ensureExpirationCheck();
+		return Promise.complete();
+	}
+
+	@Override
+	public Promise<@Nullable T> get(String sessionId) {
+		long timestamp = now.currentTimeMillis();
+		Session<T> session = store.get(sessionId);
+		if (session == null) {
+			misses++;
+			return Promise.of(null);
+		}
+		if (isExpired(session, timestamp)) {
+			store.remove(sessionId);
+			size -= session.size;
+			expirations++;
+			misses++;
+			return Promise.of(null);
+		}
+		hits++;
+		session.timestamp = timestamp;
+		return Promise.of(session.value);
+	}
+
+	@Override
+	public Promise<Void> remove(String sessionId) {
+		Session<T> session = store.remove(sessionId);
+		if (session != null) {
+			size -= session.size;
+		}
+		return Promise.complete();
+	}
+
+	@Override
+	public @Nullable Duration getSessionLifetimeHint() {
+		return sessionLifetime;
+	}
+
+	private boolean isExpired(Session<T> session, long timestamp) {
+		return sessionLifetime != null && session.timestamp + sessionLifetime.toMillis() < timestamp;
+	}
+
+	private void evict() {
+		Iterator<Session<T>> iterator = store.values().iterator();
+		while ((store.size() > maxSessions || size > maxSize) && iterator.hasNext()) {
+			Session<T> session = iterator.next();
+			iterator.remove();
+			size -= session.size;
+			evictions++;
+		}
+	}
+
+	private void ensureExpirationCheck() {
+		if (sessionLifetime == null || expirationCheck != null) return;
+		expirationCheck = eventloop.scheduleBackground(eventloop.currentTimeMillis() + expirationCheckInterval, () -> {
+			expirationCheck = null;
+			expire();
+			if (!store.isEmpty()) {
+				ensureExpirationCheck();
+			}
+		});
+	}
+
+	/**
+	 * Removes expired sessions. As sessions are ordered by last access,
+	 * only expired sessions and a single live one are visited
+	 */
+	void expire() {
+		long timestamp = now.currentTimeMillis();
+		Iterator<Session<T>> iterator = store.values().iterator();
+		while (iterator.hasNext()) {
+			Session<T> session = iterator.next();
+			if (!isExpired(session, timestamp)) break;
+			iterator.remove();
+			size -= session.size;
+			expirations++;
+		}
+	}
+
+	private static final class Session<T> {
+		final T value;
+		final long size;
+		long timestamp;
+
+		Session(T value, long timestamp, long size) {
+			this.value = value;
+			this.timestamp = timestamp;
+			this.size = size;
+		}
+	}
+
+	// region jmx
+	@Override
+	public @NotNull Eventloop getEventloop() {
+		return eventloop;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public int getSessions() {
+		return store.size();
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getSize() {
+		return size;
+	}
+
+	@JmxAttribute
+	public int getMaxSessions() {
+		return maxSessions;
+	}
+
+	@JmxAttribute
+	public void setMaxSessions(int maxSessions) {
+		withMaxSessions(maxSessions);
+		evict();
+	}
+
+	@JmxAttribute
+	public @Nullable Duration getSessionLifetime() {
+		return sessionLifetime;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getHits() {
+		return hits;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getMisses() {
+		return misses;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getExpirations() {
+		return expirations;
+	}
+
+	@JmxAttribute(reducer = JmxReducerSum.class)
+	public long getEvictions() {
+		return evictions;
+	}
+
+	@JmxOperation
+	public void resetStats() {
+		hits = 0;
+		misses = 0;
+		expirations = 0;
+		evictions = 0;
+	}
+
+	@JmxOperation
+	public void clear() {
+		store.clear();
+		size = 0;
+	}
+	// endregion
+}
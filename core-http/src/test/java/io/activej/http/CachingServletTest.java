@@ -0,0 +1,280 @@
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
+import io.activej.csp.ChannelSupplier;
+import io.activej.eventloop.Eventloop;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.promise.SettablePromise;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.activej.http.HttpHeaders.*;
+import static io.activej.promise.TestUtils.await;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public final class CachingServletTest {
+	private static final String URL = "http://example.com/resource";
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	private long currentTime;
+	private int served;
+	private String cacheControl;
+	private CachingServlet servlet;
+
+	@Before
+	public void setUp() {
+		cacheControl = "public, max-age=10";
+		servlet = CachingServlet.create(Eventloop.getCurrentEventloop(),
+				request -> {
+					served++;
+					return HttpResponse.ok200()
+							.withHeader(CACHE_CONTROL, cacheControl)
+							.withHeader(ETAG, "\"v1\"")
+							.withBody(("response " + served + " for " + request.getPath()).getBytes(UTF_8));
+				});
+		servlet.now = () -> currentTime;
+	}
+
+	@After
+	public void tearDown() {
+		servlet.clear();
+	}
+
+	@Test
+	public void testCoalescing() throws Exception {
+		List<SettablePromise<HttpResponse>> backendResponses = new ArrayList<>();
+		CachingServlet servlet = CachingServlet.create(Eventloop.getCurrentEventloop(),
+				request -> {
+					SettablePromise<HttpResponse> response = new SettablePromise<>();
+					backendResponses.add(response);
+					return response;
+				});
+
+		List<Promise<HttpResponse>> responses = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			responses.add(servlet.serveAsync(HttpRequest.get(URL)));
+		}
+		assertEquals(1, backendResponses.size());
+		assertEquals(1, servlet.getPending());
+		backendResponses.get(0).set(HttpResponse.ok200()
+				.withHeader(CACHE_CONTROL, "public, max-age=10")
+				.withBody("shared".getBytes(UTF_8)));
+
+		for (HttpResponse response : await(Promises.toList(responses))) {
+			assertEquals("shared", body(response));
+		}
+		assertEquals(4, servlet.getCoalesced());
+		assertEquals(0, servlet.getPending());
+		assertEquals(1, servlet.getEntries());
+		servlet.clear();
+	}
+
+	@Test
+	public void testNotShareableResponsesAreNotCoalesced() throws Exception {
+		List<SettablePromise<HttpResponse>> backendResponses = new ArrayList<>();
+		CachingServlet servlet = CachingServlet.create(Eventloop.getCurrentEventloop(),
+				request -> {
+					SettablePromise<HttpResponse> response = new SettablePromise<>();
+					backendResponses.add(response);
+					return response;
+				});
+
+		List<Promise<HttpResponse>> responses = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			responses.add(servlet.serveAsync(HttpRequest.get(URL)));
+		}
+		assertEquals(1, backendResponses.size());
+		backendResponses.get(0).set(HttpResponse.ok200()
+				.withHeader(CACHE_CONTROL, "private, max-age=10")
+				.withHeader(SET_COOKIE, "session=0")
+				.withBody("private 0".getBytes(UTF_8)));
+
+		assertEquals(3, backendResponses.size());
+		for (int i = 1; i < 3; i++) {
+			backendResponses.get(i).set(HttpResponse.ok200()
+					.withHeader(CACHE_CONTROL, "private, max-age=10")
+					.withHeader(SET_COOKIE, "session=" + i)
+					.withBody(("private " + i).getBytes(UTF_8)));
+		}
+
+		List<HttpResponse> result = await(Promises.toList(responses));
+		for (int i = 0; i < 3; i++) {
+			assertEquals("session=" + i, result.get(i).getHeader(SET_COOKIE));
+			assertEquals("private " + i, body(result.get(i)));
+		}
+		assertEquals(0, servlet.getCoalesced());
+		assertEquals(0, servlet.getPending());
+		assertEquals(0, servlet.getEntries());
+	}
+
+	@Test
+	public void testStreamedResponsesPassThrough() throws Exception {
+		byte[] bytes = new byte[2 * 1024 * 1024];
+		CachingServlet servlet = CachingServlet.create(Eventloop.getCurrentEventloop(),
+				request -> HttpResponse.ok200()
+						.withHeader(CACHE_CONTROL, "public, max-age=10")
+						.withBodyStream(ChannelSupplier.of(ByteBuf.wrapForReading(bytes))));
+
+		HttpResponse response = await(servlet.serveAsync(HttpRequest.get(URL)));
+		ByteBuf body = await(response.loadBody(Integer.MAX_VALUE));
+		assertEquals(bytes.length, body.readRemaining());
+		body.recycle();
+		assertEquals(0, servlet.getPending());
+		assertEquals(0, servlet.getEntries());
+	}
+
+	@Test
+	public void testCoalescingFailure() throws Exception {
+		SettablePromise<HttpResponse> backendResponse = new SettablePromise<>();
+		CachingServlet servlet = CachingServlet.create(Eventloop.getCurrentEventloop(), request -> backendResponse);
+
+		Promise<HttpResponse> first = servlet.serveAsync(HttpRequest.get(URL));
+		Promise<HttpResponse> second = servlet.serveAsync(HttpRequest.get(URL));
+		HttpError error = HttpError.ofCode(503);
+		backendResponse.setException(error);
+
+		assertSame(error, first.getException());
+		assertSame(error, second.getException());
+		assertEquals(0, servlet.getPending());
+	}
+
+	@Test
+	public void testCacheHitAndExpiration() {
+		assertEquals("response 1 for /resource", body(serve(HttpRequest.get(URL))));
+
+		currentTime += 5000;
+		HttpResponse cached = serve(HttpRequest.get(URL));
+		assertEquals("5", cached.getHeader(AGE));
+		assertEquals("\"v1\"", cached.getHeader(ETAG));
+		assertEquals("response 1 for /resource", body(cached));
+
+		currentTime += 5000;
+		assertEquals("response 2 for /resource", body(serve(HttpRequest.get(URL))));
+
+		assertEquals(2, served);
+		assertEquals(1, servlet.getHits());
+		assertEquals(2, servlet.getMisses());
+		assertEquals(1, servlet.getEntries());
+	}
+
+	@Test
+	public void testDifferentUrls() {
+		assertEquals("response 1 for /a", body(serve(HttpRequest.get("http://example.com/a"))));
+		assertEquals("response 2 for /b", body(serve(HttpRequest.get("http://example.com/b"))));
+		assertEquals("response 1 for /a", body(serve(HttpRequest.get("http://example.com/a"))));
+		assertEquals(2, servlet.getEntries());
+	}
+
+	@Test
+	public void testVaryHeaders() {
+		servlet.withVaryHeaders(ACCEPT_LANGUAGE);
+
+		assertEquals("response 1 for /resource", body(serve(HttpRequest.get(URL).withHeader(ACCEPT_LANGUAGE, "en"))));
+		assertEquals("response 2 for /resource", body(serve(HttpRequest.get(URL).withHeader(ACCEPT_LANGUAGE, "de"))));
+		assertEquals("response 1 for /resource", body(serve(HttpRequest.get(URL).withHeader(ACCEPT_LANGUAGE, "en"))));
+	}
+
+	@Test
+	public void testNotModified() {
+		body(serve(HttpRequest.get(URL)));
+
+		HttpResponse response = serve(HttpRequest.get(URL).withHeader(IF_NONE_MATCH, "\"v0\", W/\"v1\""));
+		assertEquals(304, response.getCode());
+		assertEquals("\"v1\"", response.getHeader(ETAG));
+
+		response = serve(HttpRequest.get(URL).withHeader(IF_NONE_MATCH, "\"v0\""));
+		assertEquals(200, response.getCode());
+		assertEquals("response 1 for /resource", body(response));
+		assertEquals(1, servlet.getNotModified());
+	}
+
+	@Test
+	public void testNotCacheable() {
+		for (String cacheControl : asList("no-store, max-age=10", "private, max-age=10", "no-cache", "public")) {
+			this.cacheControl = cacheControl;
+			body(serve(HttpRequest.get(URL)));
+			body(serve(HttpRequest.get(URL)));
+		}
+		assertEquals(8, served);
+		assertEquals(0, servlet.getEntries());
+	}
+
+	@Test
+	public void testBypass() {
+		body(serve(HttpRequest.get(URL)));
+		body(serve(HttpRequest.get(URL).withHeader(CACHE_CONTROL, "no-cache")));
+		body(serve(HttpRequest.get(URL).withHeader(AUTHORIZATION, "Basic dXNlcjpwYXNz")));
+		body(serve(HttpRequest.post(URL)));
+		body(serve(HttpRequest.get(URL).withHeader(COOKIE, "session=1")));
+		assertEquals(5, served);
+		assertEquals(0, servlet.getHits());
+
+		servlet.withVaryHeaders(COOKIE);
+		body(serve(HttpRequest.get(URL).withHeader(COOKIE, "session=1")));
+		body(serve(HttpRequest.get(URL).withHeader(COOKIE, "session=1")));
+		assertEquals(6, served);
+		assertEquals(1, servlet.getHits());
+	}
+
+	@Test
+	public void testEviction() {
+		body(serve(HttpRequest.get("http://example.com/a")));
+		long entrySize = servlet.getSize();
+		servlet.withMaxSize(MemSize.of(entrySize * 2));
+
+		body(serve(HttpRequest.get("http://example.com/b")));
+		body(serve(HttpRequest.get("http://example.com/a")));
+		body(serve(HttpRequest.get("http://example.com/c")));
+
+		assertEquals(2, servlet.getEntries());
+		assertEquals(1, servlet.getEvictions());
+		assertEquals("response 1 for /a", body(serve(HttpRequest.get("http://example.com/a"))));
+		assertEquals("response 4 for /b", body(serve(HttpRequest.get("http://example.com/b"))));
+	}
+
+	@Test
+	public void testEntryLargerThanMaxSize() {
+		body(serve(HttpRequest.get("http://example.com/a")));
+		long entrySize = servlet.getSize();
+		servlet.withMaxSize(MemSize.of(entrySize + 10));
+
+		assertEquals("response 2 for /large-resource", body(serve(HttpRequest.get("http://example.com/large-resource"))));
+		assertEquals(1, servlet.getEntries());
+		assertEquals(0, servlet.getEvictions());
+		assertEquals("response 1 for /a", body(serve(HttpRequest.get("http://example.com/a"))));
+	}
+
+	@Test
+	public void testCacheControlParsing() {
+		assertEquals(10, CachingServlet.getSeconds("public, max-age=10", "max-age"));
+		assertEquals(20, CachingServlet.getSeconds("s-maxage=20,max-age=10", "s-maxage"));
+		assertEquals(-1, CachingServlet.getSeconds("s-maxage=20", "max-age"));
+		assertEquals(-1, CachingServlet.getSeconds("max-age=abc", "max-age"));
+		assertTrue(CachingServlet.hasDirective("public, No-Store", "no-store"));
+		assertFalse(CachingServlet.hasDirective("no-store-yet", "no-store"));
+	}
+
+	private HttpResponse serve(HttpRequest request) {
+		return await(Promise.complete().then(() -> servlet.serveAsync(request)));
+	}
+
+	private static String body(HttpResponse response) {
+		return response.takeBody().asString(UTF_8);
+	}
+}
@@ -0,0 +1,187 @@
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.csp.ChannelSupplier;
+import io.activej.eventloop.Eventloop;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.promise.TestUtils.await;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public final class Http2Test {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	private int port;
+	private AsyncHttpServer server;
+
+	@Before
+	public void setUp() {
+		port = getFreePort();
+	}
+
+	private void startServer(AsyncServlet servlet) throws IOException {
+		server = AsyncHttpServer.create(Eventloop.getCurrentEventloop(), servlet)
+				.withHttp2(true)
+				.withListenPort(port)
+				.withAcceptOnce();
+		server.listen();
+	}
+
+	private AsyncHttpClient createClient() {
+		return AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.withHttp2PriorKnowledge();
+	}
+
+	@Test
+	public void testGet() throws IOException {
+		startServer(request -> HttpResponse.ok200()
+				.withHeader(HttpHeaders.of("X-Path"), request.getPath())
+				.withBody(encodeAscii(request.getMethod() + " " + request.getHeader(HttpHeaders.HOST) + " " + request.getVersion())));
+
+		String body = await(createClient().request(HttpRequest.get("http://127.0.0.1:" + port + "/test"))
+				.then(response -> {
+					assertEquals(200, response.getCode());
+					assertEquals(HttpVersion.HTTP_2_0, response.getVersion());
+					assertEquals("/test", response.getHeader(HttpHeaders.of("x-path")));
+					return response.loadBody();
+				})
+				.map(buf -> buf.getString(UTF_8)));
+
+		assertEquals("GET 127.0.0.1:" + port + " HTTP_2_0", body);
+	}
+
+	@Test
+	public void testLargeBodiesWithFlowControl() throws IOException {
+		startServer(request -> request.loadBody()
+				.map(body -> HttpResponse.ok200().withBody(body.slice())));
+
+		byte[] bytes = new byte[5 * 1024 * 1024];
+		new Random(0).nextBytes(bytes);
+
+		byte[] body = await(createClient().request(HttpRequest.post("http://127.0.0.1:" + port).withBody(bytes))
+				.then(response -> response.loadBody(Integer.MAX_VALUE))
+				.map(ByteBuf::getArray));
+
+		assertArrayEquals(bytes, body);
+	}
+
+	@Test
+	public void testUnreadBodiesReleaseConnectionWindow() throws IOException {
+		startServer(request -> HttpResponse.ok200().withBody(encodeAscii("ok")));
+
+		byte[] bytes = new byte[1024 * 1024];
+		AsyncHttpClient client = createClient();
+		List<String> result = new ArrayList<>();
+		await(Promises.sequence(IntStream.range(0, 20)
+				.mapToObj($ -> () -> client.request(HttpRequest.post("http://127.0.0.1:" + port).withBody(bytes))
+						.then(response -> response.loadBody())
+						.map(body -> body.getString(UTF_8))
+						.whenResult(result::add)
+						.toVoid()))
+				.whenResult(() -> assertEquals(1, client.getConnectionsCount())));
+
+		assertEquals(20, result.size());
+	}
+
+	@Test
+	public void testStreamingBodies() throws IOException {
+		startServer(request -> HttpResponse.ok200()
+				.withBodyStream(request.getBodyStream()));
+
+		List<ByteBuf> chunks = IntStream.range(0, 100)
+				.mapToObj(i -> {
+					ByteBuf buf = ByteBufPool.allocate(1000);
+					for (int j = 0; j < 1000; j++) {
+						buf.writeByte((byte) i);
+					}
+					return buf;
+				})
+				.collect(toList());
+
+		byte[] body = await(createClient().request(HttpRequest.post("http://127.0.0.1:" + port)
+						.withBodyStream(ChannelSupplier.ofList(chunks)))
+				.then(response -> response.loadBody(Integer.MAX_VALUE))
+				.map(ByteBuf::getArray));
+
+		assertEquals(100_000, body.length);
+		for (int i = 0; i < body.length; i++) {
+			assertEquals(i / 1000, body[i]);
+		}
+	}
+
+	@Test
+	public void testConcurrentRequestsOverSingleConnection() throws IOException {
+		startServer(request -> {
+			//noinspection ConstantConditions
+			int delay = Integer.parseInt(request.getQueryParameter("delay"));
+			return Promises.delay(delay, HttpResponse.ok200().withBody(encodeAscii(request.getQueryParameter("id"))));
+		});
+
+		AsyncHttpClient client = createClient();
+		List<Promise<String>> responses = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			responses.add(client.request(HttpRequest.get("http://127.0.0.1:" + port + "/?id=" + i + "&delay=" + (200 - i) % 10))
+					.then(response -> response.loadBody())
+					.map(body -> body.getString(UTF_8)));
+		}
+		List<String> result = await(Promises.toList(responses)
+				.whenResult(() -> assertEquals(1, client.getConnectionsCount())));
+
+		for (int i = 0; i < 200; i++) {
+			assertEquals(String.valueOf(i), result.get(i));
+		}
+	}
+
+	@Test
+	public void testGzip() throws IOException {
+		startServer(request -> request.loadBody()
+				.map(body -> HttpResponse.ok200()
+						.withBodyGzipCompression()
+						.withBody(body.slice())));
+
+		byte[] bytes = new byte[100_000];
+		byte[] body = await(createClient().request(HttpRequest.post("http://127.0.0.1:" + port)
+						.withBodyGzipCompression()
+						.withBody(bytes))
+				.then(response -> {
+					assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+					return response.loadBody(Integer.MAX_VALUE);
+				})
+				.map(ByteBuf::getArray));
+
+		assertArrayEquals(bytes, body);
+	}
+
+	@Test
+	public void testHttp1ClientOnHttp2Server() throws IOException {
+		startServer(request -> HttpResponse.ok200().withBody(encodeAscii(request.getVersion().toString())));
+
+		String body = await(AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.request(HttpRequest.get("http://127.0.0.1:" + port))
+				.then(response -> response.loadBody())
+				.map(buf -> buf.getString(UTF_8)));
+
+		assertEquals("HTTP_1_1", body);
+	}
+}
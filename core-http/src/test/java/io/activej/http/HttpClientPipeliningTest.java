@@ -0,0 +1,102 @@
+package io.activej.http;
+
+import io.activej.eventloop.Eventloop;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static io.activej.promise.TestUtils.await;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class HttpClientPipeliningTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	private int port;
+	private AsyncHttpServer server;
+
+	@Before
+	public void setUp() throws IOException {
+		port = getFreePort();
+		server = AsyncHttpServer.create(Eventloop.getCurrentEventloop(),
+				request -> {
+					String path = request.getPath();
+					// later requests are answered faster, responses still must come in order
+					int delay = 50 - Integer.parseInt(path.substring(1)) % 10 * 5;
+					return Promises.delay(Duration.ofMillis(delay), HttpResponse.ok200().withBody(encodeAscii(path)));
+				})
+				.withListenPort(port);
+		server.listen();
+	}
+
+	@Test
+	public void testPipelinedRequests() {
+		AsyncHttpClient client = AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.withKeepAliveTimeout(Duration.ofSeconds(30))
+				.withPipelining(10);
+
+		List<Promise<String>> responses = IntStream.range(0, 50)
+				.mapToObj(i -> client.request(HttpRequest.get("http://127.0.0.1:" + port + "/" + i))
+						.then(response -> response.loadBody())
+						.map(body -> body.getString(UTF_8)))
+				.collect(toList());
+
+		List<String> bodies = await(Promises.toList(responses)
+				.whenComplete(() -> {
+					assertEquals(5, client.getConnectionsCount());
+					client.stop();
+					server.close();
+				}));
+
+		for (int i = 0; i < 50; i++) {
+			assertEquals("/" + i, bodies.get(i));
+		}
+	}
+
+	@Test
+	public void testNonIdempotentRequestsAreNotPipelined() {
+		AsyncHttpClient client = AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.withKeepAliveTimeout(Duration.ofSeconds(30))
+				.withPipelining(10);
+
+		List<Promise<String>> responses = IntStream.range(0, 5)
+				.mapToObj(i -> client.request(HttpRequest.post("http://127.0.0.1:" + port + "/" + i))
+						.then(response -> response.loadBody())
+						.map(body -> body.getString(UTF_8)))
+				.collect(toList());
+
+		List<String> bodies = await(Promises.toList(responses)
+				.whenComplete(() -> {
+					assertEquals(5, client.getConnectionsCount());
+					client.stop();
+					server.close();
+				}));
+
+		assertTrue(IntStream.range(0, 5).allMatch(i -> bodies.get(i).equals("/" + i)));
+	}
+
+	@Test
+	public void testHeadRequestsAreNotPipelined() {
+		assertTrue(HttpClientConnection.isPipelinable(HttpRequest.get("http://127.0.0.1:" + port + "/")));
+		assertFalse(HttpClientConnection.isPipelinable(HttpRequest.of(HttpMethod.HEAD, "http://127.0.0.1:" + port + "/")));
+		server.close();
+	}
+}
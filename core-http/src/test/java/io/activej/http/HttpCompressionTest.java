@@ -0,0 +1,194 @@
+package io.activej.http;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
+import io.activej.csp.ChannelSupplier;
+import io.activej.eventloop.Eventloop;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static io.activej.bytebuf.ByteBufStrings.wrapUtf8;
+import static io.activej.http.HttpHeaders.*;
+import static io.activej.promise.TestUtils.await;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public final class HttpCompressionTest {
+	private static final String TEXT = generateText();
+
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	private int port;
+
+	@Before
+	public void setUp() {
+		port = getFreePort();
+	}
+
+	@Test
+	public void testQuality() {
+		assertEquals(1, HttpCompression.getQuality("gzip, deflate", "gzip"), 0);
+		assertEquals(1, HttpCompression.getQuality("GZIP", "gzip"), 0);
+		assertEquals(0.5f, HttpCompression.getQuality("gzip;q=0.5, deflate", "gzip"), 0);
+		assertEquals(0.3f, HttpCompression.getQuality("br ; q=0.8 , deflate ; q=0.3", "deflate"), 0);
+		assertEquals(0, HttpCompression.getQuality("gzip;q=0, *", "gzip"), 0);
+		assertEquals(0.1f, HttpCompression.getQuality("br, *;q=0.1", "gzip"), 0);
+		assertEquals(0, HttpCompression.getQuality("br, identity", "gzip"), 0);
+		assertEquals(0, HttpCompression.getQuality("", "gzip"), 0);
+	}
+
+	@Test
+	public void testGzip() throws IOException {
+		Result response = request(HttpCompression.create(), "gzip, deflate", "application/json; charset=utf-8", TEXT);
+
+		assertEquals("gzip", response.contentEncoding);
+		assertEquals("Accept-Encoding", response.vary);
+		assertEquals(TEXT, new String(response.body, UTF_8));
+	}
+
+	@Test
+	public void testClientPreference() throws IOException, DataFormatException {
+		Result response = request(HttpCompression.create(), "gzip;q=0.5, deflate", "text/html", TEXT);
+
+		assertEquals("deflate", response.contentEncoding);
+		assertEquals(TEXT, inflate(response.body));
+	}
+
+	@Test
+	public void testServerPreference() throws IOException, DataFormatException {
+		HttpCompression compression = HttpCompression.create()
+				.withEncoders(ContentEncoders.deflate(1), ContentEncoders.gzip(9));
+		Result response = request(compression, "gzip, deflate", "text/html", TEXT);
+
+		assertEquals("deflate", response.contentEncoding);
+		assertEquals(TEXT, inflate(response.body));
+	}
+
+	@Test
+	public void testNotAccepted() throws IOException {
+		Result response = request(HttpCompression.create(), "br", "text/html", TEXT);
+
+		assertNull(response.contentEncoding);
+		assertEquals("Accept-Encoding", response.vary);
+		assertEquals(TEXT, new String(response.body, UTF_8));
+	}
+
+	@Test
+	public void testSmallBody() throws IOException {
+		Result response = request(HttpCompression.create().withMinSize(MemSize.kilobytes(4)), "gzip", "text/html", "{}");
+
+		assertNull(response.contentEncoding);
+		assertNull(response.vary);
+		assertEquals("{}", new String(response.body, UTF_8));
+	}
+
+	@Test
+	public void testIncompressibleMediaType() throws IOException {
+		Result response = request(HttpCompression.create(), "gzip", "image/png", TEXT);
+
+		assertNull(response.contentEncoding);
+		assertEquals(TEXT, new String(response.body, UTF_8));
+	}
+
+	@Test
+	public void testCustomMediaTypes() throws IOException {
+		HttpCompression compression = HttpCompression.create()
+				.withMediaTypes(mediaType -> mediaType.equals("image/png"));
+		Result response = request(compression, "gzip", "image/png", TEXT);
+
+		assertEquals("gzip", response.contentEncoding);
+		assertEquals(TEXT, new String(response.body, UTF_8));
+	}
+
+	@Test
+	public void testStream() throws IOException {
+		AsyncHttpServer server = AsyncHttpServer.create(Eventloop.getCurrentEventloop(),
+						request -> HttpResponse.ok200()
+								.withHeader(CONTENT_TYPE, "text/plain")
+								.withBodyStream(ChannelSupplier.of(
+										wrapUtf8(TEXT.substring(0, 1000)),
+										wrapUtf8(TEXT.substring(1000)))))
+				.withCompression(HttpCompression.create())
+				.withListenPort(port);
+		server.listen();
+
+		Result response = await(AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.request(HttpRequest.get("http://127.0.0.1:" + port).withHeader(ACCEPT_ENCODING, "gzip"))
+				.then(r -> r.loadBody().map($ -> new Result(r)))
+				.whenComplete(server::close));
+
+		assertEquals("gzip", response.contentEncoding);
+		assertEquals("chunked", response.transferEncoding);
+		assertEquals(TEXT, new String(response.body, UTF_8));
+	}
+
+	@Test
+	public void testEncoders() throws DataFormatException, MalformedHttpException {
+		for (int i = 0; i < 3; i++) {
+			ByteBuf gzipped = ContentEncoders.gzip(1, 9).encode(wrapUtf8(TEXT));
+			assertEquals(TEXT, GzipProcessorUtils.fromGzip(gzipped, TEXT.length() * 2).asString(UTF_8));
+
+			ByteBuf deflated = ContentEncoders.deflate().encode(wrapUtf8(TEXT));
+			assertEquals(TEXT, inflate(deflated.asArray()));
+		}
+	}
+
+	private Result request(HttpCompression compression, String acceptEncoding, String contentType, String body) throws IOException {
+		AsyncHttpServer server = AsyncHttpServer.create(Eventloop.getCurrentEventloop(),
+						request -> HttpResponse.ok200()
+								.withHeader(CONTENT_TYPE, contentType)
+								.withBody(wrapUtf8(body)))
+				.withCompression(compression)
+				.withListenPort(port);
+		server.listen();
+
+		return await(AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.request(HttpRequest.get("http://127.0.0.1:" + port).withHeader(ACCEPT_ENCODING, acceptEncoding))
+				.then(response -> response.loadBody().map($ -> new Result(response)))
+				.whenComplete(server::close));
+	}
+
+	private static String inflate(byte[] bytes) throws DataFormatException {
+		Inflater inflater = new Inflater();
+		inflater.setInput(bytes);
+		byte[] result = new byte[TEXT.length() * 2];
+		int length = inflater.inflate(result);
+		assertTrue(inflater.finished());
+		inflater.end();
+		return new String(result, 0, length, UTF_8);
+	}
+
+	private static final class Result {
+		final String contentEncoding;
+		final String vary;
+		final String transferEncoding;
+		final byte[] body;
+
+		Result(HttpResponse response) {
+			contentEncoding = response.getHeader(CONTENT_ENCODING);
+			vary = response.getHeader(VARY);
+			transferEncoding = response.getHeader(TRANSFER_ENCODING);
+			body = response.getBody().getArray();
+		}
+	}
+
+	private static String generateText() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; sb.length() < 10_000; i++) {
+			sb.append("{\"id\":").append(i).append(",\"name\":\"item ").append(i).append("\"},");
+		}
+		return sb.toString();
+	}
+}
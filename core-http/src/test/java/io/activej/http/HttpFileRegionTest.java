@@ -0,0 +1,114 @@
+package io.activej.http;
+
+import io.activej.eventloop.Eventloop;
+import io.activej.http.loader.StaticLoader;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static io.activej.promise.TestUtils.await;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public final class HttpFileRegionTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	@ClassRule
+	public static final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private static final Executor executor = newCachedThreadPool();
+	private static Path dir;
+	private static byte[] bytes;
+
+	private int port;
+
+	@BeforeClass
+	public static void createFile() throws IOException {
+		dir = tmpFolder.newFolder().toPath();
+		bytes = new byte[3_000_000];
+		new Random(0).nextBytes(bytes);
+		Files.write(dir.resolve("file.bin"), bytes);
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		port = getFreePort();
+		AsyncHttpServer.create(Eventloop.getCurrentEventloop(), StaticServlet.create(StaticLoader.ofPath(executor, dir))
+						.withResponse(() -> HttpResponse.ok200().withHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")))
+				.withListenPort(port)
+				.withAcceptOnce()
+				.listen();
+	}
+
+	@Test
+	public void testWholeFile() {
+		byte[] body = await(AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.request(HttpRequest.get("http://127.0.0.1:" + port + "/file.bin"))
+				.then(response -> {
+					assertEquals(200, response.getCode());
+					assertEquals("max-age=60", response.getHeader(HttpHeaders.CACHE_CONTROL));
+					assertEquals(Integer.toString(bytes.length), response.getHeader(HttpHeaders.CONTENT_LENGTH));
+					return response.loadBody(Integer.MAX_VALUE);
+				})
+				.map(buf -> buf.getArray()));
+
+		assertArrayEquals(bytes, body);
+	}
+
+	@Test
+	public void testRange() {
+		byte[] body = await(AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.request(HttpRequest.get("http://127.0.0.1:" + port + "/file.bin")
+						.withHeader(HttpHeaders.RANGE, "bytes=1000-1999999"))
+				.then(response -> {
+					assertEquals(206, response.getCode());
+					assertEquals("bytes 1000-1999999/" + bytes.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+					assertEquals("max-age=60", response.getHeader(HttpHeaders.CACHE_CONTROL));
+					return response.loadBody(Integer.MAX_VALUE);
+				})
+				.map(buf -> buf.getArray()));
+
+		assertArrayEquals(Arrays.copyOfRange(bytes, 1000, 2_000_000), body);
+	}
+
+	@Test
+	public void testSuffixRange() {
+		byte[] body = await(AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.request(HttpRequest.get("http://127.0.0.1:" + port + "/file.bin")
+						.withHeader(HttpHeaders.RANGE, "bytes=-500"))
+				.then(response -> {
+					assertEquals(206, response.getCode());
+					return response.loadBody();
+				})
+				.map(buf -> buf.getArray()));
+
+		assertArrayEquals(Arrays.copyOfRange(bytes, bytes.length - 500, bytes.length), body);
+	}
+
+	@Test
+	public void testInvalidRange() {
+		int code = await(AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.request(HttpRequest.get("http://127.0.0.1:" + port + "/file.bin")
+						.withHeader(HttpHeaders.RANGE, "bytes=5000000-"))
+				.then(response -> response.loadBody().map($ -> response.getCode())));
+
+		assertEquals(416, code);
+	}
+}
@@ -4,13 +4,17 @@ import io.activej.test.rules.ByteBufRule;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.util.Map;
+
 import static io.activej.http.ContentTypes.JSON_UTF_8;
 import static io.activej.http.HttpHeaderValue.*;
 import static io.activej.http.HttpHeaders.*;
 import static io.activej.http.MediaTypes.ANY_IMAGE;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public final class HttpHeadersTest {
 
@@ -35,4 +39,29 @@ public final class HttpHeadersTest {
 
 		assertEquals("Mon, 13 Feb 2017 00:00:00 GMT", response.getHeader(DATE));
 	}
+
+	@Test
+	public void testRawHeaders() {
+		byte[] array = encodeAscii("text/html|close|value0|value1|value2|value3|value4|value5|value6|value7|value8|value9");
+		HttpRequest request = HttpRequest.get("http://example.com");
+		request.addRawHeader(CONTENT_TYPE, array, 0, 9);
+		request.addHeader(HOST, "example.com");
+		request.addRawHeader(CONNECTION, array, 10, 5);
+		for (int i = 0; i < 10; i++) {
+			request.addRawHeader(HttpHeaders.of("X-Header-" + i), array, 16 + i * 7, 6);
+		}
+		request.addRawHeader(HttpHeaders.of("X-Other-Array"), encodeAscii("other"), 0, 5);
+
+		assertEquals("text/html", request.getHeader(CONTENT_TYPE));
+		assertEquals("close", request.getHeader(CONNECTION));
+		assertEquals("example.com", request.getHeader(HOST));
+		assertEquals("other", request.getHeader(HttpHeaders.of("X-Other-Array")));
+		assertNull(request.getHeader(ACCEPT));
+		for (Map.Entry<HttpHeader, HttpHeaderValue> entry : request.getHeaders()) {
+			String name = entry.getKey().toString();
+			if (name.startsWith("X-Header-")) {
+				assertEquals("value" + name.substring(9), entry.getValue().toString());
+			}
+		}
+	}
 }
@@ -373,4 +373,65 @@ public final class RoutingServletTest {
 		check(main.serve(HttpRequest.post(TEMPLATE + wsPath)), "", 404);
 	}
 
+	@Test
+	public void testCompiled() throws Exception {
+		RoutingServlet main = RoutingServlet.create()
+				.map(GET, "/", request -> HttpResponse.ok200().withBody(wrapUtf8("root")))
+				.map(GET, "/u", request -> HttpResponse.ok200().withBody(wrapUtf8("u")))
+				.map(GET, "/use", request -> HttpResponse.ok200().withBody(wrapUtf8("use")))
+				.map(GET, "/user", request -> HttpResponse.ok200().withBody(wrapUtf8("user")))
+				.map(GET, "/users/:id", request -> HttpResponse.ok200().withBody(wrapUtf8("users " + request.getPathParameter("id"))))
+				.map(GET, "/users/:id/posts", request -> HttpResponse.ok200().withBody(wrapUtf8("posts " + request.getPathParameter("id"))))
+				.map(POST, "/users/:id", request -> HttpResponse.ok200().withBody(wrapUtf8("post " + request.getPathParameter("id"))))
+				.map("/static/*", request -> HttpResponse.ok200().withBody(wrapUtf8("static " + request.getRelativePath())))
+				.mapWebSocket("/users/ws", request -> HttpResponse.ok200());
+
+		CompiledRoutingServlet compiled = main.compile();
+		main.map(GET, "/added", request -> HttpResponse.ok200().withBody(wrapUtf8("added")));
+
+		check(compiled.serve(HttpRequest.get(TEMPLATE)), "root", 200);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/")), "root", 200);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/u")), "u", 200);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/us")), "", 404);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/use")), "use", 200);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/user?query=string")), "user", 200);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/userz")), "", 404);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/users/123")), "users 123", 200);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/users/123/posts")), "posts 123", 200);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/users/123/comments")), "", 404);
+		check(compiled.serve(HttpRequest.post(TEMPLATE + "/users/456")), "post 456", 200);
+		check(compiled.serve(HttpRequest.of(OPTIONS, TEMPLATE + "/static/a/b")), "static a/b", 200);
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/added")), "", 404);
+		checkWebSocket(compiled.serve(HttpRequest.get(TEMPLATE_WS + "/users/ws")));
+		check(compiled.serve(HttpRequest.get(TEMPLATE + "/users/ws")), "users ws", 200);
+		check(main.serve(HttpRequest.get(TEMPLATE + "/added")), "added", 200);
+	}
+
+	@Test
+	public void testCompiledMatchesOriginal() throws Exception {
+		AsyncServlet printPath = request -> HttpResponse.ok200()
+				.withBody(wrapUtf8(request.getPath() + " " + request.getPathParameters() + " " + request.getRelativePath()));
+
+		RoutingServlet main = RoutingServlet.create()
+				.map(GET, "/a/b/c", printPath)
+				.map(GET, "/a/:x/c", printPath)
+				.map(GET, "/a/:y/d", printPath)
+				.map("/a/*", printPath)
+				.map(GET, "/\u0444\u0430\u0439\u043b/:name", printPath)
+				.map(GET, "/method/:var/*", printPath);
+		CompiledRoutingServlet compiled = main.compile();
+
+		String[] paths = {"", "/", "/a", "/a/", "/a/b/c", "/a/b/d", "/a/z/c", "/a/z/d", "/a/z/e/f",
+				"/\u0444\u0430\u0439\u043b/x", "/method/x/first/second?query=string", "/method/x/", "/b"};
+		for (String path : paths) {
+			Promise<HttpResponse> expected = main.serve(HttpRequest.get(TEMPLATE + path));
+			Promise<HttpResponse> actual = compiled.serve(HttpRequest.get(TEMPLATE + path));
+			if (expected.isResult()) {
+				check(actual, expected.getResult().getBody().asString(UTF_8), 200);
+			} else {
+				check(actual, "", ((HttpError) expected.getException()).getCode());
+			}
+		}
+	}
+
 }
@@ -1,6 +1,7 @@
 package io.activej.http;
 
 import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
 import io.activej.http.loader.StaticLoader;
 import io.activej.test.rules.ByteBufRule;
 import io.activej.test.rules.EventloopRule;
@@ -20,7 +21,7 @@ import static io.activej.promise.TestUtils.await;
 import static io.activej.promise.TestUtils.awaitException;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.Executors.newCachedThreadPool;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public final class StaticServletTest {
 	public static final String EXPECTED_CONTENT = "Test";
@@ -127,4 +128,36 @@ public final class StaticServletTest {
 		assertEquals(customContent, body.asString(UTF_8));
 		assertEquals(customType, response.getHeader(HttpHeaders.CONTENT_TYPE));
 	}
+
+	@Test
+	public void testCachedResources() throws IOException, MalformedHttpException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append("line ").append(i).append('\n');
+		}
+		String content = sb.toString();
+		Files.write(resourcesPath.resolve("large.txt"), encodeAscii(content));
+
+		StaticServlet staticServlet = StaticServlet.create(ofPath(newCachedThreadPool(), resourcesPath)
+				.cached(MemSize.megabytes(1)));
+
+		HttpResponse response = await(staticServlet.serve(HttpRequest.get("http://test.com:8080/large.txt")));
+		String eTag = response.getHeader(HttpHeaders.ETAG);
+		assertNotNull(eTag);
+		assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(content, response.getBody().asString(UTF_8));
+
+		response = await(staticServlet.serve(HttpRequest.get("http://test.com:8080/large.txt")
+				.withHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")));
+		assertEquals(eTag, response.getHeader(HttpHeaders.ETAG));
+		assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+		ByteBuf gzipped = response.getBody();
+		assertTrue(gzipped.readRemaining() < content.length());
+		assertEquals(content, GzipProcessorUtils.fromGzip(gzipped, 2 * content.length()).asString(UTF_8));
+
+		response = await(staticServlet.serve(HttpRequest.get("http://test.com:8080/large.txt")
+				.withHeader(HttpHeaders.IF_NONE_MATCH, eTag)));
+		assertEquals(304, response.getCode());
+		assertEquals(eTag, response.getHeader(HttpHeaders.ETAG));
+	}
 }
@@ -0,0 +1,141 @@
+package io.activej.http.hpack;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.http.MalformedHttpException;
+import io.activej.test.rules.ByteBufRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static io.activej.bytebuf.ByteBufStrings.decodeAscii;
+import static io.activej.bytebuf.ByteBufStrings.encodeAscii;
+import static org.junit.Assert.*;
+
+public final class HpackTest {
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	// RFC 7541, Appendix C.4
+	@Test
+	public void testRequestExamplesWithHuffmanCoding() throws MalformedHttpException {
+		HpackDecoder decoder = HpackDecoder.create();
+
+		assertEquals(Arrays.asList(":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com"),
+				decode(decoder, "828684418cf1e3c2e5f23a6ba0ab90f4ff"));
+		assertEquals(57, decoder.getTableSize());
+
+		assertEquals(Arrays.asList(":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+				"cache-control", "no-cache"),
+				decode(decoder, "828684be5886a8eb10649cbf"));
+		assertEquals(110, decoder.getTableSize());
+
+		assertEquals(Arrays.asList(":method", "GET", ":scheme", "https", ":path", "/index.html", ":authority", "www.example.com",
+				"custom-key", "custom-value"),
+				decode(decoder, "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf"));
+		assertEquals(164, decoder.getTableSize());
+	}
+
+	@Test
+	public void testHuffmanRoundTrip() throws MalformedHttpException {
+		Random random = new Random(0);
+		for (int i = 0; i < 1000; i++) {
+			byte[] bytes = new byte[random.nextInt(100)];
+			random.nextBytes(bytes);
+			ByteBuf buf = ByteBufPool.allocate(Huffman.encodedLength(bytes, 0, bytes.length));
+			Huffman.encode(buf, bytes, 0, bytes.length);
+			assertArrayEquals(bytes, Huffman.decode(buf.array(), buf.head(), buf.readRemaining()));
+			buf.recycle();
+		}
+	}
+
+	@Test
+	public void testInvalidPadding() {
+		// 'a' is encoded as 00011, followed by a padding of zeros instead of ones
+		byte[] bytes = {0b0001_1000};
+		assertThrows(MalformedHttpException.class, () -> Huffman.decode(bytes, 0, bytes.length));
+	}
+
+	@Test
+	public void testEncoderDecoderRoundTrip() throws MalformedHttpException {
+		HpackEncoder encoder = HpackEncoder.create();
+		HpackDecoder decoder = HpackDecoder.create();
+		Random random = new Random(0);
+		for (int i = 0; i < 100; i++) {
+			List<String> expected = new ArrayList<>();
+			expected.add(":status");
+			expected.add(String.valueOf(200 + random.nextInt(5)));
+			expected.add("content-type");
+			expected.add("text/plain");
+			expected.add("x-request-id");
+			expected.add(String.valueOf(random.nextInt(20)));
+			expected.add("authorization");
+			expected.add("Bearer " + random.nextLong());
+			expected.add("x-custom-" + random.nextInt(100));
+			expected.add(String.valueOf(random.nextLong()));
+
+			ByteBuf block = encoder.beginHeaderBlock(ByteBufPool.allocate(16));
+			for (int j = 0; j < expected.size(); j += 2) {
+				block = encoder.encodeHeader(block, encodeAscii(expected.get(j)), encodeAscii(expected.get(j + 1)));
+			}
+			assertEquals(expected, decode(decoder, block));
+			assertEquals(encoder.getTableSize(), decoder.getTableSize());
+			assertTrue(decoder.getTableSize() <= HpackDecoder.DEFAULT_HEADER_TABLE_SIZE);
+		}
+	}
+
+	@Test
+	public void testTableSizeUpdate() throws MalformedHttpException {
+		HpackEncoder encoder = HpackEncoder.create();
+		HpackDecoder decoder = HpackDecoder.create();
+
+		ByteBuf block = encoder.beginHeaderBlock(ByteBufPool.allocate(16));
+		block = encoder.encodeHeader(block, encodeAscii("x-name"), encodeAscii("value"));
+		decode(decoder, block);
+		assertEquals(43, decoder.getTableSize());
+
+		encoder.setMaxTableSize(0);
+		encoder.setMaxTableSize(100);
+		block = encoder.beginHeaderBlock(ByteBufPool.allocate(16));
+		block = encoder.encodeHeader(block, encodeAscii("x-other-name"), encodeAscii("value"));
+		assertEquals(Arrays.asList("x-other-name", "value"), decode(decoder, block));
+		assertEquals(49, decoder.getTableSize());
+	}
+
+	@Test
+	public void testSizeUpdateAboveLimit() {
+		HpackDecoder decoder = HpackDecoder.create(100);
+		// dynamic table size update to 4096
+		assertThrows(MalformedHttpException.class, () -> decode(decoder, "3fe11f"));
+	}
+
+	private static List<String> decode(HpackDecoder decoder, String hex) throws MalformedHttpException {
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		}
+		List<String> result = new ArrayList<>();
+		decoder.decode(bytes, 0, bytes.length, (name, value) -> {
+			result.add(decodeAscii(name));
+			result.add(decodeAscii(value));
+		});
+		return result;
+	}
+
+	private static List<String> decode(HpackDecoder decoder, ByteBuf block) throws MalformedHttpException {
+		try {
+			List<String> result = new ArrayList<>();
+			decoder.decode(block.array(), block.head(), block.tail(), (name, value) -> {
+				result.add(decodeAscii(name));
+				result.add(decodeAscii(value));
+			});
+			return result;
+		} finally {
+			block.recycle();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package io.activej.http.session;
+
+import io.activej.common.MemSize;
+import io.activej.eventloop.Eventloop;
+import io.activej.promise.Promises;
+import io.activej.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static io.activej.http.session.SessionStoreBounded.ENTRY_OVERHEAD;
+import static io.activej.promise.TestUtils.await;
+import static org.junit.Assert.*;
+
+public final class SessionStoreBoundedTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	private long currentTime;
+	private SessionStoreBounded<String> store;
+
+	@Before
+	public void setUp() {
+		store = SessionStoreBounded.create(Eventloop.getCurrentEventloop());
+		store.now = () -> currentTime;
+	}
+
+	@Test
+	public void testSaveGetRemove() {
+		await(store.save("a", "value a"));
+		await(store.save("b", "value b"));
+
+		assertEquals("value a", await(store.get("a")));
+		assertNull(await(store.get("c")));
+
+		await(store.remove("a"));
+		assertNull(await(store.get("a")));
+		assertEquals("value b", await(store.get("b")));
+
+		assertEquals(2, store.getHits());
+		assertEquals(2, store.getMisses());
+		assertEquals(1, store.getSessions());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyAccessed() {
+		store.withMaxSessions(2);
+
+		await(store.save("a", "value a"));
+		await(store.save("b", "value b"));
+		await(store.get("a"));
+		await(store.save("c", "value c"));
+
+		assertEquals("value a", await(store.get("a")));
+		assertNull(await(store.get("b")));
+		assertEquals("value c", await(store.get("c")));
+		assertEquals(1, store.getEvictions());
+	}
+
+	@Test
+	public void testMaxSize() {
+		store.withMaxSize(MemSize.of(3 * (ENTRY_OVERHEAD + 2 + 100)), String::length);
+
+		for (int i = 0; i < 10; i++) {
+			await(store.save(String.valueOf(i), new String(new char[100])));
+		}
+		assertEquals(3, store.getSessions());
+		assertEquals(7, store.getEvictions());
+
+		await(store.save("0", new String(new char[250])));
+		assertEquals(2, store.getSessions());
+		assertTrue(store.getSize() <= 3 * (ENTRY_OVERHEAD + 2 + 100));
+	}
+
+	@Test
+	public void testExpiration() {
+		store.withLifetime(Duration.ofMillis(100));
+
+		await(store.save("a", "value a"));
+		currentTime = 50;
+		await(store.save("b", "value b"));
+		currentTime = 100;
+		assertEquals("value a", await(store.get("a")));
+
+		currentTime = 175;
+		store.expire();
+		assertEquals(1, store.getSessions());
+		assertEquals(1, store.getExpirations());
+		assertEquals("value a", await(store.get("a")));
+
+		currentTime = 300;
+		assertNull(await(store.get("a")));
+		store.expire();
+		assertEquals(0, store.getSessions());
+		assertEquals(0, store.getSize());
+		assertEquals(2, store.getExpirations());
+	}
+
+	@Test
+	public void testExpirationByTimer() {
+		Eventloop eventloop = Eventloop.getCurrentEventloop();
+		SessionStoreBounded<String> store = SessionStoreBounded.<String>create(eventloop)
+				.withLifetime(Duration.ofMillis(10))
+				.withExpirationCheckInterval(Duration.ofMillis(10));
+
+		await(store.save("a", "value a"));
+		await(store.save("b", "value b"));
+		assertEquals(2, store.getSessions());
+
+		await(Promises.delay(Duration.ofMillis(100)));
+		assertEquals(0, store.getSessions());
+		assertEquals(2, store.getExpirations());
+	}
+}
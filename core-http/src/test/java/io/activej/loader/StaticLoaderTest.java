@@ -1,22 +1,30 @@
 package io.activej.loader;
 
 import io.activej.bytebuf.ByteBuf;
+import io.activej.common.MemSize;
 import io.activej.http.loader.ResourceNotFoundException;
 import io.activej.http.loader.StaticLoader;
+import io.activej.http.loader.StaticLoaderLruCache;
+import io.activej.http.loader.StaticResource;
+import io.activej.promise.Promise;
+import io.activej.promise.SettablePromise;
 import io.activej.test.rules.ByteBufRule;
 import io.activej.test.rules.EventloopRule;
 import org.junit.ClassRule;
 import org.junit.Test;
 
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.activej.promise.TestUtils.await;
 import static io.activej.promise.TestUtils.awaitException;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class StaticLoaderTest {
 	@ClassRule
@@ -90,4 +98,91 @@ public class StaticLoaderTest {
 		ByteBuf file = await(staticLoader.load("test.txt"));
 		assertNotNull(file);
 	}
+
+	@Test
+	public void testLruCache() {
+		AtomicInteger loads = new AtomicInteger();
+		StaticLoaderLruCache cache = ((StaticLoader) path -> {
+			loads.incrementAndGet();
+			return path.startsWith("missing") ?
+					Promise.ofException(new ResourceNotFoundException("Could not find '" + path + '\'')) :
+					Promise.of(ByteBuf.wrapForReading(new byte[1000]));
+		})
+				.cached(MemSize.bytes(3000))
+				.withGzip(false);
+
+		await(cache.load("a"));
+		await(cache.load("b"));
+		await(cache.load("a"));
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.getHits());
+
+		// 'b' is the least recently used one
+		await(cache.load("c"));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.getEntries());
+		assertTrue(cache.getSize() <= 3000);
+
+		await(cache.load("a"));
+		await(cache.load("b"));
+		assertEquals(4, loads.get());
+
+		awaitException(cache.load("missing"));
+		Exception exception = awaitException(cache.load("missing"));
+		assertThat(exception, instanceOf(ResourceNotFoundException.class));
+		assertEquals(5, loads.get());
+	}
+
+	@Test
+	public void testLruCacheCoalescesConcurrentLoads() {
+		List<SettablePromise<ByteBuf>> loads = new ArrayList<>();
+		StaticLoaderLruCache cache = ((StaticLoader) path -> {
+			SettablePromise<ByteBuf> load = new SettablePromise<>();
+			loads.add(load);
+			return load;
+		})
+				.cached(MemSize.bytes(3000))
+				.withGzip(false);
+
+		Promise<StaticResource> first = cache.loadResource("a");
+		Promise<StaticResource> second = cache.loadResource("a");
+		assertEquals(1, loads.size());
+
+		loads.get(0).set(ByteBuf.wrapForReading(new byte[1000]));
+		assertSame(await(first), await(second));
+		assertEquals(1, cache.getEntries());
+	}
+
+	@Test
+	public void testLruCacheOversizedResource() {
+		AtomicInteger loads = new AtomicInteger();
+		StaticLoaderLruCache cache = ((StaticLoader) path -> {
+			loads.incrementAndGet();
+			return Promise.of(ByteBuf.wrapForReading(new byte[5000]));
+		})
+				.cached(MemSize.bytes(3000))
+				.withGzip(false);
+
+		await(cache.load("a"));
+		await(cache.load("a"));
+		assertEquals(2, loads.get());
+		assertEquals(0, cache.getEntries());
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testLruCacheGzippedVariant() {
+		byte[] content = new byte[10_000];
+		Arrays.fill(content, (byte) 'a');
+		StaticLoaderLruCache cache = ((StaticLoader) path -> Promise.of(ByteBuf.wrapForReading(content)))
+				.cached(MemSize.megabytes(1));
+
+		StaticResource resource = await(cache.loadResource("file.txt"));
+		assertTrue(resource.hasGzippedVariant());
+		ByteBuf gzipped = resource.getGzippedBuf();
+		assertNotNull(gzipped);
+		assertTrue(gzipped.readRemaining() < content.length);
+		assertEquals(content.length, resource.size());
+		assertSame(resource, await(cache.loadResource("file.txt")));
+	}
 }
@@ -37,19 +37,23 @@ import io.activej.promise.SettablePromise;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.activej.common.Checks.checkState;
 import static io.activej.common.MemSize.kilobytes;
 import static io.activej.common.Utils.nullify;
 import static io.activej.eventloop.Eventloop.getCurrentEventloop;
+import static java.lang.Math.min;
 
 @SuppressWarnings("WeakerAccess")
 public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventHandler {
@@ -58,6 +62,20 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 	private static final int DEBUG_READ_OFFSET = ApplicationSettings.getInt(AsyncTcpSocketNio.class, "debugReadOffset", 0);
 
 	public static final int DEFAULT_READ_BUFFER_SIZE = ApplicationSettings.getMemSize(AsyncTcpSocketNio.class, "readBufferSize", kilobytes(16)).toInt();
+
+	/**
+	 * If enabled, socket I/O is staged through pooled direct buffers from {@link ByteBufPool#allocateDirect(int)}
+	 * instead of passing heap buffers to the channel (which makes JDK copy data into its own temporary direct buffers)
+	 */
+	private static final boolean DIRECT_BUFFERS = ApplicationSettings.getBoolean(AsyncTcpSocketNio.class, "directBuffers", false);
+	private static final int DIRECT_WRITE_BUFFER_SIZE = ApplicationSettings.getMemSize(AsyncTcpSocketNio.class, "directWriteBufferSize", kilobytes(64)).toInt();
+
+	/**
+	 * Pending ByteBufs that are not bigger than this threshold are copied into a previous pending ByteBuf
+	 * (if it has enough space), bigger ByteBufs are queued and written with a single gathering write
+	 */
+	private static final int WRITE_COALESCE_THRESHOLD = ApplicationSettings.getMemSize(AsyncTcpSocketNio.class, "writeCoalesceThreshold", kilobytes(4)).toInt();
+	private static final int MAX_GATHERING_WRITE_BUFS = 64;
 	public static final int NO_TIMEOUT = 0;
 
 	private static final AtomicInteger CONNECTION_COUNT = new AtomicInteger(0);
@@ -69,11 +87,19 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 	private @Nullable ByteBuf readBuf;
 	private boolean readEndOfStream;
 	private @Nullable ByteBuf writeBuf;
+	private ByteBuf @Nullable [] writeQueue;
+	private int writeQueueSize;
 	private boolean writeEndOfStream;
 
 	private @Nullable SettablePromise<ByteBuf> read;
 	private @Nullable SettablePromise<Void> write;
 
+	// file region which is being transferred to the channel
+	private @Nullable FileChannel transferFile;
+	private long transferPosition;
+	private long transferRemaining;
+	private @Nullable SettablePromise<Void> transfer;
+
 	private SelectionKey key;
 	private byte ops;
 
@@ -103,6 +129,9 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 
 		void onWrite(AsyncTcpSocketNio socket, ByteBuf buf, int bytes);
 
+		default void onTransfer(AsyncTcpSocketNio socket, long bytes) {
+		}
+
 		void onWriteError(AsyncTcpSocketNio socket, IOException e);
 
 		void onDisconnect(AsyncTcpSocketNio socket);
@@ -159,6 +188,11 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 				writeOverloaded.recordEvent();
 		}
 
+		@Override
+		public void onTransfer(AsyncTcpSocketNio socket, long bytes) {
+			writes.recordValue(bytes);
+		}
+
 		@Override
 		public void onWriteError(AsyncTcpSocketNio socket, IOException e) {
 			writeErrors.recordException(e, socket.getRemoteAddress());
@@ -319,7 +353,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 
 	private void updateInterests() {
 		assert !isClosed() && ops >= 0;
-		byte newOps = (byte) (((readBuf == null && !readEndOfStream) ? SelectionKey.OP_READ : 0) | (writeBuf == null || writeEndOfStream ? 0 : SelectionKey.OP_WRITE));
+		byte newOps = (byte) (((readBuf == null && !readEndOfStream) ? SelectionKey.OP_READ : 0) | (writeBuf == null && transferFile == null ? 0 : SelectionKey.OP_WRITE));
 		if (key == null) {
 			ops = newOps;
 			try {
@@ -381,25 +415,40 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 	private void doRead() throws IOException {
 		assert channel != null;
 		ByteBuf buf;
-		if (DEBUG_READ_OFFSET == 0) {
+		int numRead;
+		if (DIRECT_BUFFERS) {
+			ByteBuffer buffer = ByteBufPool.allocateDirect(readBufferSize);
+			try {
+				numRead = channel.read(buffer);
+			} catch (IOException e) {
+				ByteBufPool.recycleDirect(buffer);
+				if (inspector != null) inspector.onReadError(this, e);
+				throw e;
+			}
+			buffer.flip();
 			buf = ByteBufPool.allocate(readBufferSize);
+			buf.put(buffer);
+			ByteBufPool.recycleDirect(buffer);
 		} else {
-			checkState(DEBUG_READ_OFFSET > 0);
+			if (DEBUG_READ_OFFSET == 0) {
+				buf = ByteBufPool.allocate(readBufferSize);
+			} else {
+				checkState(DEBUG_READ_OFFSET > 0);
 
-			buf = ByteBufPool.allocate(readBufferSize);
-			buf.tail(DEBUG_READ_OFFSET);
-			buf.head(DEBUG_READ_OFFSET);
-		}
-		ByteBuffer buffer = buf.toWriteByteBuffer();
+				buf = ByteBufPool.allocate(readBufferSize);
+				buf.tail(DEBUG_READ_OFFSET);
+				buf.head(DEBUG_READ_OFFSET);
+			}
+			ByteBuffer buffer = buf.toWriteByteBuffer();
 
-		int numRead;
-		try {
-			numRead = channel.read(buffer);
-			buf.ofWriteByteBuffer(buffer);
-		} catch (IOException e) {
-			buf.recycle();
-			if (inspector != null) inspector.onReadError(this, e);
-			throw e;
+			try {
+				numRead = channel.read(buffer);
+				buf.ofWriteByteBuffer(buffer);
+			} catch (IOException e) {
+				buf.recycle();
+				if (inspector != null) inspector.onReadError(this, e);
+				throw e;
+			}
 		}
 
 		if (numRead == 0) {
@@ -437,6 +486,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		if (CHECK) {
 			checkState(eventloop.inEventloopThread());
 			checkState(!writeEndOfStream, "End of stream has already been sent");
+			checkState(transfer == null, "File region is being transferred");
 		}
 		if (isClosed()) {
 			if (buf != null) buf.recycle();
@@ -452,9 +502,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 			writeBuf = buf;
 		} else {
 			if (buf != null) {
-				writeBuf = ByteBufPool.ensureWriteRemaining(this.writeBuf, buf.readRemaining());
-				writeBuf.put(buf.array(), buf.head(), buf.readRemaining());
-				buf.recycle();
+				enqueueWrite(buf);
 			}
 		}
 
@@ -481,6 +529,55 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		return write;
 	}
 
+	/**
+	 * Writes a region of a file to the network using {@link FileChannel#transferTo},
+	 * so that file contents are not copied through user space.
+	 * <p>
+	 * Data passed to previous {@link #write} calls is sent before the file region.
+	 * No other writes are allowed until the returned promise is complete.
+	 * File channel is not closed by this method.
+	 *
+	 * @param file     file channel to read data from
+	 * @param position position of the region within the file
+	 * @param count    number of bytes to be transferred
+	 * @return promise that represents successful transfer of the whole region
+	 */
+	public @NotNull Promise<Void> transferFrom(@NotNull FileChannel file, long position, long count) {
+		if (CHECK) {
+			checkState(eventloop.inEventloopThread());
+			checkState(!writeEndOfStream, "End of stream has already been sent");
+			checkState(transfer == null, "File region is being transferred");
+		}
+		if (isClosed()) return Promise.ofException(new AsyncCloseException());
+		if (write != null) {
+			return write.then(() -> transferFrom(file, position, count));
+		}
+
+		transferFile = file;
+		transferPosition = position;
+		transferRemaining = count;
+
+		try {
+			doTransfer();
+		} catch (IOException e) {
+			closeEx(e);
+			return Promise.ofException(e);
+		}
+
+		if (transferFile == null) {
+			return Promise.complete();
+		}
+		SettablePromise<Void> transfer = new SettablePromise<>();
+		this.transfer = transfer;
+		if (scheduledWriteTimeout == null && writeTimeout != NO_TIMEOUT) {
+			scheduleWriteTimeout();
+		}
+		if (ops >= 0) {
+			updateInterests();
+		}
+		return transfer;
+	}
+
 	@Override
 	public boolean isReadAvailable() {
 		return readBuf != null;
@@ -488,6 +585,10 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 
 	@Override
 	public void onWriteReady() {
+		if (transfer != null) {
+			onTransferReady();
+			return;
+		}
 		assert write != null;
 		ops = (byte) (ops | 0x80);
 		try {
@@ -506,28 +607,79 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		updateInterests();
 	}
 
+	private void onTransferReady() {
+		assert transfer != null;
+		ops = (byte) (ops | 0x80);
+		try {
+			doTransfer();
+		} catch (IOException e) {
+			closeEx(e);
+			return;
+		}
+		if (transferFile == null) {
+			SettablePromise<@Nullable Void> transfer = this.transfer;
+			this.transfer = null;
+			transfer.set(null);
+		}
+		if (isClosed()) return;
+		ops = (byte) (ops & 0x7f);
+		updateInterests();
+	}
+
+	private void enqueueWrite(ByteBuf buf) {
+		assert writeBuf != null;
+		int size = buf.readRemaining();
+		if (size == 0) {
+			buf.recycle();
+			return;
+		}
+		ByteBuf last = writeQueueSize == 0 ? writeBuf : writeQueue[writeQueueSize - 1];
+		if (size <= WRITE_COALESCE_THRESHOLD && last.writeRemaining() >= size) {
+			last = ByteBufPool.ensureWriteRemaining(last, size);
+			last.put(buf.array(), buf.head(), size);
+			buf.recycle();
+			if (writeQueueSize == 0) {
+				writeBuf = last;
+			} else {
+				writeQueue[writeQueueSize - 1] = last;
+			}
+			return;
+		}
+		if (writeQueue == null) {
+			writeQueue = new ByteBuf[4];
+		} else if (writeQueueSize == writeQueue.length) {
+			writeQueue = Arrays.copyOf(writeQueue, writeQueue.length * 2);
+		}
+		writeQueue[writeQueueSize++] = buf;
+	}
+
 	private void doWrite() throws IOException {
 		assert channel != null;
 		if (writeBuf != null) {
-			ByteBuf buf = this.writeBuf;
-			ByteBuffer buffer = buf.toReadByteBuffer();
-
+			long numWritten;
 			try {
-				channel.write(buffer);
+				if (DIRECT_BUFFERS) {
+					numWritten = doWriteDirect();
+				} else if (writeQueueSize == 0) {
+					numWritten = channel.write(writeBuf.toReadByteBuffer());
+				} else {
+					int n = min(writeQueueSize + 1, MAX_GATHERING_WRITE_BUFS);
+					ByteBuffer[] buffers = new ByteBuffer[n];
+					buffers[0] = writeBuf.toReadByteBuffer();
+					for (int i = 1; i < n; i++) {
+						buffers[i] = writeQueue[i - 1].toReadByteBuffer();
+					}
+					numWritten = channel.write(buffers, 0, n);
+				}
 			} catch (IOException e) {
 				if (inspector != null) inspector.onWriteError(this, e);
 				throw e;
 			}
 
-			if (inspector != null) inspector.onWrite(this, buf, buffer.position() - buf.head());
+			onWritten(numWritten);
 
-			buf.ofReadByteBuffer(buffer);
-
-			if (buf.canRead()) {
+			if (writeBuf != null) {
 				return;
-			} else {
-				buf.recycle();
-				writeBuf = null;
 			}
 		}
 
@@ -542,6 +694,80 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		}
 	}
 
+	private void doTransfer() throws IOException {
+		assert channel != null && transferFile != null;
+		while (transferRemaining != 0) {
+			long numWritten;
+			try {
+				numWritten = transferFile.transferTo(transferPosition, transferRemaining, channel);
+				if (numWritten == 0 && transferPosition >= transferFile.size()) {
+					throw new EOFException("File region exceeds the size of the file");
+				}
+			} catch (IOException e) {
+				if (inspector != null) inspector.onWriteError(this, e);
+				throw e;
+			}
+			if (numWritten == 0) {
+				// socket send buffer is full
+				return;
+			}
+			if (inspector != null) inspector.onTransfer(this, numWritten);
+			transferPosition += numWritten;
+			transferRemaining -= numWritten;
+		}
+		transferFile = null;
+		scheduledWriteTimeout = nullify(scheduledWriteTimeout, ScheduledRunnable::cancel);
+	}
+
+	/**
+	 * Copies pending ByteBufs into a pooled direct buffer and writes it to the channel
+	 */
+	private int doWriteDirect() throws IOException {
+		assert channel != null && writeBuf != null;
+		ByteBuffer buffer = ByteBufPool.allocateDirect(DIRECT_WRITE_BUFFER_SIZE);
+		try {
+			buffer.limit(DIRECT_WRITE_BUFFER_SIZE);
+			for (int i = -1; i < writeQueueSize && buffer.hasRemaining(); i++) {
+				ByteBuf buf = i == -1 ? writeBuf : writeQueue[i];
+				buffer.put(buf.array(), buf.head(), min(buf.readRemaining(), buffer.remaining()));
+			}
+			buffer.flip();
+			return channel.write(buffer);
+		} finally {
+			ByteBufPool.recycleDirect(buffer);
+		}
+	}
+
+	/**
+	 * Advances pending ByteBufs by a given amount of written bytes,
+	 * recycling those that have been fully written
+	 */
+	private void onWritten(long numWritten) {
+		assert writeBuf != null;
+		while (true) {
+			ByteBuf buf = writeBuf;
+			int bytes = (int) min(buf.readRemaining(), numWritten);
+			if (inspector != null) inspector.onWrite(this, buf, bytes);
+			buf.moveHead(bytes);
+			numWritten -= bytes;
+			if (buf.canRead()) {
+				return;
+			}
+			buf.recycle();
+			if (writeQueueSize == 0) {
+				writeBuf = null;
+				return;
+			}
+			assert writeQueue != null;
+			writeBuf = writeQueue[0];
+			System.arraycopy(writeQueue, 1, writeQueue, 0, --writeQueueSize);
+			writeQueue[writeQueueSize] = null;
+			if (numWritten == 0) {
+				return;
+			}
+		}
+	}
+
 	@Override
 	public void closeEx(@NotNull Exception e) {
 		if (CHECK) checkState(eventloop.inEventloopThread());
@@ -549,10 +775,17 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		doClose();
 		readBuf = nullify(readBuf, ByteBuf::recycle);
 		writeBuf = nullify(writeBuf, ByteBuf::recycle);
+		for (int i = 0; i < writeQueueSize; i++) {
+			writeQueue[i].recycle();
+			writeQueue[i] = null;
+		}
+		writeQueueSize = 0;
 		scheduledReadTimeout = nullify(scheduledReadTimeout, ScheduledRunnable::cancel);
 		scheduledWriteTimeout = nullify(scheduledWriteTimeout, ScheduledRunnable::cancel);
 		read = nullify(read, SettablePromise::setException, e);
 		write = nullify(write, SettablePromise::setException, e);
+		transferFile = null;
+		transfer = nullify(transfer, SettablePromise::setException, e);
 	}
 
 	private void doClose() {
@@ -577,6 +810,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 				"channel=" + (channel != null ? channel : "") +
 				", readBuf=" + readBuf +
 				", writeBuf=" + writeBuf +
+				", writeQueueSize=" + writeQueueSize +
 				", readEndOfStream=" + readEndOfStream +
 				", writeEndOfStream=" + writeEndOfStream +
 				", read=" + read +
@@ -0,0 +1,142 @@
+package io.activej.net.socket.tcp;
+
+import io.activej.bytebuf.ByteBuf;
+import io.activej.bytebuf.ByteBufPool;
+import io.activej.bytebuf.ByteBufs;
+import io.activej.net.SimpleServer;
+import io.activej.promise.Promise;
+import io.activej.promise.Promises;
+import io.activej.test.rules.ByteBufRule;
+import io.activej.test.rules.EventloopRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static io.activej.promise.TestUtils.await;
+import static io.activej.test.TestUtils.getFreePort;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.junit.Assert.assertArrayEquals;
+
+public final class AsyncTcpSocketNioTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	@ClassRule
+	public static final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	@Test
+	public void testPipelinedWrites() throws IOException {
+		InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+
+		SimpleServer.create(socket -> Promises.repeat(
+						() -> socket.read()
+								.then(buf -> socket.write(buf)
+										.map($ -> buf != null)))
+						.whenComplete(socket::close))
+				.withListenAddress(address)
+				.withAcceptOnce()
+				.listen();
+
+		Random random = new Random(0);
+		List<byte[]> chunks = new ArrayList<>();
+		int totalSize = 0;
+		for (int i = 0; i < 200; i++) {
+			int size = i % 3 == 0 ? random.nextInt(100_000) : random.nextInt(100);
+			byte[] bytes = new byte[size];
+			random.nextBytes(bytes);
+			chunks.add(bytes);
+			totalSize += size;
+		}
+		byte[] expected = new byte[totalSize];
+		int offset = 0;
+		for (byte[] chunk : chunks) {
+			System.arraycopy(chunk, 0, expected, offset, chunk.length);
+			offset += chunk.length;
+		}
+
+		ByteBuf response = await(AsyncTcpSocketNio.connect(address)
+				.then(socket -> {
+					List<Promise<Void>> writes = new ArrayList<>();
+					for (byte[] chunk : chunks) {
+						ByteBuf buf = ByteBufPool.allocate(chunk.length);
+						buf.put(chunk);
+						writes.add(socket.write(buf));
+					}
+					writes.add(socket.write(null));
+
+					ByteBufs bufs = new ByteBufs();
+					return Promises.<ByteBuf>until(null,
+									$ -> socket.read()
+											.whenResult(buf -> {
+												if (buf != null) bufs.add(buf);
+											}),
+									Objects::isNull)
+							.then(() -> Promises.all(writes))
+							.map($ -> bufs.takeRemaining())
+							.whenComplete(socket::close);
+				}));
+
+		assertArrayEquals(expected, response.asArray());
+	}
+
+	@Test
+	public void testFileRegionTransfer() throws IOException {
+		InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+
+		SimpleServer.create(socket -> Promises.repeat(
+						() -> socket.read()
+								.then(buf -> socket.write(buf)
+										.map($ -> buf != null)))
+						.whenComplete(socket::close))
+				.withListenAddress(address)
+				.withAcceptOnce()
+				.listen();
+
+		byte[] bytes = new byte[5_000_000];
+		new Random(0).nextBytes(bytes);
+		Path file = tmpFolder.newFile().toPath();
+		Files.write(file, bytes);
+		FileChannel fileChannel = FileChannel.open(file, READ);
+
+		int offset = 1000;
+		int count = bytes.length - 2000;
+		ByteBuf response = await(AsyncTcpSocketNio.connect(address)
+				.then(socket -> {
+					socket.write(ByteBuf.wrapForReading(new byte[]{1, 2, 3}));
+					Promise<Void> transfer = socket.transferFrom(fileChannel, offset, count)
+							.then(() -> socket.write(null));
+
+					ByteBufs bufs = new ByteBufs();
+					return Promises.<ByteBuf>until(null,
+									$ -> socket.read()
+											.whenResult(buf -> {
+												if (buf != null) bufs.add(buf);
+											}),
+									Objects::isNull)
+							.then(() -> transfer)
+							.map($ -> bufs.takeRemaining())
+							.whenComplete(socket::close);
+				}));
+		fileChannel.close();
+
+		byte[] expected = new byte[3 + count];
+		expected[0] = 1;
+		expected[1] = 2;
+		expected[2] = 3;
+		System.arraycopy(bytes, offset, expected, 3, count);
+		assertArrayEquals(expected, response.asArray());
+	}
+}
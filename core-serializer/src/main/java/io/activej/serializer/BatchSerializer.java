@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.serializer;
+
+import java.util.List;
+
+/**
+ * Represents a serializer which encodes and decodes batches of &lt;T&gt; values to byte arrays.
+ * <p>
+ * Unlike {@link BinarySerializer}, which writes one item after another, a batch is written
+ * column by column: values of each field of all the items are written together,
+ * using an encoding which suits that column best.
+ * Such layout makes batches of homogeneous records much more compact
+ * and much better compressible, and makes them faster to decode.
+ *
+ * @see SerializerBuilder#buildBatchSerializer(Class)
+ */
+public interface BatchSerializer<T> {
+	default int encode(byte[] array, int pos, List<T> items) {
+		BinaryOutput out = new BinaryOutput(array, pos);
+		encode(out, items);
+		return out.pos();
+	}
+
+	default List<T> decode(byte[] array, int pos) throws CorruptedDataException {
+		return decode(new BinaryInput(array, pos));
+	}
+
+	void encode(BinaryOutput out, List<T> items);
+
+	List<T> decode(BinaryInput in) throws CorruptedDataException;
+}
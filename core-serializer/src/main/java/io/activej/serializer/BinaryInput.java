@@ -348,6 +348,7 @@ public final class BinaryInput {
 	public @NotNull String readUTF8mb3() {
 		int length = readVarInt();
 		if (length == 0) return "";
+		if (isAscii(array, pos, length)) return readAscii(length);
 		if (length >= 40) return readUTF8mb3buf(length);
 		char[] chars = new char[length];
 		for (int i = 0; i < length; i++) {
@@ -365,6 +366,7 @@ public final class BinaryInput {
 		if (length == 0) return null;
 		length--;
 		if (length == 0) return "";
+		if (isAscii(array, pos, length)) return readAscii(length);
 		if (length >= 40) return readUTF8mb3buf(length);
 		char[] chars = new char[length];
 		for (int i = 0; i < length; i++) {
@@ -400,4 +402,32 @@ public final class BinaryInput {
 		BUF.lazySet(chars);
 		return s;
 	}
+
+	/**
+	 * Checks whether all the bytes of a range are ASCII.
+	 * <p>
+	 * Bytes are OR-ed in blocks of 8, so that there is a single branch per block
+	 */
+	private static boolean isAscii(byte[] array, int pos, int length) {
+		int i = pos;
+		int end = pos + length;
+		for (; i <= end - 8; i += 8) {
+			if ((array[i] | array[i + 1] | array[i + 2] | array[i + 3] |
+					array[i + 4] | array[i + 5] | array[i + 6] | array[i + 7]) < 0) {
+				return false;
+			}
+		}
+		int b = 0;
+		for (; i < end; i++) {
+			b |= array[i];
+		}
+		return b >= 0;
+	}
+
+	@SuppressWarnings("deprecation")
+	private @NotNull String readAscii(int length) {
+		String s = new String(array, 0, pos, length);
+		pos += length;
+		return s;
+	}
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.serializer;
+
+/**
+ * A flyweight view over an item encoded by a {@link BinarySerializer}.
+ * <p>
+ * A view is an interface which extends {@link BinaryView} and declares getters
+ * of some of the serializable fields of a class, for example {@code int getId()} or {@code int id()}.
+ * An implementation is generated by {@link SerializerBuilder#buildView(Class, Class)}:
+ * its getters decode only a requested field, right from an underlying byte array,
+ * and offsets of preceding fields are computed lazily and cached until the view is moved to another item.
+ * <p>
+ * A single view may be reused for any number of items, so items which are only inspected,
+ * for example by a filter, are never created.
+ */
+public interface BinaryView {
+	/**
+	 * Moves this view to an item encoded at a given position of a byte array
+	 *
+	 * @throws CorruptedDataException if an item is encoded with an unsupported version
+	 */
+	void wrap(byte[] array, int pos) throws CorruptedDataException;
+
+	/**
+	 * Returns a position right after the current item
+	 */
+	int end() throws CorruptedDataException;
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.serializer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/**
+ * A serializer for streams of items, which are prefixed with a compact header
+ * that describes a schema the items were written with.
+ * <p>
+ * A header consists of a version (see {@link io.activej.serializer.annotations.Serialize#added()}
+ * and {@link io.activej.serializer.annotations.Serialize#removed()}) and a fingerprint of fields which are
+ * serialized in that version. Items themselves are written without any version tags.
+ * <p>
+ * When a header is read, a decoder specialized for that version is generated once and cached,
+ * so old data is decoded at full speed by the current class model, without keeping old classes around.
+ * A mismatching fingerprint means that data were written by an incompatible class model
+ * and is reported as {@link CorruptedDataException} instead of silently decoding garbage.
+ *
+ * @see SerializerBuilder#buildSchemaSerializer(Class)
+ */
+public final class SchemaSerializer<T> {
+	private final SerializerBuilder builder;
+	private final SerializerDef serializerDef;
+	private final int decodeVersionMin;
+	private final int decodeVersionMax;
+
+	private final int version;
+	private final long fingerprint;
+	private final BinarySerializer<T> serializer;
+
+	private final Map<Integer, VersionSerializer<T>> versionSerializers = new ConcurrentHashMap<>();
+
+	SchemaSerializer(SerializerBuilder builder, SerializerDef serializerDef, int version, int decodeVersionMin, int decodeVersionMax) {
+		this.builder = builder;
+		this.serializerDef = serializerDef;
+		this.decodeVersionMin = decodeVersionMin;
+		this.decodeVersionMax = decodeVersionMax;
+		this.version = version;
+		this.fingerprint = fingerprint(serializerDef, version);
+		this.serializer = builder.buildVersion(serializerDef, version);
+		versionSerializers.put(version, new VersionSerializer<>(fingerprint, serializer));
+	}
+
+	/**
+	 * Returns a version which items are encoded with
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns a fingerprint of a schema which items are encoded with
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Returns a fingerprint of a schema of a given version, as seen by the current class model
+	 */
+	public long getFingerprint(int version) {
+		return version == this.version ? fingerprint : fingerprint(serializerDef, version);
+	}
+
+	/**
+	 * Returns a serializer of items of the current version, without version tags
+	 */
+	public BinarySerializer<T> getSerializer() {
+		return serializer;
+	}
+
+	/**
+	 * Returns a serializer which decodes items written with a given version and fingerprint
+	 *
+	 * @throws CorruptedDataException if the version is not supported
+	 *                                or data were written by an incompatible class model
+	 */
+	public BinarySerializer<T> getSerializer(int version, long fingerprint) throws CorruptedDataException {
+		VersionSerializer<T> versionSerializer = versionSerializers.get(version);
+		if (versionSerializer == null) {
+			if (version < decodeVersionMin || version > decodeVersionMax) {
+				throw new CorruptedDataException(format("Unsupported version: %d, supported versions: [%d, %d]",
+						version, decodeVersionMin, decodeVersionMax));
+			}
+			versionSerializer = versionSerializers.computeIfAbsent(version, v ->
+					new VersionSerializer<>(fingerprint(serializerDef, v), builder.buildVersion(serializerDef, v)));
+		}
+		if (versionSerializer.fingerprint != fingerprint) {
+			throw new CorruptedDataException(format("Schema fingerprint mismatch for version %d: expected %016x, got %016x",
+					version, versionSerializer.fingerprint, fingerprint));
+		}
+		return versionSerializer.serializer;
+	}
+
+	/**
+	 * Builds a {@link BinaryView} over items encoded with a given version, without version tags
+	 *
+	 * @see SerializerBuilder#buildView(Class, Class, int)
+	 */
+	public <V extends BinaryView> V buildView(Class<V> viewType, int version) {
+		return builder.buildView(serializerDef, viewType, version, false);
+	}
+
+	/**
+	 * Returns a header of a stream of items encoded by {@link #getSerializer()}
+	 */
+	public byte[] getHeader() {
+		BinaryOutput out = new BinaryOutput(new byte[5 + 8]);
+		out.writeVarInt(version);
+		out.writeLong(fingerprint);
+		byte[] header = new byte[out.pos()];
+		System.arraycopy(out.array(), 0, header, 0, header.length);
+		return header;
+	}
+
+	/**
+	 * Reads a header of a stream and returns a serializer which decodes items of that stream
+	 *
+	 * @throws CorruptedDataException if the header is malformed, the version is not supported
+	 *                                or data were written by an incompatible class model
+	 */
+	public BinarySerializer<T> decodeHeader(byte[] array, int pos) throws CorruptedDataException {
+		BinaryInput in = new BinaryInput(array, pos);
+		int version;
+		long fingerprint;
+		try {
+			version = in.readVarInt();
+			fingerprint = in.readLong();
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new CorruptedDataException("Truncated schema header");
+		}
+		return getSerializer(version, fingerprint);
+	}
+
+	/**
+	 * Reads a version from a header of a stream
+	 *
+	 * @throws CorruptedDataException if the header is malformed
+	 */
+	public int decodeHeaderVersion(byte[] array, int pos) throws CorruptedDataException {
+		try {
+			return new BinaryInput(array, pos).readVarInt();
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new CorruptedDataException("Truncated schema header");
+		}
+	}
+
+	static long fingerprint(SerializerDef serializerDef, int version) {
+		Fingerprint fingerprint = new Fingerprint(version);
+		fingerprint.add(serializerDef);
+		return fingerprint.hash;
+	}
+
+	private static final class VersionSerializer<T> {
+		final long fingerprint;
+		final BinarySerializer<T> serializer;
+
+		VersionSerializer(long fingerprint, BinarySerializer<T> serializer) {
+			this.fingerprint = fingerprint;
+			this.serializer = serializer;
+		}
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of a tree of serializers which take part in encoding of a given version:
+	 * their kinds, encoded types and names of nested fields, in serialization order
+	 */
+	private static final class Fingerprint implements SerializerDef.Visitor {
+		private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+		private static final long FNV_PRIME = 0x100000001b3L;
+
+		private final Map<SerializerDef, Integer> visited = new IdentityHashMap<>();
+		private final int version;
+		private long hash = FNV_OFFSET_BASIS;
+
+		Fingerprint(int version) {
+			this.version = version;
+		}
+
+		@Override
+		public void visit(String serializerId, SerializerDef serializer) {
+			add(serializerId);
+			add(serializer);
+		}
+
+		void add(@NotNull SerializerDef serializer) {
+			Integer index = visited.get(serializer);
+			if (index != null) {
+				add('@');
+				add(index.toString());
+				return;
+			}
+			visited.put(serializer, visited.size());
+			add(serializer.getClass().getSimpleName());
+			add(serializer.getEncodeType().getName());
+			add('{');
+			serializer.accept(this, version);
+			add('}');
+		}
+
+		private void add(String string) {
+			for (int i = 0; i < string.length(); i++) {
+				add(string.charAt(i));
+			}
+			add((char) 0);
+		}
+
+		private void add(char c) {
+			hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+			hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+		}
+	}
+}
@@ -24,6 +24,8 @@ import io.activej.codegen.expression.Expression;
 import io.activej.codegen.expression.Variable;
 import io.activej.serializer.annotations.*;
 import io.activej.serializer.impl.*;
+import io.activej.serializer.util.BinaryColumns;
+import io.activej.serializer.util.BinaryOutputUtils;
 import io.activej.types.AnnotationUtils;
 import io.activej.types.TypeT;
 import io.activej.types.scanner.TypeScannerRegistry;
@@ -426,53 +428,368 @@ public final class SerializerBuilder {
 		//noinspection unchecked
 		ClassBuilder<BinarySerializer<T>> classBuilder = ClassBuilder.create((Class<BinarySerializer<T>>) implementationClass, BinarySerializer.class);
 
-		Set<Integer> collectedVersions = new HashSet<>();
-		Map<Object, Expression> encoderInitializers = new HashMap<>();
-		Map<Object, Expression> decoderInitializers = new HashMap<>();
-		Map<Object, Expression> encoderFinalizers = new HashMap<>();
-		Map<Object, Expression> decoderFinalizers = new HashMap<>();
-		Set<SerializerDef> visited = newSetFromMap(new IdentityHashMap<>());
-		Visitor visitor = new Visitor() {
-			@Override
-			public void visit(String serializerId, SerializerDef visitedSerializer) {
-				if (!visited.add(visitedSerializer)) return;
-				collectedVersions.addAll(visitedSerializer.getVersions());
-				encoderInitializers.putAll(visitedSerializer.getEncoderInitializer());
-				decoderInitializers.putAll(visitedSerializer.getDecoderInitializer());
-				encoderFinalizers.putAll(visitedSerializer.getEncoderFinalizer());
-				decoderFinalizers.putAll(visitedSerializer.getDecoderFinalizer());
-				visitedSerializer.accept(this);
-			}
-		};
-		visitor.visit(serializer);
+		CollectedDefs collected = new CollectedDefs(serializer);
 
-		Integer encodeVersion = collectedVersions.stream()
+		Integer encodeVersion = collected.versions.stream()
 				.filter(v -> v <= encodeVersionMax)
 				.max(naturalOrder())
 				.orElse(null);
 
-		List<Integer> decodeVersions = collectedVersions.stream()
+		List<Integer> decodeVersions = collected.versions.stream()
 				.filter(v -> v >= decodeVersionMin && v <= decodeVersionMax)
 				.sorted()
 				.collect(toList());
 
-		defineEncoders(classBuilder, serializer, encodeVersion,
-				new ArrayList<>(encoderInitializers.values()), new ArrayList<>(encoderFinalizers.values()));
+		defineEncoders(classBuilder, serializer, encodeVersion, encodeVersion != null,
+				collected.encoderInitializers(), collected.encoderFinalizers());
 
 		defineDecoders(classBuilder, serializer, decodeVersions,
-				new ArrayList<>(decoderInitializers.values()), new ArrayList<>(decoderFinalizers.values()));
+				collected.decoderInitializers(), collected.decoderFinalizers());
 
 		return classBuilder;
 	}
 
-	private void defineEncoders(ClassBuilder<?> classBuilder, SerializerDef serializer, @Nullable Integer encodeVersion,
+	/**
+	 * Builds a {@link SchemaSerializer} for a given type.
+	 * <p>
+	 * Unlike {@link #build(AnnotatedType)}, serializers of a {@link SchemaSerializer} do not tag each item
+	 * with a version. Instead, a version and a fingerprint of a schema are written once per stream of items,
+	 * and a decoder specialized for that exact version is generated when a stream is read.
+	 *
+	 * @param type a type data that would be serialized
+	 * @return a {@link SchemaSerializer} which encodes items using the latest version
+	 * not greater than {@link #withEncodeVersion encode version}
+	 */
+	public <T> SchemaSerializer<T> buildSchemaSerializer(Class<T> type) {
+		return buildSchemaSerializer(annotatedTypeOf(type));
+	}
+
+	/**
+	 * @see #buildSchemaSerializer(Class)
+	 */
+	public <T> SchemaSerializer<T> buildSchemaSerializer(AnnotatedType type) {
+		SerializerDef serializer = registry.scanner(new HashMap<>()).scan(type);
+		int encodeVersion = new CollectedDefs(serializer).versions.stream()
+				.filter(v -> v <= encodeVersionMax)
+				.max(naturalOrder())
+				.orElse(0);
+		return new SchemaSerializer<>(this, serializer, encodeVersion, decodeVersionMin, decodeVersionMax);
+	}
+
+	/**
+	 * Builds a serializer which encodes and decodes a given version of a type, without version tags
+	 */
+	<T> BinarySerializer<T> buildVersion(SerializerDef serializer, int version) {
+		//noinspection unchecked
+		ClassBuilder<BinarySerializer<T>> classBuilder = ClassBuilder.create((Class<BinarySerializer<T>>) implementationClass, BinarySerializer.class);
+
+		CollectedDefs collected = new CollectedDefs(serializer);
+
+		defineEncoders(classBuilder, serializer, version, false,
+				collected.encoderInitializers(), collected.encoderFinalizers());
+
+		StaticDecoders staticDecoders = staticDecoders(classBuilder);
+		List<Expression> decoderInitializers = collected.decoderInitializers();
+		List<Expression> decoderFinalizers = collected.decoderFinalizers();
+		classBuilder.withMethod("decode", Object.class, asList(BinaryInput.class), methodBody(
+				decoderInitializers, decoderFinalizers,
+				serializer.decoder(staticDecoders, arg(0), version, compatibilityLevel)));
+
+		classBuilder.withMethod("decode", Object.class, asList(byte[].class, int.class), methodBody(
+				decoderInitializers, decoderFinalizers,
+				let(constructor(BinaryInput.class, arg(0), arg(1)), in ->
+						serializer.decoder(staticDecoders, in, version, compatibilityLevel))));
+
+		return classBuilder.defineClassAndCreateInstance(classLoader);
+	}
+
+	/**
+	 * Builds a {@link BatchSerializer} for a given class.
+	 * <p>
+	 * A batch is encoded column by column: {@code int}, {@code long} and {@link String} fields
+	 * are written by {@link BinaryColumns} using delta, varint and dictionary encodings,
+	 * while other fields are written by their regular serializers, one column after another.
+	 * Items are encoded using the latest version not greater than {@link #withEncodeVersion encode version},
+	 * without version tags, so both sides should use the same version.
+	 *
+	 * @param type a class of items of a batch, it should have serializable fields
+	 * @return a generated {@link BatchSerializer}
+	 */
+	public <T> BatchSerializer<T> buildBatchSerializer(Class<T> type) {
+		return buildBatchSerializer(annotatedTypeOf(type));
+	}
+
+	/**
+	 * @see #buildBatchSerializer(Class)
+	 */
+	public <T> BatchSerializer<T> buildBatchSerializer(AnnotatedType type) {
+		SerializerDef serializer = registry.scanner(new HashMap<>()).scan(type);
+		if (!(serializer instanceof SerializerDefClass))
+			throw new IllegalArgumentException(format("Batch serializer can only be built for a class with serializable fields, got %s", type));
+		SerializerDefClass classSerializer = (SerializerDefClass) serializer;
+
+		CollectedDefs collected = new CollectedDefs(serializer);
+		int version = collected.versions.stream()
+				.filter(v -> v <= encodeVersionMax)
+				.max(naturalOrder())
+				.orElse(0);
+		Map<String, SerializerDef> fields = classSerializer.getFields(version);
+
+		//noinspection unchecked
+		ClassBuilder<BatchSerializer<T>> classBuilder = ClassBuilder.create((Class<BatchSerializer<T>>) implementationClass, BatchSerializer.class);
+		StaticEncoders staticEncoders = staticEncoders(classBuilder);
+		StaticDecoders staticDecoders = staticDecoders(classBuilder);
+
+		classBuilder.withMethod("encode", void.class, asList(BinaryOutput.class, List.class), methodBody(
+				collected.encoderInitializers(), collected.encoderFinalizers(),
+				let(call(arg(0), "array"), buf ->
+						let(call(arg(0), "pos"), pos ->
+								let(call(arg(1), "size"), size ->
+										sequence(seq -> {
+											seq.add(set(pos, staticCall(BinaryOutputUtils.class, "writeVarInt", buf, pos, size)));
+											for (Map.Entry<String, SerializerDef> entry : fields.entrySet()) {
+												Function<Expression, Expression> fieldValue = i -> classSerializer.getField(
+														cast(call(arg(1), "get", i), serializer.getEncodeType()), entry.getKey());
+												seq.add(columnEncoder(entry.getValue(), staticEncoders, buf, pos, size, fieldValue, version));
+											}
+											seq.add(call(arg(0), "pos", pos));
+										}))))));
+
+		classBuilder.withMethod("decode", List.class, asList(BinaryInput.class), methodBody(
+				collected.decoderInitializers(), collected.decoderFinalizers(),
+				let(staticCall(BinaryColumns.class, "readSize", arg(0)), size ->
+						let(get(() -> {
+									List<Expression> columns = new ArrayList<>();
+									for (SerializerDef fieldSerializer : fields.values()) {
+										columns.add(columnDecoder(fieldSerializer, staticDecoders, arg(0), size, version));
+									}
+									return columns;
+								}),
+								columns -> {
+									List<String> fieldNames = new ArrayList<>(fields.keySet());
+									return let(constructor(ArrayList.class, size), list ->
+											sequence(
+													loop(value(0), size, i ->
+															call(list, "add", classSerializer.decoder(staticDecoders,
+																	fieldName -> arrayGet(columns.get(fieldNames.indexOf(fieldName)), i),
+																	version, instance -> sequence()))),
+													list));
+								}))));
+
+		return classBuilder.defineClassAndCreateInstance(classLoader);
+	}
+
+	private Expression columnEncoder(SerializerDef serializer, StaticEncoders staticEncoders, Expression buf, Variable pos, Expression size,
+			Function<Expression, Expression> fieldValue, int version) {
+		String method = columnMethod(serializer);
+		if (method == null) {
+			return loop(value(0), size, i ->
+					serializer.defineEncoder(staticEncoders, buf, pos, fieldValue.apply(i), version, compatibilityLevel));
+		}
+		Class<?> arrayType = Array.newInstance(serializer.getEncodeType(), 0).getClass();
+		return let(arrayNew(arrayType, size), values ->
+				sequence(
+						loop(value(0), size, i -> arraySet(values, i, fieldValue.apply(i))),
+						set(pos, staticCall(BinaryColumns.class, "write" + method, buf, pos, values))));
+	}
+
+	private Expression columnDecoder(SerializerDef serializer, StaticDecoders staticDecoders, Expression in, Expression size, int version) {
+		String method = columnMethod(serializer);
+		if (method != null) {
+			return staticCall(BinaryColumns.class, "read" + method, in, size);
+		}
+		Class<?> arrayType = Array.newInstance(serializer.getDecodeType(), 0).getClass();
+		return let(arrayNew(arrayType, size), values ->
+				sequence(
+						loop(value(0), size, i ->
+								arraySet(values, i, serializer.defineDecoder(staticDecoders, in, version, compatibilityLevel))),
+						values));
+	}
+
+	private static @Nullable String columnMethod(SerializerDef serializer) {
+		if (serializer instanceof SerializerDefInt && !((SerializerDefInt) serializer).isWrapped()) return "Ints";
+		if (serializer instanceof SerializerDefLong && !((SerializerDefLong) serializer).isWrapped()) return "Longs";
+		if (serializer instanceof SerializerDefString) return "Strings";
+		return null;
+	}
+
+	/**
+	 * Builds a {@link BinaryView} over items of a given class, encoded by a {@link BinarySerializer}
+	 * of this {@link SerializerBuilder}.
+	 * <p>
+	 * Getters of a view are matched to serializable fields by names, optionally prefixed with 'get' or 'is'.
+	 * A view reads items encoded with the latest version not greater than {@link #withEncodeVersion encode version}
+	 *
+	 * @param type     a class of items
+	 * @param viewType an interface of a view
+	 * @return a generated {@link BinaryView}
+	 */
+	public <V extends BinaryView> V buildView(Class<?> type, Class<V> viewType) {
+		SerializerDef serializer = registry.scanner(new HashMap<>()).scan(annotatedTypeOf(type));
+		Integer encodeVersion = new CollectedDefs(serializer).versions.stream()
+				.filter(v -> v <= encodeVersionMax)
+				.max(naturalOrder())
+				.orElse(null);
+		return buildView(serializer, viewType, encodeVersion != null ? encodeVersion : 0, encodeVersion != null);
+	}
+
+	/**
+	 * Builds a {@link BinaryView} over items of a given class, encoded with a given version and without version tags,
+	 * like items encoded by a {@link SchemaSerializer}
+	 *
+	 * @param type     a class of items
+	 * @param viewType an interface of a view
+	 * @param version  a version which items are encoded with
+	 * @return a generated {@link BinaryView}
+	 */
+	public <V extends BinaryView> V buildView(Class<?> type, Class<V> viewType, int version) {
+		SerializerDef serializer = registry.scanner(new HashMap<>()).scan(annotatedTypeOf(type));
+		return buildView(serializer, viewType, version, false);
+	}
+
+	<V extends BinaryView> V buildView(SerializerDef serializer, Class<V> viewType, int version, boolean versionTag) {
+		if (!viewType.isInterface())
+			throw new IllegalArgumentException(format("View should be an interface: %s", viewType.getName()));
+		Class<?> type = serializer.getDecodeType();
+		if (!(serializer instanceof SerializerDefClass))
+			throw new IllegalArgumentException(format("View can only be built for a class with serializable fields, got %s", type.getName()));
+		SerializerDefClass classSerializer = (SerializerDefClass) serializer;
+
+		CollectedDefs collected = new CollectedDefs(serializer);
+		List<String> fieldNames = new ArrayList<>(classSerializer.getFields(version).keySet());
+		List<SerializerDef> fieldSerializers = new ArrayList<>(classSerializer.getFields(version).values());
+		List<Expression> decoderInitializers = collected.decoderInitializers();
+		List<Expression> decoderFinalizers = collected.decoderFinalizers();
+
+		ClassBuilder<V> classBuilder = ClassBuilder.create(viewType);
+		StaticDecoders staticDecoders = staticDecoders(classBuilder);
+
+		// offset_i is a cached position of i-th field, or -1 if it has not been computed yet
+		classBuilder.withField("array", byte[].class);
+		for (int i = 0; i <= fieldNames.size(); i++) {
+			classBuilder.withField("offset_" + i, int.class);
+		}
+
+		classBuilder.withMethod("wrap", void.class, asList(byte[].class, int.class), sequence(seq -> {
+			seq.add(set(property(self(), "array"), arg(0)));
+			if (versionTag) {
+				seq.add(ifThenElse(cmpEq(arrayGet(arg(0), arg(1)), value((byte) version)),
+						voidExp(),
+						throwException(CorruptedDataException.class,
+								concat(
+										value("Unsupported version: "), arrayGet(arg(0), arg(1)),
+										value(", supported version: " + version)))));
+				seq.add(set(property(self(), "offset_0"), add(arg(1), value(1))));
+			} else {
+				seq.add(set(property(self(), "offset_0"), arg(1)));
+			}
+			for (int i = 1; i <= fieldNames.size(); i++) {
+				seq.add(set(property(self(), "offset_" + i), value(-1)));
+			}
+		}));
+
+		for (int i = 1; i <= fieldNames.size(); i++) {
+			SerializerDef fieldSerializer = fieldSerializers.get(i - 1);
+			Variable offset = property(self(), "offset_" + i);
+			classBuilder.withMethod("offset_" + i, int.class, emptyList(), sequence(
+					ifThenElse(cmpEq(offset, value(-1)),
+							set(offset, methodBody(decoderInitializers, decoderFinalizers,
+									let(constructor(BinaryInput.class, property(self(), "array"), viewOffset(i - 1)), in ->
+											sequence(
+													fieldSerializer.skipper(staticDecoders, in, version, compatibilityLevel),
+													call(in, "pos"))))),
+							voidExp()),
+					offset));
+		}
+
+		classBuilder.withMethod("end", int.class, emptyList(), viewOffset(fieldNames.size()));
+
+		for (Method method : viewType.getMethods()) {
+			if (method.getDeclaringClass() == BinaryView.class || method.isDefault() || isStatic(method.getModifiers())) {
+				continue;
+			}
+			if (method.getParameterTypes().length != 0)
+				throw new IllegalArgumentException(format("View method %s must be a getter", method));
+			int index = fieldNames.indexOf(method.getName());
+			if (index == -1) index = fieldNames.indexOf(stripGetter(method.getName()));
+			if (index == -1)
+				throw new IllegalArgumentException(format("No serializable field of %s matches view method %s", type.getName(), method));
+			SerializerDef fieldSerializer = fieldSerializers.get(index);
+			if (!method.getReturnType().isAssignableFrom(fieldSerializer.getDecodeType()))
+				throw new IllegalArgumentException(format("Return type of view method %s does not match type %s of field '%s'",
+						method, fieldSerializer.getDecodeType().getName(), fieldNames.get(index)));
+
+			classBuilder.withMethod(method.getName(), method.getReturnType(), emptyList(), methodBody(
+					decoderInitializers, decoderFinalizers,
+					let(constructor(BinaryInput.class, property(self(), "array"), viewOffset(index)), in ->
+							cast(fieldSerializer.defineDecoder(staticDecoders, in, version, compatibilityLevel), method.getReturnType()))));
+		}
+
+		return classBuilder.defineClassAndCreateInstance(classLoader);
+	}
+
+	private static Expression viewOffset(int index) {
+		return index == 0 ? property(self(), "offset_0") : call(self(), "offset_" + index);
+	}
+
+	private static String stripGetter(String name) {
+		for (String prefix : asList("get", "is")) {
+			if (name.length() > prefix.length() && name.startsWith(prefix) && Character.isUpperCase(name.charAt(prefix.length()))) {
+				return Character.toLowerCase(name.charAt(prefix.length())) + name.substring(prefix.length() + 1);
+			}
+		}
+		return name;
+	}
+
+	private static final class CollectedDefs {
+		final Set<Integer> versions = new HashSet<>();
+		final Map<Object, Expression> encoderInitializers = new HashMap<>();
+		final Map<Object, Expression> decoderInitializers = new HashMap<>();
+		final Map<Object, Expression> encoderFinalizers = new HashMap<>();
+		final Map<Object, Expression> decoderFinalizers = new HashMap<>();
+
+		CollectedDefs(SerializerDef serializer) {
+			Set<SerializerDef> visited = newSetFromMap(new IdentityHashMap<>());
+			Visitor visitor = new Visitor() {
+				@Override
+				public void visit(String serializerId, SerializerDef visitedSerializer) {
+					if (!visited.add(visitedSerializer)) return;
+					versions.addAll(visitedSerializer.getVersions());
+					encoderInitializers.putAll(visitedSerializer.getEncoderInitializer());
+					decoderInitializers.putAll(visitedSerializer.getDecoderInitializer());
+					encoderFinalizers.putAll(visitedSerializer.getEncoderFinalizer());
+					decoderFinalizers.putAll(visitedSerializer.getDecoderFinalizer());
+					visitedSerializer.accept(this);
+				}
+			};
+			visitor.visit(serializer);
+		}
+
+		List<Expression> encoderInitializers() {
+			return new ArrayList<>(encoderInitializers.values());
+		}
+
+		List<Expression> decoderInitializers() {
+			return new ArrayList<>(decoderInitializers.values());
+		}
+
+		List<Expression> encoderFinalizers() {
+			return new ArrayList<>(encoderFinalizers.values());
+		}
+
+		List<Expression> decoderFinalizers() {
+			return new ArrayList<>(decoderFinalizers.values());
+		}
+	}
+
+	private void defineEncoders(ClassBuilder<?> classBuilder, SerializerDef serializer, @Nullable Integer encodeVersion, boolean versionTag,
 			List<Expression> encoderInitializers, List<Expression> encoderFinalizers) {
 		StaticEncoders staticEncoders = staticEncoders(classBuilder);
 
 		classBuilder.withMethod("encode", int.class, asList(byte[].class, int.class, Object.class), methodBody(
 				encoderInitializers, encoderFinalizers,
 				let(cast(arg(2), serializer.getEncodeType()), data ->
-						encoderImpl(classBuilder, serializer, encodeVersion, staticEncoders, arg(0), arg(1), data))));
+						encoderImpl(classBuilder, serializer, encodeVersion, versionTag, staticEncoders, arg(0), arg(1), data))));
 
 		classBuilder.withMethod("encode", void.class, asList(BinaryOutput.class, Object.class), methodBody(
 				encoderInitializers, encoderFinalizers,
@@ -480,13 +797,13 @@ public final class SerializerBuilder {
 						let(call(arg(0), "pos"), pos ->
 								let(cast(arg(1), serializer.getEncodeType()), data ->
 										sequence(
-												encoderImpl(classBuilder, serializer, encodeVersion, staticEncoders, buf, pos, data),
+												encoderImpl(classBuilder, serializer, encodeVersion, versionTag, staticEncoders, buf, pos, data),
 												call(arg(0), "pos", pos)))))));
 	}
 
-	private Expression encoderImpl(ClassBuilder<?> classBuilder, SerializerDef serializer, @Nullable Integer encodeVersion, StaticEncoders staticEncoders, Expression buf, Variable pos, Expression data) {
+	private Expression encoderImpl(ClassBuilder<?> classBuilder, SerializerDef serializer, @Nullable Integer encodeVersion, boolean versionTag, StaticEncoders staticEncoders, Expression buf, Variable pos, Expression data) {
 		return sequence(
-				encodeVersion != null ?
+				versionTag ?
 						writeByte(buf, pos, value((byte) (int) encodeVersion)) :
 						sequence(),
 
@@ -40,6 +40,13 @@ public interface SerializerDef {
 
 	void accept(Visitor visitor);
 
+	/**
+	 * Visits only those nested serializers which take part in encoding of a given version
+	 */
+	default void accept(Visitor visitor, int version) {
+		accept(visitor);
+	}
+
 	Set<Integer> getVersions();
 
 	/**
@@ -108,4 +115,17 @@ public interface SerializerDef {
 				decoder(staticDecoders, in, version, compatibilityLevel) :
 				staticDecoders.define(this, getDecodeType(), in, version, compatibilityLevel);
 	}
+
+	/**
+	 * Moves {@link BinaryInput} past an encoded value.
+	 * <p>
+	 * By default, a value is decoded and discarded.
+	 * Serializers which are able to skip a value without creating it should override this method
+	 *
+	 * @param in BinaryInput
+	 * @return an expression whose result, if any, should be discarded
+	 */
+	default Expression skipper(StaticDecoders staticDecoders, Expression in, int version, CompatibilityLevel compatibilityLevel) {
+		return defineDecoder(staticDecoders, in, version, compatibilityLevel);
+	}
 }
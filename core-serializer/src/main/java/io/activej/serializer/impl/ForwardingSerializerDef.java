@@ -16,6 +16,11 @@ public abstract class ForwardingSerializerDef implements SerializerDef {
 		serializer().accept(visitor);
 	}
 
+	@Override
+	public void accept(Visitor visitor, int version) {
+		serializer().accept(visitor, version);
+	}
+
 	@Override
 	public Set<Integer> getVersions() {
 		return serializer().getVersions();
@@ -65,4 +70,9 @@ public abstract class ForwardingSerializerDef implements SerializerDef {
 	public Expression decoder(StaticDecoders staticDecoders, Expression in, int version, CompatibilityLevel compatibilityLevel) {
 		return serializer().decoder(staticDecoders, in, version, compatibilityLevel);
 	}
+
+	@Override
+	public Expression skipper(StaticDecoders staticDecoders, Expression in, int version, CompatibilityLevel compatibilityLevel) {
+		return serializer().skipper(staticDecoders, in, version, compatibilityLevel);
+	}
 }
@@ -213,6 +213,45 @@ public final class SerializerDefClass extends AbstractSerializerDef {
 		}
 	}
 
+	@Override
+	public void accept(Visitor visitor, int version) {
+		for (Map.Entry<String, FieldDef> entry : fields.entrySet()) {
+			if (entry.getValue().hasVersion(version)) {
+				visitor.visit(entry.getKey(), entry.getValue().serializer);
+			}
+		}
+	}
+
+	/**
+	 * Returns serializers of fields which are serialized in a given version, in serialization order
+	 */
+	public Map<String, SerializerDef> getFields(int version) {
+		Map<String, SerializerDef> result = new LinkedHashMap<>();
+		for (Map.Entry<String, FieldDef> entry : fields.entrySet()) {
+			if (entry.getValue().hasVersion(version)) {
+				result.put(entry.getKey(), entry.getValue().serializer);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an expression which gets a value of a given field of an instance
+	 */
+	public Expression getField(Expression instance, String fieldName) {
+		FieldDef fieldDef = fields.get(fieldName);
+		if (fieldDef == null)
+			throw new IllegalArgumentException(format("Field '%s' is not found in %s", fieldName, encodeType.getName()));
+		Class<?> fieldType = fieldDef.serializer.getEncodeType();
+		if (fieldDef.field != null) {
+			return cast(property(instance, fieldName), fieldType);
+		} else if (fieldDef.method != null) {
+			return cast(call(instance, fieldDef.method.getName()), fieldType);
+		} else {
+			throw new AssertionError();
+		}
+	}
+
 	@Override
 	public Set<Integer> getVersions() {
 		Set<Integer> versions = new HashSet<>();
@@ -257,21 +296,11 @@ public final class SerializerDefClass extends AbstractSerializerDef {
 		List<Expression> list = new ArrayList<>();
 
 		for (Map.Entry<String, FieldDef> entry : this.fields.entrySet()) {
-			String fieldName = entry.getKey();
 			FieldDef fieldDef = entry.getValue();
 			if (!fieldDef.hasVersion(version)) continue;
 
-			Class<?> fieldType = fieldDef.serializer.getEncodeType();
-
-			if (fieldDef.field != null) {
-				list.add(
-						fieldDef.serializer.defineEncoder(staticEncoders, buf, pos, cast(property(value, fieldName), fieldType), version, compatibilityLevel));
-			} else if (fieldDef.method != null) {
-				list.add(
-						fieldDef.serializer.defineEncoder(staticEncoders, buf, pos, cast(call(value, fieldDef.method.getName()), fieldType), version, compatibilityLevel));
-			} else {
-				throw new AssertionError();
-			}
+			list.add(
+					fieldDef.serializer.defineEncoder(staticEncoders, buf, pos, getField(value, entry.getKey()), version, compatibilityLevel));
 		}
 
 		return sequence(list);
@@ -283,19 +312,30 @@ public final class SerializerDefClass extends AbstractSerializerDef {
 	}
 
 	public Expression decoder(StaticDecoders staticDecoders, Expression in, int version, CompatibilityLevel compatibilityLevel, Function<Expression, Expression> instanceInitializer) {
+		return decoder(staticDecoders,
+				fieldName -> fields.get(fieldName).serializer.defineDecoder(staticDecoders, in, version, compatibilityLevel),
+				version, instanceInitializer);
+	}
+
+	/**
+	 * Returns an expression which creates an instance out of values of its fields
+	 *
+	 * @param fieldDecoder a function which returns an expression of a value of a given field,
+	 *                     it is called for each field of a given version in serialization order
+	 */
+	public Expression decoder(StaticDecoders staticDecoders, Function<String, Expression> fieldDecoder, int version, Function<Expression, Expression> instanceInitializer) {
 		if (decodeType.isInterface()) {
-			return deserializeInterface(staticDecoders, in, version, compatibilityLevel);
+			return deserializeInterface(staticDecoders, fieldDecoder, version);
 		}
 		if (constructor == null && factory == null && setters.isEmpty()) {
-			return deserializeClassSimple(staticDecoders, in, version, compatibilityLevel, instanceInitializer);
+			return deserializeClassSimple(fieldDecoder, version, instanceInitializer);
 		}
 
 		return let(get(() -> {
 					List<Expression> fieldDeserializers = new ArrayList<>();
-					for (FieldDef fieldDef : fields.values()) {
-						if (!fieldDef.hasVersion(version)) continue;
-						fieldDeserializers.add(
-								fieldDef.serializer.defineDecoder(staticDecoders, in, version, compatibilityLevel));
+					for (Map.Entry<String, FieldDef> entry : fields.entrySet()) {
+						if (!entry.getValue().hasVersion(version)) continue;
+						fieldDeserializers.add(fieldDecoder.apply(entry.getKey()));
 					}
 					return fieldDeserializers;
 				}),
@@ -402,8 +442,7 @@ public final class SerializerDefClass extends AbstractSerializerDef {
 		return constructor(targetType, param);
 	}
 
-	private Expression deserializeInterface(StaticDecoders staticDecoders, Expression in,
-			int version, CompatibilityLevel compatibilityLevel) {
+	private Expression deserializeInterface(StaticDecoders staticDecoders, Function<String, Expression> fieldDecoder, int version) {
 
 		if (fields.values().stream().anyMatch(fieldDef -> fieldDef.method == null)) {
 			throw new NullPointerException();
@@ -429,16 +468,15 @@ public final class SerializerDefClass extends AbstractSerializerDef {
 							continue;
 						Variable property = property(instance, entry.getKey());
 
-						Expression expression =
-								fieldDef.serializer.defineDecoder(staticDecoders, in, version, compatibilityLevel);
+						Expression expression = fieldDecoder.apply(entry.getKey());
 						seq.add(set(property, expression));
 					}
 					return instance;
 				}));
 	}
 
-	private Expression deserializeClassSimple(StaticDecoders staticDecoders, Expression in,
-			int version, CompatibilityLevel compatibilityLevel, Function<Expression, Expression> instanceInitializer) {
+	private Expression deserializeClassSimple(Function<String, Expression> fieldDecoder,
+			int version, Function<Expression, Expression> instanceInitializer) {
 		return let(
 				constructor(decodeType),
 				instance ->
@@ -450,7 +488,7 @@ public final class SerializerDefClass extends AbstractSerializerDef {
 
 								seq.add(
 										set(property(instance, entry.getKey()),
-												fieldDef.serializer.defineDecoder(staticDecoders, in, version, compatibilityLevel)));
+												fieldDecoder.apply(entry.getKey())));
 							}
 							return instance;
 						}));
@@ -25,8 +25,7 @@ import io.activej.serializer.util.BinaryOutputUtils;
 
 import static io.activej.codegen.expression.Expressions.*;
 import static io.activej.serializer.CompatibilityLevel.LEVEL_1;
-import static io.activej.serializer.StringFormat.ISO_8859_1;
-import static io.activej.serializer.StringFormat.UTF8;
+import static io.activej.serializer.StringFormat.*;
 import static io.activej.serializer.util.Utils.get;
 
 public final class SerializerDefString extends AbstractSerializerDef implements SerializerDefWithNullable {
@@ -125,4 +124,19 @@ public final class SerializerDefString extends AbstractSerializerDef implements
 				throw new AssertionError();
 		}
 	}
+
+	@Override
+	public Expression skipper(StaticDecoders staticDecoders, Expression in, int version, CompatibilityLevel compatibilityLevel) {
+		//noinspection deprecation
+		if (compatibilityLevel == LEVEL_1 && (format == ISO_8859_1 || format == UTF8) || format == UTF8_MB3) {
+			// UTF-MB3 is prefixed with a number of chars of variable length
+			return decoder(staticDecoders, in, version, compatibilityLevel);
+		}
+		return let(call(in, "readVarInt"), length -> {
+			Expression size = nullable ?
+					ifThenElse(cmpEq(length, value(0)), value(0), dec(length)) :
+					length;
+			return call(in, "move", format == UTF16 ? mul(size, value(2)) : size);
+		});
+	}
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2020 ActiveJ LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.activej.serializer.util;
+
+import io.activej.serializer.BinaryInput;
+import io.activej.serializer.CorruptedDataException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.activej.serializer.util.BinaryOutputUtils.*;
+
+/**
+ * Provides methods for writing and reading columns of values,
+ * used by generated {@link io.activej.serializer.BatchSerializer}s.
+ * <p>
+ * Each column starts with an encoding byte, chosen per column so that
+ * the column takes as few bytes as possible:
+ * <ul>
+ *     <li>ints and longs are written either as zigzag varints or as zigzag varint deltas
+ *     between adjacent values, which suits sorted keys and timestamps</li>
+ *     <li>strings are written either as they are or as a dictionary of distinct values
+ *     followed by varint indexes, which suits low-cardinality dimensions</li>
+ * </ul>
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BinaryColumns {
+	public static final byte PLAIN = 0;
+	public static final byte DELTA = 1;
+	public static final byte DICTIONARY = 2;
+
+	public static int writeInts(byte[] buf, int off, int[] values) {
+		long plainSize = 0;
+		long deltaSize = 0;
+		int prev = 0;
+		for (int value : values) {
+			plainSize += varIntSize(zigzag(value));
+			deltaSize += varIntSize(zigzag(value - prev));
+			prev = value;
+		}
+		if (deltaSize < plainSize) {
+			buf[off++] = DELTA;
+			prev = 0;
+			for (int value : values) {
+				off = writeVarInt(buf, off, zigzag(value - prev));
+				prev = value;
+			}
+		} else {
+			buf[off++] = PLAIN;
+			for (int value : values) {
+				off = writeVarInt(buf, off, zigzag(value));
+			}
+		}
+		return off;
+	}
+
+	public static int[] readInts(BinaryInput in, int size) throws CorruptedDataException {
+		int[] values = new int[size];
+		byte encoding = in.readByte();
+		if (encoding == PLAIN) {
+			for (int i = 0; i < size; i++) {
+				values[i] = unzigzag(in.readVarInt());
+			}
+		} else if (encoding == DELTA) {
+			int prev = 0;
+			for (int i = 0; i < size; i++) {
+				values[i] = prev += unzigzag(in.readVarInt());
+			}
+		} else {
+			throw new CorruptedDataException("Unknown encoding of int column: " + encoding);
+		}
+		return values;
+	}
+
+	public static int writeLongs(byte[] buf, int off, long[] values) {
+		long plainSize = 0;
+		long deltaSize = 0;
+		long prev = 0;
+		for (long value : values) {
+			plainSize += varLongSize(zigzag(value));
+			deltaSize += varLongSize(zigzag(value - prev));
+			prev = value;
+		}
+		if (deltaSize < plainSize) {
+			buf[off++] = DELTA;
+			prev = 0;
+			for (long value : values) {
+				off = writeVarLong(buf, off, zigzag(value - prev));
+				prev = value;
+			}
+		} else {
+			buf[off++] = PLAIN;
+			for (long value : values) {
+				off = writeVarLong(buf, off, zigzag(value));
+			}
+		}
+		return off;
+	}
+
+	public static long[] readLongs(BinaryInput in, int size) throws CorruptedDataException {
+		long[] values = new long[size];
+		byte encoding = in.readByte();
+		if (encoding == PLAIN) {
+			for (int i = 0; i < size; i++) {
+				values[i] = unzigzag(in.readVarLong());
+			}
+		} else if (encoding == DELTA) {
+			long prev = 0;
+			for (int i = 0; i < size; i++) {
+				values[i] = prev += unzigzag(in.readVarLong());
+			}
+		} else {
+			throw new CorruptedDataException("Unknown encoding of long column: " + encoding);
+		}
+		return values;
+	}
+
+	public static int writeStrings(byte[] buf, int off, String[] values) {
+		Map<String, Integer> dictionary = new HashMap<>();
+		int maxDictionarySize = values.length / 2;
+		for (String value : values) {
+			if (value == null) continue;
+			dictionary.putIfAbsent(value, dictionary.size() + 1);
+			if (dictionary.size() > maxDictionarySize) {
+				dictionary = null;
+				break;
+			}
+		}
+		if (dictionary != null) {
+			buf[off++] = DICTIONARY;
+			off = writeVarInt(buf, off, dictionary.size());
+			String[] entries = new String[dictionary.size()];
+			for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+				entries[entry.getValue() - 1] = entry.getKey();
+			}
+			for (String entry : entries) {
+				off = writeUTF8(buf, off, entry);
+			}
+			for (String value : values) {
+				off = writeVarInt(buf, off, value == null ? 0 : dictionary.get(value));
+			}
+		} else {
+			buf[off++] = PLAIN;
+			for (String value : values) {
+				off = writeUTF8Nullable(buf, off, value);
+			}
+		}
+		return off;
+	}
+
+	public static String[] readStrings(BinaryInput in, int size) throws CorruptedDataException {
+		String[] values = new String[size];
+		byte encoding = in.readByte();
+		if (encoding == PLAIN) {
+			for (int i = 0; i < size; i++) {
+				values[i] = in.readUTF8Nullable();
+			}
+		} else if (encoding == DICTIONARY) {
+			int dictionarySize = readSize(in);
+			String[] entries = new String[dictionarySize];
+			for (int i = 0; i < dictionarySize; i++) {
+				entries[i] = in.readUTF8();
+			}
+			for (int i = 0; i < size; i++) {
+				int index = in.readVarInt();
+				if (index == 0) continue;
+				if (index < 0 || index > dictionarySize)
+					throw new CorruptedDataException("Dictionary index out of bounds: " + index);
+				values[i] = entries[index - 1];
+			}
+		} else {
+			throw new CorruptedDataException("Unknown encoding of string column: " + encoding);
+		}
+		return values;
+	}
+
+	public static int readSize(BinaryInput in) throws CorruptedDataException {
+		int size = in.readVarInt();
+		if (size < 0) throw new CorruptedDataException("Invalid size: " + size);
+		return size;
+	}
+
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int varIntSize(int value) {
+		return 1 + (31 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+	}
+
+	private static int varLongSize(long value) {
+		return 1 + (63 - Long.numberOfLeadingZeros(value | 1)) / 7;
+	}
+}
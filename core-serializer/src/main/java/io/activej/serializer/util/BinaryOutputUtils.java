@@ -170,11 +170,7 @@ public final class BinaryOutputUtils {
 	public static int writeIso88591(byte[] buf, int off, String s) {
 		int length = s.length();
 		off = writeVarInt(buf, off, length);
-		for (int i = 0; i < length; i++) {
-			int c = s.charAt(i);
-			buf[off++] = (byte) c;
-		}
-		return off;
+		return writeLowBytes(buf, off, s, length);
 	}
 
 	public static int writeIso88591Nullable(byte[] buf, int off, String s) {
@@ -184,14 +180,15 @@ public final class BinaryOutputUtils {
 		}
 		int length = s.length();
 		off = writeVarInt(buf, off, length + 1);
-		for (int i = 0; i < length; i++) {
-			int c = s.charAt(i);
-			buf[off++] = (byte) c;
-		}
-		return off;
+		return writeLowBytes(buf, off, s, length);
 	}
 
 	public static int writeUTF8(byte[] buf, int off, String s) {
+		int length = s.length();
+		if (isAscii(s, length)) {
+			off = writeVarInt(buf, off, length);
+			return writeLowBytes(buf, off, s, length);
+		}
 		int pos = off;
 		for (int i = 0; i < s.length(); i++) {
 			char c = s.charAt(i);
@@ -228,6 +225,11 @@ public final class BinaryOutputUtils {
 			buf[off] = (byte) 0;
 			return off + 1;
 		}
+		int length = s.length();
+		if (isAscii(s, length)) {
+			off = writeVarInt(buf, off, length + 1);
+			return writeLowBytes(buf, off, s, length);
+		}
 		int pos = off;
 		for (int i = 0; i < s.length(); i++) {
 			char c = s.charAt(i);
@@ -261,6 +263,38 @@ public final class BinaryOutputUtils {
 		return off + bytes;
 	}
 
+	/**
+	 * Checks whether all the chars of a string are ASCII.
+	 * <p>
+	 * Chars are OR-ed in blocks of 8, so that there is a single branch per block
+	 */
+	private static boolean isAscii(String s, int length) {
+		int i = 0;
+		for (; i <= length - 8; i += 8) {
+			if ((s.charAt(i) | s.charAt(i + 1) | s.charAt(i + 2) | s.charAt(i + 3) |
+					s.charAt(i + 4) | s.charAt(i + 5) | s.charAt(i + 6) | s.charAt(i + 7)) > 0x7F) {
+				return false;
+			}
+		}
+		int c = 0;
+		for (; i < length; i++) {
+			c |= s.charAt(i);
+		}
+		return c <= 0x7F;
+	}
+
+	/**
+	 * Writes low bytes of chars of a string, which is a plain array copy for compact Latin-1 strings
+	 */
+	@SuppressWarnings("deprecation")
+	private static int writeLowBytes(byte[] buf, int off, String s, int length) {
+		if (off + length > buf.length) {
+			throw new ArrayIndexOutOfBoundsException(off + length);
+		}
+		s.getBytes(0, length, buf, off);
+		return off + length;
+	}
+
 	private static byte writeUtf8char4(byte[] buf, int pos, char high, String s, int i) {
 		if (isHighSurrogate(high) && i + 1 < s.length()) {
 			char low = s.charAt(i + 1);
@@ -282,6 +316,9 @@ public final class BinaryOutputUtils {
 	public static int writeUTF8mb3(byte[] buf, int off, String s) {
 		int length = s.length();
 		off = writeVarInt(buf, off, length);
+		if (isAscii(s, length)) {
+			return writeLowBytes(buf, off, s, length);
+		}
 		for (int i = 0; i < length; i++) {
 			int c = s.charAt(i);
 			if (c <= 0x007F) {
@@ -301,6 +338,9 @@ public final class BinaryOutputUtils {
 		}
 		int length = s.length();
 		off = writeVarInt(buf, off, length + 1);
+		if (isAscii(s, length)) {
+			return writeLowBytes(buf, off, s, length);
+		}
 		for (int i = 0; i < length; i++) {
 			int c = s.charAt(i);
 			if (c <= 0x007F) {
@@ -0,0 +1,184 @@
+package io.activej.serializer;
+
+import io.activej.serializer.annotations.Deserialize;
+import io.activej.serializer.annotations.Serialize;
+import io.activej.serializer.annotations.SerializeNullable;
+import io.activej.test.rules.ClassBuilderConstantsRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.activej.serializer.Utils.DEFINING_CLASS_LOADER;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.*;
+
+public class BatchSerializerTest {
+	@Rule
+	public final ClassBuilderConstantsRule classBuilderConstantsRule = new ClassBuilderConstantsRule();
+
+	public static class Record {
+		@Serialize
+		public long timestamp;
+
+		@Serialize
+		public int value;
+
+		@Serialize
+		@SerializeNullable
+		public String site;
+
+		@Serialize
+		public double price;
+
+		@Serialize
+		public List<String> tags;
+	}
+
+	public static class ImmutableRecord {
+		private final int id;
+		private final String name;
+
+		public ImmutableRecord(@Deserialize("id") int id, @Deserialize("name") String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		@Serialize
+		public int getId() {
+			return id;
+		}
+
+		@Serialize
+		public String getName() {
+			return name;
+		}
+	}
+
+	public static class VersionedRecord {
+		@Serialize(added = 1)
+		public int a;
+
+		@Serialize(added = 2)
+		public int b;
+	}
+
+	private static List<Record> records(int size) {
+		List<Record> records = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			Record record = new Record();
+			record.timestamp = 1_600_000_000_000L + i * 1000L;
+			record.value = -i;
+			record.site = i % 10 == 0 ? null : "site" + i % 3;
+			record.price = i * 0.5;
+			record.tags = asList("tag" + i, "tag");
+			records.add(record);
+		}
+		return records;
+	}
+
+	@Test
+	public void testEncodeDecode() {
+		BatchSerializer<Record> serializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildBatchSerializer(Record.class);
+
+		List<Record> records = records(100);
+		byte[] array = new byte[100_000];
+		int pos = serializer.encode(array, 0, records);
+
+		BinaryInput in = new BinaryInput(array, 0);
+		List<Record> decoded = serializer.decode(in);
+		assertEquals(pos, in.pos());
+		assertEquals(records.size(), decoded.size());
+		for (int i = 0; i < records.size(); i++) {
+			Record expected = records.get(i);
+			Record actual = decoded.get(i);
+			assertEquals(expected.timestamp, actual.timestamp);
+			assertEquals(expected.value, actual.value);
+			assertEquals(expected.site, actual.site);
+			assertEquals(expected.price, actual.price, 0);
+			assertEquals(expected.tags, actual.tags);
+		}
+	}
+
+	@Test
+	public void testSmallerThanRowEncoding() {
+		BatchSerializer<Record> batchSerializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildBatchSerializer(Record.class);
+		BinarySerializer<Record> serializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.build(Record.class);
+
+		List<Record> records = records(1000);
+		byte[] array = new byte[1_000_000];
+		int rowSize = 0;
+		for (Record record : records) {
+			rowSize = serializer.encode(array, rowSize, record);
+		}
+		int batchSize = batchSerializer.encode(array, 0, records);
+
+		assertTrue(batchSize < rowSize * 3 / 4);
+	}
+
+	@Test
+	public void testConstructor() {
+		BatchSerializer<ImmutableRecord> serializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildBatchSerializer(ImmutableRecord.class);
+
+		List<ImmutableRecord> records = asList(new ImmutableRecord(1, "a"), new ImmutableRecord(2, "b"), new ImmutableRecord(3, "a"));
+		byte[] array = new byte[1000];
+		serializer.encode(array, 0, records);
+
+		List<ImmutableRecord> decoded = serializer.decode(array, 0);
+		assertEquals(3, decoded.size());
+		for (int i = 0; i < records.size(); i++) {
+			assertEquals(records.get(i).getId(), decoded.get(i).getId());
+			assertEquals(records.get(i).getName(), decoded.get(i).getName());
+		}
+	}
+
+	@Test
+	public void testVersions() {
+		BatchSerializer<VersionedRecord> serializer1 = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.withEncodeVersion(1)
+				.buildBatchSerializer(VersionedRecord.class);
+		BatchSerializer<VersionedRecord> serializer2 = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildBatchSerializer(VersionedRecord.class);
+
+		VersionedRecord record = new VersionedRecord();
+		record.a = 1;
+		record.b = 2;
+
+		byte[] array = new byte[100];
+		assertEquals(1 + 2, serializer1.encode(array, 0, asList(record)));
+		assertEquals(1 + 2 + 2, serializer2.encode(array, 0, asList(record)));
+
+		VersionedRecord decoded = serializer2.decode(array, 0).get(0);
+		assertEquals(1, decoded.a);
+		assertEquals(2, decoded.b);
+	}
+
+	@Test
+	public void testEmptyBatch() {
+		BatchSerializer<Record> serializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildBatchSerializer(Record.class);
+
+		byte[] array = new byte[100];
+		serializer.encode(array, 0, emptyList());
+		assertEquals(emptyList(), serializer.decode(array, 0));
+	}
+
+	@Test
+	public void testUnknownEncoding() {
+		BatchSerializer<VersionedRecord> serializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildBatchSerializer(VersionedRecord.class);
+
+		try {
+			serializer.decode(new byte[]{1, 10, 0}, 0);
+			fail();
+		} catch (CorruptedDataException e) {
+			assertEquals("Unknown encoding of int column: 10", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package io.activej.serializer;
+
+import io.activej.serializer.annotations.Deserialize;
+import io.activej.serializer.annotations.Serialize;
+import io.activej.serializer.annotations.SerializeNullable;
+import io.activej.serializer.annotations.SerializeStringFormat;
+import io.activej.test.rules.ClassBuilderConstantsRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.activej.serializer.StringFormat.UTF16;
+import static io.activej.serializer.Utils.DEFINING_CLASS_LOADER;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class BinaryViewTest {
+	@Rule
+	public final ClassBuilderConstantsRule classBuilderConstantsRule = new ClassBuilderConstantsRule();
+
+	public static class Record {
+		@Serialize
+		public String name;
+
+		@Serialize
+		@SerializeNullable
+		public String comment;
+
+		@Serialize
+		@SerializeStringFormat(UTF16)
+		public String title;
+
+		@Serialize
+		public List<Integer> values;
+
+		@Serialize
+		public int key;
+
+		@Serialize
+		public boolean active;
+	}
+
+	public interface RecordView extends BinaryView {
+		int getKey();
+
+		boolean isActive();
+
+		String name();
+
+		List<Integer> getValues();
+	}
+
+	public interface KeyView extends BinaryView {
+		int getKey();
+	}
+
+	public static class ImmutableRecord {
+		private final long id;
+		private final String name;
+
+		public ImmutableRecord(@Deserialize("id") long id, @Deserialize("name") String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		@Serialize
+		public long getId() {
+			return id;
+		}
+
+		@Serialize
+		public String getName() {
+			return name;
+		}
+	}
+
+	public interface ImmutableRecordView extends BinaryView {
+		String getName();
+	}
+
+	public static class VersionedRecord {
+		@Serialize(added = 1)
+		public String a;
+
+		@Serialize(added = 2)
+		public int b;
+	}
+
+	public interface VersionedRecordView extends BinaryView {
+		int getB();
+	}
+
+	public interface InvalidView extends BinaryView {
+		long getKey();
+	}
+
+	private static Record record(String name, String comment, int key) {
+		Record record = new Record();
+		record.name = name;
+		record.comment = comment;
+		record.title = "title " + name;
+		record.values = asList(key, key + 1);
+		record.key = key;
+		record.active = key % 2 == 0;
+		return record;
+	}
+
+	@Test
+	public void testView() {
+		SerializerBuilder builder = SerializerBuilder.create(DEFINING_CLASS_LOADER);
+		BinarySerializer<Record> serializer = builder.build(Record.class);
+		RecordView view = builder.buildView(Record.class, RecordView.class);
+
+		byte[] array = new byte[1000];
+		int pos1 = serializer.encode(array, 0, record("first", null, 10));
+		int pos2 = serializer.encode(array, pos1, record("second", "comment", 11));
+
+		view.wrap(array, 0);
+		assertEquals(10, view.getKey());
+		assertTrue(view.isActive());
+		assertEquals("first", view.name());
+		assertEquals(asList(10, 11), view.getValues());
+		assertEquals(pos1, view.end());
+
+		view.wrap(array, pos1);
+		assertEquals(pos2, view.end());
+		assertEquals(11, view.getKey());
+		assertFalse(view.isActive());
+		assertEquals("second", view.name());
+	}
+
+	@Test
+	public void testSkipWithoutDecoding() {
+		SerializerBuilder builder = SerializerBuilder.create(DEFINING_CLASS_LOADER);
+		BinarySerializer<Record> serializer = builder.build(Record.class);
+		KeyView view = builder.buildView(Record.class, KeyView.class);
+
+		byte[] array = new byte[1000];
+		int end = serializer.encode(array, 0, record("name", "comment", 42));
+
+		view.wrap(array, 0);
+		assertEquals(42, view.getKey());
+		assertEquals(end, view.end());
+	}
+
+	@Test
+	public void testConstructor() {
+		SerializerBuilder builder = SerializerBuilder.create(DEFINING_CLASS_LOADER);
+		BinarySerializer<ImmutableRecord> serializer = builder.build(ImmutableRecord.class);
+		ImmutableRecordView view = builder.buildView(ImmutableRecord.class, ImmutableRecordView.class);
+
+		byte[] array = new byte[1000];
+		serializer.encode(array, 0, new ImmutableRecord(100, "abc"));
+
+		view.wrap(array, 0);
+		assertEquals("abc", view.getName());
+	}
+
+	@Test
+	public void testVersions() {
+		SerializerBuilder builder = SerializerBuilder.create(DEFINING_CLASS_LOADER);
+		BinarySerializer<VersionedRecord> serializer = builder.build(VersionedRecord.class);
+		VersionedRecordView view = builder.buildView(VersionedRecord.class, VersionedRecordView.class);
+
+		VersionedRecord record = new VersionedRecord();
+		record.a = "a";
+		record.b = 2;
+
+		byte[] array = new byte[1000];
+		serializer.encode(array, 0, record);
+		view.wrap(array, 0);
+		assertEquals(2, view.getB());
+
+		BinarySerializer<VersionedRecord> serializer1 = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.withEncodeVersion(1)
+				.build(VersionedRecord.class);
+		serializer1.encode(array, 0, record);
+		try {
+			view.wrap(array, 0);
+			fail();
+		} catch (CorruptedDataException e) {
+			assertEquals("Unsupported version: 1, supported version: 2", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testUntaggedVersion() {
+		SerializerBuilder builder = SerializerBuilder.create(DEFINING_CLASS_LOADER);
+		SchemaSerializer<VersionedRecord> schemaSerializer = builder.buildSchemaSerializer(VersionedRecord.class);
+		VersionedRecordView view = builder.buildView(VersionedRecord.class, VersionedRecordView.class, 2);
+
+		VersionedRecord record = new VersionedRecord();
+		record.a = "a";
+		record.b = 2;
+
+		byte[] array = new byte[1000];
+		int end = schemaSerializer.getSerializer().encode(array, 0, record);
+		view.wrap(array, 0);
+		assertEquals(2, view.getB());
+		assertEquals(end, view.end());
+	}
+
+	@Test
+	public void testInvalidView() {
+		try {
+			SerializerBuilder.create(DEFINING_CLASS_LOADER).buildView(Record.class, InvalidView.class);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Return type of view method"));
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package io.activej.serializer;
+
+import io.activej.serializer.annotations.Serialize;
+import io.activej.test.rules.ClassBuilderConstantsRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static io.activej.serializer.Utils.DEFINING_CLASS_LOADER;
+import static org.junit.Assert.*;
+
+public class SchemaSerializerTest {
+	@Rule
+	public final ClassBuilderConstantsRule classBuilderConstantsRule = new ClassBuilderConstantsRule();
+
+	public static class TestData {
+		@Serialize(added = 1)
+		public int a;
+
+		@Serialize(added = 1, removed = 2)
+		public String b;
+
+		@Serialize(added = 2)
+		public long c;
+	}
+
+	@Test
+	public void testDecodeOldVersion() {
+		SchemaSerializer<TestData> writer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.withEncodeVersion(1)
+				.buildSchemaSerializer(TestData.class);
+		SchemaSerializer<TestData> reader = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildSchemaSerializer(TestData.class);
+		assertEquals(1, writer.getVersion());
+		assertEquals(2, reader.getVersion());
+		assertNotEquals(writer.getFingerprint(), reader.getFingerprint());
+		assertEquals(writer.getFingerprint(), reader.getFingerprint(1));
+
+		TestData testData = new TestData();
+		testData.a = 10;
+		testData.b = "abc";
+		testData.c = 30;
+
+		byte[] array = new byte[100];
+		int pos = writer.getSerializer().encode(array, 0, testData);
+		assertEquals(4 + 1 + 3, pos); // int 'a' and string 'b', without a version tag
+
+		BinarySerializer<TestData> deserializer = reader.decodeHeader(writer.getHeader(), 0);
+		assertSame(deserializer, reader.decodeHeader(writer.getHeader(), 0));
+
+		TestData decoded = deserializer.decode(array, 0);
+		assertEquals(10, decoded.a);
+		assertEquals("abc", decoded.b);
+		assertEquals(0, decoded.c);
+	}
+
+	@Test
+	public void testCurrentVersion() {
+		SchemaSerializer<TestData> schemaSerializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildSchemaSerializer(TestData.class);
+
+		TestData testData = new TestData();
+		testData.a = 10;
+		testData.b = "abc";
+		testData.c = 30;
+
+		byte[] array = new byte[100];
+		schemaSerializer.getSerializer().encode(array, 0, testData);
+
+		BinarySerializer<TestData> deserializer = schemaSerializer.decodeHeader(schemaSerializer.getHeader(), 0);
+		assertSame(schemaSerializer.getSerializer(), deserializer);
+		TestData decoded = deserializer.decode(array, 0);
+		assertEquals(10, decoded.a);
+		assertNull(decoded.b);
+		assertEquals(30, decoded.c);
+	}
+
+	@Test
+	public void testFingerprintMismatch() {
+		SchemaSerializer<TestData> schemaSerializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildSchemaSerializer(TestData.class);
+
+		try {
+			schemaSerializer.getSerializer(1, schemaSerializer.getFingerprint());
+			fail();
+		} catch (CorruptedDataException e) {
+			assertTrue(e.getMessage().startsWith("Schema fingerprint mismatch"));
+		}
+	}
+
+	@Test
+	public void testUnsupportedVersion() {
+		SchemaSerializer<TestData> writer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.withEncodeVersion(1)
+				.buildSchemaSerializer(TestData.class);
+		SchemaSerializer<TestData> reader = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.withDecodeVersions(2, 2)
+				.buildSchemaSerializer(TestData.class);
+
+		try {
+			reader.decodeHeader(writer.getHeader(), 0);
+			fail();
+		} catch (CorruptedDataException e) {
+			assertTrue(e.getMessage().startsWith("Unsupported version"));
+		}
+	}
+
+	@Test
+	public void testTruncatedHeader() {
+		SchemaSerializer<TestData> schemaSerializer = SerializerBuilder.create(DEFINING_CLASS_LOADER)
+				.buildSchemaSerializer(TestData.class);
+
+		try {
+			schemaSerializer.decodeHeader(new byte[]{2, 0, 0}, 0);
+			fail();
+		} catch (CorruptedDataException e) {
+			assertEquals("Truncated schema header", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package io.activej.serializer.util;
+
+import io.activej.serializer.BinaryInput;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.activej.serializer.util.BinaryOutputUtils.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("deprecation")
+public class BinaryOutputUtilsTest {
+	private static List<String> strings() {
+		List<String> strings = new ArrayList<>();
+		strings.add("");
+		for (int length : new int[]{1, 7, 8, 9, 16, 127, 128, 300}) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < length; i++) {
+				sb.append((char) ('a' + i % 26));
+			}
+			String ascii = sb.toString();
+			strings.add(ascii);
+			for (int i : new int[]{0, length / 2, length - 1}) {
+				strings.add(ascii.substring(0, i) + 'é' + ascii.substring(i + 1));
+				strings.add(ascii.substring(0, i) + '€' + ascii.substring(i + 1));
+				strings.add(ascii.substring(0, i) + 'Ā' + ascii.substring(i + 1));
+			}
+		}
+		return strings;
+	}
+
+	@Test
+	public void testUTF8() {
+		byte[] array = new byte[2000];
+		for (String s : strings()) {
+			int pos = writeUTF8(array, 1, s);
+			BinaryInput in = new BinaryInput(array, 1);
+			assertEquals(s, in.readUTF8());
+			assertEquals(pos, in.pos());
+
+			pos = writeUTF8Nullable(array, 1, s);
+			in = new BinaryInput(array, 1);
+			assertEquals(s, in.readUTF8Nullable());
+			assertEquals(pos, in.pos());
+		}
+	}
+
+	@Test
+	public void testUTF8mb3() {
+		byte[] array = new byte[2000];
+		for (String s : strings()) {
+			int pos = writeUTF8mb3(array, 1, s);
+			BinaryInput in = new BinaryInput(array, 1);
+			assertEquals(s, in.readUTF8mb3());
+			assertEquals(pos, in.pos());
+
+			pos = writeUTF8mb3Nullable(array, 1, s);
+			in = new BinaryInput(array, 1);
+			assertEquals(s, in.readUTF8mb3Nullable());
+			assertEquals(pos, in.pos());
+		}
+	}
+
+	@Test
+	public void testIso88591() {
+		byte[] array = new byte[2000];
+		for (String s : strings()) {
+			if (s.indexOf('€') != -1 || s.indexOf('Ā') != -1) continue;
+			int pos = writeIso88591(array, 1, s);
+			BinaryInput in = new BinaryInput(array, 1);
+			assertEquals(s, in.readIso88591());
+			assertEquals(pos, in.pos());
+
+			pos = writeIso88591Nullable(array, 1, s);
+			in = new BinaryInput(array, 1);
+			assertEquals(s, in.readIso88591Nullable());
+			assertEquals(pos, in.pos());
+		}
+	}
+
+	@Test
+	public void testOverflow() {
+		byte[] array = new byte[10];
+		try {
+			writeUTF8(array, 0, "Hello, World!");
+			fail();
+		} catch (ArrayIndexOutOfBoundsException ignored) {
+		}
+		try {
+			writeIso88591(array, 0, "Hello, World!");
+			fail();
+		} catch (ArrayIndexOutOfBoundsException ignored) {
+		}
+	}
+}